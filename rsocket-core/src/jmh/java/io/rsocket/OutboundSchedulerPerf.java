@@ -0,0 +1,195 @@
+package io.rsocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.keepalive.KeepAliveScheduler;
+import io.rsocket.outbound.OutboundQueue;
+import io.rsocket.outbound.OutboundScheduler;
+import io.rsocket.util.ByteBufPayload;
+import io.rsocket.util.DefaultPayload;
+import io.rsocket.util.EmptyPayload;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.*;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Request/response latency while a bulk stream saturates the same connection. The responder writes
+ * both the bulk stream and the responses, so with a first-in first-out send queue every response
+ * waits behind the bulk frames queued before it. The connection writes one frame at a time at
+ * roughly {@code 1 / nanosPerByte} GB/s.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class OutboundSchedulerPerf {
+
+  @Param({"fifo", "roundRobin", "weightedFair"})
+  String scheduler;
+
+  @Param({"16384"})
+  int bulkFrameSize;
+
+  @Param({"1"})
+  int nanosPerByte;
+
+  Scheduler clientWire;
+  Scheduler serverWire;
+  RSocketClient client;
+  RSocketServer server;
+  Disposable bulk;
+  ByteBuf bulkData;
+
+  @Setup
+  public void setup() {
+    OutboundScheduler outboundScheduler;
+    switch (scheduler) {
+      case "fifo":
+        outboundScheduler = OutboundScheduler.fifo();
+        break;
+      case "roundRobin":
+        outboundScheduler = OutboundScheduler.roundRobin();
+        break;
+      case "weightedFair":
+        outboundScheduler = OutboundScheduler.weightedFair(bulkFrameSize);
+        break;
+      default:
+        throw new IllegalArgumentException(scheduler);
+    }
+
+    bulkData = Unpooled.directBuffer(bulkFrameSize).writeZero(bulkFrameSize);
+    clientWire = Schedulers.newSingle("client-wire");
+    serverWire = Schedulers.newSingle("server-wire");
+    WireConnection clientConnection = new WireConnection(clientWire, nanosPerByte);
+    WireConnection serverConnection = new WireConnection(serverWire, nanosPerByte);
+    clientConnection.peer = serverConnection;
+    serverConnection.peer = clientConnection;
+
+    ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+    Consumer<Throwable> errorConsumer = Throwable::printStackTrace;
+    server =
+        new RSocketServer(
+            allocator,
+            serverConnection,
+            new AbstractRSocket() {
+              @Override
+              public Mono<Payload> requestResponse(Payload payload) {
+                payload.release();
+                return Mono.just(EmptyPayload.INSTANCE);
+              }
+
+              @Override
+              public Flux<Payload> requestStream(Payload payload) {
+                payload.release();
+                return Flux.generate(
+                    sink -> sink.next(ByteBufPayload.create(bulkData.retainedSlice())));
+              }
+            },
+            PayloadDecoder.DEFAULT,
+            errorConsumer,
+            0,
+            0,
+            KeepAliveScheduler.interval(),
+            0,
+            null,
+            new OutboundQueue(outboundScheduler.newQueue()));
+    client =
+        new RSocketClient(
+            allocator,
+            clientConnection,
+            PayloadDecoder.DEFAULT,
+            errorConsumer,
+            StreamIdSupplier.clientSupplier(),
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            KeepAliveScheduler.interval(),
+            0,
+            false,
+            new OutboundQueue(outboundScheduler.newQueue()));
+
+    bulk = client.requestStream(EmptyPayload.INSTANCE).limitRate(128).subscribe(Payload::release);
+  }
+
+  @TearDown
+  public void tearDown() {
+    bulk.dispose();
+    client.dispose();
+    server.dispose();
+    clientWire.dispose();
+    serverWire.dispose();
+    bulkData.release();
+  }
+
+  @Benchmark
+  public void requestResponse() {
+    client.requestResponse(DefaultPayload.create("ping")).block().release();
+  }
+
+  /**
+   * One direction of a connection that writes a frame at a time on its own thread, spending {@code
+   * nanosPerByte} for every byte before the peer receives it.
+   */
+  static final class WireConnection implements DuplexConnection {
+    final DirectProcessor<ByteBuf> received = DirectProcessor.create();
+    final MonoProcessor<Void> onClose = MonoProcessor.create();
+    final Scheduler wire;
+    final int nanosPerByte;
+    WireConnection peer;
+
+    WireConnection(Scheduler wire, int nanosPerByte) {
+      this.wire = wire;
+      this.nanosPerByte = nanosPerByte;
+    }
+
+    @Override
+    public Mono<Void> send(Publisher<ByteBuf> frames) {
+      return Flux.from(frames)
+          .publishOn(wire, 1)
+          .doOnNext(
+              frame -> {
+                long deadline = System.nanoTime() + (long) frame.readableBytes() * nanosPerByte;
+                while (System.nanoTime() < deadline) {
+                  // busy writing
+                }
+                peer.received.onNext(frame);
+              })
+          .then();
+    }
+
+    @Override
+    public Flux<ByteBuf> receive() {
+      return received;
+    }
+
+    @Override
+    public Mono<Void> onClose() {
+      return onClose;
+    }
+
+    @Override
+    public void dispose() {
+      onClose.onComplete();
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return onClose.isDisposed();
+    }
+  }
+}
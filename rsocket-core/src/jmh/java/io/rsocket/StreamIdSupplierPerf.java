@@ -0,0 +1,54 @@
+package io.rsocket;
+
+import io.rsocket.internal.ConcurrentIntObjectHashMap;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Allocates stream ids under churn: every operation allocates an id, registers the stream and
+ * removes the stream allocated {@code LIVE_STREAMS} operations earlier. The supplier starts close
+ * to the maximum stream id so measurements include wrapping around, with {@code pinnedStreams}
+ * long-lived streams occupying the ids right after the wrap point that have to be skipped.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class StreamIdSupplierPerf {
+  static final int LIVE_STREAMS = 1024;
+
+  @Param({"0", "65536"})
+  int pinnedStreams;
+
+  StreamIdSupplier supplier;
+  ConcurrentIntObjectHashMap<Object> streams;
+  int[] live;
+  int index;
+  Object stream = new Object();
+
+  @Setup
+  public void setup() {
+    streams = new ConcurrentIntObjectHashMap<>();
+    for (int i = 0; i < pinnedStreams; i++) {
+      streams.put(2 * i + 1, stream);
+    }
+    supplier = new StreamIdSupplier(Integer.MAX_VALUE - 2 * 1_000_000);
+    live = new int[LIVE_STREAMS];
+    for (int i = 0; i < LIVE_STREAMS; i++) {
+      live[i] = supplier.nextStreamId(streams);
+      streams.put(live[i], stream);
+    }
+  }
+
+  @Benchmark
+  public int allocate() {
+    int streamId = supplier.nextStreamId(streams);
+    streams.put(streamId, stream);
+    int slot = index++ & (LIVE_STREAMS - 1);
+    streams.remove(live[slot]);
+    live[slot] = streamId;
+    return streamId;
+  }
+}
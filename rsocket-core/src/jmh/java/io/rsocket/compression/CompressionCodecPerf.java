@@ -0,0 +1,109 @@
+package io.rsocket.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.nio.charset.StandardCharsets;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * CPU cost against bytes saved of the built-in codecs on JSON-like payloads. The {@code
+ * inputBytes} and {@code outputBytes} secondary results of {@code compress} give the compression
+ * ratio; data that does not get smaller counts as sent uncompressed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class CompressionCodecPerf {
+
+  @Param({"lz4", "lz4-dictionary", "deflate", "deflate-dictionary"})
+  String codec;
+
+  @Param({"128", "1024", "16384"})
+  int payloadSize;
+
+  CompressionCodec compressionCodec;
+  ByteBuf source;
+  ByteBuf compressed;
+  ByteBuf target;
+
+  @Setup
+  public void setup() {
+    byte[] dictionary = json(0, 4096).getBytes(StandardCharsets.UTF_8);
+    switch (codec) {
+      case "lz4":
+        compressionCodec = Lz4Codec.create();
+        break;
+      case "lz4-dictionary":
+        compressionCodec = Lz4Codec.create(dictionary);
+        break;
+      case "deflate":
+        compressionCodec = DeflateCodec.create();
+        break;
+      case "deflate-dictionary":
+        compressionCodec = DeflateCodec.create(DeflateCodec.DEFAULT_LEVEL, dictionary);
+        break;
+      default:
+        throw new IllegalArgumentException(codec);
+    }
+
+    ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+    source = allocator.buffer(payloadSize);
+    source.writeCharSequence(json(1000, payloadSize), StandardCharsets.UTF_8);
+    compressed = allocator.buffer(payloadSize);
+    target = allocator.buffer(payloadSize);
+    if (!compressionCodec.compress(source, compressed)) {
+      compressed.clear().writeBytes(source, source.readerIndex(), source.readableBytes());
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    source.release();
+    compressed.release();
+    target.release();
+  }
+
+  @Benchmark
+  public boolean compress(Ratio ratio) {
+    target.clear();
+    boolean smaller = compressionCodec.compress(source, target);
+    ratio.inputBytes += payloadSize;
+    ratio.outputBytes += smaller ? target.readableBytes() : payloadSize;
+    return smaller;
+  }
+
+  @Benchmark
+  public ByteBuf decompress() {
+    if (compressed.readableBytes() == payloadSize) {
+      return compressed;
+    }
+    target.clear();
+    compressionCodec.decompress(compressed, target, payloadSize);
+    return target;
+  }
+
+  static String json(int firstId, int length) {
+    StringBuilder builder = new StringBuilder(length);
+    for (int i = firstId; builder.length() < length; i++) {
+      builder
+          .append("{\"id\":")
+          .append(i)
+          .append(",\"symbol\":\"RSKT\",\"price\":")
+          .append(100 + i % 17)
+          .append(".25,\"side\":\"BUY\"},");
+    }
+    builder.setLength(length);
+    return builder.toString();
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Ratio {
+    public long inputBytes;
+    public long outputBytes;
+  }
+}
@@ -0,0 +1,127 @@
+package io.rsocket.fragmentation;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.DuplexConnection;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.FrameType;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Frames per second sent through a {@link FragmentationDuplexConnection}, comparing the lazy
+ * fragmenting send path with the {@code concatMap} of one {@code Mono} per frame it replaced.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class FragmentationSendPerf {
+  static final int MTU = 16 * 1024;
+
+  @Param({"concatMap", "fragmenting"})
+  String send;
+
+  @Param({"128", "65536"})
+  int frameSize;
+
+  ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+  DirectProcessor<ByteBuf> frames;
+  ByteBuf frame;
+
+  @Setup
+  public void setup(Blackhole bh) {
+    SinkConnection sink = new SinkConnection(bh);
+    frames = DirectProcessor.create();
+    switch (send) {
+      case "concatMap":
+        new ConcatMapFragmentation(sink, allocator).send(frames).subscribe();
+        break;
+      case "fragmenting":
+        new FragmentationDuplexConnection(sink, allocator, MTU, false).send(frames).subscribe();
+        break;
+      default:
+        throw new IllegalArgumentException(send);
+    }
+    ByteBuf data = allocator.directBuffer(frameSize);
+    data.writerIndex(frameSize);
+    frame = PayloadFrameFlyweight.encode(allocator, 1, false, false, true, null, data);
+  }
+
+  @TearDown
+  public void tearDown() {
+    frames.onComplete();
+    frame.release();
+  }
+
+  @Benchmark
+  public void sendFrame() {
+    frames.onNext(frame.retainedDuplicate());
+  }
+
+  /** The send path before fragmentation was done lazily. */
+  static final class ConcatMapFragmentation {
+    final DuplexConnection delegate;
+    final ByteBufAllocator allocator;
+
+    ConcatMapFragmentation(DuplexConnection delegate, ByteBufAllocator allocator) {
+      this.delegate = delegate;
+      this.allocator = allocator;
+    }
+
+    Mono<Void> send(Publisher<ByteBuf> frames) {
+      return Flux.from(frames).concatMap(this::sendOne).then();
+    }
+
+    Mono<Void> sendOne(ByteBuf frame) {
+      FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+      if (frameType.isFragmentable() && frame.readableBytes() > MTU) {
+        return delegate.send(
+            FrameFragmenter.fragmentFrame(allocator, MTU, frame, frameType, false));
+      } else {
+        return delegate.sendOne(frame);
+      }
+    }
+  }
+
+  /** A connection that releases the frames it is asked to send. */
+  static final class SinkConnection implements DuplexConnection {
+    final Blackhole bh;
+
+    SinkConnection(Blackhole bh) {
+      this.bh = bh;
+    }
+
+    @Override
+    public Mono<Void> send(Publisher<ByteBuf> frames) {
+      return Flux.from(frames)
+          .doOnNext(
+              frame -> {
+                bh.consume(frame);
+                frame.release();
+              })
+          .then();
+    }
+
+    @Override
+    public Flux<ByteBuf> receive() {
+      return Flux.never();
+    }
+
+    @Override
+    public Mono<Void> onClose() {
+      return Mono.never();
+    }
+
+    @Override
+    public void dispose() {}
+  }
+}
@@ -0,0 +1,89 @@
+package io.rsocket.fragmentation;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.frame.FrameType;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+/**
+ * Receives a large {@code NEXT} payload in fragments, either reassembling it or passing the
+ * fragments on as chunks. Besides the throughput, the peak number of bytes held by incomplete
+ * frames is reported as {@code peakBufferedBytes}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class FrameReassemblerPerf {
+  static final int MTU = 16 * 1024;
+
+  @Param({"buffered", "streaming"})
+  String mode;
+
+  @Param({"1048576", "16777216"})
+  int payloadSize;
+
+  ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+  FrameReassembler reassembler;
+  ByteBuf frame;
+
+  @Setup
+  public void setup() {
+    reassembler =
+        new FrameReassembler(
+            allocator,
+            Integer.MAX_VALUE,
+            Long.MAX_VALUE,
+            "streaming".equals(mode),
+            ByteBuf::release);
+    ByteBuf data = allocator.directBuffer(payloadSize);
+    data.writerIndex(payloadSize);
+    frame = PayloadFrameFlyweight.encode(allocator, 1, false, false, true, null, data);
+  }
+
+  @TearDown
+  public void tearDown() {
+    frame.release();
+    reassembler.dispose();
+  }
+
+  @Benchmark
+  public void receive(Counters counters, Blackhole bh) {
+    Flux.from(
+            FrameFragmenter.fragmentFrame(
+                allocator, MTU, frame.retainedDuplicate(), FrameType.NEXT, false))
+        .<ByteBuf>handle(
+            (fragment, sink) -> {
+              reassembler.reassembleFrame(fragment, sink);
+              counters.buffered(reassembler.bufferedBytes());
+            })
+        .subscribe(
+            byteBuf -> {
+              bh.consume(byteBuf);
+              byteBuf.release();
+            });
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+    public long peakBufferedBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      peakBufferedBytes = 0;
+    }
+
+    void buffered(long bytes) {
+      if (bytes > peakBufferedBytes) {
+        peakBufferedBytes = bytes;
+      }
+    }
+  }
+}
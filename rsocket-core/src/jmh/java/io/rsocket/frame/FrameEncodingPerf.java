@@ -0,0 +1,66 @@
+package io.rsocket.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares encoding a request frame and its length prefix as a chain of composite buffers against
+ * copying small payloads into a single buffer, as selected by {@code frameCopyThreshold}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class FrameEncodingPerf {
+
+  @Benchmark
+  public void encodeRequestResponse(Input input) {
+    ByteBuf frame =
+        RequestResponseFrameFlyweight.encode(
+            input.allocator,
+            1,
+            false,
+            input.metadata.retainedSlice(),
+            input.data.retainedSlice(),
+            input.copyThreshold);
+    ByteBuf lengthPrefixed =
+        FrameLengthFlyweight.encode(input.allocator, frame.readableBytes(), frame);
+    input.bh.consume(lengthPrefixed.nioBufferCount());
+    lengthPrefixed.release();
+  }
+
+  @State(Scope.Benchmark)
+  public static class Input {
+    @Param({"0", "1024"})
+    int copyThreshold;
+
+    @Param({"16", "128", "512", "4096"})
+    int size;
+
+    Blackhole bh;
+    ByteBufAllocator allocator;
+    ByteBuf metadata;
+    ByteBuf data;
+
+    @Setup
+    public void setup(Blackhole bh) {
+      this.bh = bh;
+      this.allocator = PooledByteBufAllocator.DEFAULT;
+      this.metadata = Unpooled.directBuffer(size).writeZero(size);
+      this.data = Unpooled.directBuffer(size).writeZero(size);
+    }
+
+    @TearDown
+    public void teardown() {
+      metadata.release();
+      data.release();
+    }
+  }
+}
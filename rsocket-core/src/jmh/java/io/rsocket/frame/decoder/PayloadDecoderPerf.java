@@ -0,0 +1,79 @@
+package io.rsocket.frame.decoder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class PayloadDecoderPerf {
+
+  @Benchmark
+  public void decode(Input input) {
+    Payload payload = input.decoder.apply(input.frame);
+    input.bh.consume(payload.data());
+    payload.release();
+  }
+
+  @State(Scope.Benchmark)
+  public static class Input {
+    @Param({"default", "pooled", "zeroCopy"})
+    String decoderType;
+
+    @Param({"16", "128", "1024", "8192", "65536", "1048576"})
+    int size;
+
+    Blackhole bh;
+    PayloadDecoder decoder;
+    ByteBuf frame;
+
+    @Setup
+    public void setup(Blackhole bh) {
+      this.bh = bh;
+      switch (decoderType) {
+        case "default":
+          decoder = PayloadDecoder.DEFAULT;
+          break;
+        case "pooled":
+          decoder = new PooledPayloadDecoder(PooledByteBufAllocator.DEFAULT);
+          break;
+        case "zeroCopy":
+          decoder = PayloadDecoder.ZERO_COPY;
+          break;
+        default:
+          throw new IllegalArgumentException(decoderType);
+      }
+
+      // Encode a payload with equally sized metadata and data and then copy it a single bytebuf,
+      // as a transport would hand it to the decoder
+      ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+      frame = allocator.buffer();
+      ByteBuf encode =
+          PayloadFrameFlyweight.encode(
+              allocator,
+              100,
+              false,
+              false,
+              true,
+              Unpooled.wrappedBuffer(new byte[size]),
+              Unpooled.wrappedBuffer(new byte[size]));
+      frame.writeBytes(encode);
+      encode.release();
+    }
+
+    @TearDown
+    public void teardown() {
+      frame.release();
+    }
+  }
+}
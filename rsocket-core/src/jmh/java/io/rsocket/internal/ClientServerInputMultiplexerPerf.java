@@ -0,0 +1,145 @@
+package io.rsocket.internal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.DuplexConnection;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import io.rsocket.plugins.DuplexConnectionInterceptor.Type;
+import io.rsocket.plugins.PluginRegistry;
+import io.rsocket.util.EmptyPayload;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.publisher.Operators;
+
+/**
+ * Frames per second routed from a connection to the requester and responder sides, comparing the
+ * {@link ClientServerInputMultiplexer} with the {@code groupBy} routing it replaced.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class ClientServerInputMultiplexerPerf {
+
+  @Param({"groupBy", "direct"})
+  String router;
+
+  SourceConnection source;
+  ByteBuf clientFrame;
+  ByteBuf serverFrame;
+
+  @Setup
+  public void setup(Blackhole bh) {
+    source = new SourceConnection();
+    clientFrame =
+        PayloadFrameFlyweight.encodeNextComplete(
+            ByteBufAllocator.DEFAULT, 1, EmptyPayload.INSTANCE);
+    serverFrame =
+        PayloadFrameFlyweight.encodeNextComplete(
+            ByteBufAllocator.DEFAULT, 2, EmptyPayload.INSTANCE);
+
+    switch (router) {
+      case "groupBy":
+        GroupByMultiplexer groupBy = new GroupByMultiplexer(source);
+        groupBy.client.flatMapMany(f -> f).subscribe(bh::consume);
+        groupBy.server.flatMapMany(f -> f).subscribe(bh::consume);
+        break;
+      case "direct":
+        ClientServerInputMultiplexer multiplexer =
+            new ClientServerInputMultiplexer(source, new PluginRegistry());
+        multiplexer.asClientConnection().receive().subscribe(bh::consume);
+        multiplexer.asServerConnection().receive().subscribe(bh::consume);
+        break;
+      default:
+        throw new IllegalArgumentException(router);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    clientFrame.release();
+    serverFrame.release();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(2)
+  public void route() {
+    source.actual.onNext(clientFrame);
+    source.actual.onNext(serverFrame);
+  }
+
+  /** The routing of the multiplexer before it dispatched frames directly. */
+  static final class GroupByMultiplexer {
+    final MonoProcessor<Flux<ByteBuf>> streamZero = MonoProcessor.create();
+    final MonoProcessor<Flux<ByteBuf>> server = MonoProcessor.create();
+    final MonoProcessor<Flux<ByteBuf>> client = MonoProcessor.create();
+
+    GroupByMultiplexer(DuplexConnection source) {
+      source
+          .receive()
+          .groupBy(
+              frame -> {
+                int streamId = FrameHeaderFlyweight.streamId(frame);
+                if (streamId == 0) {
+                  return Type.STREAM_ZERO;
+                } else if ((streamId & 0b1) == 0) {
+                  return Type.SERVER;
+                } else {
+                  return Type.CLIENT;
+                }
+              })
+          .subscribe(
+              group -> {
+                switch (group.key()) {
+                  case STREAM_ZERO:
+                    streamZero.onNext(group);
+                    break;
+                  case SERVER:
+                    server.onNext(group);
+                    break;
+                  case CLIENT:
+                    client.onNext(group);
+                    break;
+                }
+              });
+    }
+  }
+
+  /** A connection whose frames are pushed by the benchmark thread. */
+  static final class SourceConnection extends Flux<ByteBuf> implements DuplexConnection {
+    CoreSubscriber<? super ByteBuf> actual;
+
+    @Override
+    public void subscribe(CoreSubscriber<? super ByteBuf> actual) {
+      this.actual = actual;
+      actual.onSubscribe(Operators.emptySubscription());
+    }
+
+    @Override
+    public Mono<Void> send(Publisher<ByteBuf> frames) {
+      return Mono.never();
+    }
+
+    @Override
+    public Flux<ByteBuf> receive() {
+      return this;
+    }
+
+    @Override
+    public Mono<Void> onClose() {
+      return Mono.never();
+    }
+
+    @Override
+    public void dispose() {}
+  }
+}
@@ -0,0 +1,138 @@
+package io.rsocket.internal;
+
+import io.netty.util.collection.IntObjectHashMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the stream maps used by {@code RSocketClient} and {@code RSocketServer} under
+ * multi-threaded stream churn: every operation registers a stream, looks it up as an incoming frame
+ * would, and removes it after a short window of live streams.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StreamMapPerf {
+
+  static final int LIVE_STREAMS = 1024;
+
+  @Param({"synchronized", "concurrent"})
+  String map;
+
+  StreamMap streams;
+
+  AtomicInteger threadIds = new AtomicInteger();
+
+  @Setup
+  public void setup() {
+    switch (map) {
+      case "synchronized":
+        streams = new SynchronizedStreamMap();
+        break;
+      case "concurrent":
+        streams = new ConcurrentStreamMap();
+        break;
+      default:
+        throw new IllegalArgumentException(map);
+    }
+  }
+
+  @Benchmark
+  public void putGetRemove(ThreadState state, Blackhole bh) {
+    int streamId = state.nextStreamId();
+    streams.put(streamId, state.value);
+    bh.consume(streams.get(streamId));
+    bh.consume(streams.remove(streamId - LIVE_STREAMS * state.step));
+  }
+
+  @Benchmark
+  public void get(ThreadState state, Blackhole bh) {
+    bh.consume(streams.get(state.liveStreamId()));
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    final Object value = new Object();
+    int step;
+    int base;
+    int counter;
+
+    @Setup
+    public void setup(StreamMapPerf perf) {
+      // each thread owns a disjoint sequence of stream ids, like streams on one connection
+      int threads = 64;
+      step = threads * 2;
+      base = perf.threadIds.getAndIncrement() * 2 + 1;
+      for (int i = 0; i < LIVE_STREAMS; i++) {
+        perf.streams.put(nextStreamId(), value);
+      }
+    }
+
+    int nextStreamId() {
+      int id = base + step * counter++;
+      if (id < 0) {
+        counter = 0;
+        id = base;
+      }
+      return id;
+    }
+
+    int liveStreamId() {
+      return base + step * (counter++ & (LIVE_STREAMS - 1));
+    }
+  }
+
+  interface StreamMap {
+    Object put(int streamId, Object value);
+
+    Object get(int streamId);
+
+    Object remove(int streamId);
+  }
+
+  static final class SynchronizedStreamMap implements StreamMap {
+    final Map<Integer, Object> map = Collections.synchronizedMap(new IntObjectHashMap<>());
+
+    @Override
+    public Object put(int streamId, Object value) {
+      return map.put(streamId, value);
+    }
+
+    @Override
+    public Object get(int streamId) {
+      return map.get(streamId);
+    }
+
+    @Override
+    public Object remove(int streamId) {
+      return map.remove(streamId);
+    }
+  }
+
+  static final class ConcurrentStreamMap implements StreamMap {
+    final ConcurrentIntObjectHashMap<Object> map = new ConcurrentIntObjectHashMap<>();
+
+    @Override
+    public Object put(int streamId, Object value) {
+      return map.put(streamId, value);
+    }
+
+    @Override
+    public Object get(int streamId) {
+      return map.get(streamId);
+    }
+
+    @Override
+    public Object remove(int streamId) {
+      return map.remove(streamId);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package io.rsocket.keepalive;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.Disposable;
+
+/**
+ * Measures how much keep-alive scheduling for many idle connections slows down application work,
+ * and the cost of registering a connection with the scheduler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class KeepAliveSchedulerPerf {
+
+  @Param({"interval", "hashedWheel"})
+  String scheduler;
+
+  @Param({"1000", "10000", "100000"})
+  int connections;
+
+  /** Keep-alive tick period, short so the benchmark observes many ticks per iteration. */
+  @Param({"100"})
+  long tickPeriodMillis;
+
+  KeepAliveScheduler keepAliveScheduler;
+
+  Disposable[] ticks;
+
+  volatile long lastTick;
+
+  @Setup
+  public void setup() {
+    switch (scheduler) {
+      case "interval":
+        keepAliveScheduler = KeepAliveScheduler.interval();
+        break;
+      case "hashedWheel":
+        keepAliveScheduler = KeepAliveScheduler.hashedWheel();
+        break;
+      default:
+        throw new IllegalArgumentException(scheduler);
+    }
+
+    ticks = new Disposable[connections];
+    for (int i = 0; i < connections; i++) {
+      ticks[i] =
+          keepAliveScheduler.schedulePeriodically(
+              () -> lastTick = keepAliveScheduler.currentTimeMillis(), tickPeriodMillis);
+    }
+  }
+
+  @TearDown
+  public void teardown() {
+    for (Disposable tick : ticks) {
+      tick.dispose();
+    }
+    keepAliveScheduler.dispose();
+  }
+
+  @Benchmark
+  public void applicationWork() {
+    Blackhole.consumeCPU(1000);
+  }
+
+  @Benchmark
+  public void connect(Blackhole bh) {
+    Disposable tick = keepAliveScheduler.schedulePeriodically(() -> {}, tickPeriodMillis);
+    bh.consume(keepAliveScheduler.currentTimeMillis());
+    tick.dispose();
+  }
+}
@@ -0,0 +1,77 @@
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.util.List;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Appends frames as a resumable connection sends them and trims them as acknowledgements arrive a
+ * window of frames later. Frames are allocated from the pooled allocator and released after being
+ * stored, as the transport does after writing them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class ResumeStorePerf {
+  static final int WINDOW = 16 * 1024;
+
+  @Param({"retaining", "ringOffHeap"})
+  String store;
+
+  @Param({"64", "1024"})
+  int frameSize;
+
+  ResumeStore resumeStore;
+  byte[] content;
+  long position;
+
+  @Setup
+  public void setup() {
+    int maxBytes = 64 * 1024 * 1024;
+    switch (store) {
+      case "retaining":
+        resumeStore = ResumeStore.retaining(ResumePositionCounter.size(), maxBytes);
+        break;
+      case "ringOffHeap":
+        resumeStore = RingBufferResumeStore.offHeap(maxBytes);
+        break;
+      default:
+        throw new IllegalArgumentException(store);
+    }
+    content = new byte[frameSize];
+  }
+
+  @TearDown
+  public void tearDown() {
+    resumeStore.clear();
+  }
+
+  @Benchmark
+  public void appendAndTrim() {
+    ByteBuf frame = ByteBufAllocator.DEFAULT.directBuffer(frameSize);
+    frame.writeBytes(content);
+    resumeStore.append(position, frame);
+    frame.release();
+    position += frameSize;
+    resumeStore.trim(position - (long) WINDOW * frameSize);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(WINDOW)
+  public void resendWindow(Blackhole bh) {
+    while (position < (long) WINDOW * frameSize) {
+      appendAndTrim();
+    }
+    List<ByteBuf> frames = resumeStore.framesFrom(position - (long) WINDOW * frameSize);
+    for (ByteBuf frame : frames) {
+      bh.consume(frame.getByte(0));
+      frame.release();
+    }
+  }
+}
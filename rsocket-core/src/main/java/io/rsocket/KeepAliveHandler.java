@@ -4,6 +4,7 @@
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.rsocket.frame.KeepAliveFrameFlyweight;
+import io.rsocket.keepalive.KeepAliveScheduler;
 import java.time.Duration;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
@@ -13,25 +14,26 @@
 
 abstract class KeepAliveHandler implements Disposable {
   private final KeepAlive keepAlive;
+  private final KeepAliveScheduler scheduler;
   private final UnicastProcessor<ByteBuf> sent = UnicastProcessor.create();
   private final MonoProcessor<KeepAlive> timeout = MonoProcessor.create();
   private Disposable intervalDisposable;
   private volatile long lastReceivedMillis;
 
-  private KeepAliveHandler(KeepAlive keepAlive) {
+  private KeepAliveHandler(KeepAlive keepAlive, KeepAliveScheduler scheduler) {
     this.keepAlive = keepAlive;
-    this.lastReceivedMillis = System.currentTimeMillis();
+    this.scheduler = scheduler;
+    this.lastReceivedMillis = scheduler.currentTimeMillis();
     this.intervalDisposable =
-        Flux.interval(Duration.ofMillis(keepAlive.getTickPeriod()))
-            .subscribe(v -> onIntervalTick());
+        scheduler.schedulePeriodically(this::onIntervalTick, keepAlive.getTickPeriod());
   }
 
-  static KeepAliveHandler ofServer(KeepAlive keepAlive) {
-    return new KeepAliveHandler.Server(keepAlive);
+  static KeepAliveHandler ofServer(KeepAlive keepAlive, KeepAliveScheduler scheduler) {
+    return new KeepAliveHandler.Server(keepAlive, scheduler);
   }
 
-  static KeepAliveHandler ofClient(KeepAlive keepAlive) {
-    return new KeepAliveHandler.Client(keepAlive);
+  static KeepAliveHandler ofClient(KeepAlive keepAlive, KeepAliveScheduler scheduler) {
+    return new KeepAliveHandler.Client(keepAlive, scheduler);
   }
 
   @Override
@@ -42,7 +44,7 @@ public void dispose() {
   }
 
   public void receive(ByteBuf keepAliveFrame) {
-    this.lastReceivedMillis = System.currentTimeMillis();
+    this.lastReceivedMillis = scheduler.currentTimeMillis();
     if (KeepAliveFrameFlyweight.respondFlag(keepAliveFrame)) {
       doSend(
           KeepAliveFrameFlyweight.encode(
@@ -68,7 +70,7 @@ void doSend(ByteBuf frame) {
   }
 
   void doCheckTimeout() {
-    long now = System.currentTimeMillis();
+    long now = scheduler.currentTimeMillis();
     if (now - lastReceivedMillis >= keepAlive.getTimeoutMillis()) {
       timeout.onNext(keepAlive);
     }
@@ -76,8 +78,8 @@ void doCheckTimeout() {
 
   private static class Server extends KeepAliveHandler {
 
-    Server(KeepAlive keepAlive) {
-      super(keepAlive);
+    Server(KeepAlive keepAlive, KeepAliveScheduler scheduler) {
+      super(keepAlive, scheduler);
     }
 
     @Override
@@ -88,8 +90,8 @@ void onIntervalTick() {
 
   private static final class Client extends KeepAliveHandler {
 
-    Client(KeepAlive keepAlive) {
-      super(keepAlive);
+    Client(KeepAlive keepAlive, KeepAliveScheduler scheduler) {
+      super(keepAlive, scheduler);
     }
 
     @Override
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.frame.LeaseFlyweight;
+import io.rsocket.lease.LeaseStats;
+import io.rsocket.lease.LeaseStrategy;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import reactor.core.Disposable;
+
+/**
+ * Tracks the lease of a connection: the number of requests that may still be sent, or accepted,
+ * until the lease expires. The requester side receives leases from the remote responder, the
+ * responder side issues leases according to its {@link LeaseStrategy}.
+ */
+abstract class LeaseHandler {
+  private volatile Permits permits = Permits.NONE;
+
+  static LeaseHandler.Requester ofRequester() {
+    return new LeaseHandler.Requester();
+  }
+
+  static LeaseHandler.Responder ofResponder(
+      ByteBufAllocator allocator,
+      LeaseStrategy strategy,
+      LeaseStats stats,
+      Consumer<ByteBuf> sender,
+      Consumer<Throwable> errorConsumer) {
+    return new LeaseHandler.Responder(allocator, strategy, stats, sender, errorConsumer);
+  }
+
+  /** Takes one request from the current lease, returns {@code false} if there is none left. */
+  boolean useLease() {
+    Permits p = permits;
+    if (p.isExpired(System.currentTimeMillis())) {
+      return false;
+    }
+    AtomicInteger remaining = p.remaining;
+    for (; ; ) {
+      int r = remaining.get();
+      if (r <= 0) {
+        return false;
+      }
+      if (remaining.compareAndSet(r, r - 1)) {
+        return true;
+      }
+    }
+  }
+
+  /** The fraction of the current lease left, {@code 0.0} if it is used up or expired. */
+  double availability() {
+    Permits p = permits;
+    if (p.allowed == 0 || p.isExpired(System.currentTimeMillis())) {
+      return 0.0;
+    }
+    return Math.max(0, p.remaining.get()) / (double) p.allowed;
+  }
+
+  RejectedException leaseError() {
+    Permits p = permits;
+    if (p == Permits.NONE) {
+      return new RejectedException("No lease received");
+    }
+    if (p.isExpired(System.currentTimeMillis())) {
+      return new RejectedException("Lease expired");
+    }
+    return new RejectedException("Lease exhausted");
+  }
+
+  void onLease(int ttl, int allowedRequests) {
+    permits = new Permits(allowedRequests, System.currentTimeMillis() + ttl);
+  }
+
+  /** Receives leases sent by the remote responder and enforces them on outgoing requests. */
+  static final class Requester extends LeaseHandler {
+
+    void receive(ByteBuf leaseFrame) {
+      onLease(LeaseFlyweight.ttl(leaseFrame), LeaseFlyweight.numRequests(leaseFrame));
+    }
+  }
+
+  /** Issues leases to the remote requester and enforces them on incoming requests. */
+  static final class Responder extends LeaseHandler implements Disposable {
+    private final Disposable leases;
+
+    private Responder(
+        ByteBufAllocator allocator,
+        LeaseStrategy strategy,
+        LeaseStats stats,
+        Consumer<ByteBuf> sender,
+        Consumer<Throwable> errorConsumer) {
+      this.leases =
+          strategy
+              .leases(stats)
+              .subscribe(
+                  lease -> {
+                    // enforced before it is sent, the requester can not use it any earlier
+                    onLease(lease.getTtl(), lease.getAllowedRequests());
+                    ByteBuf metadata = lease.getMetadata();
+                    sender.accept(
+                        LeaseFlyweight.encode(
+                            allocator,
+                            lease.getTtl(),
+                            lease.getAllowedRequests(),
+                            metadata == null ? null : metadata.retain()));
+                  },
+                  errorConsumer);
+    }
+
+    @Override
+    public void dispose() {
+      leases.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return leases.isDisposed();
+    }
+  }
+
+  private static final class Permits {
+    static final Permits NONE = new Permits(0, Long.MIN_VALUE);
+
+    final int allowed;
+    final long expiry;
+    final AtomicInteger remaining;
+
+    Permits(int allowed, long expiry) {
+      this.allowed = allowed;
+      this.expiry = expiry;
+      this.remaining = new AtomicInteger(allowed);
+    }
+
+    boolean isExpired(long now) {
+      return now > expiry;
+    }
+  }
+}
@@ -19,18 +19,18 @@
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.util.ReferenceCountUtil;
-import io.netty.util.collection.IntObjectHashMap;
 import io.rsocket.exceptions.ConnectionErrorException;
 import io.rsocket.exceptions.Exceptions;
 import io.rsocket.frame.*;
 import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.internal.ConcurrentIntObjectHashMap;
 import io.rsocket.internal.LimitableRequestPublisher;
 import io.rsocket.internal.UnboundedProcessor;
 import io.rsocket.internal.UnicastMonoProcessor;
+import io.rsocket.keepalive.KeepAliveScheduler;
+import io.rsocket.outbound.OutboundQueue;
 import java.nio.channels.ClosedChannelException;
 import java.time.Duration;
-import java.util.Collections;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Consumer;
@@ -49,32 +49,16 @@ class RSocketClient implements RSocket {
   private final PayloadDecoder payloadDecoder;
   private final Consumer<Throwable> errorConsumer;
   private final StreamIdSupplier streamIdSupplier;
-  private final Map<Integer, LimitableRequestPublisher> senders;
-  private final Map<Integer, Processor<Payload, Payload>> receivers;
+  private final ConcurrentIntObjectHashMap<LimitableRequestPublisher> senders;
+  private final ConcurrentIntObjectHashMap<Processor<Payload, Payload>> receivers;
+  private final OutboundQueue outboundQueue;
   private final UnboundedProcessor<ByteBuf> sendProcessor;
   private final Lifecycle lifecycle = new Lifecycle();
   private final ByteBufAllocator allocator;
+  private final int frameCopyThreshold;
+  private final LeaseHandler.Requester leaseHandler;
   private KeepAliveHandler keepAliveHandler;
 
-  /*server requester*/
-  RSocketClient(
-      ByteBufAllocator allocator,
-      DuplexConnection connection,
-      PayloadDecoder payloadDecoder,
-      Consumer<Throwable> errorConsumer,
-      StreamIdSupplier streamIdSupplier) {
-    this(
-        allocator,
-        connection,
-        payloadDecoder,
-        errorConsumer,
-        streamIdSupplier,
-        Duration.ZERO,
-        Duration.ZERO,
-        0);
-  }
-
-  /*client requester*/
   RSocketClient(
       ByteBufAllocator allocator,
       DuplexConnection connection,
@@ -83,17 +67,24 @@ class RSocketClient implements RSocket {
       StreamIdSupplier streamIdSupplier,
       Duration tickPeriod,
       Duration ackTimeout,
-      int missedAcks) {
+      int missedAcks,
+      KeepAliveScheduler keepAliveScheduler,
+      int frameCopyThreshold,
+      boolean leaseEnabled,
+      OutboundQueue outboundQueue) {
     this.allocator = allocator;
+    this.frameCopyThreshold = frameCopyThreshold;
+    this.leaseHandler = leaseEnabled ? LeaseHandler.ofRequester() : null;
     this.connection = connection;
     this.payloadDecoder = payloadDecoder;
     this.errorConsumer = errorConsumer;
     this.streamIdSupplier = streamIdSupplier;
-    this.senders = Collections.synchronizedMap(new IntObjectHashMap<>());
-    this.receivers = Collections.synchronizedMap(new IntObjectHashMap<>());
+    this.senders = new ConcurrentIntObjectHashMap<>();
+    this.receivers = new ConcurrentIntObjectHashMap<>();
 
     // DO NOT Change the order here. The Send processor must be subscribed to before receiving
-    this.sendProcessor = new UnboundedProcessor<>();
+    this.outboundQueue = outboundQueue;
+    this.sendProcessor = new UnboundedProcessor<>(outboundQueue);
 
     connection.onClose().doFinally(signalType -> terminate()).subscribe(null, errorConsumer);
 
@@ -107,7 +98,8 @@ class RSocketClient implements RSocket {
     if (!Duration.ZERO.equals(tickPeriod)) {
       this.keepAliveHandler =
           KeepAliveHandler.ofClient(
-              new KeepAliveHandler.KeepAlive(tickPeriod, ackTimeout, missedAcks));
+              new KeepAliveHandler.KeepAlive(tickPeriod, ackTimeout, missedAcks),
+              keepAliveScheduler);
 
       keepAliveHandler
           .timeout()
@@ -189,7 +181,10 @@ public Mono<Void> metadataPush(Payload payload) {
 
   @Override
   public double availability() {
-    return connection.availability();
+    double availability = connection.availability();
+    return leaseHandler != null
+        ? Math.min(availability, leaseHandler.availability())
+        : availability;
   }
 
   @Override
@@ -208,31 +203,51 @@ public Mono<Void> onClose() {
   }
 
   private Mono<Void> handleFireAndForget(Payload payload) {
-    return lifecycle
-        .active()
+    AtomicBoolean claimed = new AtomicBoolean();
+    return outboundQueue
+        .writable()
+        .then(lifecycle.active())
         .then(
             Mono.fromRunnable(
                 () -> {
-                  final int streamId = streamIdSupplier.nextStreamId();
+                  if (!claimed.compareAndSet(false, true)) {
+                    return;
+                  }
+                  if (leaseHandler != null && !leaseHandler.useLease()) {
+                    payload.release();
+                    throw leaseHandler.leaseError();
+                  }
+                  final int streamId = streamIdSupplier.nextStreamId(receivers);
                   ByteBuf requestFrame =
                       RequestFireAndForgetFrameFlyweight.encode(
                           allocator,
                           streamId,
                           false,
                           payload.hasMetadata() ? payload.sliceMetadata().retain() : null,
-                          payload.sliceData().retain());
+                          payload.sliceData().retain(),
+                          frameCopyThreshold);
                   payload.release();
                   sendProcessor.onNext(requestFrame);
-                }));
+                }))
+        .doFinally(s -> releaseUnclaimed(payload, claimed));
   }
 
   private Flux<Payload> handleRequestStream(final Payload payload) {
-    return lifecycle
-        .active()
+    AtomicBoolean claimed = new AtomicBoolean();
+    return outboundQueue
+        .writable()
+        .then(lifecycle.active())
         .thenMany(
             Flux.defer(
                 () -> {
-                  int streamId = streamIdSupplier.nextStreamId();
+                  if (!claimed.compareAndSet(false, true)) {
+                    return Flux.<Payload>empty();
+                  }
+                  if (leaseHandler != null && !leaseHandler.useLease()) {
+                    payload.release();
+                    return Flux.error(leaseHandler.leaseError());
+                  }
+                  int streamId = streamIdSupplier.nextStreamId(receivers);
 
                   UnicastProcessor<Payload> receiver = UnicastProcessor.create();
                   receivers.put(streamId, receiver);
@@ -250,7 +265,8 @@ private Flux<Payload> handleRequestStream(final Payload payload) {
                                       false,
                                       n,
                                       payload.sliceMetadata().retain(),
-                                      payload.sliceData().retain()));
+                                      payload.sliceData().retain(),
+                                      frameCopyThreshold));
                             } else if (contains(streamId) && !receiver.isDisposed()) {
                               sendProcessor.onNext(
                                   RequestNFrameFlyweight.encode(allocator, streamId, n));
@@ -275,23 +291,34 @@ private Flux<Payload> handleRequestStream(final Payload payload) {
                           s -> {
                             receivers.remove(streamId);
                           });
-                }));
+                }))
+        .doFinally(s -> releaseUnclaimed(payload, claimed));
   }
 
   private Mono<Payload> handleRequestResponse(final Payload payload) {
-    return lifecycle
-        .active()
+    AtomicBoolean claimed = new AtomicBoolean();
+    return outboundQueue
+        .writable()
+        .then(lifecycle.active())
         .then(
             Mono.defer(
                 () -> {
-                  int streamId = streamIdSupplier.nextStreamId();
+                  if (!claimed.compareAndSet(false, true)) {
+                    return Mono.<Payload>empty();
+                  }
+                  if (leaseHandler != null && !leaseHandler.useLease()) {
+                    payload.release();
+                    return Mono.error(leaseHandler.leaseError());
+                  }
+                  int streamId = streamIdSupplier.nextStreamId(receivers);
                   ByteBuf requestFrame =
                       RequestResponseFrameFlyweight.encode(
                           allocator,
                           streamId,
                           false,
                           payload.sliceMetadata().retain(),
-                          payload.sliceData().retain());
+                          payload.sliceData().retain(),
+                          frameCopyThreshold);
                   payload.release();
 
                   UnicastMonoProcessor<Payload> receiver = UnicastMonoProcessor.create();
@@ -312,17 +339,34 @@ private Mono<Payload> handleRequestResponse(final Payload payload) {
 
                             receivers.remove(streamId);
                           });
-                }));
+                }))
+        .doFinally(s -> releaseUnclaimed(payload, claimed));
+  }
+
+  /**
+   * Releases {@code payload} if the request was cancelled or failed before it could be sent, which
+   * happens while it waits for the outbound queue to become writable.
+   */
+  private static void releaseUnclaimed(Payload payload, AtomicBoolean claimed) {
+    if (claimed.compareAndSet(false, true)) {
+      payload.release();
+    }
   }
 
   private Flux<Payload> handleChannel(Flux<Payload> request) {
-    return lifecycle
-        .active()
+    return outboundQueue
+        .writable()
+        .then(lifecycle.active())
         .thenMany(
             Flux.defer(
                 () -> {
+                  if (leaseHandler != null && !leaseHandler.useLease()) {
+                    return Flux.error(leaseHandler.leaseError());
+                  }
                   final UnicastProcessor<Payload> receiver = UnicastProcessor.create();
-                  final int streamId = streamIdSupplier.nextStreamId();
+                  final int streamId = streamIdSupplier.nextStreamId(receivers);
+                  // registered right away so that the id is not handed out again after a wrap
+                  receivers.put(streamId, receiver);
                   final AtomicBoolean firstRequest = new AtomicBoolean(true);
 
                   return receiver
@@ -339,7 +383,6 @@ private Flux<Payload> handleChannel(Flux<Payload> request) {
                                             // Need to set this to one for first the frame
                                             wrapped.increaseRequestLimit(1);
                                             senders.put(streamId, wrapped);
-                                            receivers.put(streamId, receiver);
 
                                             return wrapped;
                                           })
@@ -355,12 +398,18 @@ private Flux<Payload> handleChannel(Flux<Payload> request) {
                                                       false,
                                                       n,
                                                       payload.sliceMetadata().retain(),
-                                                      payload.sliceData().retain());
+                                                      payload.sliceData().retain(),
+                                                      frameCopyThreshold);
                                             } else {
                                               requestFrame =
                                                   PayloadFrameFlyweight.encode(
-                                                      allocator, streamId, false, false, true,
-                                                      payload);
+                                                      allocator,
+                                                      streamId,
+                                                      false,
+                                                      false,
+                                                      true,
+                                                      payload,
+                                                      frameCopyThreshold);
                                             }
                                             return requestFrame;
                                           })
@@ -391,14 +440,18 @@ private Flux<Payload> handleChannel(Flux<Payload> request) {
                           })
                       .doOnError(
                           t -> {
-                            if (contains(streamId) && !receiver.isDisposed()) {
+                            if (!firstRequest.get()
+                                && contains(streamId)
+                                && !receiver.isDisposed()) {
                               sendProcessor.onNext(
                                   ErrorFrameFlyweight.encode(allocator, streamId, t));
                             }
                           })
                       .doOnCancel(
                           () -> {
-                            if (contains(streamId) && !receiver.isDisposed()) {
+                            if (!firstRequest.get()
+                                && contains(streamId)
+                                && !receiver.isDisposed()) {
                               sendProcessor.onNext(
                                   CancelFrameFlyweight.encode(allocator, streamId));
                             }
@@ -443,6 +496,7 @@ protected void terminate() {
       senders.clear();
       receivers.clear();
       sendProcessor.dispose();
+      outboundQueue.dispose();
     }
   }
 
@@ -488,6 +542,9 @@ private void handleStreamZero(FrameType type, ByteBuf frame) {
         connection.dispose();
         break;
       case LEASE:
+        if (leaseHandler != null) {
+          leaseHandler.receive(frame);
+        }
         break;
       case KEEPALIVE:
         if (keepAliveHandler != null) {
@@ -533,7 +590,7 @@ private void handleFrame(int streamId, FrameType type, ByteBuf frame) {
             LimitableRequestPublisher sender = senders.get(streamId);
             if (sender != null) {
               int n = RequestNFrameFlyweight.requestN(frame);
-              sender.increaseRequestLimit(n);
+              outboundQueue.onWritable(() -> sender.increaseRequestLimit(n));
               sendProcessor.drain();
             }
             break;
@@ -18,17 +18,33 @@
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.rsocket.exceptions.InvalidSetupException;
+import io.rsocket.exceptions.RejectedResumeException;
 import io.rsocket.exceptions.RejectedSetupException;
+import io.rsocket.exceptions.UnsupportedSetupException;
 import io.rsocket.frame.ErrorFrameFlyweight;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.FrameType;
 import io.rsocket.frame.SetupFrameFlyweight;
 import io.rsocket.frame.VersionFlyweight;
 import io.rsocket.frame.decoder.PayloadDecoder;
 import io.rsocket.internal.ClientServerInputMultiplexer;
+import io.rsocket.keepalive.KeepAliveScheduler;
+import io.rsocket.lease.LeaseStrategy;
+import io.rsocket.outbound.OutboundQueue;
+import io.rsocket.outbound.OutboundQueueStats;
+import io.rsocket.outbound.OutboundScheduler;
 import io.rsocket.plugins.DuplexConnectionInterceptor;
 import io.rsocket.plugins.PluginRegistry;
 import io.rsocket.plugins.Plugins;
 import io.rsocket.plugins.RSocketInterceptor;
+import io.rsocket.resume.ClientResumableDuplexConnection;
+import io.rsocket.resume.ResumeCache;
+import io.rsocket.resume.ResumePositionCounter;
+import io.rsocket.resume.ResumeStore;
+import io.rsocket.resume.ResumeToken;
+import io.rsocket.resume.SessionManager;
 import io.rsocket.transport.ClientTransport;
 import io.rsocket.transport.ServerTransport;
 import io.rsocket.util.EmptyPayload;
@@ -36,11 +52,18 @@
 import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 import reactor.core.publisher.Mono;
 
 /** Factory for creating RSocket clients and servers. */
 public class RSocketFactory {
+  private static final int DEFAULT_RESUME_CACHE_SIZE = 16 * 1024 * 1024;
+  private static final int DEFAULT_OUTBOUND_HIGH_WATER_FRAMES = 16 * 1024;
+  private static final long DEFAULT_OUTBOUND_HIGH_WATER_BYTES = 64 * 1024 * 1024;
+  private static final IntFunction<ResumeStore> DEFAULT_RESUME_STORE =
+      size -> ResumeStore.retaining(ResumePositionCounter.size(), size);
+
   /**
    * Creates a factory that establishes client connections to other RSockets.
    *
@@ -85,6 +108,11 @@ public static class ClientRSocketFactory implements ClientTransportAcceptor {
 
     private Consumer<Throwable> errorConsumer = Throwable::printStackTrace;
     private int mtu = 0;
+    private int frameCopyThreshold = 0;
+    private OutboundScheduler outboundScheduler = OutboundScheduler.roundRobin();
+    private int outboundHighWaterFrames = DEFAULT_OUTBOUND_HIGH_WATER_FRAMES;
+    private long outboundHighWaterBytes = DEFAULT_OUTBOUND_HIGH_WATER_BYTES;
+    private Consumer<OutboundQueueStats> outboundQueueStats = stats -> {};
     private PluginRegistry plugins = new PluginRegistry(Plugins.defaultPlugins());
 
     private Payload setupPayload = EmptyPayload.INSTANCE;
@@ -93,6 +121,15 @@ public static class ClientRSocketFactory implements ClientTransportAcceptor {
     private Duration tickPeriod = Duration.ofSeconds(20);
     private Duration ackTimeout = Duration.ofSeconds(30);
     private int missedAcks = 3;
+    private KeepAliveScheduler keepAliveScheduler = KeepAliveScheduler.interval();
+    private LeaseStrategy leaseStrategy;
+
+    private boolean resumeEnabled;
+    private Supplier<ResumeToken> resumeTokenSupplier = ResumeToken::generate;
+    private Duration resumeSessionDuration = Duration.ofMinutes(2);
+    private Duration resumeRetryInterval = Duration.ofSeconds(1);
+    private int resumeCacheSize = DEFAULT_RESUME_CACHE_SIZE;
+    private IntFunction<ResumeStore> resumeStoreFactory = DEFAULT_RESUME_STORE;
 
     private String metadataMimeType = "application/binary";
     private String dataMimeType = "application/binary";
@@ -153,6 +190,111 @@ public ClientRSocketFactory keepAliveMissedAcks(int missedAcks) {
       return this;
     }
 
+    /**
+     * Sets the scheduler driving keep-alive ticks of the connections created by this factory. A
+     * shared {@link KeepAliveScheduler#hashedWheel()} avoids a scheduled task per connection.
+     *
+     * @param keepAliveScheduler the scheduler, owned and disposed by the caller
+     * @return this ClientRSocketFactory
+     */
+    public ClientRSocketFactory keepAliveScheduler(KeepAliveScheduler keepAliveScheduler) {
+      Objects.requireNonNull(keepAliveScheduler);
+      this.keepAliveScheduler = keepAliveScheduler;
+      return this;
+    }
+
+    /**
+     * Asks the server to use leases. Requests are only sent while the client holds a lease from the
+     * server, others fail with a {@link io.rsocket.exceptions.RejectedException}. The client does
+     * not issue leases, so the server can not send requests to it.
+     *
+     * @return this ClientRSocketFactory
+     */
+    public ClientRSocketFactory lease() {
+      return lease(LeaseStrategy.none());
+    }
+
+    /**
+     * Asks the server to use leases and issues leases to the server according to {@code
+     * leaseStrategy}.
+     *
+     * @param leaseStrategy decides the leases issued to the server
+     * @return this ClientRSocketFactory
+     * @see #lease()
+     */
+    public ClientRSocketFactory lease(LeaseStrategy leaseStrategy) {
+      Objects.requireNonNull(leaseStrategy);
+      this.leaseStrategy = leaseStrategy;
+      return this;
+    }
+
+    /**
+     * Enables session resumption. When the transport connection is lost the client connects again
+     * and resumes the session, streams carry on where they stopped as long as the server still
+     * keeps the session and both ends still cache the frames the other end has not received.
+     *
+     * @return this ClientRSocketFactory
+     */
+    public ClientRSocketFactory resume() {
+      this.resumeEnabled = true;
+      return this;
+    }
+
+    public ClientRSocketFactory resumeToken(Supplier<ResumeToken> resumeTokenSupplier) {
+      Objects.requireNonNull(resumeTokenSupplier);
+      this.resumeTokenSupplier = resumeTokenSupplier;
+      return this;
+    }
+
+    /**
+     * Sets how long a session waits to be resumed after losing its connection before it is closed.
+     *
+     * @param sessionDuration the session duration
+     * @return this ClientRSocketFactory
+     */
+    public ClientRSocketFactory resumeSessionDuration(Duration sessionDuration) {
+      Objects.requireNonNull(sessionDuration);
+      this.resumeSessionDuration = sessionDuration;
+      return this;
+    }
+
+    public ClientRSocketFactory resumeRetryInterval(Duration retryInterval) {
+      Objects.requireNonNull(retryInterval);
+      this.resumeRetryInterval = retryInterval;
+      return this;
+    }
+
+    /**
+     * Sets the number of bytes of sent frames cached until the server acknowledges them. Frames are
+     * acknowledged with keep-alive frames, so the cache has to hold at least the frames sent during
+     * a keep-alive tick period for the session to be resumable.
+     *
+     * @param resumeCacheSize the cache size in bytes
+     * @return this ClientRSocketFactory
+     */
+    public ClientRSocketFactory resumeCacheSize(int resumeCacheSize) {
+      if (resumeCacheSize < 0) {
+        throw new IllegalArgumentException("resumeCacheSize must not be negative");
+      }
+      this.resumeCacheSize = resumeCacheSize;
+      return this;
+    }
+
+    /**
+     * Sets how the sent frames of a session are stored until acknowledged. The factory is called
+     * with the {@link #resumeCacheSize(int) cache size} once per session. Defaults to retaining the
+     * sent frames, {@link io.rsocket.resume.RingBufferResumeStore#offHeap(int)} copies them into a
+     * direct ring buffer instead.
+     *
+     * @param resumeStoreFactory creates the store of a session from the cache size
+     * @return this ClientRSocketFactory
+     */
+    public ClientRSocketFactory resumeStore(IntFunction<ResumeStore> resumeStoreFactory) {
+      Objects.requireNonNull(resumeStoreFactory);
+      this.resumeStoreFactory = resumeStoreFactory;
+      return this;
+    }
+
     public ClientRSocketFactory mimeType(String metadataMimeType, String dataMimeType) {
       this.dataMimeType = dataMimeType;
       this.metadataMimeType = metadataMimeType;
@@ -189,6 +331,75 @@ public ClientRSocketFactory fragment(int mtu) {
       return this;
     }
 
+    /**
+     * Encodes payload frames of at most {@code frameCopyThreshold} bytes into a single buffer,
+     * copying their metadata and data, instead of composing the payload buffers. Larger frames are
+     * always composed without copying. Defaults to {@code 0}, which composes every frame.
+     *
+     * @param frameCopyThreshold the largest frame size, in bytes, to copy into a single buffer
+     * @return this ClientRSocketFactory
+     */
+    public ClientRSocketFactory frameCopyThreshold(int frameCopyThreshold) {
+      if (frameCopyThreshold < 0) {
+        throw new IllegalArgumentException("frameCopyThreshold must not be negative");
+      }
+      this.frameCopyThreshold = frameCopyThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the order in which frames of concurrent streams are written to the connection. Defaults
+     * to {@link OutboundScheduler#roundRobin()}, which keeps a stream producing many frames from
+     * delaying the frames of other streams.
+     *
+     * @param outboundScheduler the outbound scheduler
+     * @return this ClientRSocketFactory
+     */
+    public ClientRSocketFactory outboundScheduler(OutboundScheduler outboundScheduler) {
+      this.outboundScheduler = Objects.requireNonNull(outboundScheduler);
+      return this;
+    }
+
+    /**
+     * Sets the number of queued outbound frames or bytes of a requester or responder at which it
+     * stops issuing new requests and applying the {@code REQUEST_N} grants of its streams, until
+     * the queue has drained to half of both. Defaults to {@code 16384} frames and {@code 64} MiB.
+     * This is not a hard limit: frames for demand already granted are still queued past it.
+     *
+     * @param frames the high-water mark in frames
+     * @param bytes the high-water mark in bytes
+     * @return this ClientRSocketFactory
+     */
+    public ClientRSocketFactory outboundHighWaterMark(int frames, long bytes) {
+      if (frames <= 0 || bytes <= 0) {
+        throw new IllegalArgumentException("high-water marks must be positive");
+      }
+      this.outboundHighWaterFrames = frames;
+      this.outboundHighWaterBytes = bytes;
+      return this;
+    }
+
+    /**
+     * Sets a callback receiving the {@link OutboundQueueStats} of every requester and responder
+     * created by this factory, for example to register queue depth gauges.
+     *
+     * @param outboundQueueStats the callback receiving the queue statistics
+     * @return this ClientRSocketFactory
+     */
+    public ClientRSocketFactory outboundQueueStats(
+        Consumer<OutboundQueueStats> outboundQueueStats) {
+      this.outboundQueueStats = Objects.requireNonNull(outboundQueueStats);
+      return this;
+    }
+
+    private OutboundQueue newOutboundQueue() {
+      OutboundQueue queue =
+          new OutboundQueue(
+              outboundScheduler.newQueue(), outboundHighWaterFrames, outboundHighWaterBytes);
+      outboundQueueStats.accept(queue);
+      return queue;
+    }
+
     public ClientRSocketFactory errorConsumer(Consumer<Throwable> errorConsumer) {
       this.errorConsumer = errorConsumer;
       return this;
@@ -217,21 +428,38 @@ public Mono<RSocket> start() {
             .get()
             .connect(mtu)
             .flatMap(
-                connection -> {
+                transportConnection -> {
+                  DuplexConnection connection = transportConnection;
+                  ByteBuf resumeToken = Unpooled.EMPTY_BUFFER;
+                  if (resumeEnabled) {
+                    ResumeToken token = resumeTokenSupplier.get();
+                    resumeToken = Unpooled.wrappedBuffer(token.toByteArray());
+                    connection =
+                        new ClientResumableDuplexConnection(
+                            allocator,
+                            transportConnection,
+                            token,
+                            new ResumeCache(resumeStoreFactory.apply(resumeCacheSize)),
+                            resumeSessionDuration,
+                            resumeRetryInterval,
+                            Mono.defer(() -> transportClient.get().connect(mtu)));
+                  }
+
                   ByteBuf setupFrame =
                       SetupFrameFlyweight.encode(
                           allocator,
-                          false,
-                          false,
+                          leaseStrategy != null,
+                          resumeEnabled,
                           (int) tickPeriod.toMillis(),
                           (int) (ackTimeout.toMillis() + tickPeriod.toMillis() * missedAcks),
+                          resumeToken,
                           metadataMimeType,
                           dataMimeType,
                           setupPayload.sliceMetadata(),
                           setupPayload.sliceData());
 
                   ClientServerInputMultiplexer multiplexer =
-                      new ClientServerInputMultiplexer(connection, plugins);
+                      new ClientServerInputMultiplexer(connection, plugins, true);
 
                   RSocketClient rSocketClient =
                       new RSocketClient(
@@ -242,7 +470,11 @@ public Mono<RSocket> start() {
                           StreamIdSupplier.clientSupplier(),
                           tickPeriod,
                           ackTimeout,
-                          missedAcks);
+                          missedAcks,
+                          keepAliveScheduler,
+                          frameCopyThreshold,
+                          leaseStrategy != null,
+                          newOutboundQueue());
 
                   RSocket wrappedRSocketClient = plugins.applyClient(rSocketClient);
 
@@ -256,9 +488,19 @@ public Mono<RSocket> start() {
                           multiplexer.asServerConnection(),
                           wrappedRSocketServer,
                           payloadDecoder,
-                          errorConsumer);
-
-                  return connection.sendOne(setupFrame).thenReturn(wrappedRSocketClient);
+                          errorConsumer,
+                          0,
+                          0,
+                          keepAliveScheduler,
+                          frameCopyThreshold,
+                          leaseStrategy,
+                          newOutboundQueue());
+
+                  // sent through the multiplexer so that connection plugins see the setup
+                  return multiplexer
+                      .asStreamZeroConnection()
+                      .sendOne(setupFrame)
+                      .thenReturn(wrappedRSocketClient);
                 });
       }
     }
@@ -269,8 +511,20 @@ public static class ServerRSocketFactory {
     private PayloadDecoder payloadDecoder = PayloadDecoder.DEFAULT;
     private Consumer<Throwable> errorConsumer = Throwable::printStackTrace;
     private int mtu = 0;
+    private int frameCopyThreshold = 0;
+    private OutboundScheduler outboundScheduler = OutboundScheduler.roundRobin();
+    private int outboundHighWaterFrames = DEFAULT_OUTBOUND_HIGH_WATER_FRAMES;
+    private long outboundHighWaterBytes = DEFAULT_OUTBOUND_HIGH_WATER_BYTES;
+    private Consumer<OutboundQueueStats> outboundQueueStats = stats -> {};
     private PluginRegistry plugins = new PluginRegistry(Plugins.defaultPlugins());
     private ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+    private KeepAliveScheduler keepAliveScheduler = KeepAliveScheduler.interval();
+    private LeaseStrategy leaseStrategy;
+
+    private boolean resumeEnabled;
+    private Duration resumeSessionDuration = Duration.ofMinutes(2);
+    private int resumeCacheSize = DEFAULT_RESUME_CACHE_SIZE;
+    private IntFunction<ResumeStore> resumeStoreFactory = DEFAULT_RESUME_STORE;
 
     private ServerRSocketFactory() {}
 
@@ -310,16 +564,175 @@ public ServerRSocketFactory fragment(int mtu) {
       return this;
     }
 
+    /**
+     * Encodes payload frames of at most {@code frameCopyThreshold} bytes into a single buffer,
+     * copying their metadata and data, instead of composing the payload buffers. Larger frames are
+     * always composed without copying. Defaults to {@code 0}, which composes every frame.
+     *
+     * @param frameCopyThreshold the largest frame size, in bytes, to copy into a single buffer
+     * @return this ServerRSocketFactory
+     */
+    public ServerRSocketFactory frameCopyThreshold(int frameCopyThreshold) {
+      if (frameCopyThreshold < 0) {
+        throw new IllegalArgumentException("frameCopyThreshold must not be negative");
+      }
+      this.frameCopyThreshold = frameCopyThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the order in which frames of concurrent streams are written to the connection. Defaults
+     * to {@link OutboundScheduler#roundRobin()}, which keeps a stream producing many frames from
+     * delaying the frames of other streams.
+     *
+     * @param outboundScheduler the outbound scheduler
+     * @return this ServerRSocketFactory
+     */
+    public ServerRSocketFactory outboundScheduler(OutboundScheduler outboundScheduler) {
+      this.outboundScheduler = Objects.requireNonNull(outboundScheduler);
+      return this;
+    }
+
+    /**
+     * Sets the number of queued outbound frames or bytes of a requester or responder at which it
+     * stops issuing new requests and applying the {@code REQUEST_N} grants of its streams, until
+     * the queue has drained to half of both. Defaults to {@code 16384} frames and {@code 64} MiB.
+     * This is not a hard limit: frames for demand already granted are still queued past it.
+     *
+     * @param frames the high-water mark in frames
+     * @param bytes the high-water mark in bytes
+     * @return this ServerRSocketFactory
+     */
+    public ServerRSocketFactory outboundHighWaterMark(int frames, long bytes) {
+      if (frames <= 0 || bytes <= 0) {
+        throw new IllegalArgumentException("high-water marks must be positive");
+      }
+      this.outboundHighWaterFrames = frames;
+      this.outboundHighWaterBytes = bytes;
+      return this;
+    }
+
+    /**
+     * Sets a callback receiving the {@link OutboundQueueStats} of every requester and responder
+     * created by this factory, for example to register queue depth gauges.
+     *
+     * @param outboundQueueStats the callback receiving the queue statistics
+     * @return this ServerRSocketFactory
+     */
+    public ServerRSocketFactory outboundQueueStats(
+        Consumer<OutboundQueueStats> outboundQueueStats) {
+      this.outboundQueueStats = Objects.requireNonNull(outboundQueueStats);
+      return this;
+    }
+
+    private OutboundQueue newOutboundQueue() {
+      OutboundQueue queue =
+          new OutboundQueue(
+              outboundScheduler.newQueue(), outboundHighWaterFrames, outboundHighWaterBytes);
+      outboundQueueStats.accept(queue);
+      return queue;
+    }
+
     public ServerRSocketFactory errorConsumer(Consumer<Throwable> errorConsumer) {
       this.errorConsumer = errorConsumer;
       return this;
     }
 
+    /**
+     * Sets the scheduler driving keep-alive timeout checks of the connections accepted by this
+     * factory. A shared {@link KeepAliveScheduler#hashedWheel()} avoids a scheduled task per
+     * connection.
+     *
+     * @param keepAliveScheduler the scheduler, owned and disposed by the caller
+     * @return this ServerRSocketFactory
+     */
+    public ServerRSocketFactory keepAliveScheduler(KeepAliveScheduler keepAliveScheduler) {
+      Objects.requireNonNull(keepAliveScheduler);
+      this.keepAliveScheduler = keepAliveScheduler;
+      return this;
+    }
+
+    /**
+     * Enables leases for clients that ask for them in their SETUP frame. Such clients only receive
+     * requests while the server holds a lease from them and may only send requests while they hold
+     * a lease issued according to {@code leaseStrategy}. Clients asking for leases are rejected if
+     * leases are not enabled.
+     *
+     * @param leaseStrategy decides the leases issued to clients
+     * @return this ServerRSocketFactory
+     */
+    public ServerRSocketFactory lease(LeaseStrategy leaseStrategy) {
+      Objects.requireNonNull(leaseStrategy);
+      this.leaseStrategy = leaseStrategy;
+      return this;
+    }
+
+    /**
+     * Enables session resumption for clients that request it in their SETUP frame. A session that
+     * lost its connection is kept for the session duration, waiting for the client to resume it.
+     *
+     * @return this ServerRSocketFactory
+     */
+    public ServerRSocketFactory resume() {
+      this.resumeEnabled = true;
+      return this;
+    }
+
+    /**
+     * Sets how long a session waits to be resumed after losing its connection before it is closed.
+     *
+     * @param sessionDuration the session duration
+     * @return this ServerRSocketFactory
+     */
+    public ServerRSocketFactory resumeSessionDuration(Duration sessionDuration) {
+      Objects.requireNonNull(sessionDuration);
+      this.resumeSessionDuration = sessionDuration;
+      return this;
+    }
+
+    /**
+     * Sets the number of bytes of sent frames each session caches until the client acknowledges
+     * them.
+     *
+     * @param resumeCacheSize the cache size in bytes
+     * @return this ServerRSocketFactory
+     */
+    public ServerRSocketFactory resumeCacheSize(int resumeCacheSize) {
+      if (resumeCacheSize < 0) {
+        throw new IllegalArgumentException("resumeCacheSize must not be negative");
+      }
+      this.resumeCacheSize = resumeCacheSize;
+      return this;
+    }
+
+    /**
+     * Sets how the sent frames of a session are stored until acknowledged. The factory is called
+     * with the {@link #resumeCacheSize(int) cache size} once per session. Defaults to retaining the
+     * sent frames, {@link io.rsocket.resume.RingBufferResumeStore#offHeap(int)} copies them into a
+     * direct ring buffer instead.
+     *
+     * @param resumeStoreFactory creates the store of a session from the cache size
+     * @return this ServerRSocketFactory
+     */
+    public ServerRSocketFactory resumeStore(IntFunction<ResumeStore> resumeStoreFactory) {
+      Objects.requireNonNull(resumeStoreFactory);
+      this.resumeStoreFactory = resumeStoreFactory;
+      return this;
+    }
+
     private class ServerStart<T extends Closeable> implements Start<T> {
       private final Supplier<ServerTransport<T>> transportServer;
+      private final SessionManager sessions;
 
       ServerStart(Supplier<ServerTransport<T>> transportServer) {
         this.transportServer = transportServer;
+        this.sessions =
+            resumeEnabled
+                ? new SessionManager(
+                    allocator,
+                    resumeSessionDuration,
+                    () -> new ResumeCache(resumeStoreFactory.apply(resumeCacheSize)))
+                : null;
       }
 
       @Override
@@ -328,30 +741,54 @@ public Mono<T> start() {
             .get()
             .start(
                 connection -> {
-                  ClientServerInputMultiplexer multiplexer =
-                      new ClientServerInputMultiplexer(connection, plugins);
-
-                  return multiplexer
-                      .asStreamZeroConnection()
-                      .receive()
-                      .next()
-                      .flatMap(setupFrame -> processSetupFrame(multiplexer, setupFrame));
+                  if (sessions != null) {
+                    return sessions.accept(connection, this::acceptConnection);
+                  } else {
+                    return acceptConnection(connection);
+                  }
                 },
                 mtu);
       }
 
+      private Mono<Void> acceptConnection(DuplexConnection connection) {
+        ClientServerInputMultiplexer multiplexer =
+            new ClientServerInputMultiplexer(connection, plugins, false);
+
+        return multiplexer
+            .asStreamZeroConnection()
+            .receive()
+            .next()
+            .flatMap(setupFrame -> processSetupFrame(multiplexer, setupFrame));
+      }
+
       private Mono<Void> processSetupFrame(
           ClientServerInputMultiplexer multiplexer, ByteBuf setupFrame) {
+        if (FrameHeaderFlyweight.frameType(setupFrame) != FrameType.SETUP) {
+          setupFrame.release();
+          return sendErrorAndDispose(
+              multiplexer, new RejectedResumeException("resumption is not enabled"));
+        }
+
+        if (SetupFrameFlyweight.resumeEnabled(setupFrame) && sessions == null) {
+          setupFrame.release();
+          return sendErrorAndDispose(
+              multiplexer, new UnsupportedSetupException("resumption is not supported"));
+        }
+
+        boolean leaseEnabled = SetupFrameFlyweight.honorLease(setupFrame);
+        if (leaseEnabled && leaseStrategy == null) {
+          setupFrame.release();
+          return sendErrorAndDispose(
+              multiplexer, new UnsupportedSetupException("lease is not supported"));
+        }
+
         int version = SetupFrameFlyweight.version(setupFrame);
         if (version != SetupFrameFlyweight.CURRENT_VERSION) {
           setupFrame.release();
           InvalidSetupException error =
               new InvalidSetupException(
                   "Unsupported version " + VersionFlyweight.toString(version));
-          return multiplexer
-              .asStreamZeroConnection()
-              .sendOne(ErrorFrameFlyweight.encode(ByteBufAllocator.DEFAULT, 0, error))
-              .doFinally(signalType -> multiplexer.dispose());
+          return sendErrorAndDispose(multiplexer, error);
         }
 
         ConnectionSetupPayload setupPayload = ConnectionSetupPayload.create(setupFrame);
@@ -364,7 +801,14 @@ private Mono<Void> processSetupFrame(
                 multiplexer.asServerConnection(),
                 payloadDecoder,
                 errorConsumer,
-                StreamIdSupplier.serverSupplier());
+                StreamIdSupplier.serverSupplier(),
+                Duration.ZERO,
+                Duration.ZERO,
+                0,
+                keepAliveScheduler,
+                frameCopyThreshold,
+                leaseEnabled,
+                newOutboundQueue());
 
         RSocket wrappedRSocketClient = plugins.applyClient(rSocketClient);
 
@@ -388,12 +832,24 @@ private Mono<Void> processSetupFrame(
                           payloadDecoder,
                           errorConsumer,
                           keepAliveInterval,
-                          keepAliveMaxLifetime);
+                          keepAliveMaxLifetime,
+                          keepAliveScheduler,
+                          frameCopyThreshold,
+                          leaseEnabled ? leaseStrategy : null,
+                          newOutboundQueue());
                 })
             .doFinally(signalType -> setupPayload.release())
             .then();
       }
 
+      private Mono<Void> sendErrorAndDispose(
+          ClientServerInputMultiplexer multiplexer, Throwable error) {
+        return multiplexer
+            .asStreamZeroConnection()
+            .sendOne(ErrorFrameFlyweight.encode(ByteBufAllocator.DEFAULT, 0, error))
+            .doFinally(signalType -> multiplexer.dispose());
+      }
+
       private ByteBuf rejectedSetupErrorFrame(Throwable err) {
         String msg = err.getMessage();
         return ErrorFrameFlyweight.encode(
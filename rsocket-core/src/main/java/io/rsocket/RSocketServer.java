@@ -19,15 +19,16 @@
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.util.ReferenceCountUtil;
-import io.netty.util.collection.IntObjectHashMap;
 import io.rsocket.exceptions.ApplicationErrorException;
 import io.rsocket.exceptions.ConnectionErrorException;
 import io.rsocket.frame.*;
 import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.internal.ConcurrentIntObjectHashMap;
 import io.rsocket.internal.LimitableRequestPublisher;
 import io.rsocket.internal.UnboundedProcessor;
-import java.util.Collections;
-import java.util.Map;
+import io.rsocket.keepalive.KeepAliveScheduler;
+import io.rsocket.lease.LeaseStrategy;
+import io.rsocket.outbound.OutboundQueue;
 import java.util.function.Consumer;
 import org.reactivestreams.Processor;
 import org.reactivestreams.Publisher;
@@ -39,6 +40,7 @@
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.SignalType;
 import reactor.core.publisher.UnicastProcessor;
+import reactor.util.annotation.Nullable;
 
 /** Server side RSocket. Receives {@link ByteBuf}s from a {@link RSocketClient} */
 class RSocketServer implements ResponderRSocket {
@@ -49,24 +51,16 @@ class RSocketServer implements ResponderRSocket {
   private final PayloadDecoder payloadDecoder;
   private final Consumer<Throwable> errorConsumer;
 
-  private final Map<Integer, Subscription> sendingSubscriptions;
-  private final Map<Integer, Processor<Payload, Payload>> channelProcessors;
+  private final ConcurrentIntObjectHashMap<Subscription> sendingSubscriptions;
+  private final ConcurrentIntObjectHashMap<Processor<Payload, Payload>> channelProcessors;
 
+  private final OutboundQueue outboundQueue;
   private final UnboundedProcessor<ByteBuf> sendProcessor;
   private final ByteBufAllocator allocator;
+  private final int frameCopyThreshold;
+  private final LeaseHandler.Responder leaseHandler;
   private KeepAliveHandler keepAliveHandler;
 
-  /*client responder*/
-  RSocketServer(
-      ByteBufAllocator allocator,
-      DuplexConnection connection,
-      RSocket requestHandler,
-      PayloadDecoder payloadDecoder,
-      Consumer<Throwable> errorConsumer) {
-    this(allocator, connection, requestHandler, payloadDecoder, errorConsumer, 0, 0);
-  }
-
-  /*server responder*/
   RSocketServer(
       ByteBufAllocator allocator,
       DuplexConnection connection,
@@ -74,8 +68,13 @@ class RSocketServer implements ResponderRSocket {
       PayloadDecoder payloadDecoder,
       Consumer<Throwable> errorConsumer,
       long tickPeriod,
-      long ackTimeout) {
+      long ackTimeout,
+      KeepAliveScheduler keepAliveScheduler,
+      int frameCopyThreshold,
+      @Nullable LeaseStrategy leaseStrategy,
+      OutboundQueue outboundQueue) {
     this.allocator = allocator;
+    this.frameCopyThreshold = frameCopyThreshold;
     this.connection = connection;
 
     this.requestHandler = requestHandler;
@@ -84,18 +83,29 @@ class RSocketServer implements ResponderRSocket {
 
     this.payloadDecoder = payloadDecoder;
     this.errorConsumer = errorConsumer;
-    this.sendingSubscriptions = Collections.synchronizedMap(new IntObjectHashMap<>());
-    this.channelProcessors = Collections.synchronizedMap(new IntObjectHashMap<>());
+    this.sendingSubscriptions = new ConcurrentIntObjectHashMap<>();
+    this.channelProcessors = new ConcurrentIntObjectHashMap<>();
 
     // DO NOT Change the order here. The Send processor must be subscribed to before receiving
     // connections
-    this.sendProcessor = new UnboundedProcessor<>();
+    this.outboundQueue = outboundQueue;
+    this.sendProcessor = new UnboundedProcessor<>(outboundQueue);
 
     connection
         .send(sendProcessor)
         .doFinally(this::handleSendProcessorCancel)
         .subscribe(null, this::handleSendProcessorError);
 
+    this.leaseHandler =
+        leaseStrategy != null
+            ? LeaseHandler.ofResponder(
+                allocator,
+                leaseStrategy,
+                sendingSubscriptions::size,
+                sendProcessor::onNext,
+                errorConsumer)
+            : null;
+
     Disposable receiveDisposable = connection.receive().subscribe(this::handleFrame, errorConsumer);
 
     this.connection
@@ -109,7 +119,8 @@ class RSocketServer implements ResponderRSocket {
 
     if (tickPeriod != 0) {
       keepAliveHandler =
-          KeepAliveHandler.ofServer(new KeepAliveHandler.KeepAlive(tickPeriod, ackTimeout));
+          KeepAliveHandler.ofServer(
+              new KeepAliveHandler.KeepAlive(tickPeriod, ackTimeout), keepAliveScheduler);
 
       keepAliveHandler
           .timeout()
@@ -251,11 +262,15 @@ private void cleanup() {
     if (keepAliveHandler != null) {
       keepAliveHandler.dispose();
     }
+    if (leaseHandler != null) {
+      leaseHandler.dispose();
+    }
     cleanUpSendingSubscriptions();
     cleanUpChannelProcessors();
 
     requestHandler.dispose();
     sendProcessor.dispose();
+    outboundQueue.dispose();
   }
 
   private synchronized void cleanUpSendingSubscriptions() {
@@ -273,6 +288,11 @@ private void handleFrame(ByteBuf frame) {
       int streamId = FrameHeaderFlyweight.streamId(frame);
       Subscriber<Payload> receiver;
       FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+      if (leaseHandler != null && isRequest(frameType) && !leaseHandler.useLease()) {
+        handleMissingLease(streamId, frameType);
+        ReferenceCountUtil.safeRelease(frame);
+        return;
+      }
       switch (frameType) {
         case REQUEST_FNF:
           handleFireAndForget(streamId, fireAndForget(payloadDecoder.apply(frame)));
@@ -352,6 +372,25 @@ private void handleFrame(ByteBuf frame) {
     }
   }
 
+  private void handleMissingLease(int streamId, FrameType frameType) {
+    if (frameType != FrameType.REQUEST_FNF) {
+      sendProcessor.onNext(
+          ErrorFrameFlyweight.encode(allocator, streamId, leaseHandler.leaseError()));
+    }
+  }
+
+  private static boolean isRequest(FrameType frameType) {
+    switch (frameType) {
+      case REQUEST_FNF:
+      case REQUEST_RESPONSE:
+      case REQUEST_STREAM:
+      case REQUEST_CHANNEL:
+        return true;
+      default:
+        return false;
+    }
+  }
+
   private void handleFireAndForget(int streamId, Mono<Void> result) {
     result
         .doOnSubscribe(subscription -> sendingSubscriptions.put(streamId, subscription))
@@ -366,7 +405,9 @@ private void handleRequestResponse(int streamId, Mono<Payload> response) {
             payload -> {
               ByteBuf byteBuf = null;
               try {
-                byteBuf = PayloadFrameFlyweight.encodeNextComplete(allocator, streamId, payload);
+                byteBuf =
+                    PayloadFrameFlyweight.encodeNextComplete(
+                        allocator, streamId, payload, frameCopyThreshold);
               } catch (Throwable t) {
                 if (byteBuf != null) {
                   ReferenceCountUtil.safeRelease(byteBuf);
@@ -393,7 +434,7 @@ private void handleStream(int streamId, Flux<Payload> response, int initialReque
               LimitableRequestPublisher<Payload> payloads =
                   LimitableRequestPublisher.wrap(frameFlux);
               sendingSubscriptions.put(streamId, payloads);
-              payloads.increaseRequestLimit(initialRequestN);
+              outboundQueue.onWritable(() -> payloads.increaseRequestLimit(initialRequestN));
               return payloads;
             })
         .doFinally(signalType -> sendingSubscriptions.remove(streamId))
@@ -401,7 +442,9 @@ private void handleStream(int streamId, Flux<Payload> response, int initialReque
             payload -> {
               ByteBuf byteBuf = null;
               try {
-                byteBuf = PayloadFrameFlyweight.encodeNext(allocator, streamId, payload);
+                byteBuf =
+                    PayloadFrameFlyweight.encodeNext(
+                        allocator, streamId, payload, frameCopyThreshold);
               } catch (Throwable t) {
                 if (byteBuf != null) {
                   ReferenceCountUtil.safeRelease(byteBuf);
@@ -463,7 +506,9 @@ private void handleRequestN(int streamId, ByteBuf frame) {
     final Subscription subscription = sendingSubscriptions.get(streamId);
     if (subscription != null) {
       int n = RequestNFrameFlyweight.requestN(frame);
-      subscription.request(n >= Integer.MAX_VALUE ? Long.MAX_VALUE : n);
+      // grants are applied once the frames already queued have drained below the low-water mark
+      outboundQueue.onWritable(
+          () -> subscription.request(n >= Integer.MAX_VALUE ? Long.MAX_VALUE : n));
     }
   }
 }
@@ -16,15 +16,24 @@
 
 package io.rsocket;
 
-import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import io.rsocket.internal.ConcurrentIntObjectHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
+/**
+ * Allocates the stream ids of a requester. Client ids are odd and server ids are even, both wrap
+ * around after reaching the maximum stream id of {@code 2^31 - 1}. Once wrapped, ids of streams
+ * that are still active are skipped.
+ */
 final class StreamIdSupplier {
+  private static final int MAX_STREAM_ID = Integer.MAX_VALUE;
+
+  private static final AtomicLongFieldUpdater<StreamIdSupplier> STREAM_ID =
+      AtomicLongFieldUpdater.newUpdater(StreamIdSupplier.class, "streamId");
 
-  private static final AtomicIntegerFieldUpdater<StreamIdSupplier> STREAM_ID =
-      AtomicIntegerFieldUpdater.newUpdater(StreamIdSupplier.class, "streamId");
-  private volatile int streamId;
+  /** Counts without wrapping, the stream id is its low 31 bits. */
+  private volatile long streamId;
 
-  private StreamIdSupplier(int streamId) {
+  StreamIdSupplier(long streamId) {
     this.streamId = streamId;
   }
 
@@ -36,11 +45,31 @@ static StreamIdSupplier serverSupplier() {
     return new StreamIdSupplier(0);
   }
 
-  int nextStreamId() {
-    return STREAM_ID.addAndGet(this, 2);
+  /**
+   * Returns the next stream id that is not a key of {@code streamIds}.
+   *
+   * @param streamIds the active streams of the requester
+   * @return the next free stream id
+   */
+  int nextStreamId(ConcurrentIntObjectHashMap<?> streamIds) {
+    int streamId;
+    do {
+      // masking keeps the parity and wraps around to 0 or 1
+      streamId = (int) (STREAM_ID.addAndGet(this, 2) & MAX_STREAM_ID);
+    } while (streamId == 0 || streamIds.containsKey(streamId));
+    return streamId;
   }
 
+  /**
+   * Returns whether {@code streamId} may have been issued by this supplier, for telling late frames
+   * of finished streams from frames of streams that never existed. Once the ids have wrapped
+   * around, every valid id has been issued before.
+   *
+   * @param streamId the stream id of a received frame
+   * @return {@code true} if {@code streamId} is the last issued id or an earlier one
+   */
   boolean isBeforeOrCurrent(int streamId) {
-    return this.streamId >= streamId && streamId > 0;
+    long current = this.streamId;
+    return streamId > 0 && (current > MAX_STREAM_ID || current >= streamId);
   }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.compression;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A compression algorithm for payload data. Implementations are thread-safe and can be shared by
+ * many connections.
+ *
+ * @see CompressionDuplexConnectionInterceptor
+ */
+public interface CompressionCodec {
+
+  /**
+   * Identifies the algorithm and its dictionary during negotiation. Peers only compress with a
+   * codec whose id is known to both of them.
+   *
+   * @return the id, a token without whitespace, quotes or separators
+   */
+  String id();
+
+  /**
+   * Compresses the readable bytes of {@code source} into {@code target}. Compression is abandoned
+   * if the compressed data would not be smaller than the source.
+   *
+   * @param source the data to compress, not modified
+   * @param target the buffer the compressed data is written to
+   * @return {@code true} if {@code source} was compressed, {@code false} if it did not get smaller,
+   *     in which case the contents written to {@code target} are undefined
+   */
+  boolean compress(ByteBuf source, ByteBuf target);
+
+  /**
+   * Decompresses the readable bytes of {@code source} into {@code target}.
+   *
+   * @param source the data to decompress, not modified
+   * @param target the buffer the decompressed data is written to
+   * @param length the length of the decompressed data
+   * @throws IllegalArgumentException if {@code source} is malformed or does not decompress to
+   *     {@code length} bytes
+   */
+  void decompress(ByteBuf source, ByteBuf target, int length);
+}
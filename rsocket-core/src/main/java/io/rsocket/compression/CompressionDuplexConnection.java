@@ -0,0 +1,345 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.DuplexConnection;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.FrameLengthFlyweight;
+import io.rsocket.frame.FrameType;
+import io.rsocket.frame.KeepAliveFrameFlyweight;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import io.rsocket.frame.RequestChannelFrameFlyweight;
+import io.rsocket.frame.RequestFireAndForgetFrameFlyweight;
+import io.rsocket.frame.RequestResponseFrameFlyweight;
+import io.rsocket.frame.RequestStreamFrameFlyweight;
+import io.rsocket.frame.SetupFrameFlyweight;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+/**
+ * A {@link DuplexConnection} that compresses and decompresses payload data.
+ *
+ * <p>The client offers its codecs by adding a {@value #MIME_PARAMETER} parameter to the data mime
+ * type of the {@code SETUP} frame. The server removes the parameter before the setup is processed,
+ * picks the first of its own codecs that was offered and announces it in a {@code KEEPALIVE} frame
+ * without the respond flag, which the client consumes. The server compresses from then on, the
+ * client once the announcement arrived.
+ *
+ * <p>Compressed frames are marked with a flag bit the protocol leaves unused in request and
+ * payload frames. Their data is prefixed with its uncompressed length. Metadata is never
+ * compressed.
+ */
+final class CompressionDuplexConnection implements DuplexConnection {
+
+  static final String MIME_PARAMETER = "rsocket-compression";
+
+  /**
+   * Marks compressed frames. The protocol defines no meaning for this bit in request and payload
+   * frames and requires senders to leave it cleared. It is only interpreted in those frame types
+   * and only once a codec was negotiated, which requires the peer to run this plugin too: frames of
+   * a peer that did not negotiate are passed through whatever their flags.
+   */
+  static final int FLAGS_COMPRESSED = 0b00_0001_0000;
+
+  /** Compressed data never decompresses to more than a frame can hold. */
+  private static final int MAX_DATA_LENGTH = FrameLengthFlyweight.FRAME_LENGTH_MASK;
+
+  private static final Logger logger = LoggerFactory.getLogger(CompressionDuplexConnection.class);
+
+  private static final String ANNOUNCEMENT_PREFIX = MIME_PARAMETER + "=";
+
+  private static final int MAX_MIME_TYPE_LENGTH = 255;
+
+  private static final int TYPE_AND_FLAGS_OFFSET = Integer.BYTES;
+
+  private final DuplexConnection delegate;
+  private final ByteBufAllocator allocator;
+  private final List<CompressionCodec> codecs;
+  private final int threshold;
+
+  private volatile boolean offered;
+  @Nullable private volatile CompressionCodec codec;
+
+  CompressionDuplexConnection(
+      DuplexConnection delegate,
+      ByteBufAllocator allocator,
+      List<CompressionCodec> codecs,
+      int threshold) {
+    this.delegate = delegate;
+    this.allocator = allocator;
+    this.codecs = codecs;
+    this.threshold = threshold;
+  }
+
+  @Override
+  public Mono<Void> send(Publisher<ByteBuf> frames) {
+    return delegate.send(Flux.from(frames).map(this::encode));
+  }
+
+  @Override
+  public Mono<Void> sendOne(ByteBuf frame) {
+    return delegate.sendOne(encode(frame));
+  }
+
+  @Override
+  public Flux<ByteBuf> receive() {
+    return delegate
+        .receive()
+        .handle(
+            (frame, sink) -> {
+              ByteBuf decoded = decode(frame);
+              if (decoded != null) {
+                sink.next(decoded);
+              }
+            });
+  }
+
+  @Override
+  public double availability() {
+    return delegate.availability();
+  }
+
+  @Override
+  public void dispose() {
+    delegate.dispose();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return delegate.isDisposed();
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return delegate.onClose();
+  }
+
+  /** The codec both peers agreed on, or {@code null} while none is. */
+  @Nullable
+  CompressionCodec codec() {
+    return codec;
+  }
+
+  private ByteBuf encode(ByteBuf frame) {
+    FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+    if (frameType == FrameType.SETUP) {
+      return offer(frame);
+    }
+
+    CompressionCodec codec = this.codec;
+    ByteBuf data = data(frame, frameType);
+    if (codec == null
+        || data == null
+        || data.readableBytes() < threshold
+        || FrameHeaderFlyweight.hasFollows(frame)) {
+      return frame;
+    }
+
+    int dataLength = data.readableBytes();
+    int prefixLength = frame.readableBytes() - dataLength;
+    ByteBuf compressed = allocator.buffer(Integer.BYTES + dataLength);
+    compressed.writeInt(dataLength);
+    if (!codec.compress(data, compressed)) {
+      compressed.release();
+      return frame;
+    }
+
+    int headerLength = FrameHeaderFlyweight.size();
+    ByteBuf header = allocator.buffer(headerLength);
+    header.writeBytes(frame, frame.readerIndex(), headerLength);
+    int typeAndFlags = header.getShort(TYPE_AND_FLAGS_OFFSET);
+    header.setShort(TYPE_AND_FLAGS_OFFSET, typeAndFlags | FLAGS_COMPRESSED);
+
+    CompositeByteBuf encoded = allocator.compositeBuffer(3);
+    encoded.addComponent(true, header);
+    encoded.addComponent(
+        true,
+        frame.retainedSlice(frame.readerIndex() + headerLength, prefixLength - headerLength));
+    encoded.addComponent(true, compressed);
+    frame.release();
+    return encoded;
+  }
+
+  @Nullable
+  private ByteBuf decode(ByteBuf frame) {
+    FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+    if (frameType == FrameType.SETUP) {
+      return accept(frame);
+    }
+    if (frameType == FrameType.KEEPALIVE
+        && offered
+        && !KeepAliveFrameFlyweight.respondFlag(frame)) {
+      String announcement = KeepAliveFrameFlyweight.data(frame).toString(StandardCharsets.UTF_8);
+      if (announcement.startsWith(ANNOUNCEMENT_PREFIX)) {
+        String id = announcement.substring(ANNOUNCEMENT_PREFIX.length());
+        codec = codecs.stream().filter(c -> c.id().equals(id)).findFirst().orElse(null);
+        frame.release();
+        return null;
+      }
+    }
+
+    CompressionCodec codec = this.codec;
+    if (codec == null || (FrameHeaderFlyweight.flags(frame) & FLAGS_COMPRESSED) == 0) {
+      return frame;
+    }
+
+    ByteBuf data = data(frame, frameType);
+    if (data == null) {
+      return frame;
+    }
+    if (data.readableBytes() < Integer.BYTES) {
+      frame.release();
+      throw new IllegalStateException("received compressed frame without length");
+    }
+
+    int dataLength = data.readInt();
+    if (dataLength < 0 || dataLength > MAX_DATA_LENGTH) {
+      frame.release();
+      throw new IllegalStateException(
+          "received compressed frame with invalid length: " + dataLength);
+    }
+
+    int prefixLength = frame.readableBytes() - data.readableBytes() - Integer.BYTES;
+    int decodedLength = prefixLength + dataLength;
+    // the maximum capacity stops a codec from writing more than the declared length
+    ByteBuf decoded = allocator.buffer(decodedLength, decodedLength);
+    try {
+      decoded.writeBytes(frame, frame.readerIndex(), prefixLength);
+      int typeAndFlags = decoded.getShort(TYPE_AND_FLAGS_OFFSET);
+      decoded.setShort(TYPE_AND_FLAGS_OFFSET, typeAndFlags & ~FLAGS_COMPRESSED);
+      codec.decompress(data, decoded, dataLength);
+      if (decoded.readableBytes() != decodedLength) {
+        throw new IllegalStateException(
+            "compressed frame did not decompress to its length: " + dataLength);
+      }
+      return decoded;
+    } catch (Throwable t) {
+      decoded.release();
+      throw t;
+    } finally {
+      frame.release();
+    }
+  }
+
+  /** Adds the codecs to the data mime type of the client's {@code SETUP} frame. */
+  private ByteBuf offer(ByteBuf setup) {
+    if (codecs.isEmpty()) {
+      return setup;
+    }
+
+    StringBuilder ids = new StringBuilder();
+    for (CompressionCodec codec : codecs) {
+      if (ids.length() > 0) {
+        ids.append(' ');
+      }
+      ids.append(codec.id());
+    }
+    String dataMimeType =
+        SetupFrameFlyweight.dataMimeType(setup) + ";" + MIME_PARAMETER + "=\"" + ids + "\"";
+    if (ByteBufUtil.utf8Bytes(dataMimeType) > MAX_MIME_TYPE_LENGTH) {
+      logger.debug("not offering compression, data mime type too long: {}", dataMimeType);
+      return setup;
+    }
+
+    offered = true;
+    return rewriteSetup(setup, dataMimeType);
+  }
+
+  /**
+   * Removes the offer from the data mime type of a received {@code SETUP} frame and announces the
+   * chosen codec.
+   */
+  private ByteBuf accept(ByteBuf setup) {
+    String dataMimeType = SetupFrameFlyweight.dataMimeType(setup);
+    String marker = ";" + MIME_PARAMETER + "=";
+    int start = dataMimeType.indexOf(marker);
+    if (start < 0) {
+      return setup;
+    }
+
+    int end = dataMimeType.indexOf(';', start + marker.length());
+    if (end < 0) {
+      end = dataMimeType.length();
+    }
+    String value = dataMimeType.substring(start + marker.length(), end).replace("\"", "");
+    dataMimeType = dataMimeType.substring(0, start) + dataMimeType.substring(end);
+
+    for (CompressionCodec codec : codecs) {
+      for (String id : value.trim().split(" +")) {
+        if (codec.id().equals(id)) {
+          this.codec = codec;
+          ByteBuf announcement =
+              Unpooled.wrappedBuffer((ANNOUNCEMENT_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+          delegate
+              .sendOne(KeepAliveFrameFlyweight.encode(allocator, false, 0, announcement))
+              .subscribe(null, t -> logger.debug("failed to announce compression", t));
+          return rewriteSetup(setup, dataMimeType);
+        }
+      }
+    }
+
+    return rewriteSetup(setup, dataMimeType);
+  }
+
+  private ByteBuf rewriteSetup(ByteBuf setup, String dataMimeType) {
+    boolean hasMetadata = FrameHeaderFlyweight.hasMetadata(setup);
+    ByteBuf rewritten =
+        SetupFrameFlyweight.encode(
+            allocator,
+            SetupFrameFlyweight.honorLease(setup),
+            SetupFrameFlyweight.resumeEnabled(setup),
+            SetupFrameFlyweight.keepAliveInterval(setup),
+            SetupFrameFlyweight.keepAliveMaxLifetime(setup),
+            SetupFrameFlyweight.resumeToken(setup),
+            SetupFrameFlyweight.metadataMimeType(setup),
+            dataMimeType,
+            hasMetadata ? SetupFrameFlyweight.metadata(setup).retain() : null,
+            SetupFrameFlyweight.data(setup).retain());
+    setup.release();
+    return rewritten;
+  }
+
+  @Nullable
+  private static ByteBuf data(ByteBuf frame, FrameType frameType) {
+    switch (frameType) {
+      case REQUEST_RESPONSE:
+        return RequestResponseFrameFlyweight.data(frame);
+      case REQUEST_FNF:
+        return RequestFireAndForgetFrameFlyweight.data(frame);
+      case REQUEST_STREAM:
+        return RequestStreamFrameFlyweight.data(frame);
+      case REQUEST_CHANNEL:
+        return RequestChannelFrameFlyweight.data(frame);
+      case NEXT:
+      case NEXT_COMPLETE:
+        return PayloadFrameFlyweight.data(frame);
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.compression;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.DuplexConnection;
+import io.rsocket.plugins.DuplexConnectionInterceptor;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An implementation of {@link DuplexConnectionInterceptor} that compresses payload data larger
+ * than a threshold. Install it on both the client and the server factory:
+ *
+ * <pre>{@code
+ * RSocketFactory.connect()
+ *     .addConnectionPlugin(
+ *         new CompressionDuplexConnectionInterceptor(Lz4Codec.create(), DeflateCodec.create()))
+ * }</pre>
+ *
+ * <p>Codecs are listed in order of preference. During setup the client offers its codecs and the
+ * server picks the first of its own that was offered; connections stay uncompressed if there is
+ * none. The offer is added as a parameter to the data mime type of the {@code SETUP} frame and
+ * removed again by the server, so applications see the mime type they configured. A server without
+ * this plugin sees the parameter.
+ *
+ * <p>Metadata, and data smaller than the threshold or that does not get smaller, are sent
+ * uncompressed.
+ */
+public final class CompressionDuplexConnectionInterceptor implements DuplexConnectionInterceptor {
+
+  /** The default threshold, in bytes, below which data is not compressed. */
+  public static final int DEFAULT_THRESHOLD = 512;
+
+  private final List<CompressionCodec> codecs;
+
+  private final int threshold;
+
+  /**
+   * Creates a new {@link DuplexConnectionInterceptor} compressing data of at least {@value
+   * #DEFAULT_THRESHOLD} bytes.
+   *
+   * @param codecs the codecs to offer or accept, in order of preference
+   * @throws NullPointerException if {@code codecs} is {@code null}
+   */
+  public CompressionDuplexConnectionInterceptor(CompressionCodec... codecs) {
+    this(DEFAULT_THRESHOLD, codecs);
+  }
+
+  /**
+   * Creates a new {@link DuplexConnectionInterceptor}.
+   *
+   * @param threshold the smallest data size, in bytes, that is compressed
+   * @param codecs the codecs to offer or accept, in order of preference
+   * @throws IllegalArgumentException if {@code threshold} is negative
+   * @throws NullPointerException if {@code codecs} is {@code null}
+   */
+  public CompressionDuplexConnectionInterceptor(int threshold, CompressionCodec... codecs) {
+    Objects.requireNonNull(codecs, "codecs must not be null");
+    if (threshold < 0) {
+      throw new IllegalArgumentException("threshold must not be negative");
+    }
+
+    this.codecs = Collections.unmodifiableList(Arrays.asList(codecs.clone()));
+    this.threshold = threshold;
+  }
+
+  @Override
+  public DuplexConnection apply(Type connectionType, DuplexConnection delegate) {
+    Objects.requireNonNull(connectionType, "connectionType must not be null");
+    Objects.requireNonNull(delegate, "delegate must not be null");
+
+    if (connectionType != Type.SOURCE) {
+      return delegate;
+    }
+
+    return new CompressionDuplexConnection(delegate, ByteBufAllocator.DEFAULT, codecs, threshold);
+  }
+}
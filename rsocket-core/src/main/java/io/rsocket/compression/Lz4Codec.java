@@ -0,0 +1,292 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.compression;
+
+import io.netty.buffer.ByteBuf;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link CompressionCodec} producing LZ4 blocks, implemented in plain Java. Fast with a moderate
+ * compression ratio, suited to payloads where CPU matters more than bytes on the wire.
+ *
+ * <p>A dictionary of typical content improves the ratio for small, repetitive messages: matches
+ * may refer to the last 64 KiB of the dictionary as if it preceded every message. Both peers must
+ * use the same dictionary.
+ *
+ * @see <a href="https://github.com/lz4/lz4/blob/dev/doc/lz4_Block_format.md">LZ4 Block Format</a>
+ */
+public final class Lz4Codec implements CompressionCodec {
+
+  private static final int MIN_MATCH = 4;
+  private static final int LAST_LITERALS = 5;
+  private static final int MF_LIMIT = 12;
+  private static final int MAX_DISTANCE = 65535;
+  private static final int HASH_LOG = 12;
+  private static final int RUN_MASK = 15;
+
+  private static final ThreadLocal<int[]> HASH_TABLE =
+      ThreadLocal.withInitial(() -> new int[1 << HASH_LOG]);
+
+  private final byte[] dictionary;
+  private final String id;
+
+  private Lz4Codec(byte[] dictionary, String id) {
+    this.dictionary = dictionary;
+    this.id = id;
+  }
+
+  /**
+   * Creates a codec without dictionary.
+   *
+   * @return a new instance
+   */
+  public static Lz4Codec create() {
+    return new Lz4Codec(new byte[0], "lz4");
+  }
+
+  /**
+   * Creates a codec with a dictionary. Only the last 64 KiB of {@code dictionary} are used.
+   *
+   * @param dictionary typical content of compressed payloads
+   * @return a new instance
+   * @throws NullPointerException if {@code dictionary} is {@code null}
+   */
+  public static Lz4Codec create(byte[] dictionary) {
+    Objects.requireNonNull(dictionary, "dictionary must not be null");
+
+    byte[] window =
+        Arrays.copyOfRange(
+            dictionary, Math.max(0, dictionary.length - MAX_DISTANCE), dictionary.length);
+    return new Lz4Codec(window, "lz4-" + checksum(window));
+  }
+
+  static String checksum(byte[] dictionary) {
+    CRC32 crc = new CRC32();
+    crc.update(dictionary, 0, dictionary.length);
+    return Long.toHexString(crc.getValue());
+  }
+
+  @Override
+  public String id() {
+    return id;
+  }
+
+  @Override
+  public boolean compress(ByteBuf source, ByteBuf target) {
+    int length = source.readableBytes();
+    byte[] src = new byte[dictionary.length + length];
+    System.arraycopy(dictionary, 0, src, 0, dictionary.length);
+    source.getBytes(source.readerIndex(), src, dictionary.length, length);
+
+    byte[] dst = new byte[maxCompressedLength(length)];
+    int compressedLength = compress(src, dictionary.length, src.length, dst, HASH_TABLE.get());
+    if (compressedLength >= length) {
+      return false;
+    }
+
+    target.writeBytes(dst, 0, compressedLength);
+    return true;
+  }
+
+  @Override
+  public void decompress(ByteBuf source, ByteBuf target, int length) {
+    byte[] src = new byte[source.readableBytes()];
+    source.getBytes(source.readerIndex(), src);
+
+    byte[] dst = new byte[dictionary.length + length];
+    System.arraycopy(dictionary, 0, dst, 0, dictionary.length);
+    decompress(src, 0, src.length, dst, dictionary.length, dst.length);
+
+    target.writeBytes(dst, dictionary.length, length);
+  }
+
+  static int maxCompressedLength(int length) {
+    return length + length / 255 + 16;
+  }
+
+  /**
+   * Compresses {@code src[start, end)} into {@code dst}. {@code src[0, start)} is the dictionary.
+   */
+  static int compress(byte[] src, int start, int end, byte[] dst, int[] table) {
+    int anchor = start;
+    int op = 0;
+
+    if (end - start > MF_LIMIT) {
+      Arrays.fill(table, -1);
+      for (int p = Math.max(0, start - MAX_DISTANCE); p < start; p++) {
+        table[hash(readInt(src, p))] = p;
+      }
+
+      int ip = start;
+      int matchStartLimit = end - MF_LIMIT;
+      int matchEndLimit = end - LAST_LITERALS;
+      while (ip <= matchStartLimit) {
+        int sequence = readInt(src, ip);
+        int h = hash(sequence);
+        int ref = table[h];
+        table[h] = ip;
+
+        if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+          ip += 1 + ((ip - anchor) >>> 6);
+          continue;
+        }
+
+        while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1]) {
+          ip--;
+          ref--;
+        }
+
+        int matchLength = MIN_MATCH;
+        while (ip + matchLength < matchEndLimit
+            && src[ip + matchLength] == src[ref + matchLength]) {
+          matchLength++;
+        }
+
+        op = writeLiterals(src, anchor, ip - anchor, dst, op, matchLength - MIN_MATCH);
+        dst[op++] = (byte) (ip - ref);
+        dst[op++] = (byte) ((ip - ref) >>> 8);
+        op = writeLength(dst, op, matchLength - MIN_MATCH);
+
+        ip += matchLength;
+        anchor = ip;
+      }
+    }
+
+    return writeLiterals(src, anchor, end - anchor, dst, op, 0);
+  }
+
+  private static int writeLiterals(
+      byte[] src, int offset, int length, byte[] dst, int op, int matchLength) {
+    int token = (Math.min(length, RUN_MASK) << 4) | Math.min(matchLength, RUN_MASK);
+    dst[op++] = (byte) token;
+    op = writeLength(dst, op, length);
+    System.arraycopy(src, offset, dst, op, length);
+    return op + length;
+  }
+
+  private static int writeLength(byte[] dst, int op, int length) {
+    if (length >= RUN_MASK) {
+      int remaining = length - RUN_MASK;
+      while (remaining >= 255) {
+        dst[op++] = (byte) 255;
+        remaining -= 255;
+      }
+      dst[op++] = (byte) remaining;
+    }
+    return op;
+  }
+
+  /**
+   * Decompresses {@code src[srcOffset, srcEnd)} into {@code dst[dstOffset, dstEnd)}. {@code dst[0,
+   * dstOffset)} is the dictionary.
+   */
+  static void decompress(
+      byte[] src, int srcOffset, int srcEnd, byte[] dst, int dstOffset, int dstEnd) {
+    int sp = srcOffset;
+    int op = dstOffset;
+
+    while (true) {
+      if (sp >= srcEnd) {
+        throw malformed();
+      }
+      int token = src[sp++] & 0xFF;
+
+      int literals = token >>> 4;
+      if (literals == RUN_MASK) {
+        int b;
+        do {
+          if (sp >= srcEnd) {
+            throw malformed();
+          }
+          b = src[sp++] & 0xFF;
+          literals += b;
+        } while (b == 255);
+      }
+      if (literals > srcEnd - sp || literals > dstEnd - op) {
+        throw malformed();
+      }
+      System.arraycopy(src, sp, dst, op, literals);
+      sp += literals;
+      op += literals;
+
+      if (sp == srcEnd) {
+        break;
+      }
+
+      if (srcEnd - sp < 2) {
+        throw malformed();
+      }
+      int offset = (src[sp] & 0xFF) | ((src[sp + 1] & 0xFF) << 8);
+      sp += 2;
+      int ref = op - offset;
+      if (offset == 0 || ref < 0) {
+        throw malformed();
+      }
+
+      int matchLength = token & RUN_MASK;
+      if (matchLength == RUN_MASK) {
+        int b;
+        do {
+          if (sp >= srcEnd) {
+            throw malformed();
+          }
+          b = src[sp++] & 0xFF;
+          matchLength += b;
+        } while (b == 255);
+      }
+      matchLength += MIN_MATCH;
+      if (matchLength > dstEnd - op) {
+        throw malformed();
+      }
+
+      if (offset >= matchLength) {
+        System.arraycopy(dst, ref, dst, op, matchLength);
+      } else {
+        for (int i = 0; i < matchLength; i++) {
+          dst[op + i] = dst[ref + i];
+        }
+      }
+      op += matchLength;
+    }
+
+    if (op != dstEnd) {
+      throw malformed();
+    }
+  }
+
+  private static IllegalArgumentException malformed() {
+    return new IllegalArgumentException("malformed LZ4 block");
+  }
+
+  private static int readInt(byte[] src, int offset) {
+    return (src[offset] & 0xFF)
+        | (src[offset + 1] & 0xFF) << 8
+        | (src[offset + 2] & 0xFF) << 16
+        | (src[offset + 3] & 0xFF) << 24;
+  }
+
+  private static int hash(int sequence) {
+    return (sequence * -1640531535) >>> (32 - HASH_LOG);
+  }
+
+  @Override
+  public String toString() {
+    return "Lz4Codec{" + "id=" + id + '}';
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.fragmentation;
+
+import io.netty.buffer.ByteBuf;
+import io.rsocket.Payload;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import java.util.Objects;
+
+/**
+ * A {@link PayloadDecoder} for connections that pass on the fragments of large {@code NEXT}
+ * payloads as they arrive, see {@link FragmentationDuplexConnection}.
+ *
+ * <p>A fragment that is followed by more fragments of the same payload decodes to a {@link
+ * PayloadChunk}; the last fragment, like any unfragmented frame, decodes to a plain {@link
+ * Payload}. A stream of such payloads can be regrouped with {@code windowUntil(payload -> !(payload
+ * instanceof PayloadChunk))}. Every chunk is delivered as its own element, so demand is consumed
+ * per chunk rather than per payload.
+ */
+public final class ChunkedPayloadDecoder implements PayloadDecoder {
+  private final PayloadDecoder delegate;
+
+  public ChunkedPayloadDecoder(PayloadDecoder delegate) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+  }
+
+  @Override
+  public Payload apply(ByteBuf frame) {
+    Payload payload = delegate.apply(frame);
+    return FrameHeaderFlyweight.hasFollows(frame) ? new PayloadChunk(payload) : payload;
+  }
+}
@@ -34,11 +34,23 @@
 /**
  * A {@link DuplexConnection} implementation that fragments and reassembles {@link ByteBuf}s.
  *
+ * <p>Received fragments are buffered until their frame is complete. The bytes buffered for a single
+ * frame and for the whole connection are limited, by default to {@link #DEFAULT_MAX_STREAM_BYTES}
+ * and {@link #DEFAULT_MAX_CONNECTION_BYTES}; streams whose frames exceed a limit are rejected.
+ * Alternatively, fragments of {@code NEXT} payloads can be passed on as they arrive, to be consumed
+ * in chunks with a {@link ChunkedPayloadDecoder}.
+ *
  * @see <a
  *     href="https://github.com/rsocket/rsocket/blob/master/Protocol.md#fragmentation-and-reassembly">Fragmentation
  *     and Reassembly</a>
  */
 public final class FragmentationDuplexConnection implements DuplexConnection {
+  /** The most bytes a received fragmented frame may reassemble to, unless configured. */
+  public static final int DEFAULT_MAX_STREAM_BYTES = 64 * 1024 * 1024;
+
+  /** The most bytes of incomplete received frames buffered per connection, unless configured. */
+  public static final long DEFAULT_MAX_CONNECTION_BYTES = 256L * 1024 * 1024;
+
   private static final int MIN_MTU_SIZE = 64;
   private static final Logger logger = LoggerFactory.getLogger(FragmentationDuplexConnection.class);
   private final DuplexConnection delegate;
@@ -49,16 +61,50 @@ public final class FragmentationDuplexConnection implements DuplexConnection {
 
   public FragmentationDuplexConnection(
       DuplexConnection delegate, ByteBufAllocator allocator, int mtu, boolean encodeLength) {
+    this(
+        delegate,
+        allocator,
+        mtu,
+        encodeLength,
+        DEFAULT_MAX_STREAM_BYTES,
+        DEFAULT_MAX_CONNECTION_BYTES,
+        false);
+  }
+
+  /**
+   * @param delegate the connection to send and receive fragments on
+   * @param allocator the allocator for fragments and reassembled frames
+   * @param mtu the largest frame sent without fragmenting it
+   * @param encodeLength whether frames are prefixed with their length
+   * @param maxStreamBytes the most bytes a received fragmented frame may reassemble to
+   * @param maxConnectionBytes the most bytes of incomplete received frames buffered across all
+   *     streams
+   * @param streaming whether fragments of received {@code NEXT} payloads are passed on as they
+   *     arrive instead of being reassembled
+   */
+  public FragmentationDuplexConnection(
+      DuplexConnection delegate,
+      ByteBufAllocator allocator,
+      int mtu,
+      boolean encodeLength,
+      int maxStreamBytes,
+      long maxConnectionBytes,
+      boolean streaming) {
     Objects.requireNonNull(delegate, "delegate must not be null");
     Objects.requireNonNull(allocator, "byteBufAllocator must not be null");
     if (mtu < MIN_MTU_SIZE) {
       throw new IllegalArgumentException("smallest allowed mtu size is " + MIN_MTU_SIZE + " bytes");
     }
+    if (maxStreamBytes <= 0 || maxConnectionBytes <= 0) {
+      throw new IllegalArgumentException("reassembly limits must be positive");
+    }
     this.encodeLength = encodeLength;
     this.allocator = allocator;
     this.delegate = delegate;
     this.mtu = mtu;
-    this.frameReassembler = new FrameReassembler(allocator);
+    this.frameReassembler =
+        new FrameReassembler(
+            allocator, maxStreamBytes, maxConnectionBytes, streaming, this::sendRejection);
 
     delegate.onClose().doFinally(s -> frameReassembler.dispose()).subscribe();
   }
@@ -69,11 +115,29 @@ private boolean shouldFragment(FrameType frameType, int readableBytes) {
 
   @Override
   public Mono<Void> send(Publisher<ByteBuf> frames) {
-    return Flux.from(frames).concatMap(this::sendOne).then();
+    // a resumable session sends its SETUP frame along with all other frames
+    return delegate.send(
+        new FragmentingFlux(
+            Flux.from(frames).doOnNext(this::onSend), allocator, mtu, encodeLength));
+  }
+
+  /** Records that this end initiates the odd streams if {@code frame} is a SETUP or RESUME. */
+  private void onSend(ByteBuf frame) {
+    FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+    if (frameType == FrameType.SETUP || frameType == FrameType.RESUME) {
+      frameReassembler.localSetup(true);
+    }
+  }
+
+  private void sendRejection(ByteBuf frame) {
+    delegate
+        .sendOne(FrameFragmenter.encode(allocator, frame, encodeLength))
+        .subscribe(null, t -> logger.debug("failed to reject stream", t));
   }
 
   @Override
   public Mono<Void> sendOne(ByteBuf frame) {
+    onSend(frame);
     FrameType frameType = FrameHeaderFlyweight.frameType(frame);
     int readableBytes = frame.readableBytes();
     if (shouldFragment(frameType, readableBytes)) {
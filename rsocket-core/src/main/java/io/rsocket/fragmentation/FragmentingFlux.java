@@ -0,0 +1,370 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.fragmentation;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.collection.IntObjectHashMap;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.FrameLengthFlyweight;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Fragments the frames of a {@link Publisher} that are larger than the mtu, passing all others on
+ * as they are.
+ *
+ * <p>A frame that needs fragmenting is broken up lazily, one fragment per request, so it never
+ * holds up the frames behind it: the fragments of all frames being fragmented are sent in turns
+ * with the other frames. Fragments of one frame stay contiguous on their stream, frames of a stream
+ * that arrive while it is being fragmented wait until its last fragment has been sent.
+ */
+final class FragmentingFlux extends Flux<ByteBuf> {
+  private final Publisher<ByteBuf> source;
+  private final ByteBufAllocator allocator;
+  private final int mtu;
+  private final boolean encodeLength;
+
+  FragmentingFlux(
+      Publisher<ByteBuf> source, ByteBufAllocator allocator, int mtu, boolean encodeLength) {
+    this.source = source;
+    this.allocator = allocator;
+    this.mtu = mtu;
+    this.encodeLength = encodeLength;
+  }
+
+  @Override
+  public void subscribe(CoreSubscriber<? super ByteBuf> actual) {
+    source.subscribe(new FragmentingSubscriber(actual, allocator, mtu, encodeLength));
+  }
+
+  private static final class FragmentingSubscriber
+      implements CoreSubscriber<ByteBuf>, Subscription {
+    private static final AtomicIntegerFieldUpdater<FragmentingSubscriber> WIP =
+        AtomicIntegerFieldUpdater.newUpdater(FragmentingSubscriber.class, "wip");
+    private static final AtomicLongFieldUpdater<FragmentingSubscriber> REQUESTED =
+        AtomicLongFieldUpdater.newUpdater(FragmentingSubscriber.class, "requested");
+
+    private static final int PREFETCH = Queues.SMALL_BUFFER_SIZE;
+    private static final int LIMIT = PREFETCH - (PREFETCH >> 2);
+
+    private final CoreSubscriber<? super ByteBuf> actual;
+    private final ByteBufAllocator allocator;
+    private final int mtu;
+    private final boolean encodeLength;
+    private final Queue<ByteBuf> queue = Queues.<ByteBuf>get(PREFETCH).get();
+
+    /** Streams with a frame being fragmented, in the order they take turns. Drain loop only. */
+    private final ArrayDeque<Lane> lanes = new ArrayDeque<>();
+
+    private final IntObjectHashMap<Lane> lanesByStream = new IntObjectHashMap<>();
+
+    private Subscription s;
+    private int consumed;
+    private boolean lanesTurn;
+
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private Throwable error;
+
+    private volatile int wip;
+    private volatile long requested;
+
+    FragmentingSubscriber(
+        CoreSubscriber<? super ByteBuf> actual,
+        ByteBufAllocator allocator,
+        int mtu,
+        boolean encodeLength) {
+      this.actual = actual;
+      this.allocator = allocator;
+      this.mtu = mtu;
+      this.encodeLength = encodeLength;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      if (Operators.validate(this.s, s)) {
+        this.s = s;
+        actual.onSubscribe(this);
+        s.request(PREFETCH);
+      }
+    }
+
+    @Override
+    public void onNext(ByteBuf frame) {
+      if (done || cancelled) {
+        frame.release();
+        return;
+      }
+
+      if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+        // nothing being fragmented and nothing queued, a small frame goes straight through
+        if (requested != 0 && lanes.isEmpty() && queue.isEmpty() && !needsFragmenting(frame)) {
+          actual.onNext(encode(frame));
+          if (requested != Long.MAX_VALUE) {
+            REQUESTED.decrementAndGet(this);
+          }
+          replenish();
+          if (WIP.decrementAndGet(this) == 0) {
+            return;
+          }
+        } else if (!queue.offer(frame)) {
+          overflow(frame);
+        }
+      } else {
+        if (!queue.offer(frame)) {
+          overflow(frame);
+        }
+        if (WIP.getAndIncrement(this) != 0) {
+          return;
+        }
+      }
+      drainLoop();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      if (done) {
+        Operators.onErrorDropped(t, actual.currentContext());
+        return;
+      }
+      error = t;
+      done = true;
+      drain();
+    }
+
+    @Override
+    public void onComplete() {
+      if (done) {
+        return;
+      }
+      done = true;
+      drain();
+    }
+
+    @Override
+    public void request(long n) {
+      if (Operators.validate(n)) {
+        Operators.addCap(REQUESTED, this, n);
+        drain();
+      }
+    }
+
+    @Override
+    public void cancel() {
+      if (cancelled) {
+        return;
+      }
+      cancelled = true;
+      s.cancel();
+      drain();
+    }
+
+    private void overflow(ByteBuf frame) {
+      frame.release();
+      s.cancel();
+      onError(Operators.onOperatorError(Exceptions.failWithOverflow(), actual.currentContext()));
+    }
+
+    private boolean needsFragmenting(ByteBuf frame) {
+      return frame.readableBytes() > mtu && FrameHeaderFlyweight.frameType(frame).isFragmentable();
+    }
+
+    private ByteBuf encode(ByteBuf frame) {
+      if (encodeLength) {
+        return FrameLengthFlyweight.encode(allocator, frame.readableBytes(), frame);
+      } else {
+        return frame;
+      }
+    }
+
+    /**
+     * Counts a received frame as consumed once it, or its last fragment, has been emitted. Frames
+     * waiting in a lane keep counting against the prefetch, so that a stream being fragmented stops
+     * the requests upstream rather than piling up here.
+     */
+    private void replenish() {
+      if (++consumed == LIMIT) {
+        consumed = 0;
+        s.request(LIMIT);
+      }
+    }
+
+    private void drain() {
+      if (WIP.getAndIncrement(this) != 0) {
+        return;
+      }
+      drainLoop();
+    }
+
+    private void drainLoop() {
+      int missed = 1;
+      for (; ; ) {
+        if (cancelled) {
+          clear();
+        } else {
+          long r = requested;
+          long e = 0;
+          while (e != r) {
+            ByteBuf next = poll();
+            if (next == null) {
+              break;
+            }
+            actual.onNext(next);
+            e++;
+            if (cancelled) {
+              break;
+            }
+          }
+          if (e != 0 && r != Long.MAX_VALUE) {
+            REQUESTED.addAndGet(this, -e);
+          }
+
+          boolean d = done;
+          if (d && error != null && !cancelled) {
+            cancelled = true;
+            clear();
+            actual.onError(error);
+          } else if (d && queue.isEmpty() && lanes.isEmpty() && !cancelled) {
+            cancelled = true;
+            actual.onComplete();
+          }
+        }
+
+        missed = WIP.addAndGet(this, -missed);
+        if (missed == 0) {
+          break;
+        }
+      }
+    }
+
+    /**
+     * Returns the next frame or fragment to send, alternating between the frames received and the
+     * streams being fragmented, or {@code null} if there is none.
+     */
+    private ByteBuf poll() {
+      for (; ; ) {
+        if (lanesTurn && !lanes.isEmpty()) {
+          lanesTurn = false;
+          Lane lane = lanes.poll();
+          ByteBuf next = lane.next();
+          if (lane.isEmpty()) {
+            lanesByStream.remove(lane.streamId);
+          } else {
+            lanes.offer(lane);
+          }
+          return next;
+        }
+
+        ByteBuf frame = queue.poll();
+        if (frame == null) {
+          if (lanes.isEmpty()) {
+            return null;
+          }
+          lanesTurn = true;
+          continue;
+        }
+        lanesTurn = true;
+
+        int streamId = FrameHeaderFlyweight.streamId(frame);
+        Lane lane = streamId == 0 ? null : lanesByStream.get(streamId);
+        if (lane != null) {
+          // keeps the frames of a stream in order behind the fragments
+          lane.offer(frame);
+        } else if (needsFragmenting(frame)) {
+          lane = new Lane(streamId);
+          lane.offer(frame);
+          lanesByStream.put(streamId, lane);
+          lanes.offer(lane);
+        } else {
+          replenish();
+          return encode(frame);
+        }
+      }
+    }
+
+    private void clear() {
+      ByteBuf frame;
+      while ((frame = queue.poll()) != null) {
+        frame.release();
+      }
+      Lane lane;
+      while ((lane = lanes.poll()) != null) {
+        lane.release();
+      }
+      lanesByStream.clear();
+    }
+
+    /** The frames of one stream waiting behind the frame being fragmented. */
+    private final class Lane {
+      final int streamId;
+      private final ArrayDeque<ByteBuf> frames = new ArrayDeque<>(2);
+      private FrameFragmenter.Fragments fragments;
+
+      Lane(int streamId) {
+        this.streamId = streamId;
+      }
+
+      void offer(ByteBuf frame) {
+        frames.offer(frame);
+      }
+
+      boolean isEmpty() {
+        return fragments == null && frames.isEmpty();
+      }
+
+      ByteBuf next() {
+        if (fragments == null) {
+          ByteBuf frame = frames.poll();
+          if (!needsFragmenting(frame)) {
+            replenish();
+            return encode(frame);
+          }
+          fragments =
+              new FrameFragmenter.Fragments(
+                  allocator, mtu, frame, FrameHeaderFlyweight.frameType(frame), encodeLength);
+        }
+        ByteBuf fragment = fragments.next();
+        if (fragments.isDone()) {
+          fragments = null;
+          replenish();
+        }
+        return fragment;
+      }
+
+      void release() {
+        if (fragments != null) {
+          fragments.release();
+          fragments = null;
+        }
+        ByteBuf frame;
+        while ((frame = frames.poll()) != null) {
+          frame.release();
+        }
+      }
+    }
+  }
+}
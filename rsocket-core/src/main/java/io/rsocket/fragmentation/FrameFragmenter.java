@@ -21,10 +21,8 @@
 import io.netty.buffer.Unpooled;
 import io.netty.util.ReferenceCountUtil;
 import io.rsocket.frame.*;
-import java.util.function.Consumer;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.SynchronousSink;
 
 /**
  * The implementation of the RSocket fragmentation behavior.
@@ -40,32 +38,16 @@ static Publisher<ByteBuf> fragmentFrame(
       final ByteBuf frame,
       FrameType frameType,
       boolean encodeLength) {
-    ByteBuf metadata = getMetadata(frame, frameType);
-    ByteBuf data = getData(frame, frameType);
-    int streamId = FrameHeaderFlyweight.streamId(frame);
     return Flux.generate(
-            new Consumer<SynchronousSink<ByteBuf>>() {
-              boolean first = true;
-
-              @Override
-              public void accept(SynchronousSink<ByteBuf> sink) {
-                ByteBuf byteBuf;
-                if (first) {
-                  first = false;
-                  byteBuf =
-                      encodeFirstFragment(
-                          allocator, mtu, frame, frameType, streamId, metadata, data);
-                } else {
-                  byteBuf = encodeFollowsFragment(allocator, mtu, streamId, metadata, data);
-                }
-
-                sink.next(encode(allocator, byteBuf, encodeLength));
-                if (!metadata.isReadable() && !data.isReadable()) {
-                  sink.complete();
-                }
-              }
-            })
-        .doFinally(signalType -> ReferenceCountUtil.safeRelease(frame));
+        () -> new Fragments(allocator, mtu, frame, frameType, encodeLength),
+        (fragments, sink) -> {
+          sink.next(fragments.next());
+          if (fragments.isDone()) {
+            sink.complete();
+          }
+          return fragments;
+        },
+        Fragments::release);
   }
 
   static ByteBuf encodeFirstFragment(
@@ -76,16 +58,33 @@ static ByteBuf encodeFirstFragment(
       int streamId,
       ByteBuf metadata,
       ByteBuf data) {
+    return encodeFragment(allocator, mtu, frame, frameType, true, metadata, data, false);
+  }
+
+  static ByteBuf encodeFollowsFragment(
+      ByteBufAllocator allocator, int mtu, ByteBuf frame, ByteBuf metadata, ByteBuf data) {
+    return encodeFragment(allocator, mtu, frame, FrameType.NEXT, false, metadata, data, false);
+  }
+
+  /**
+   * Encodes the next fragment of {@code frame}, reading as much of {@code metadata} and then {@code
+   * data} as fits into {@code mtu}. The fragments are retained slices of {@code frame}.
+   */
+  static ByteBuf encodeFragment(
+      ByteBufAllocator allocator,
+      int mtu,
+      ByteBuf frame,
+      FrameType frameType,
+      boolean first,
+      ByteBuf metadata,
+      ByteBuf data,
+      boolean encodeLength) {
     // subtract the header bytes
     int remaining = mtu - FrameHeaderFlyweight.size();
 
     // substract the initial request n
-    switch (frameType) {
-      case REQUEST_STREAM:
-      case REQUEST_CHANNEL:
-        remaining -= Integer.BYTES;
-        break;
-      default:
+    if (first && frameType.hasInitialRequestN()) {
+      remaining -= Integer.BYTES;
     }
 
     ByteBuf metadataFragment = null;
@@ -103,71 +102,63 @@ static ByteBuf encodeFirstFragment(
       dataFragment = data.readRetainedSlice(r);
     }
 
-    switch (frameType) {
-      case REQUEST_FNF:
-        return RequestFireAndForgetFrameFlyweight.encode(
-            allocator, streamId, true, metadataFragment, dataFragment);
-      case REQUEST_STREAM:
-        return RequestStreamFrameFlyweight.encode(
-            allocator,
-            streamId,
-            true,
-            RequestStreamFrameFlyweight.initialRequestN(frame),
-            metadataFragment,
-            dataFragment);
-      case REQUEST_RESPONSE:
-        return RequestResponseFrameFlyweight.encode(
-            allocator, streamId, true, metadataFragment, dataFragment);
-      case REQUEST_CHANNEL:
-        return RequestChannelFrameFlyweight.encode(
-            allocator,
-            streamId,
-            true,
-            false,
-            RequestChannelFrameFlyweight.initialRequestN(frame),
-            metadataFragment,
-            dataFragment);
-        // Payload and synthetic types
-      case PAYLOAD:
-        return PayloadFrameFlyweight.encode(
-            allocator, streamId, true, false, false, metadataFragment, dataFragment);
-      case NEXT:
-        return PayloadFrameFlyweight.encode(
-            allocator, streamId, true, false, true, metadataFragment, dataFragment);
-      case NEXT_COMPLETE:
-        return PayloadFrameFlyweight.encode(
-            allocator, streamId, true, true, true, metadataFragment, dataFragment);
-      case COMPLETE:
-        return PayloadFrameFlyweight.encode(
-            allocator, streamId, true, true, false, metadataFragment, dataFragment);
-      default:
-        throw new IllegalStateException("unsupported fragment type: " + frameType);
-    }
+    boolean follows = data.isReadable() || metadata.isReadable();
+    return FragmentationFlyweight.encodeFragment(
+        allocator, frame, first, follows, metadataFragment, dataFragment, encodeLength);
   }
 
-  static ByteBuf encodeFollowsFragment(
-      ByteBufAllocator allocator, int mtu, int streamId, ByteBuf metadata, ByteBuf data) {
-    // subtract the header bytes
-    int remaining = mtu - FrameHeaderFlyweight.size();
+  /**
+   * The remaining fragments of a frame larger than the mtu. Fragments are produced one at a time as
+   * the connection asks for them, the frame is released once the last one has been produced.
+   */
+  static final class Fragments {
+    final int streamId;
+    private final ByteBufAllocator allocator;
+    private final int mtu;
+    private final ByteBuf frame;
+    private final FrameType frameType;
+    private final ByteBuf metadata;
+    private final ByteBuf data;
+    private final boolean encodeLength;
+    private boolean first = true;
+    private boolean released;
+
+    Fragments(
+        ByteBufAllocator allocator,
+        int mtu,
+        ByteBuf frame,
+        FrameType frameType,
+        boolean encodeLength) {
+      this.allocator = allocator;
+      this.mtu = mtu;
+      this.frame = frame;
+      this.frameType = frameType;
+      this.encodeLength = encodeLength;
+      this.streamId = FrameHeaderFlyweight.streamId(frame);
+      this.metadata = getMetadata(frame, frameType);
+      this.data = getData(frame, frameType);
+    }
 
-    ByteBuf metadataFragment = null;
-    if (metadata.isReadable()) {
-      // subtract the metadata frame length
-      remaining -= 3;
-      int r = Math.min(remaining, metadata.readableBytes());
-      remaining -= r;
-      metadataFragment = metadata.readRetainedSlice(r);
+    ByteBuf next() {
+      ByteBuf fragment =
+          encodeFragment(allocator, mtu, frame, frameType, first, metadata, data, encodeLength);
+      first = false;
+      if (isDone()) {
+        release();
+      }
+      return fragment;
     }
 
-    ByteBuf dataFragment = Unpooled.EMPTY_BUFFER;
-    if (remaining > 0 && data.isReadable()) {
-      int r = Math.min(remaining, data.readableBytes());
-      dataFragment = data.readRetainedSlice(r);
+    boolean isDone() {
+      return !first && !metadata.isReadable() && !data.isReadable();
     }
 
-    boolean follows = data.isReadable() || metadata.isReadable();
-    return PayloadFrameFlyweight.encode(
-        allocator, streamId, follows, false, true, metadataFragment, dataFragment);
+    void release() {
+      if (!released) {
+        released = true;
+        ReferenceCountUtil.safeRelease(frame);
+      }
+    }
   }
 
   static ByteBuf getMetadata(ByteBuf frame, FrameType frameType) {
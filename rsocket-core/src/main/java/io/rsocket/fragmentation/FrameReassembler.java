@@ -23,8 +23,11 @@
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.collection.IntObjectHashMap;
 import io.netty.util.collection.IntObjectMap;
+import io.rsocket.exceptions.CanceledException;
+import io.rsocket.exceptions.RejectedException;
 import io.rsocket.frame.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.Disposable;
@@ -33,6 +36,11 @@
 /**
  * The implementation of the RSocket reassembly behavior.
  *
+ * <p>Fragments are buffered until the last fragment of a frame arrives. The bytes buffered for a
+ * single frame and for all frames of the connection are bounded; a frame that grows beyond either
+ * limit is dropped and its stream is rejected. In streaming mode, fragments of {@code NEXT}
+ * payloads are passed on as they arrive instead, see {@link ChunkedPayloadDecoder}.
+ *
  * @see <a
  *     href="https://github.com/rsocket/rsocket/blob/master/Protocol.md#fragmentation-and-reassembly">Fragmentation
  *     and Reassembly</a>
@@ -40,17 +48,60 @@
 final class FrameReassembler extends AtomicBoolean implements Disposable {
   private static final Logger logger = LoggerFactory.getLogger(FrameReassembler.class);
 
+  /**
+   * Fragments are kept as components, the default limit would consolidate a large frame on every
+   * sixteenth fragment and copy it over and over.
+   */
+  private static final int MAX_COMPONENTS = Integer.MAX_VALUE;
+
   final IntObjectMap<ByteBuf> headers;
   final IntObjectMap<CompositeByteBuf> metadata;
   final IntObjectMap<CompositeByteBuf> data;
 
+  /**
+   * Streams whose remaining fragments bypass reassembly, mapped to {@code true} when the fragments
+   * are passed on as chunks and to {@code false} when they are dropped after a rejection.
+   */
+  final IntObjectMap<Boolean> bypassed;
+
   private final ByteBufAllocator allocator;
+  private final int maxStreamBytes;
+  private final long maxConnectionBytes;
+  private final boolean streaming;
+  private final Consumer<ByteBuf> sender;
+
+  /** Bytes held by incomplete frames of all streams. Guarded by {@code this}. */
+  private long bufferedBytes;
+
+  /** Whether streams with odd ids are initiated by this end of the connection, if known. */
+  private volatile Boolean localOddStreams;
 
   public FrameReassembler(ByteBufAllocator allocator) {
+    this(allocator, Integer.MAX_VALUE, Long.MAX_VALUE, false, frame -> frame.release());
+  }
+
+  /**
+   * @param allocator the allocator for reassembled frames
+   * @param maxStreamBytes the most bytes a fragmented frame may reassemble to
+   * @param maxConnectionBytes the most bytes of incomplete frames buffered across all streams
+   * @param streaming whether fragments of {@code NEXT} payloads are passed on as they arrive
+   * @param sender sends the frames rejecting a stream to the peer
+   */
+  public FrameReassembler(
+      ByteBufAllocator allocator,
+      int maxStreamBytes,
+      long maxConnectionBytes,
+      boolean streaming,
+      Consumer<ByteBuf> sender) {
     this.allocator = allocator;
+    this.maxStreamBytes = maxStreamBytes;
+    this.maxConnectionBytes = maxConnectionBytes;
+    this.streaming = streaming;
+    this.sender = sender;
     this.headers = new IntObjectHashMap<>();
     this.metadata = new IntObjectHashMap<>();
     this.data = new IntObjectHashMap<>();
+    this.bypassed = new IntObjectHashMap<>();
   }
 
   @Override
@@ -71,6 +122,9 @@ public void dispose() {
           ReferenceCountUtil.safeRelease(byteBuf);
         }
         data.clear();
+
+        bypassed.clear();
+        bufferedBytes = 0;
       }
     }
   }
@@ -88,7 +142,7 @@ synchronized CompositeByteBuf getMetadata(int streamId) {
     CompositeByteBuf byteBuf = metadata.get(streamId);
 
     if (byteBuf == null) {
-      byteBuf = allocator.compositeBuffer();
+      byteBuf = allocator.compositeBuffer(MAX_COMPONENTS);
       metadata.put(streamId, byteBuf);
     }
 
@@ -99,7 +153,7 @@ synchronized CompositeByteBuf getData(int streamId) {
     CompositeByteBuf byteBuf = data.get(streamId);
 
     if (byteBuf == null) {
-      byteBuf = allocator.compositeBuffer();
+      byteBuf = allocator.compositeBuffer(MAX_COMPONENTS);
       data.put(streamId, byteBuf);
     }
 
@@ -122,7 +176,55 @@ synchronized void putHeader(int streamId, ByteBuf header) {
     headers.put(streamId, header);
   }
 
+  synchronized Boolean getBypassed(int streamId) {
+    return bypassed.isEmpty() ? null : bypassed.get(streamId);
+  }
+
+  synchronized void putBypassed(int streamId, boolean passOn) {
+    bypassed.put(streamId, Boolean.valueOf(passOn));
+  }
+
+  synchronized void removeBypassed(int streamId) {
+    bypassed.remove(streamId);
+  }
+
+  /** Returns the bytes buffered for the incomplete frame of {@code streamId}. */
+  synchronized int bufferedBytes(int streamId) {
+    int bytes = 0;
+    ByteBuf header = headers.get(streamId);
+    if (header != null) {
+      bytes += header.readableBytes();
+    }
+    ByteBuf metadata = this.metadata.get(streamId);
+    if (metadata != null) {
+      bytes += metadata.readableBytes();
+    }
+    ByteBuf data = this.data.get(streamId);
+    if (data != null) {
+      bytes += data.readableBytes();
+    }
+    return bytes;
+  }
+
+  synchronized long bufferedBytes() {
+    return bufferedBytes;
+  }
+
+  private synchronized long addBufferedBytes(long bytes) {
+    return bufferedBytes += bytes;
+  }
+
+  /**
+   * Records whether this end of the connection sent the {@code SETUP} or {@code RESUME} frame and
+   * so initiates the streams with odd ids.
+   */
+  void localSetup(boolean sent) {
+    localOddStreams = sent;
+  }
+
   void cancelAssemble(int streamId) {
+    removeBypassed(streamId);
+    addBufferedBytes(-bufferedBytes(streamId));
     ByteBuf header = removeHeader(streamId);
     CompositeByteBuf metadata = removeMetadata(streamId);
     CompositeByteBuf data = removeData(streamId);
@@ -141,8 +243,16 @@ void cancelAssemble(int streamId) {
   }
 
   void handleNoFollowsFlag(ByteBuf frame, SynchronousSink<ByteBuf> sink, int streamId) {
-    ByteBuf header = removeHeader(streamId);
+    ByteBuf header = getHeader(streamId);
     if (header != null) {
+      int streamBytes = bufferedBytes(streamId);
+      if ((long) streamBytes + frame.readableBytes() > maxStreamBytes) {
+        reject(frame, sink, streamId, false);
+        return;
+      }
+      addBufferedBytes(-streamBytes);
+      removeHeader(streamId);
+
       if (FrameHeaderFlyweight.hasMetadata(header)) {
         ByteBuf assembledFrame = assembleFrameWithMetadata(frame, streamId, header);
         sink.next(assembledFrame);
@@ -156,7 +266,9 @@ void handleNoFollowsFlag(ByteBuf frame, SynchronousSink<ByteBuf> sink, int strea
     }
   }
 
-  void handleFollowsFlag(ByteBuf frame, int streamId, FrameType frameType) {
+  void handleFollowsFlag(
+      ByteBuf frame, SynchronousSink<ByteBuf> sink, int streamId, FrameType frameType) {
+    int before = bufferedBytes(streamId);
     ByteBuf header = getHeader(streamId);
     if (header == null) {
       header = frame.copy(frame.readerIndex(), FrameHeaderFlyweight.size());
@@ -223,6 +335,57 @@ void handleFollowsFlag(ByteBuf frame, int streamId, FrameType frameType) {
     if (data != Unpooled.EMPTY_BUFFER) {
       getData(streamId).addComponents(true, data);
     }
+
+    int streamBytes = bufferedBytes(streamId);
+    long connectionBytes = addBufferedBytes(streamBytes - before);
+    if (streamBytes > maxStreamBytes || connectionBytes > maxConnectionBytes) {
+      reject(null, sink, streamId, true);
+    }
+  }
+
+  /**
+   * Drops the incomplete frame of {@code streamId} and any of its fragments still to come, and
+   * rejects the stream. A request is answered with a {@code REJECTED} error, an oversized payload
+   * of an established stream errors the stream locally and stops the peer from sending more.
+   */
+  private void reject(
+      ByteBuf frame, SynchronousSink<ByteBuf> sink, int streamId, boolean fragmentsFollow) {
+    FrameType frameType = FrameHeaderFlyweight.frameType(getHeader(streamId));
+    cancelAssemble(streamId);
+    if (frame != null) {
+      ReferenceCountUtil.safeRelease(frame);
+    }
+    if (fragmentsFollow) {
+      putBypassed(streamId, false);
+    }
+
+    String message =
+        "Reassembled "
+            + frameType
+            + " frame on stream "
+            + streamId
+            + " exceeds the reassembly limit";
+    switch (frameType) {
+      case REQUEST_FNF:
+        logger.debug(message);
+        break;
+      case REQUEST_RESPONSE:
+      case REQUEST_STREAM:
+      case REQUEST_CHANNEL:
+        sender.accept(
+            ErrorFrameFlyweight.encode(allocator, streamId, new RejectedException(message)));
+        break;
+      default:
+        CanceledException error = new CanceledException(message);
+        sink.next(ErrorFrameFlyweight.encode(allocator, streamId, error));
+        Boolean localOddStreams = this.localOddStreams;
+        boolean remoteStream = localOddStreams != null && localOddStreams != ((streamId & 1) == 1);
+        // only the requester may cancel, the responder of a channel answers with an error
+        sender.accept(
+            remoteStream
+                ? ErrorFrameFlyweight.encode(allocator, streamId, error)
+                : CancelFrameFlyweight.encode(allocator, streamId));
+    }
   }
 
   void reassembleFrame(ByteBuf frame, SynchronousSink<ByteBuf> sink) {
@@ -233,6 +396,11 @@ void reassembleFrame(ByteBuf frame, SynchronousSink<ByteBuf> sink) {
         case CANCEL:
         case ERROR:
           cancelAssemble(streamId);
+          break;
+        case SETUP:
+        case RESUME:
+          localSetup(false);
+          break;
         default:
       }
 
@@ -243,10 +411,27 @@ void reassembleFrame(ByteBuf frame, SynchronousSink<ByteBuf> sink) {
 
       boolean hasFollows = FrameHeaderFlyweight.hasFollows(frame);
 
+      Boolean passOn = getBypassed(streamId);
+      if (passOn != null) {
+        if (!hasFollows) {
+          removeBypassed(streamId);
+        }
+        if (passOn) {
+          sink.next(frame);
+        } else {
+          ReferenceCountUtil.safeRelease(frame);
+        }
+        return;
+      }
+
       if (!hasFollows) {
         handleNoFollowsFlag(frame, sink, streamId);
+      } else if (streaming && frameType == FrameType.NEXT && getHeader(streamId) == null) {
+        // the first fragment of a NEXT payload, it and the following fragments are chunks
+        putBypassed(streamId, true);
+        sink.next(frame);
       } else {
-        handleFollowsFlag(frame, streamId, frameType);
+        handleFollowsFlag(frame, sink, streamId, frameType);
       }
 
     } catch (Throwable t) {
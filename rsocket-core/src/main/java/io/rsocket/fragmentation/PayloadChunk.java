@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.fragmentation;
+
+import io.netty.buffer.ByteBuf;
+import io.rsocket.Payload;
+
+/**
+ * A leading part of a payload received in fragments, decoded by a {@link ChunkedPayloadDecoder}.
+ * The payload continues with the following chunks up to and including the next payload that is not
+ * a {@code PayloadChunk}.
+ */
+public final class PayloadChunk implements Payload {
+  private final Payload chunk;
+
+  PayloadChunk(Payload chunk) {
+    this.chunk = chunk;
+  }
+
+  @Override
+  public boolean hasMetadata() {
+    return chunk.hasMetadata();
+  }
+
+  @Override
+  public ByteBuf sliceMetadata() {
+    return chunk.sliceMetadata();
+  }
+
+  @Override
+  public ByteBuf sliceData() {
+    return chunk.sliceData();
+  }
+
+  @Override
+  public ByteBuf data() {
+    return chunk.data();
+  }
+
+  @Override
+  public ByteBuf metadata() {
+    return chunk.metadata();
+  }
+
+  @Override
+  public int refCnt() {
+    return chunk.refCnt();
+  }
+
+  @Override
+  public PayloadChunk retain() {
+    chunk.retain();
+    return this;
+  }
+
+  @Override
+  public PayloadChunk retain(int increment) {
+    chunk.retain(increment);
+    return this;
+  }
+
+  @Override
+  public PayloadChunk touch() {
+    chunk.touch();
+    return this;
+  }
+
+  @Override
+  public PayloadChunk touch(Object hint) {
+    chunk.touch(hint);
+    return this;
+  }
+
+  @Override
+  public boolean release() {
+    return chunk.release();
+  }
+
+  @Override
+  public boolean release(int decrement) {
+    return chunk.release(decrement);
+  }
+}
@@ -3,9 +3,11 @@
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
+import javax.annotation.Nullable;
 
 class DataAndMetadataFlyweight {
   public static final int FRAME_LENGTH_MASK = 0xFFFFFF;
+  private static final int FRAME_LENGTH_SIZE = 3;
 
   private DataAndMetadataFlyweight() {}
 
@@ -48,6 +50,50 @@ static ByteBuf encode(
     return allocator.compositeBuffer(3).addComponents(true, header, metadata, data);
   }
 
+  /**
+   * Number of bytes {@code metadata} and {@code data} occupy in an encoded frame, including the
+   * metadata length.
+   */
+  static int encodedLength(@Nullable ByteBuf metadata, @Nullable ByteBuf data) {
+    int length = 0;
+    if (metadata != null) {
+      length += FRAME_LENGTH_SIZE + metadata.readableBytes();
+    }
+    if (data != null) {
+      length += data.readableBytes();
+    }
+    return length;
+  }
+
+  /**
+   * Copies {@code metadata} and {@code data} into {@code header} instead of composing them.
+   * Ownership of {@code metadata} and {@code data} is transferred, like for {@link
+   * #encode(ByteBufAllocator, ByteBuf, ByteBuf, ByteBuf)}, so both are released.
+   */
+  static ByteBuf encodeCopy(
+      final ByteBuf header, @Nullable ByteBuf metadata, @Nullable ByteBuf data) {
+    try {
+      if (metadata != null) {
+        encodeLength(header, metadata.readableBytes());
+        header.writeBytes(metadata, metadata.readerIndex(), metadata.readableBytes());
+      }
+      if (data != null) {
+        header.writeBytes(data, data.readerIndex(), data.readableBytes());
+      }
+      return header;
+    } catch (Throwable t) {
+      header.release();
+      throw t;
+    } finally {
+      if (metadata != null) {
+        metadata.release();
+      }
+      if (data != null) {
+        data.release();
+      }
+    }
+  }
+
   static ByteBuf metadataWithoutMarking(ByteBuf byteBuf, boolean hasMetadata) {
     if (hasMetadata) {
       int length = decodeLength(byteBuf);
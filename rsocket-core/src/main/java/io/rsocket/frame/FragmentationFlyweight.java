@@ -4,7 +4,7 @@
 import io.netty.buffer.ByteBufAllocator;
 import reactor.util.annotation.Nullable;
 
-/** FragmentationFlyweight is used to re-assemble frames */
+/** FragmentationFlyweight is used to fragment and re-assemble frames */
 public class FragmentationFlyweight {
   public static ByteBuf encode(final ByteBufAllocator allocator, ByteBuf header, ByteBuf data) {
     return encode(allocator, header, null, data);
@@ -18,4 +18,71 @@ public static ByteBuf encode(
       return DataAndMetadataFlyweight.encode(allocator, header, metadata, data);
     }
   }
+
+  /**
+   * Encodes a fragment of {@code frame} carrying {@code metadata} and {@code data}, which are
+   * usually slices of {@code frame}. The first fragment keeps the type, flags and initial request n
+   * of {@code frame}, the following ones are {@code PAYLOAD} frames with the {@code NEXT} flag. The
+   * header, preceded by the frame length if {@code encodeLength} is set, is written into a single
+   * small buffer that is composed with the slices.
+   */
+  public static ByteBuf encodeFragment(
+      final ByteBufAllocator allocator,
+      ByteBuf frame,
+      boolean first,
+      boolean follows,
+      @Nullable ByteBuf metadata,
+      ByteBuf data,
+      boolean encodeLength) {
+    int streamId = FrameHeaderFlyweight.streamId(frame);
+    FrameType frameType;
+    int flags;
+    int requestN = 0;
+    if (first) {
+      frameType = FrameHeaderFlyweight.frameType(frame);
+      flags =
+          FrameHeaderFlyweight.flags(frame)
+              & ~(FrameHeaderFlyweight.FLAGS_M | FrameHeaderFlyweight.FLAGS_F);
+      switch (frameType) {
+        case REQUEST_STREAM:
+        case REQUEST_CHANNEL:
+          requestN = RequestStreamFrameFlyweight.initialRequestN(frame);
+          break;
+        case NEXT:
+        case NEXT_COMPLETE:
+        case COMPLETE:
+          frameType = FrameType.PAYLOAD;
+          break;
+        default:
+      }
+    } else {
+      frameType = FrameType.PAYLOAD;
+      flags = FrameHeaderFlyweight.FLAGS_N;
+    }
+    if (follows) {
+      flags |= FrameHeaderFlyweight.FLAGS_F;
+    }
+    if (metadata != null) {
+      flags |= FrameHeaderFlyweight.FLAGS_M;
+    }
+
+    int headerLength =
+        FrameHeaderFlyweight.size()
+            + (requestN > 0 ? Integer.BYTES : 0)
+            + (metadata != null ? FrameLengthFlyweight.FRAME_LENGTH_SIZE : 0);
+    ByteBuf header =
+        FrameHeaderFlyweight.encodeSingleBuffer(
+            allocator, headerLength, streamId, frameType, flags);
+    if (requestN > 0) {
+      header.writeInt(requestN);
+    }
+    if (encodeLength) {
+      int frameLength =
+          FrameHeaderFlyweight.size()
+              + (requestN > 0 ? Integer.BYTES : 0)
+              + DataAndMetadataFlyweight.encodedLength(metadata, data);
+      header = FrameLengthFlyweight.encode(allocator, frameLength, header);
+    }
+    return encode(allocator, header, metadata, data);
+  }
 }
@@ -56,6 +56,29 @@ public static ByteBuf encode(
     return allocator.buffer().writeInt(streamId).writeShort(typeAndFlags);
   }
 
+  /**
+   * Encodes the header at the start of a buffer with room for a whole frame of {@code frameLength}
+   * bytes, preceded by {@link FrameLengthFlyweight#FRAME_LENGTH_SIZE} bytes of headroom so the
+   * frame length can later be written without another buffer.
+   */
+  static ByteBuf encodeSingleBuffer(
+      final ByteBufAllocator allocator,
+      final int frameLength,
+      final int streamId,
+      final FrameType frameType,
+      int flags) {
+    if (!frameType.canHaveMetadata() && ((flags & FLAGS_M) == FLAGS_M)) {
+      throw new IllegalStateException("bad value for metadata flag");
+    }
+
+    short typeAndFlags = (short) (frameType.getEncodedType() << FRAME_TYPE_SHIFT | (short) flags);
+
+    int headroom = FrameLengthFlyweight.FRAME_LENGTH_SIZE;
+    ByteBuf buffer = allocator.buffer(headroom + frameLength);
+    buffer.writerIndex(headroom).readerIndex(headroom);
+    return new LengthHeadroomByteBuf(buffer).writeInt(streamId).writeShort(typeAndFlags);
+  }
+
   public static boolean hasFollows(ByteBuf byteBuf) {
     return (flags(byteBuf) & FLAGS_F) == FLAGS_F;
   }
@@ -31,8 +31,19 @@ private static int decodeLength(final ByteBuf byteBuf) {
     return length;
   }
 
+  /**
+   * Prefixes {@code frame} with its length. Frames encoded with reserved headroom for the length by
+   * {@link FrameHeaderFlyweight} get the length written into it when this is their only reference,
+   * instead of composing a separate length buffer.
+   */
   public static ByteBuf encode(ByteBufAllocator allocator, int length, ByteBuf frame) {
-    ByteBuf buffer = allocator.buffer();
+    if (frame instanceof LengthHeadroomByteBuf && frame.refCnt() == 1) {
+      if ((length & ~FRAME_LENGTH_MASK) != 0) {
+        throw new IllegalArgumentException("Length is larger than 24 bits");
+      }
+      return ((LengthHeadroomByteBuf) frame).prependLength(length);
+    }
+    ByteBuf buffer = allocator.buffer(FRAME_LENGTH_SIZE);
     encodeLength(buffer, length);
     return allocator.compositeBuffer(2).addComponents(true, buffer, frame);
   }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DuplicatedByteBuf;
+
+/**
+ * A frame encoded into a single buffer with {@link FrameLengthFlyweight#FRAME_LENGTH_SIZE} bytes
+ * reserved in front of its reader index. {@link FrameLengthFlyweight#encode(
+ * io.netty.buffer.ByteBufAllocator, int, ByteBuf)} writes the frame length into these bytes instead
+ * of composing a separate length buffer.
+ */
+@SuppressWarnings("deprecation")
+final class LengthHeadroomByteBuf extends DuplicatedByteBuf {
+
+  LengthHeadroomByteBuf(ByteBuf buffer) {
+    super(buffer);
+  }
+
+  /**
+   * Writes {@code length} into the reserved bytes and returns the underlying buffer, which starts
+   * with the length from now on. This buffer must not be used afterwards.
+   */
+  ByteBuf prependLength(int length) {
+    int index = readerIndex() - FrameLengthFlyweight.FRAME_LENGTH_SIZE;
+    ByteBuf buffer = unwrap().setIndex(index, writerIndex());
+    buffer.setMedium(index, length);
+    return buffer;
+  }
+}
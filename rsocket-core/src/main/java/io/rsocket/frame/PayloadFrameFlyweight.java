@@ -39,6 +39,26 @@ public static ByteBuf encode(
         payload.data().retain());
   }
 
+  public static ByteBuf encode(
+      ByteBufAllocator allocator,
+      int streamId,
+      boolean fragmentFollows,
+      boolean complete,
+      boolean next,
+      Payload payload,
+      int copyThreshold) {
+    return FLYWEIGHT.encode(
+        allocator,
+        streamId,
+        fragmentFollows,
+        complete,
+        next,
+        0,
+        payload.hasMetadata() ? payload.metadata().retain() : null,
+        payload.data().retain(),
+        copyThreshold);
+  }
+
   public static ByteBuf encodeNextComplete(
       ByteBufAllocator allocator, int streamId, Payload payload) {
     return FLYWEIGHT.encode(
@@ -52,6 +72,11 @@ public static ByteBuf encodeNextComplete(
         payload.data().retain());
   }
 
+  public static ByteBuf encodeNextComplete(
+      ByteBufAllocator allocator, int streamId, Payload payload, int copyThreshold) {
+    return encode(allocator, streamId, false, true, true, payload, copyThreshold);
+  }
+
   public static ByteBuf encodeNext(ByteBufAllocator allocator, int streamId, Payload payload) {
     return FLYWEIGHT.encode(
         allocator,
@@ -64,6 +89,11 @@ public static ByteBuf encodeNext(ByteBufAllocator allocator, int streamId, Paylo
         payload.data().retain());
   }
 
+  public static ByteBuf encodeNext(
+      ByteBufAllocator allocator, int streamId, Payload payload, int copyThreshold) {
+    return encode(allocator, streamId, false, false, true, payload, copyThreshold);
+  }
+
   public static ByteBuf encodeComplete(ByteBufAllocator allocator, int streamId) {
     return FLYWEIGHT.encode(allocator, streamId, false, true, false, 0, null, null);
   }
@@ -46,6 +46,22 @@ public static ByteBuf encode(
         allocator, streamId, fragmentFollows, complete, false, reqN, metadata, data);
   }
 
+  public static ByteBuf encode(
+      ByteBufAllocator allocator,
+      int streamId,
+      boolean fragmentFollows,
+      boolean complete,
+      long requestN,
+      ByteBuf metadata,
+      ByteBuf data,
+      int copyThreshold) {
+
+    int reqN = requestN > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) requestN;
+
+    return FLYWEIGHT.encode(
+        allocator, streamId, fragmentFollows, complete, false, reqN, metadata, data, copyThreshold);
+  }
+
   public static ByteBuf data(ByteBuf byteBuf) {
     return FLYWEIGHT.dataWithRequestN(byteBuf);
   }
@@ -29,6 +29,25 @@ ByteBuf encode(
       int requestN,
       @Nullable ByteBuf metadata,
       ByteBuf data) {
+    return encode(
+        allocator, streamId, fragmentFollows, complete, next, requestN, metadata, data, 0);
+  }
+
+  /**
+   * Encodes a request or payload frame. Frames no larger than {@code copyThreshold} bytes are
+   * written into a single buffer, copying {@code metadata} and {@code data}, while larger frames
+   * compose them without copying.
+   */
+  ByteBuf encode(
+      final ByteBufAllocator allocator,
+      final int streamId,
+      boolean fragmentFollows,
+      boolean complete,
+      boolean next,
+      int requestN,
+      @Nullable ByteBuf metadata,
+      @Nullable ByteBuf data,
+      int copyThreshold) {
     int flags = 0;
 
     if (metadata != null) {
@@ -47,6 +66,22 @@ ByteBuf encode(
       flags |= FrameHeaderFlyweight.FLAGS_N;
     }
 
+    if (copyThreshold > 0) {
+      int frameLength =
+          FrameHeaderFlyweight.size()
+              + (requestN > 0 ? Integer.BYTES : 0)
+              + DataAndMetadataFlyweight.encodedLength(metadata, data);
+      if (frameLength <= copyThreshold) {
+        ByteBuf buffer =
+            FrameHeaderFlyweight.encodeSingleBuffer(
+                allocator, frameLength, streamId, frameType, flags);
+        if (requestN > 0) {
+          buffer.writeInt(requestN);
+        }
+        return DataAndMetadataFlyweight.encodeCopy(buffer, metadata, data);
+      }
+    }
+
     ByteBuf header = FrameHeaderFlyweight.encode(allocator, streamId, frameType, flags);
 
     if (requestN > 0) {
@@ -24,6 +24,17 @@ public static ByteBuf encode(
     return FLYWEIGHT.encode(allocator, streamId, fragmentFollows, metadata, data);
   }
 
+  public static ByteBuf encode(
+      ByteBufAllocator allocator,
+      int streamId,
+      boolean fragmentFollows,
+      ByteBuf metadata,
+      ByteBuf data,
+      int copyThreshold) {
+    return FLYWEIGHT.encode(
+        allocator, streamId, fragmentFollows, false, false, 0, metadata, data, copyThreshold);
+  }
+
   public static ByteBuf data(ByteBuf byteBuf) {
     return FLYWEIGHT.data(byteBuf);
   }
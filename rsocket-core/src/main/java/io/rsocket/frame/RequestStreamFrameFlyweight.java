@@ -52,6 +52,19 @@ public static ByteBuf encode(
         allocator, streamId, fragmentFollows, false, false, requestN, metadata, data);
   }
 
+  public static ByteBuf encode(
+      ByteBufAllocator allocator,
+      int streamId,
+      boolean fragmentFollows,
+      long requestN,
+      ByteBuf metadata,
+      ByteBuf data,
+      int copyThreshold) {
+    int reqN = requestN > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) requestN;
+    return FLYWEIGHT.encode(
+        allocator, streamId, fragmentFollows, false, false, reqN, metadata, data, copyThreshold);
+  }
+
   public static ByteBuf data(ByteBuf byteBuf) {
     return FLYWEIGHT.dataWithRequestN(byteBuf);
   }
@@ -1,3 +1,58 @@
 package io.rsocket.frame;
 
-public class ResumeFlyweight {}
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+public class ResumeFlyweight {
+  private static final int VERSION_FIELD_OFFSET = FrameHeaderFlyweight.size();
+  private static final int TOKEN_LENGTH_FIELD_OFFSET = VERSION_FIELD_OFFSET + Integer.BYTES;
+
+  public static ByteBuf encode(
+      ByteBufAllocator allocator,
+      ByteBuf token,
+      long lastReceivedServerPos,
+      long firstAvailableClientPos) {
+    ByteBuf byteBuf = FrameHeaderFlyweight.encodeStreamZero(allocator, FrameType.RESUME, 0);
+    byteBuf.writeInt(SetupFrameFlyweight.CURRENT_VERSION);
+    byteBuf.writeShort(token.readableBytes());
+    byteBuf.writeBytes(token, token.readerIndex(), token.readableBytes());
+    byteBuf.writeLong(lastReceivedServerPos);
+    byteBuf.writeLong(firstAvailableClientPos);
+    return byteBuf;
+  }
+
+  public static int version(ByteBuf byteBuf) {
+    FrameHeaderFlyweight.ensureFrameType(FrameType.RESUME, byteBuf);
+    byteBuf.markReaderIndex();
+    int version = byteBuf.skipBytes(VERSION_FIELD_OFFSET).readInt();
+    byteBuf.resetReaderIndex();
+    return version;
+  }
+
+  public static ByteBuf token(ByteBuf byteBuf) {
+    FrameHeaderFlyweight.ensureFrameType(FrameType.RESUME, byteBuf);
+    byteBuf.markReaderIndex();
+    int tokenLength = byteBuf.skipBytes(TOKEN_LENGTH_FIELD_OFFSET).readShort() & 0xFFFF;
+    ByteBuf token = byteBuf.readSlice(tokenLength);
+    byteBuf.resetReaderIndex();
+    return token;
+  }
+
+  public static long lastReceivedServerPos(ByteBuf byteBuf) {
+    FrameHeaderFlyweight.ensureFrameType(FrameType.RESUME, byteBuf);
+    byteBuf.markReaderIndex();
+    int tokenLength = byteBuf.skipBytes(TOKEN_LENGTH_FIELD_OFFSET).readShort() & 0xFFFF;
+    long position = byteBuf.skipBytes(tokenLength).readLong();
+    byteBuf.resetReaderIndex();
+    return position;
+  }
+
+  public static long firstAvailableClientPos(ByteBuf byteBuf) {
+    FrameHeaderFlyweight.ensureFrameType(FrameType.RESUME, byteBuf);
+    byteBuf.markReaderIndex();
+    int tokenLength = byteBuf.skipBytes(TOKEN_LENGTH_FIELD_OFFSET).readShort() & 0xFFFF;
+    long position = byteBuf.skipBytes(tokenLength + Long.BYTES).readLong();
+    byteBuf.resetReaderIndex();
+    return position;
+  }
+}
@@ -1,3 +1,21 @@
 package io.rsocket.frame;
 
-public class ResumeOkFlyweight {}
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+public class ResumeOkFlyweight {
+
+  public static ByteBuf encode(ByteBufAllocator allocator, long lastReceivedClientPos) {
+    ByteBuf byteBuf = FrameHeaderFlyweight.encodeStreamZero(allocator, FrameType.RESUME_OK, 0);
+    byteBuf.writeLong(lastReceivedClientPos);
+    return byteBuf;
+  }
+
+  public static long lastReceivedClientPos(ByteBuf byteBuf) {
+    FrameHeaderFlyweight.ensureFrameType(FrameType.RESUME_OK, byteBuf);
+    byteBuf.markReaderIndex();
+    long position = byteBuf.skipBytes(FrameHeaderFlyweight.size()).readLong();
+    byteBuf.resetReaderIndex();
+    return position;
+  }
+}
@@ -61,14 +61,10 @@ public static ByteBuf encode(
       final ByteBuf data) {
 
     int flags = 0;
-    if (resume) {
-      throw new IllegalArgumentException("RESUME_ENABLE not supported");
-    }
 
-    /*
     if (resume) {
       flags |= FLAGS_RESUME_ENABLE;
-    }*/
+    }
 
     if (lease) {
       flags |= FLAGS_WILL_HONOR_LEASE;
@@ -117,6 +113,17 @@ public static int resumeTokenLength(ByteBuf byteBuf) {
     return tokenLength;
   }
 
+  public static ByteBuf resumeToken(ByteBuf byteBuf) {
+    if (!resumeEnabled(byteBuf)) {
+      return Unpooled.EMPTY_BUFFER;
+    }
+    byteBuf.markReaderIndex();
+    int tokenLength = byteBuf.skipBytes(VARIABLE_DATA_OFFSET).readShort() & 0xFFFF;
+    ByteBuf token = byteBuf.readSlice(tokenLength);
+    byteBuf.resetReaderIndex();
+    return token;
+  }
+
   public static int keepAliveInterval(ByteBuf byteBuf) {
     byteBuf.markReaderIndex();
     int keepAliveInterval = byteBuf.skipBytes(KEEPALIVE_INTERVAL_FIELD_OFFSET).readInt();
@@ -179,7 +186,7 @@ public static ByteBuf data(ByteBuf byteBuf) {
   private static int bytesToSkipToMimeType(ByteBuf byteBuf) {
     int bytesToSkip = VARIABLE_DATA_OFFSET;
     if ((FLAGS_RESUME_ENABLE & FrameHeaderFlyweight.flags(byteBuf)) == FLAGS_RESUME_ENABLE) {
-      bytesToSkip = resumeTokenLength(byteBuf) + Short.BYTES;
+      bytesToSkip += resumeTokenLength(byteBuf) + Short.BYTES;
     }
     return bytesToSkip;
   }
@@ -0,0 +1,80 @@
+package io.rsocket.frame.decoder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.frame.*;
+import io.rsocket.util.ByteBufPayload;
+import java.util.Objects;
+
+/**
+ * Frame decoder that copies the frames contents into buffers obtained from a {@link
+ * ByteBufAllocator}. Like {@link DefaultPayloadDecoder} the payload does not hold on to the frame,
+ * but the copies come from the allocator's pool and are returned to it when the payload is
+ * released, so the caller is responsible for releasing the payload.
+ */
+public class PooledPayloadDecoder implements PayloadDecoder {
+  private final ByteBufAllocator allocator;
+
+  public PooledPayloadDecoder(ByteBufAllocator allocator) {
+    this.allocator = Objects.requireNonNull(allocator, "allocator");
+  }
+
+  @Override
+  public Payload apply(ByteBuf byteBuf) {
+    ByteBuf m;
+    ByteBuf d;
+    FrameType type = FrameHeaderFlyweight.frameType(byteBuf);
+    switch (type) {
+      case REQUEST_FNF:
+        d = RequestFireAndForgetFrameFlyweight.data(byteBuf);
+        m = RequestFireAndForgetFrameFlyweight.metadata(byteBuf);
+        break;
+      case REQUEST_RESPONSE:
+        d = RequestResponseFrameFlyweight.data(byteBuf);
+        m = RequestResponseFrameFlyweight.metadata(byteBuf);
+        break;
+      case REQUEST_STREAM:
+        d = RequestStreamFrameFlyweight.data(byteBuf);
+        m = RequestStreamFrameFlyweight.metadata(byteBuf);
+        break;
+      case REQUEST_CHANNEL:
+        d = RequestChannelFrameFlyweight.data(byteBuf);
+        m = RequestChannelFrameFlyweight.metadata(byteBuf);
+        break;
+      case NEXT:
+      case NEXT_COMPLETE:
+        d = PayloadFrameFlyweight.data(byteBuf);
+        m = PayloadFrameFlyweight.metadata(byteBuf);
+        break;
+      case METADATA_PUSH:
+        d = Unpooled.EMPTY_BUFFER;
+        m = MetadataPushFrameFlyweight.metadata(byteBuf);
+        break;
+      default:
+        throw new IllegalArgumentException("unsupported frame type: " + type);
+    }
+
+    ByteBuf data = copy(d);
+    ByteBuf metadata;
+    try {
+      metadata = copy(m);
+    } catch (Throwable t) {
+      data.release();
+      throw t;
+    }
+
+    return ByteBufPayload.create(data, metadata);
+  }
+
+  private ByteBuf copy(ByteBuf source) {
+    int length = source.readableBytes();
+    if (length == 0) {
+      return Unpooled.EMPTY_BUFFER;
+    }
+    ByteBuf copy = allocator.buffer(length, length);
+    copy.writeBytes(source, source.readerIndex(), length);
+    return copy;
+  }
+}
@@ -20,16 +20,21 @@
 import io.rsocket.Closeable;
 import io.rsocket.DuplexConnection;
 import io.rsocket.frame.FrameHeaderFlyweight;
-import io.rsocket.frame.FrameType;
 import io.rsocket.frame.FrameUtil;
 import io.rsocket.plugins.DuplexConnectionInterceptor.Type;
 import io.rsocket.plugins.PluginRegistry;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.CoreSubscriber;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.MonoProcessor;
+import reactor.core.publisher.Operators;
+import reactor.util.concurrent.Queues;
 
 /**
  * {@link DuplexConnection#receive()} is a single stream on which the following type of frames
@@ -43,6 +48,10 @@
  * <p>The only way to differentiate these two frames is determining whether the stream Id is odd or
  * even. Even IDs are for the streams initiated by server and odds are for streams initiated by the
  * client.
+ *
+ * <p>Stream 0 frames other than the SETUP and RESUME handshake go to the client connection, except
+ * LEASE frames, which go to the connection of the local requester: the client connection on the
+ * client and the server connection on the server.
  */
 public class ClientServerInputMultiplexer implements Closeable {
   private static final Logger LOGGER = LoggerFactory.getLogger("io.rsocket.FrameLogger");
@@ -51,12 +60,28 @@ public class ClientServerInputMultiplexer implements Closeable {
   private final DuplexConnection serverConnection;
   private final DuplexConnection clientConnection;
   private final DuplexConnection source;
+  private final FrameReceiver streamZero;
+  private final FrameReceiver server;
+  private final FrameReceiver client;
+  private final FrameReceiver lease;
 
   public ClientServerInputMultiplexer(DuplexConnection source, PluginRegistry plugins) {
+    this(source, plugins, true);
+  }
+
+  /**
+   * @param source the connection to split
+   * @param plugins the plugins applied to the split connections
+   * @param isClient whether the local side initiated the connection, which decides the connection
+   *     receiving LEASE frames
+   */
+  public ClientServerInputMultiplexer(
+      DuplexConnection source, PluginRegistry plugins, boolean isClient) {
     this.source = source;
-    final MonoProcessor<Flux<ByteBuf>> streamZero = MonoProcessor.create();
-    final MonoProcessor<Flux<ByteBuf>> server = MonoProcessor.create();
-    final MonoProcessor<Flux<ByteBuf>> client = MonoProcessor.create();
+    this.streamZero = new FrameReceiver();
+    this.server = new FrameReceiver();
+    this.client = new FrameReceiver();
+    this.lease = isClient ? client : server;
 
     source = plugins.applyConnection(Type.SOURCE, source);
     streamZeroConnection =
@@ -66,45 +91,45 @@ public ClientServerInputMultiplexer(DuplexConnection source, PluginRegistry plug
     clientConnection =
         plugins.applyConnection(Type.CLIENT, new InternalDuplexConnection(source, client));
 
-    source
-        .receive()
-        .groupBy(
-            frame -> {
-              int streamId = FrameHeaderFlyweight.streamId(frame);
-              final Type type;
-              if (streamId == 0) {
-                if (FrameHeaderFlyweight.frameType(frame) == FrameType.SETUP) {
-                  type = Type.STREAM_ZERO;
-                } else {
-                  type = Type.CLIENT;
-                }
-              } else if ((streamId & 0b1) == 0) {
-                type = Type.SERVER;
-              } else {
-                type = Type.CLIENT;
-              }
-              return type;
-            })
-        .subscribe(
-            group -> {
-              switch (group.key()) {
-                case STREAM_ZERO:
-                  streamZero.onNext(group);
-                  break;
-
-                case SERVER:
-                  server.onNext(group);
-                  break;
-
-                case CLIENT:
-                  client.onNext(group);
-                  break;
-              }
-            },
-            t -> {
-              LOGGER.error("Error receiving frame:", t);
-              dispose();
-            });
+    source.receive().subscribe(this::route, this::onReceiveError, this::onReceiveComplete);
+  }
+
+  private void route(ByteBuf frame) {
+    int streamId = FrameHeaderFlyweight.streamId(frame);
+    final FrameReceiver receiver;
+    if (streamId == 0) {
+      switch (FrameHeaderFlyweight.frameType(frame)) {
+        case SETUP:
+        case RESUME:
+        case RESUME_OK:
+          receiver = streamZero;
+          break;
+        case LEASE:
+          receiver = lease;
+          break;
+        default:
+          receiver = client;
+      }
+    } else if ((streamId & 0b1) == 0) {
+      receiver = server;
+    } else {
+      receiver = client;
+    }
+    receiver.onNext(frame);
+  }
+
+  private void onReceiveError(Throwable t) {
+    LOGGER.error("Error receiving frame:", t);
+    streamZero.onError(t);
+    server.onError(t);
+    client.onError(t);
+    dispose();
+  }
+
+  private void onReceiveComplete() {
+    streamZero.onComplete();
+    server.onComplete();
+    client.onComplete();
   }
 
   public DuplexConnection asServerConnection() {
@@ -136,13 +161,12 @@ public Mono<Void> onClose() {
 
   private static class InternalDuplexConnection implements DuplexConnection {
     private final DuplexConnection source;
-    private final MonoProcessor<Flux<ByteBuf>> processor;
+    private final FrameReceiver receiver;
     private final boolean debugEnabled;
 
-    public InternalDuplexConnection(
-        DuplexConnection source, MonoProcessor<Flux<ByteBuf>> processor) {
+    public InternalDuplexConnection(DuplexConnection source, FrameReceiver receiver) {
       this.source = source;
-      this.processor = processor;
+      this.receiver = receiver;
       this.debugEnabled = LOGGER.isDebugEnabled();
     }
 
@@ -166,14 +190,12 @@ public Mono<Void> sendOne(ByteBuf frame) {
 
     @Override
     public Flux<ByteBuf> receive() {
-      return processor.flatMapMany(
-          f -> {
-            if (debugEnabled) {
-              return f.doOnNext(frame -> LOGGER.debug("receiving -> " + FrameUtil.toString(frame)));
-            } else {
-              return f;
-            }
-          });
+      if (debugEnabled) {
+        return receiver.doOnNext(
+            frame -> LOGGER.debug("receiving -> " + FrameUtil.toString(frame)));
+      } else {
+        return receiver;
+      }
     }
 
     @Override
@@ -196,4 +218,160 @@ public double availability() {
       return source.availability();
     }
   }
+
+  /**
+   * Hands the frames routed to one of the multiplexed connections to its single subscriber. Frames
+   * are passed on synchronously while the subscriber has demand and nothing is queued, they are
+   * only queued until the subscriber arrives or requests more. Frames routed after the subscriber
+   * cancelled are released.
+   */
+  private static final class FrameReceiver extends Flux<ByteBuf> implements Subscription {
+    private static final AtomicIntegerFieldUpdater<FrameReceiver> ONCE =
+        AtomicIntegerFieldUpdater.newUpdater(FrameReceiver.class, "once");
+    private static final AtomicIntegerFieldUpdater<FrameReceiver> WIP =
+        AtomicIntegerFieldUpdater.newUpdater(FrameReceiver.class, "wip");
+    private static final AtomicLongFieldUpdater<FrameReceiver> REQUESTED =
+        AtomicLongFieldUpdater.newUpdater(FrameReceiver.class, "requested");
+
+    private final Queue<ByteBuf> queue = Queues.<ByteBuf>unbounded().get();
+
+    private volatile CoreSubscriber<? super ByteBuf> actual;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private Throwable error;
+
+    private volatile int once;
+    private volatile int wip;
+    private volatile long requested;
+
+    @Override
+    public void subscribe(CoreSubscriber<? super ByteBuf> actual) {
+      if (once == 0 && ONCE.compareAndSet(this, 0, 1)) {
+        actual.onSubscribe(this);
+        this.actual = actual;
+        drain();
+      } else {
+        Operators.error(
+            actual, new IllegalStateException("FrameReceiver allows only a single Subscriber"));
+      }
+    }
+
+    /** Called by the single thread receiving frames from the source connection. */
+    void onNext(ByteBuf frame) {
+      if (done || cancelled) {
+        frame.release();
+        return;
+      }
+
+      if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+        CoreSubscriber<? super ByteBuf> a = actual;
+        long r = requested;
+        if (a != null && r != 0 && queue.isEmpty()) {
+          a.onNext(frame);
+          if (r != Long.MAX_VALUE) {
+            REQUESTED.decrementAndGet(this);
+          }
+        } else {
+          queue.offer(frame);
+        }
+        if (WIP.decrementAndGet(this) == 0) {
+          return;
+        }
+      } else {
+        queue.offer(frame);
+        if (WIP.getAndIncrement(this) != 0) {
+          return;
+        }
+      }
+      drainLoop();
+    }
+
+    void onError(Throwable t) {
+      error = t;
+      done = true;
+      drain();
+    }
+
+    void onComplete() {
+      done = true;
+      drain();
+    }
+
+    @Override
+    public void request(long n) {
+      if (Operators.validate(n)) {
+        Operators.addCap(REQUESTED, this, n);
+        drain();
+      }
+    }
+
+    @Override
+    public void cancel() {
+      if (cancelled) {
+        return;
+      }
+      cancelled = true;
+      drain();
+    }
+
+    private void drain() {
+      if (WIP.getAndIncrement(this) != 0) {
+        return;
+      }
+      drainLoop();
+    }
+
+    private void drainLoop() {
+      int missed = 1;
+      for (; ; ) {
+        if (cancelled) {
+          actual = null;
+          clear();
+        } else {
+          CoreSubscriber<? super ByteBuf> a = actual;
+          if (a != null) {
+            long r = requested;
+            long e = 0;
+            while (e != r) {
+              ByteBuf frame = queue.poll();
+              if (frame == null) {
+                break;
+              }
+              a.onNext(frame);
+              e++;
+              if (cancelled) {
+                break;
+              }
+            }
+            if (e != 0 && r != Long.MAX_VALUE) {
+              REQUESTED.addAndGet(this, -e);
+            }
+            if (done && queue.isEmpty() && !cancelled) {
+              // terminated, frames routed from now on are released
+              actual = null;
+              cancelled = true;
+              Throwable t = error;
+              if (t != null) {
+                a.onError(t);
+              } else {
+                a.onComplete();
+              }
+            }
+          }
+        }
+
+        missed = WIP.addAndGet(this, -missed);
+        if (missed == 0) {
+          break;
+        }
+      }
+    }
+
+    private void clear() {
+      ByteBuf frame;
+      while ((frame = queue.poll()) != null) {
+        frame.release();
+      }
+    }
+  }
 }
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import reactor.util.annotation.Nullable;
+
+/**
+ * A concurrent map from non-zero {@code int} keys to objects, used to track the active streams of a
+ * connection.
+ *
+ * <p>Keys are spread over a fixed number of segments, each of which is an open addressing table
+ * with linear probing. Lookups never lock and never allocate; mutations lock only the segment that
+ * owns the key. Removed entries leave their key behind as a tombstone, so concurrent readers never
+ * observe entries moving between slots. Tombstones are purged when a segment is rehashed.
+ *
+ * <p>Key {@code 0} is reserved as the empty slot marker (it is the connection stream id and never
+ * identifies a request stream) and {@code null} values are not permitted.
+ *
+ * @param <V> the value type
+ */
+public final class ConcurrentIntObjectHashMap<V> {
+
+  private static final int DEFAULT_SEGMENTS = 16;
+  private static final int DEFAULT_SEGMENT_CAPACITY = 16;
+  private static final int MAX_SEGMENT_CAPACITY = 1 << 30;
+
+  private final Segment<V>[] segments;
+  private final int segmentShift;
+  private final int segmentMask;
+
+  public ConcurrentIntObjectHashMap() {
+    this(DEFAULT_SEGMENTS, DEFAULT_SEGMENT_CAPACITY);
+  }
+
+  @SuppressWarnings("unchecked")
+  public ConcurrentIntObjectHashMap(int concurrencyLevel, int segmentCapacity) {
+    if (concurrencyLevel <= 0) {
+      throw new IllegalArgumentException("concurrencyLevel must be positive");
+    }
+    if (segmentCapacity <= 0) {
+      throw new IllegalArgumentException("segmentCapacity must be positive");
+    }
+    int segmentCount = powerOfTwo(concurrencyLevel);
+    int capacity = powerOfTwo(Math.max(2, segmentCapacity));
+
+    this.segments = new Segment[segmentCount];
+    this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+    this.segmentMask = segmentCount - 1;
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment<>(capacity);
+    }
+  }
+
+  @Nullable
+  public V get(int key) {
+    int hash = hash(key);
+    return segmentFor(hash).get(key, hash);
+  }
+
+  public boolean containsKey(int key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Associates {@code value} with {@code key}.
+   *
+   * @return the previous value for {@code key} or {@code null} if there was none
+   */
+  @Nullable
+  public V put(int key, V value) {
+    checkKey(key);
+    Objects.requireNonNull(value, "value");
+    int hash = hash(key);
+    return segmentFor(hash).put(key, hash, value, false);
+  }
+
+  /**
+   * Associates {@code value} with {@code key} unless a value is already present.
+   *
+   * @return the present value for {@code key} or {@code null} if {@code value} was added
+   */
+  @Nullable
+  public V putIfAbsent(int key, V value) {
+    checkKey(key);
+    Objects.requireNonNull(value, "value");
+    int hash = hash(key);
+    return segmentFor(hash).put(key, hash, value, true);
+  }
+
+  @Nullable
+  public V remove(int key) {
+    int hash = hash(key);
+    return segmentFor(hash).remove(key, hash);
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment<V> segment : segments) {
+      size += segment.size;
+    }
+    return size;
+  }
+
+  public boolean isEmpty() {
+    for (Segment<V> segment : segments) {
+      if (segment.size != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Invokes {@code action} for each value present at the time each segment is visited. Values added
+   * or removed concurrently may or may not be observed.
+   */
+  public void forEach(Consumer<? super V> action) {
+    for (Segment<V> segment : segments) {
+      segment.forEach(action);
+    }
+  }
+
+  /** Returns a snapshot of the values currently in this map. */
+  public Collection<V> values() {
+    ArrayList<V> values = new ArrayList<>(size());
+    forEach(values::add);
+    return values;
+  }
+
+  public void clear() {
+    for (Segment<V> segment : segments) {
+      segment.clear();
+    }
+  }
+
+  private Segment<V> segmentFor(int hash) {
+    return segments[(hash >>> segmentShift) & segmentMask];
+  }
+
+  private static void checkKey(int key) {
+    if (key == 0) {
+      throw new IllegalArgumentException("key 0 is reserved");
+    }
+  }
+
+  static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static int powerOfTwo(int value) {
+    if (value >= MAX_SEGMENT_CAPACITY) {
+      return MAX_SEGMENT_CAPACITY;
+    }
+    return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+  private static final class Table {
+    final AtomicIntegerArray keys;
+    final AtomicReferenceArray<Object> values;
+    final int mask;
+
+    Table(int capacity) {
+      this.keys = new AtomicIntegerArray(capacity);
+      this.values = new AtomicReferenceArray<>(capacity);
+      this.mask = capacity - 1;
+    }
+  }
+
+  private static final class Segment<V> {
+    final int initialCapacity;
+    volatile Table table;
+    volatile int size;
+
+    /** Number of slots holding a key, including tombstones. Guarded by {@code this}. */
+    int used;
+
+    Segment(int initialCapacity) {
+      this.initialCapacity = initialCapacity;
+      this.table = new Table(initialCapacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key, int hash) {
+      Table t = table;
+      int mask = t.mask;
+      for (int i = hash & mask; ; i = (i + 1) & mask) {
+        int k = t.keys.get(i);
+        if (k == key) {
+          return (V) t.values.get(i);
+        }
+        if (k == 0) {
+          return null;
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized V put(int key, int hash, V value, boolean onlyIfAbsent) {
+      Table t = table;
+      int mask = t.mask;
+      int i = hash & mask;
+      for (; ; i = (i + 1) & mask) {
+        int k = t.keys.get(i);
+        if (k == key) {
+          V previous = (V) t.values.get(i);
+          if (previous == null) {
+            t.values.set(i, value);
+            size++;
+          } else if (!onlyIfAbsent) {
+            t.values.set(i, value);
+          }
+          return previous;
+        }
+        if (k == 0) {
+          break;
+        }
+      }
+
+      if ((used + 1) << 1 > t.mask + 1) {
+        t = rehash(size + 1);
+        mask = t.mask;
+        i = hash & mask;
+        while (t.keys.get(i) != 0) {
+          i = (i + 1) & mask;
+        }
+      }
+
+      // the key is published before the value, readers treat a missing value as absent
+      t.keys.set(i, key);
+      t.values.set(i, value);
+      used++;
+      size++;
+      return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized V remove(int key, int hash) {
+      Table t = table;
+      int mask = t.mask;
+      for (int i = hash & mask; ; i = (i + 1) & mask) {
+        int k = t.keys.get(i);
+        if (k == key) {
+          V previous = (V) t.values.get(i);
+          if (previous != null) {
+            t.values.set(i, null);
+            size--;
+          }
+          return previous;
+        }
+        if (k == 0) {
+          return null;
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<? super V> action) {
+      Table t = table;
+      for (int i = 0; i <= t.mask; i++) {
+        Object value = t.values.get(i);
+        if (value != null) {
+          action.accept((V) value);
+        }
+      }
+    }
+
+    synchronized void clear() {
+      if (used != 0) {
+        table = new Table(initialCapacity);
+        used = 0;
+        size = 0;
+      }
+    }
+
+    /**
+     * Copies the live entries into a new table sized for {@code expectedSize} entries and at most a
+     * quarter full, dropping tombstones.
+     */
+    private Table rehash(int expectedSize) {
+      Table old = table;
+      int capacity = Math.max(initialCapacity, powerOfTwo(expectedSize << 2));
+      Table t = new Table(capacity);
+      int mask = t.mask;
+      int count = 0;
+      for (int j = 0; j <= old.mask; j++) {
+        Object value = old.values.get(j);
+        if (value != null) {
+          int key = old.keys.get(j);
+          int i = hash(key) & mask;
+          while (t.keys.get(i) != 0) {
+            i = (i + 1) & mask;
+          }
+          t.keys.set(i, key);
+          t.values.set(i, value);
+          count++;
+        }
+      }
+      used = count;
+      table = t;
+      return t;
+    }
+  }
+}
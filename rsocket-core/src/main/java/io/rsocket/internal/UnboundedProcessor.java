@@ -35,7 +35,8 @@
 /**
  * A Processor implementation that takes a custom queue and allows only a single subscriber.
  *
- * <p>The implementation keeps the order of signals.
+ * <p>The implementation keeps the order in which the queue hands out signals, which is the order of
+ * signals for the default queue.
  *
  * @param <T> the input and output type
  */
@@ -65,7 +66,18 @@
   volatile boolean outputFused;
 
   public UnboundedProcessor() {
-    this.queue = Queues.<T>unboundedMultiproducer().get();
+    this(Queues.<T>unboundedMultiproducer().get());
+  }
+
+  /**
+   * Creates a processor backed by {@code queue}, which must accept concurrent offers from multiple
+   * producers and be polled by a single consumer at a time. The queue decides the order in which
+   * signals are emitted.
+   *
+   * @param queue the queue holding signals until they are requested
+   */
+  public UnboundedProcessor(Queue<T> queue) {
+    this.queue = Objects.requireNonNull(queue, "queue");
   }
 
   @Override
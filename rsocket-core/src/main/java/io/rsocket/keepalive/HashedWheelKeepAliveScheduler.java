@@ -0,0 +1,231 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.keepalive;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.util.concurrent.Queues;
+
+/**
+ * {@link KeepAliveScheduler} that runs the keep-alive ticks of any number of connections on one
+ * hashed wheel timer thread.
+ *
+ * <p>Tasks are placed in the wheel slot of their next deadline and rescheduled in place after each
+ * run, so a periodic task costs no allocation per tick. Deadlines are rounded up to the wheel tick,
+ * and {@link #currentTimeMillis()} is a clock cached by the timer thread once per tick. Until the
+ * timer thread has completed its first tick, {@link #currentTimeMillis()} reads the system clock.
+ */
+public final class HashedWheelKeepAliveScheduler implements KeepAliveScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(HashedWheelKeepAliveScheduler.class);
+
+  private static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(100);
+  private static final int DEFAULT_WHEEL_SIZE = 512;
+
+  private static final int STATE_INIT = 0;
+  private static final int STATE_STARTED = 1;
+  private static final int STATE_DISPOSED = 2;
+
+  private static final AtomicIntegerFieldUpdater<HashedWheelKeepAliveScheduler> STATE =
+      AtomicIntegerFieldUpdater.newUpdater(HashedWheelKeepAliveScheduler.class, "state");
+
+  private final long tickMillis;
+  private final long tickNanos;
+  private final Task[] wheel;
+  private final int mask;
+  private final Queue<Task> pending = Queues.<Task>unboundedMultiproducer().get();
+  private final Thread worker;
+
+  private volatile int state;
+
+  /** Clock cached by the worker thread, {@code 0} until its first tick. */
+  private volatile long currentTimeMillis;
+
+  /** Current tick, only accessed by the worker thread. */
+  private long tick;
+
+  public HashedWheelKeepAliveScheduler() {
+    this(DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+  }
+
+  public HashedWheelKeepAliveScheduler(Duration tickDuration, int wheelSize) {
+    this(
+        tickDuration,
+        wheelSize,
+        r -> {
+          Thread thread = new Thread(r, "rsocket-keepalive-timer");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  public HashedWheelKeepAliveScheduler(
+      Duration tickDuration, int wheelSize, ThreadFactory threadFactory) {
+    Objects.requireNonNull(tickDuration, "tickDuration");
+    Objects.requireNonNull(threadFactory, "threadFactory");
+    if (tickDuration.toMillis() <= 0) {
+      throw new IllegalArgumentException("tickDuration must be at least 1 millisecond");
+    }
+    if (wheelSize <= 0 || wheelSize > 1 << 30) {
+      throw new IllegalArgumentException("wheelSize must be between 1 and 2^30");
+    }
+    int size = Integer.highestOneBit(wheelSize);
+    if (size < wheelSize) {
+      size <<= 1;
+    }
+
+    this.tickMillis = tickDuration.toMillis();
+    this.tickNanos = Duration.ofMillis(tickMillis).toNanos();
+    this.wheel = new Task[size];
+    this.mask = size - 1;
+    this.worker = threadFactory.newThread(this::run);
+  }
+
+  @Override
+  public Disposable schedulePeriodically(Runnable task, long periodMillis) {
+    Objects.requireNonNull(task, "task");
+    if (periodMillis <= 0) {
+      throw new IllegalArgumentException("periodMillis must be positive");
+    }
+    Task t = new Task(task, Math.max(1, (periodMillis + tickMillis - 1) / tickMillis));
+    if (state == STATE_DISPOSED) {
+      t.dispose();
+      return t;
+    }
+    pending.offer(t);
+    if (state == STATE_INIT && STATE.compareAndSet(this, STATE_INIT, STATE_STARTED)) {
+      worker.start();
+    }
+    return t;
+  }
+
+  @Override
+  public long currentTimeMillis() {
+    long now = currentTimeMillis;
+    return now != 0 ? now : System.currentTimeMillis();
+  }
+
+  @Override
+  public void dispose() {
+    int previous = STATE.getAndSet(this, STATE_DISPOSED);
+    if (previous == STATE_STARTED) {
+      LockSupport.unpark(worker);
+    } else if (previous == STATE_INIT) {
+      pending.clear();
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return state == STATE_DISPOSED;
+  }
+
+  private void run() {
+    long startNanos = System.nanoTime();
+    while (state == STATE_STARTED) {
+      long deadline = startNanos + (tick + 1) * tickNanos;
+      long sleepNanos;
+      while ((sleepNanos = deadline - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(this, sleepNanos);
+        if (state != STATE_STARTED) {
+          break;
+        }
+      }
+
+      currentTimeMillis = System.currentTimeMillis();
+      transferPending();
+      expire();
+      tick++;
+    }
+
+    pending.clear();
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = null;
+    }
+  }
+
+  private void transferPending() {
+    Task t;
+    while ((t = pending.poll()) != null) {
+      if (!t.disposed) {
+        t.deadline = tick + t.periodTicks;
+        add(t);
+      }
+    }
+  }
+
+  private void expire() {
+    int index = (int) (tick & mask);
+    Task t = wheel[index];
+    wheel[index] = null;
+    while (t != null) {
+      Task next = t.next;
+      t.next = null;
+      if (!t.disposed) {
+        if (t.deadline <= tick) {
+          try {
+            t.task.run();
+          } catch (Throwable e) {
+            logger.error("Keep-alive task failed", e);
+          }
+          t.deadline += t.periodTicks;
+        }
+        add(t);
+      }
+      t = next;
+    }
+  }
+
+  private void add(Task t) {
+    int index = (int) (t.deadline & mask);
+    t.next = wheel[index];
+    wheel[index] = t;
+  }
+
+  private static final class Task implements Disposable {
+    final Runnable task;
+    final long periodTicks;
+    volatile boolean disposed;
+
+    /** Wheel state, only accessed by the worker thread. */
+    long deadline;
+
+    Task next;
+
+    Task(Runnable task, long periodTicks) {
+      this.task = task;
+      this.periodTicks = periodTicks;
+    }
+
+    @Override
+    public void dispose() {
+      disposed = true;
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return disposed;
+    }
+  }
+}
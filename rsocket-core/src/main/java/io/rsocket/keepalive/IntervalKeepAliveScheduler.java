@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.keepalive;
+
+import java.time.Duration;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link KeepAliveScheduler} that creates a {@link Flux#interval(Duration)} per task and reads the
+ * wall clock on every call. Stateless, so disposing it has no effect.
+ */
+final class IntervalKeepAliveScheduler implements KeepAliveScheduler {
+
+  static final IntervalKeepAliveScheduler INSTANCE = new IntervalKeepAliveScheduler();
+
+  private IntervalKeepAliveScheduler() {}
+
+  @Override
+  public Disposable schedulePeriodically(Runnable task, long periodMillis) {
+    return Flux.interval(Duration.ofMillis(periodMillis)).subscribe(v -> task.run());
+  }
+
+  @Override
+  public long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  @Override
+  public void dispose() {}
+}
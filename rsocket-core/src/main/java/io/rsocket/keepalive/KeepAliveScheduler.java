@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.keepalive;
+
+import reactor.core.Disposable;
+
+/**
+ * Drives the periodic keep-alive work of RSocket connections and supplies the clock used to detect
+ * missed keep-alive acks.
+ *
+ * <p>A single instance may be shared by all connections created by a factory. Disposing the
+ * scheduler is the responsibility of whoever created it.
+ */
+public interface KeepAliveScheduler extends Disposable {
+
+  /**
+   * Runs {@code task} every {@code periodMillis} milliseconds until the returned {@link Disposable}
+   * is disposed. The task must be short and must not block.
+   *
+   * @param task the keep-alive tick
+   * @param periodMillis the tick period in milliseconds
+   * @return a handle that stops the ticks when disposed
+   */
+  Disposable schedulePeriodically(Runnable task, long periodMillis);
+
+  /**
+   * Current time in milliseconds. Implementations may return a cached value that lags the wall
+   * clock by up to one internal tick.
+   *
+   * @return current time in milliseconds
+   */
+  long currentTimeMillis();
+
+  /**
+   * Returns a scheduler that runs every task as its own {@code Flux.interval} on Reactor's parallel
+   * scheduler.
+   *
+   * @return the interval based scheduler
+   */
+  static KeepAliveScheduler interval() {
+    return IntervalKeepAliveScheduler.INSTANCE;
+  }
+
+  /**
+   * Creates a scheduler that runs all tasks on a single hashed wheel timer thread with a tick of
+   * {@code 100} milliseconds.
+   *
+   * @return a new hashed wheel scheduler
+   */
+  static KeepAliveScheduler hashedWheel() {
+    return new HashedWheelKeepAliveScheduler();
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.lease;
+
+/** Statistics of a responder, used by a {@link LeaseStrategy} to size the leases it issues. */
+@FunctionalInterface
+public interface LeaseStats {
+
+  /**
+   * Number of requests the responder is currently handling.
+   *
+   * @return the number of requests in flight
+   */
+  int inFlight();
+}
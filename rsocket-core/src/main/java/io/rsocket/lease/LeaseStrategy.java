@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.lease;
+
+import java.time.Duration;
+import java.util.Objects;
+import reactor.core.publisher.Flux;
+
+/**
+ * Decides which leases a responder issues to its requester. Every emitted lease replaces the
+ * previous one, the requester may send at most {@link Lease#getAllowedRequests()} requests until
+ * the lease expires.
+ */
+@FunctionalInterface
+public interface LeaseStrategy {
+
+  /**
+   * Returns the leases to issue over the lifetime of a connection. The returned {@link Flux} is
+   * cancelled when the connection closes.
+   *
+   * @param stats the statistics of the responder issuing the leases
+   * @return the leases to issue
+   */
+  Flux<Lease> leases(LeaseStats stats);
+
+  /** A strategy that never issues leases, so the requester can not send any request. */
+  static LeaseStrategy none() {
+    return stats -> Flux.never();
+  }
+
+  /**
+   * Issues a lease for {@code allowedRequests} requests every {@code period}. Each lease is valid
+   * for two periods so it overlaps with the next one while that is in flight.
+   */
+  static LeaseStrategy fixed(Duration period, int allowedRequests) {
+    Objects.requireNonNull(period, "period must not be null");
+    if (period.toMillis() <= 0) {
+      throw new IllegalArgumentException("period must be at least 1 ms");
+    }
+    if (allowedRequests <= 0) {
+      throw new IllegalArgumentException("allowedRequests must be positive");
+    }
+
+    int ttl = Math.toIntExact(period.toMillis() * 2);
+    return stats ->
+        Flux.interval(Duration.ZERO, period).map(i -> new LeaseImpl(allowedRequests, ttl));
+  }
+
+  /**
+   * Issues a lease every {@code period} that allows as many requests as it takes for the responder
+   * to reach {@code maxInFlight} requests in flight. No lease is issued while the responder is at
+   * its limit, so the requester stops sending requests once the current lease runs out.
+   */
+  static LeaseStrategy inFlight(Duration period, int maxInFlight) {
+    Objects.requireNonNull(period, "period must not be null");
+    if (period.toMillis() <= 0) {
+      throw new IllegalArgumentException("period must be at least 1 ms");
+    }
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("maxInFlight must be positive");
+    }
+
+    int ttl = Math.toIntExact(period.toMillis() * 2);
+    return stats ->
+        Flux.interval(Duration.ZERO, period)
+            .map(i -> maxInFlight - stats.inFlight())
+            .filter(allowed -> allowed > 0)
+            .map(allowed -> new LeaseImpl(allowed, ttl));
+  }
+}
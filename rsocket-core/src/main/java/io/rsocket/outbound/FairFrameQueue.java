@@ -0,0 +1,226 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.outbound;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.collection.IntObjectHashMap;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.FrameType;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Outbound frame queue that serves streams in turn instead of in arrival order.
+ *
+ * <p>Producers offer frames into one of two concurrent queues: control frames (connection frames,
+ * {@code CANCEL} and {@code REQUEST_N}) and stream frames. The consumer moves stream frames into a
+ * lane per stream and serves the lanes round-robin, always writing control frames first. A control
+ * frame never overtakes the request frame that opens its stream, since the peer would discard it.
+ *
+ * <p>With a {@code quantum} of {@code 0} every lane writes one frame per turn. Otherwise lanes are
+ * served with deficit round-robin, writing up to {@code quantum} bytes per turn.
+ *
+ * <p>Only {@link #offer(ByteBuf)} may be called concurrently. All other methods must be called by a
+ * single consumer at a time.
+ */
+final class FairFrameQueue extends AbstractQueue<ByteBuf> {
+
+  // iterable unlike the reactor queues, so that iterator() does not have to move frames
+  final Queue<ByteBuf> control = new ConcurrentLinkedQueue<>();
+  final Queue<ByteBuf> inbox = new ConcurrentLinkedQueue<>();
+  final int quantum;
+
+  final IntObjectHashMap<Lane> lanes = new IntObjectHashMap<>();
+  final ArrayDeque<Lane> active = new ArrayDeque<>();
+
+  /** Number of frames held by lanes. */
+  int queued;
+
+  FairFrameQueue(int quantum) {
+    this.quantum = quantum;
+  }
+
+  @Override
+  public boolean offer(ByteBuf frame) {
+    Objects.requireNonNull(frame, "frame");
+    return isControl(frame) ? control.offer(frame) : inbox.offer(frame);
+  }
+
+  @Override
+  @Nullable
+  public ByteBuf poll() {
+    for (; ; ) {
+      ByteBuf frame = control.poll();
+      if (frame != null) {
+        int streamId = FrameHeaderFlyweight.streamId(frame);
+        if (streamId == 0) {
+          return frame;
+        }
+        // frames offered before this one are visible now, including the stream's request frame
+        transfer();
+        Lane lane = lanes.get(streamId);
+        if (lane == null || lane.requests == 0) {
+          return frame;
+        }
+        lane.frames.offer(frame);
+        queued++;
+        continue;
+      }
+
+      if (queued == 0) {
+        frame = inbox.poll();
+        if (frame == null || inbox.isEmpty()) {
+          return frame;
+        }
+        enqueue(frame);
+      }
+      transfer();
+
+      return next();
+    }
+  }
+
+  @Override
+  @Nullable
+  public ByteBuf peek() {
+    ByteBuf frame = control.peek();
+    if (frame != null) {
+      return frame;
+    }
+    Lane lane = active.peekFirst();
+    return lane != null ? lane.frames.peekFirst() : inbox.peek();
+  }
+
+  @Override
+  public int size() {
+    return control.size() + inbox.size() + queued;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return queued == 0 && control.isEmpty() && inbox.isEmpty();
+  }
+
+  /**
+   * Returns an iterator over a snapshot of the queued frames: control frames, then the frames of
+   * each stream, then the stream frames not yet moved to their stream. It does not support removal
+   * and never changes the queue. The streams are consumer state: called concurrently with {@link
+   * #poll()}, the snapshot may miss frames or fail with a {@link
+   * java.util.ConcurrentModificationException}.
+   */
+  @Override
+  public Iterator<ByteBuf> iterator() {
+    List<ByteBuf> frames = new ArrayList<>(control);
+    for (Lane lane : active) {
+      frames.addAll(lane.frames);
+    }
+    frames.addAll(inbox);
+    return Collections.unmodifiableList(frames).iterator();
+  }
+
+  private void transfer() {
+    ByteBuf frame;
+    while ((frame = inbox.poll()) != null) {
+      enqueue(frame);
+    }
+  }
+
+  private void enqueue(ByteBuf frame) {
+    int streamId = FrameHeaderFlyweight.streamId(frame);
+    Lane lane = lanes.get(streamId);
+    if (lane == null) {
+      lane = new Lane(streamId);
+      lanes.put(streamId, lane);
+      active.offerLast(lane);
+    }
+    if (FrameHeaderFlyweight.frameType(frame).isRequestType()) {
+      lane.requests++;
+    }
+    lane.frames.offer(frame);
+    queued++;
+  }
+
+  @Nullable
+  private ByteBuf next() {
+    for (; ; ) {
+      Lane lane = active.peekFirst();
+      if (lane == null) {
+        return null;
+      }
+
+      ByteBuf frame = lane.frames.peekFirst();
+      if (quantum != 0) {
+        if (!lane.serving) {
+          lane.serving = true;
+          lane.deficit += quantum;
+        }
+        int size = frame.readableBytes();
+        if (size > lane.deficit) {
+          lane.serving = false;
+          active.offerLast(active.pollFirst());
+          continue;
+        }
+        lane.deficit -= size;
+      }
+
+      lane.frames.pollFirst();
+      queued--;
+      if (lane.requests != 0 && FrameHeaderFlyweight.frameType(frame).isRequestType()) {
+        lane.requests--;
+      }
+
+      if (lane.frames.isEmpty()) {
+        active.pollFirst();
+        lanes.remove(lane.streamId);
+      } else if (quantum == 0) {
+        active.offerLast(active.pollFirst());
+      }
+      return frame;
+    }
+  }
+
+  private static boolean isControl(ByteBuf frame) {
+    if (FrameHeaderFlyweight.streamId(frame) == 0) {
+      return true;
+    }
+    FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+    return frameType == FrameType.CANCEL || frameType == FrameType.REQUEST_N;
+  }
+
+  static final class Lane {
+    final int streamId;
+    final ArrayDeque<ByteBuf> frames = new ArrayDeque<>();
+
+    /** Number of request frames in {@link #frames}. */
+    int requests;
+
+    int deficit;
+    boolean serving;
+
+    Lane(int streamId) {
+      this.streamId = streamId;
+    }
+  }
+}
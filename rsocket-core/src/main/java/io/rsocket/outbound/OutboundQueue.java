@@ -0,0 +1,248 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.outbound;
+
+import io.netty.buffer.ByteBuf;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Outbound frame queue of a requester or responder that applies backpressure to the work producing
+ * frames once a high-water mark of frames or bytes is reached.
+ *
+ * <p>The high-water mark is a soft signal, not a capacity. Frames are never rejected, since
+ * cancellations, errors and the payloads already requested by the peer must still be written.
+ * Instead the queue becomes unwritable at the high-water mark and writable again once it has
+ * drained to half of it. While unwritable, new requests wait in {@link #writable()} and responders
+ * defer the {@code REQUEST_N} grants of their streams with {@link #onWritable(Runnable)}. The queue
+ * therefore keeps growing past the mark by the demand granted before it was reached, and by any
+ * producer that does not check {@link #isWritable()}.
+ *
+ * <p>The order of frames is decided by the wrapped queue, typically created by an {@link
+ * OutboundScheduler}.
+ */
+public final class OutboundQueue extends AbstractQueue<ByteBuf>
+    implements OutboundQueueStats, Disposable {
+
+  private static final AtomicIntegerFieldUpdater<OutboundQueue> FRAMES =
+      AtomicIntegerFieldUpdater.newUpdater(OutboundQueue.class, "frames");
+
+  private static final AtomicLongFieldUpdater<OutboundQueue> BYTES =
+      AtomicLongFieldUpdater.newUpdater(OutboundQueue.class, "bytes");
+
+  private static final AtomicIntegerFieldUpdater<OutboundQueue> UNWRITABLE =
+      AtomicIntegerFieldUpdater.newUpdater(OutboundQueue.class, "unwritable");
+
+  private final Queue<ByteBuf> queue;
+  private final int highWaterFrames;
+  private final long highWaterBytes;
+  private final int lowWaterFrames;
+  private final long lowWaterBytes;
+  private final Queue<Runnable> waiters = new ConcurrentLinkedQueue<>();
+  private final Mono<Void> writable;
+
+  private volatile int frames;
+  private volatile long bytes;
+  private volatile int unwritable;
+  private volatile boolean disposed;
+
+  /**
+   * Creates a queue that never becomes unwritable.
+   *
+   * @param queue the queue deciding the order of frames
+   */
+  public OutboundQueue(Queue<ByteBuf> queue) {
+    this(queue, Integer.MAX_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates a queue that becomes unwritable once it holds {@code highWaterFrames} frames or {@code
+   * highWaterBytes} bytes. It still accepts frames past these marks.
+   *
+   * @param queue the queue deciding the order of frames
+   * @param highWaterFrames the number of queued frames at which the queue becomes unwritable
+   * @param highWaterBytes the number of queued bytes at which the queue becomes unwritable
+   */
+  public OutboundQueue(Queue<ByteBuf> queue, int highWaterFrames, long highWaterBytes) {
+    if (highWaterFrames <= 0 || highWaterBytes <= 0) {
+      throw new IllegalArgumentException("high-water marks must be positive");
+    }
+    this.queue = Objects.requireNonNull(queue, "queue");
+    this.highWaterFrames = highWaterFrames;
+    this.highWaterBytes = highWaterBytes;
+    this.lowWaterFrames = highWaterFrames >> 1;
+    this.lowWaterBytes = highWaterBytes >> 1;
+    this.writable =
+        Mono.defer(
+            () ->
+                isWritable()
+                    ? Mono.empty()
+                    : Mono.create(
+                        sink -> {
+                          Runnable waiter = sink::success;
+                          onWritable(waiter);
+                          sink.onCancel(() -> waiters.remove(waiter));
+                        }));
+  }
+
+  @Override
+  public boolean offer(ByteBuf frame) {
+    int size = frame.readableBytes();
+    if (!queue.offer(frame)) {
+      return false;
+    }
+    int f = FRAMES.incrementAndGet(this);
+    long b = BYTES.addAndGet(this, size);
+    if ((f >= highWaterFrames || b >= highWaterBytes)
+        && unwritable == 0
+        && UNWRITABLE.compareAndSet(this, 0, 1)) {
+      // the consumer may have drained the queue before it could observe the high-water mark
+      maybeWritable();
+    }
+    return true;
+  }
+
+  @Override
+  @Nullable
+  public ByteBuf poll() {
+    ByteBuf frame = queue.poll();
+    if (frame != null) {
+      FRAMES.decrementAndGet(this);
+      BYTES.addAndGet(this, -frame.readableBytes());
+      if (unwritable != 0) {
+        maybeWritable();
+      }
+    }
+    return frame;
+  }
+
+  @Override
+  @Nullable
+  public ByteBuf peek() {
+    return queue.peek();
+  }
+
+  @Override
+  public int size() {
+    return queue.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return queue.isEmpty();
+  }
+
+  /**
+   * Returns an iterator over the frames of the wrapped queue, which must support iteration, as the
+   * queues of {@link OutboundScheduler#roundRobin()} and {@link
+   * OutboundScheduler#weightedFair(int)} do with a read-only snapshot. It does not support removal,
+   * which would bypass the depth accounting.
+   */
+  @Override
+  public Iterator<ByteBuf> iterator() {
+    Iterator<ByteBuf> iterator = queue.iterator();
+    return new Iterator<ByteBuf>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public ByteBuf next() {
+        return iterator.next();
+      }
+    };
+  }
+
+  @Override
+  public int frames() {
+    return frames;
+  }
+
+  @Override
+  public long bytes() {
+    return bytes;
+  }
+
+  @Override
+  public boolean isWritable() {
+    return unwritable == 0 || disposed;
+  }
+
+  /**
+   * Runs {@code task} once the queue is writable, immediately if it already is. Deferred tasks run
+   * on the thread draining the queue and must be short.
+   *
+   * @param task the task to run
+   */
+  public void onWritable(Runnable task) {
+    if (isWritable()) {
+      task.run();
+      return;
+    }
+    waiters.offer(task);
+    // the queue may have drained while the task was being added
+    if (isWritable()) {
+      runWaiters();
+    }
+  }
+
+  /**
+   * Returns a {@link Mono} that completes once the queue is writable, checked when it is
+   * subscribed. Cancelling it stops waiting.
+   *
+   * @return a {@link Mono} completing when the queue is writable
+   */
+  public Mono<Void> writable() {
+    return writable;
+  }
+
+  /** Runs all deferred tasks and keeps the queue writable from now on. */
+  @Override
+  public void dispose() {
+    disposed = true;
+    runWaiters();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed;
+  }
+
+  private void maybeWritable() {
+    if (frames <= lowWaterFrames
+        && bytes <= lowWaterBytes
+        && UNWRITABLE.compareAndSet(this, 1, 0)) {
+      runWaiters();
+    }
+  }
+
+  private void runWaiters() {
+    Runnable task;
+    while (isWritable() && (task = waiters.poll()) != null) {
+      task.run();
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.outbound;
+
+/** Depth of the outbound queue of a requester or responder. */
+public interface OutboundQueueStats {
+
+  /**
+   * Number of frames waiting to be written to the connection.
+   *
+   * @return the number of queued frames
+   */
+  int frames();
+
+  /**
+   * Number of bytes waiting to be written to the connection.
+   *
+   * @return the number of queued bytes
+   */
+  long bytes();
+
+  /**
+   * Whether new requests are issued and grants applied without delay, that is the queue has not
+   * reached its high-water mark or has drained to its low-water mark since.
+   *
+   * @return whether the queue accepts more work without delay
+   */
+  boolean isWritable();
+}
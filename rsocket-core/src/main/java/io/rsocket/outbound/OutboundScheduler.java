@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.outbound;
+
+import io.netty.buffer.ByteBuf;
+import java.util.Queue;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Decides the order in which the frames of all streams of a connection are written to the
+ * transport.
+ *
+ * <p>Every requester and responder queues its outbound frames in a queue created by {@link
+ * #newQueue()}. Frames are offered concurrently by the threads producing them and polled by a
+ * single consumer, the transport, when it is ready to write.
+ */
+@FunctionalInterface
+public interface OutboundScheduler {
+
+  /**
+   * Creates the queue of outbound frames for one requester or responder. The returned queue must
+   * accept concurrent offers and tolerate a single polling consumer at a time.
+   *
+   * @return a new outbound frame queue
+   */
+  Queue<ByteBuf> newQueue();
+
+  /**
+   * Returns a scheduler that writes frames in the order they were produced, regardless of the
+   * stream they belong to.
+   *
+   * @return the first-in first-out scheduler
+   */
+  static OutboundScheduler fifo() {
+    return () -> Queues.<ByteBuf>unboundedMultiproducer().get();
+  }
+
+  /**
+   * Returns a scheduler that writes one frame of each stream with queued frames in turn. Connection
+   * frames, such as {@code KEEPALIVE} and {@code LEASE}, as well as {@code CANCEL} and {@code
+   * REQUEST_N} frames are written ahead of all stream frames.
+   *
+   * @return the round-robin scheduler
+   */
+  static OutboundScheduler roundRobin() {
+    return () -> new FairFrameQueue(0);
+  }
+
+  /**
+   * Returns a scheduler that shares the connection between streams with queued frames by bytes
+   * rather than by frames, using deficit round-robin: every turn a stream may write up to {@code
+   * quantum} bytes plus whatever it did not use of its previous turns. Streams writing large frames
+   * therefore get fewer turns than streams writing small ones. Control frames are prioritized as
+   * with {@link #roundRobin()}.
+   *
+   * @param quantum the number of bytes a stream may write per turn
+   * @return the weighted fair scheduler
+   */
+  static OutboundScheduler weightedFair(int quantum) {
+    if (quantum <= 0) {
+      throw new IllegalArgumentException("quantum must be positive");
+    }
+    return () -> new FairFrameQueue(quantum);
+  }
+}
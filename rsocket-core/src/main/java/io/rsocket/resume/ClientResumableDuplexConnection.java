@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.DuplexConnection;
+import io.rsocket.exceptions.Exceptions;
+import io.rsocket.exceptions.RejectedResumeException;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.ResumeFlyweight;
+import io.rsocket.frame.ResumeOkFlyweight;
+import java.time.Duration;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+/**
+ * The client end of a resumable session. Once the connection is lost it connects again every {@code
+ * retryInterval} and sends a RESUME frame, the session resumes when the server answers with
+ * RESUME_OK and is closed when the server rejects it.
+ */
+public final class ClientResumableDuplexConnection extends ResumableDuplexConnection {
+  private static final Logger logger =
+      LoggerFactory.getLogger(ClientResumableDuplexConnection.class);
+
+  private final Mono<DuplexConnection> reconnect;
+  private final Duration retryInterval;
+  private final Disposable.Swap reconnecting = Disposables.swap();
+  private volatile DuplexConnection pending;
+
+  /**
+   * Creates a new session on {@code connection}, the SETUP frame enabling resumption with {@code
+   * token} has to be the first frame sent.
+   *
+   * @param reconnect connects a new transport connection to resume the session on
+   */
+  public ClientResumableDuplexConnection(
+      ByteBufAllocator allocator,
+      DuplexConnection connection,
+      ResumeToken token,
+      ResumeCache cache,
+      Duration sessionDuration,
+      Duration retryInterval,
+      Mono<DuplexConnection> reconnect) {
+    super(allocator, connection, token, cache, sessionDuration);
+    this.retryInterval = Objects.requireNonNull(retryInterval, "retryInterval must not be null");
+    this.reconnect = Objects.requireNonNull(reconnect, "reconnect must not be null");
+  }
+
+  @Override
+  void onDisconnected() {
+    reconnect(reconnect);
+  }
+
+  private void reconnect(Mono<DuplexConnection> reconnect) {
+    reconnecting.update(
+        reconnect
+            .doOnError(t -> logger.debug("Failed to reconnect session {}", token, t))
+            .retryWhen(errors -> errors.delayElements(retryInterval))
+            .subscribe(this::sendResume));
+  }
+
+  @Override
+  void onDisposed() {
+    reconnecting.dispose();
+  }
+
+  @Override
+  void onDetachedFrame(DuplexConnection connection, ByteBuf frame) {
+    try {
+      switch (FrameHeaderFlyweight.frameType(frame)) {
+        case RESUME_OK:
+          long remotePosition = ResumeOkFlyweight.lastReceivedClientPos(frame);
+          pending = null;
+          if (!resume(connection, remotePosition, null)) {
+            connection.dispose();
+            dispose(
+                new RejectedResumeException(
+                    "Frames after position " + remotePosition + " are no longer available"));
+          }
+          break;
+        case ERROR:
+          pending = null;
+          dispose(Exceptions.from(frame));
+          connection.dispose();
+          break;
+        default:
+          // frames of a connection that has been replaced, they will be resent
+      }
+    } finally {
+      frame.release();
+    }
+  }
+
+  private void sendResume(DuplexConnection connection) {
+    if (isDisposed()) {
+      connection.dispose();
+      return;
+    }
+
+    pending = connection;
+    connection
+        .onClose()
+        .subscribe(
+            null,
+            null,
+            () -> {
+              // lost before the server answered, try again after a while
+              if (pending == connection && !isDisposed()) {
+                pending = null;
+                reconnect(reconnect.delaySubscription(retryInterval));
+              }
+            });
+    receiveFrom(connection);
+
+    ByteBuf resumeFrame =
+        ResumeFlyweight.encode(
+            allocator,
+            Unpooled.wrappedBuffer(token.toByteArray()),
+            receivedPosition(),
+            cache.getEarliestResendPosition());
+    connection.sendOne(resumeFrame).subscribe(null, t -> connection.dispose());
+  }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.DuplexConnection;
+import io.rsocket.exceptions.ConnectionErrorException;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.FrameType;
+import io.rsocket.frame.KeepAliveFrameFlyweight;
+import io.rsocket.internal.UnboundedProcessor;
+import java.time.Duration;
+import java.util.Objects;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.util.annotation.Nullable;
+
+/**
+ * A {@link DuplexConnection} representing a resumable session that outlives the transport
+ * connections it runs over.
+ *
+ * <p>Tracked frames are recorded in a {@link ResumeCache} as they are sent and the implied position
+ * of received tracked frames is counted. Both positions are exchanged in keep-alive frames, which
+ * lets the remote end drop acknowledged frames from its cache. When the current transport
+ * connection is lost the session stays open, frames sent meanwhile are cached or dropped if they
+ * are not tracked, until the session resumes on a new transport connection or {@code
+ * sessionDuration} elapses and the session is disposed.
+ */
+public abstract class ResumableDuplexConnection implements DuplexConnection {
+  private static final Logger logger = LoggerFactory.getLogger(ResumableDuplexConnection.class);
+
+  final ByteBufAllocator allocator;
+  final ResumeToken token;
+  final ResumeCache cache;
+  private final Duration sessionDuration;
+  private final UnboundedProcessor<ByteBuf> inbound = new UnboundedProcessor<>();
+  private final MonoProcessor<Void> onClose = MonoProcessor.create();
+
+  /* guarded by this */
+  private volatile DuplexConnection current;
+  private UnboundedProcessor<ByteBuf> outbound;
+  private long receivedPosition;
+  private Disposable sessionTimeout = Disposables.disposed();
+  private volatile boolean disposed;
+
+  ResumableDuplexConnection(
+      ByteBufAllocator allocator,
+      DuplexConnection connection,
+      ResumeToken token,
+      ResumeCache cache,
+      Duration sessionDuration) {
+    this.allocator = Objects.requireNonNull(allocator, "allocator must not be null");
+    this.token = Objects.requireNonNull(token, "token must not be null");
+    this.cache = Objects.requireNonNull(cache, "cache must not be null");
+    this.sessionDuration =
+        Objects.requireNonNull(sessionDuration, "sessionDuration must not be null");
+
+    synchronized (this) {
+      attach(connection, null, Flux.empty());
+    }
+    receiveFrom(connection);
+  }
+
+  public ResumeToken token() {
+    return token;
+  }
+
+  @Override
+  public Mono<Void> send(Publisher<ByteBuf> frames) {
+    Objects.requireNonNull(frames, "frames must not be null");
+
+    return Flux.from(frames).doOnNext(this::sendFrame).then();
+  }
+
+  @Override
+  public Mono<Void> sendOne(ByteBuf frame) {
+    return Mono.fromRunnable(() -> sendFrame(frame));
+  }
+
+  @Override
+  public Flux<ByteBuf> receive() {
+    return inbound;
+  }
+
+  @Override
+  public double availability() {
+    return current != null ? 1.0 : 0.0;
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return onClose;
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed;
+  }
+
+  @Override
+  public void dispose() {
+    dispose(null);
+  }
+
+  /** Closes the session, signalling {@code error} to {@link #onClose()} if it is not null. */
+  void dispose(@Nullable Throwable error) {
+    DuplexConnection connection;
+    synchronized (this) {
+      if (disposed) {
+        return;
+      }
+      disposed = true;
+      connection = detach();
+      sessionTimeout.dispose();
+    }
+
+    if (connection != null) {
+      connection.dispose();
+    }
+    cache.clear();
+    onDisposed();
+
+    inbound.onComplete();
+    if (error != null) {
+      onClose.onError(error);
+    } else {
+      onClose.onComplete();
+    }
+  }
+
+  /** Returns the implied position of the tracked frames received by this session. */
+  synchronized long receivedPosition() {
+    return receivedPosition;
+  }
+
+  /**
+   * Resumes the session on {@code connection}. Sends {@code handshake} if it is not null and then
+   * every cached frame the remote end has not received.
+   *
+   * @param remotePosition the implied position of the frames received by the remote end
+   * @return {@code false} if the session is closed or the frames following {@code remotePosition}
+   *     are no longer cached
+   */
+  boolean resume(DuplexConnection connection, long remotePosition, @Nullable ByteBuf handshake) {
+    DuplexConnection previous;
+    synchronized (this) {
+      if (disposed
+          || remotePosition < cache.getEarliestResendPosition()
+          || remotePosition > cache.getCurrentPosition()) {
+        if (handshake != null) {
+          handshake.release();
+        }
+        return false;
+      }
+
+      previous = detach();
+      sessionTimeout.dispose();
+      attach(connection, handshake, cache.resend(remotePosition));
+    }
+
+    if (previous != null) {
+      previous.dispose();
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Resumed session {} at position {}", token, remotePosition);
+    }
+    return true;
+  }
+
+  /**
+   * Detaches the current connection so that no more frames are sent or received over it.
+   *
+   * @return the detached connection, to be disposed by the caller
+   */
+  @Nullable
+  synchronized DuplexConnection detach() {
+    DuplexConnection connection = current;
+    if (connection != null) {
+      current = null;
+      outbound.dispose();
+      outbound = null;
+    }
+    return connection;
+  }
+
+  /** Called for frames received on a connection that is not attached to the session. */
+  abstract void onDetachedFrame(DuplexConnection connection, ByteBuf frame);
+
+  /** Called once the current connection has been lost and the session waits to be resumed. */
+  abstract void onDisconnected();
+
+  /** Called once the session has been closed. */
+  abstract void onDisposed();
+
+  void receiveFrom(DuplexConnection connection) {
+    connection
+        .receive()
+        .subscribe(
+            frame -> receiveFrame(connection, frame),
+            t -> disconnected(connection, t),
+            () -> disconnected(connection, null));
+  }
+
+  private void attach(
+      DuplexConnection connection, @Nullable ByteBuf handshake, Flux<ByteBuf> resend) {
+    UnboundedProcessor<ByteBuf> outbound = new UnboundedProcessor<>();
+    if (handshake != null) {
+      outbound.onNext(handshake);
+    }
+    resend.subscribe(outbound::onNext);
+
+    this.current = connection;
+    this.outbound = outbound;
+
+    connection.send(outbound).subscribe(null, t -> disconnected(connection, t));
+    connection
+        .onClose()
+        .subscribe(null, t -> disconnected(connection, t), () -> disconnected(connection, null));
+  }
+
+  private void sendFrame(ByteBuf frame) {
+    synchronized (this) {
+      if (!disposed) {
+        if (FrameHeaderFlyweight.frameType(frame) == FrameType.KEEPALIVE) {
+          // tells the remote end which frames can be dropped from its cache
+          frame.setLong(frame.readerIndex() + FrameHeaderFlyweight.size(), receivedPosition);
+        }
+        cache.sent(frame);
+        if (outbound != null) {
+          outbound.onNext(frame);
+          return;
+        }
+      }
+    }
+    frame.release();
+  }
+
+  private void receiveFrame(DuplexConnection connection, ByteBuf frame) {
+    FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+    boolean attached;
+    synchronized (this) {
+      attached = connection == current;
+      if (attached) {
+        track(frameType, frame);
+      }
+    }
+
+    if (!attached) {
+      onDetachedFrame(connection, frame);
+    } else if (frameType == FrameType.RESUME || frameType == FrameType.RESUME_OK) {
+      // the handshake has been handled before the connection was attached
+      frame.release();
+    } else {
+      inbound.onNext(frame);
+    }
+  }
+
+  /** Advances the positions of this session for a frame received on the current connection. */
+  private void track(FrameType frameType, ByteBuf frame) {
+    switch (frameType) {
+      case KEEPALIVE:
+        long remotePosition = KeepAliveFrameFlyweight.lastPosition(frame);
+        if (remotePosition > cache.getRemotePosition()
+            && remotePosition <= cache.getCurrentPosition()) {
+          cache.updateRemotePosition(remotePosition);
+        }
+        break;
+      default:
+        if (ResumeUtil.isTracked(frame)) {
+          receivedPosition += ResumeUtil.offset(frame);
+        }
+    }
+  }
+
+  private void disconnected(DuplexConnection connection, @Nullable Throwable t) {
+    synchronized (this) {
+      if (connection != current) {
+        return;
+      }
+      detach();
+      if (!disposed) {
+        sessionTimeout =
+            Mono.delay(sessionDuration)
+                .subscribe(
+                    l ->
+                        dispose(
+                            new ConnectionErrorException(
+                                "Session " + token + " was not resumed in time")));
+      }
+    }
+    connection.dispose();
+
+    if (!disposed) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Connection of session {} lost", token, t);
+      }
+      onDisconnected();
+    }
+  }
+}
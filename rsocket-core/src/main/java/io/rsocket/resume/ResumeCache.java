@@ -17,27 +17,39 @@
 package io.rsocket.resume;
 
 import io.netty.buffer.ByteBuf;
-import java.util.*;
+import java.util.Objects;
 import reactor.core.publisher.Flux;
 
+/**
+ * Keeps the tracked frames sent on a resumable connection until the remote end acknowledges them,
+ * so they can be sent again after resuming on a new connection.
+ *
+ * <p>Positions are the implied positions of the connection, i.e. the sum of the {@link
+ * ResumeUtil#offset(ByteBuf) offsets} of all tracked frames sent before a frame. Frames are kept in
+ * a {@link ResumeStore}, once it is full the oldest frames are dropped and can no longer be resent.
+ */
 public class ResumeCache {
-  private final ResumePositionCounter strategy;
-  private final int maxBufferSize;
+  private final ResumeStore store;
 
-  private final LinkedHashMap<Integer, ByteBuf> frames = new LinkedHashMap<>();
-  private int lastRemotePosition = 0;
-  private int currentPosition = 0;
-  private int bufferSize;
+  private long lastRemotePosition = 0;
+  private long currentPosition = 0;
 
+  /**
+   * Creates a cache keeping retained duplicates of the sent frames, bounded by {@code
+   * maxBufferSize} as measured by {@code strategy}.
+   */
   public ResumeCache(ResumePositionCounter strategy, int maxBufferSize) {
-    this.strategy = strategy;
-    this.maxBufferSize = maxBufferSize;
+    this(ResumeStore.retaining(strategy, maxBufferSize));
   }
 
-  public void updateRemotePosition(int remotePosition) {
+  public ResumeCache(ResumeStore store) {
+    this.store = Objects.requireNonNull(store, "store must not be null");
+  }
+
+  public synchronized void updateRemotePosition(long remotePosition) {
     if (remotePosition > currentPosition) {
       throw new IllegalStateException(
-          "Remote ahead of " + lastRemotePosition + " , expected " + remotePosition);
+          "Remote ahead of " + currentPosition + " , expected " + remotePosition);
     }
 
     if (remotePosition == lastRemotePosition) {
@@ -50,77 +62,60 @@ public void updateRemotePosition(int remotePosition) {
     }
 
     lastRemotePosition = remotePosition;
-
-    Iterator<Map.Entry<Integer, ByteBuf>> positions = frames.entrySet().iterator();
-
-    while (positions.hasNext()) {
-      Map.Entry<Integer, ByteBuf> cachePosition = positions.next();
-
-      if (cachePosition.getKey() <= remotePosition) {
-        positions.remove();
-        bufferSize -= strategy.cost(cachePosition.getValue());
-        cachePosition.getValue().release();
-      }
-
-      // TODO check for a bad position
-    }
+    store.trim(remotePosition);
   }
 
-  public void sent(ByteBuf frame) {
+  /**
+   * Records a frame that is about to be sent. Tracked frames advance the current position and are
+   * kept until acknowledged, the caller keeps its own reference.
+   */
+  public synchronized void sent(ByteBuf frame) {
     if (ResumeUtil.isTracked(frame)) {
-      frames.put(currentPosition, frame.copy());
-      bufferSize += strategy.cost(frame);
-
+      store.append(currentPosition, frame);
       currentPosition += ResumeUtil.offset(frame);
-
-      if (frames.size() > maxBufferSize) {
-        ByteBuf f = frames.remove(first(frames));
-        bufferSize -= strategy.cost(f);
-      }
     }
   }
 
-  private int first(LinkedHashMap<Integer, ByteBuf> frames) {
-    return frames.keySet().iterator().next();
-  }
-
-  public Flux<ByteBuf> resend(int remotePosition) {
+  /**
+   * Returns the frames sent after {@code remotePosition}. Each emitted frame is retained and has to
+   * be released by the subscriber.
+   *
+   * @throws IllegalStateException if frames after {@code remotePosition} were already dropped
+   */
+  public synchronized Flux<ByteBuf> resend(long remotePosition) {
     updateRemotePosition(remotePosition);
 
     if (remotePosition == currentPosition) {
       return Flux.empty();
     }
 
-    List<ByteBuf> resend = new ArrayList<>();
-
-    for (Map.Entry<Integer, ByteBuf> cachePosition : frames.entrySet()) {
-      if (remotePosition < cachePosition.getKey()) {
-        resend.add(cachePosition.getValue());
-      }
-
-      // TODO error handling
+    if (remotePosition < getEarliestResendPosition()) {
+      throw new IllegalStateException(
+          "Frames after " + remotePosition + " are no longer available");
     }
 
-    return Flux.fromIterable(resend);
+    return Flux.fromIterable(store.framesFrom(remotePosition));
   }
 
-  public int getCurrentPosition() {
+  public synchronized long getCurrentPosition() {
     return currentPosition;
   }
 
-  public int getRemotePosition() {
+  public synchronized long getRemotePosition() {
     return lastRemotePosition;
   }
 
-  public int getEarliestResendPosition() {
-    if (frames.isEmpty()) {
-      return currentPosition;
-    } else {
-      return first(frames);
-    }
+  public synchronized long getEarliestResendPosition() {
+    long earliest = store.earliestPosition();
+    return earliest < 0 ? currentPosition : earliest;
+  }
+
+  public synchronized int size() {
+    return store.size();
   }
 
-  public int size() {
-    return bufferSize;
+  /** Releases all cached frames. */
+  public synchronized void clear() {
+    store.clear();
   }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import java.util.List;
+
+/**
+ * Storage for the frames kept by a {@link ResumeCache}, indexed by the position at which each frame
+ * was sent. Positions passed to a store are strictly increasing.
+ *
+ * <p>Stores are not thread safe, the owning {@link ResumeCache} serializes access.
+ */
+public interface ResumeStore {
+
+  /**
+   * Stores a frame sent at {@code position}. The store does not take ownership of {@code frame}, it
+   * either copies it or retains it. To stay within its bounds a store may drop the oldest frames,
+   * including {@code frame} itself.
+   */
+  void append(long position, ByteBuf frame);
+
+  /** Drops all frames sent before {@code position}. */
+  void trim(long position);
+
+  /**
+   * Returns the frames sent at or after {@code position}, oldest first. Each buffer is retained and
+   * has to be released by the caller.
+   */
+  List<ByteBuf> framesFrom(long position);
+
+  /** @return the position of the oldest stored frame or {@code -1} if the store is empty */
+  long earliestPosition();
+
+  /** @return the cost of the stored frames, in the unit the store is bounded by */
+  int size();
+
+  /** Drops all frames and releases the resources of the store. */
+  void clear();
+
+  /**
+   * Keeps retained duplicates of the sent frames, bounded by {@code maxBufferSize} as measured by
+   * {@code counter}.
+   */
+  static ResumeStore retaining(ResumePositionCounter counter, int maxBufferSize) {
+    return new RetainingResumeStore(counter, maxBufferSize);
+  }
+
+  /** Copies the sent frames into a direct ring buffer of up to {@code maxBytes} bytes. */
+  static ResumeStore offHeap(int maxBytes) {
+    return RingBufferResumeStore.offHeap(maxBytes);
+  }
+}
@@ -32,17 +32,26 @@ public static boolean isTracked(FrameType frameType) {
       case CANCEL:
       case ERROR:
       case PAYLOAD:
+      case NEXT:
+      case COMPLETE:
+      case NEXT_COMPLETE:
         return true;
       default:
         return false;
     }
   }
 
+  /**
+   * Returns whether {@code frame} advances the implied position of a resumable connection. Only
+   * frames of a stream are tracked, frames on stream {@code 0} such as connection errors are not.
+   */
   public static boolean isTracked(ByteBuf frame) {
-    return isTracked(FrameHeaderFlyweight.frameType(frame));
+    return FrameHeaderFlyweight.streamId(frame) != 0
+        && isTracked(FrameHeaderFlyweight.frameType(frame));
   }
 
+  /** Returns the number of bytes {@code frame} advances the implied position by. */
   public static int offset(ByteBuf frame) {
-    return 0;
+    return frame.readableBytes();
   }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/** A {@link ResumeStore} keeping retained duplicates of the frames it is given. */
+final class RetainingResumeStore implements ResumeStore {
+  private final ResumePositionCounter counter;
+  private final int maxBufferSize;
+
+  private final ArrayDeque<CachedFrame> frames = new ArrayDeque<>();
+  private int bufferSize;
+
+  RetainingResumeStore(ResumePositionCounter counter, int maxBufferSize) {
+    this.counter = counter;
+    this.maxBufferSize = maxBufferSize;
+  }
+
+  @Override
+  public void append(long position, ByteBuf frame) {
+    frames.addLast(new CachedFrame(position, frame.retainedDuplicate()));
+    bufferSize += counter.cost(frame);
+
+    while (bufferSize > maxBufferSize && !frames.isEmpty()) {
+      evictFirst();
+    }
+  }
+
+  @Override
+  public void trim(long position) {
+    CachedFrame cached;
+    while ((cached = frames.peekFirst()) != null && cached.position < position) {
+      evictFirst();
+    }
+  }
+
+  @Override
+  public List<ByteBuf> framesFrom(long position) {
+    List<ByteBuf> result = new ArrayList<>(frames.size());
+    for (CachedFrame cached : frames) {
+      if (position <= cached.position) {
+        result.add(cached.frame.retainedDuplicate());
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public long earliestPosition() {
+    CachedFrame first = frames.peekFirst();
+    return first == null ? -1 : first.position;
+  }
+
+  @Override
+  public int size() {
+    return bufferSize;
+  }
+
+  @Override
+  public void clear() {
+    while (!frames.isEmpty()) {
+      evictFirst();
+    }
+  }
+
+  private void evictFirst() {
+    CachedFrame cached = frames.removeFirst();
+    bufferSize -= counter.cost(cached.frame);
+    cached.frame.release();
+  }
+
+  private static final class CachedFrame {
+    final long position;
+    final ByteBuf frame;
+
+    CachedFrame(long position, ByteBuf frame) {
+      this.position = position;
+      this.frame = frame;
+    }
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * A {@link ResumeStore} copying frames into a single ring buffer, indexed by primitive arrays of
+ * positions, offsets and lengths. Appending and trimming never allocate once the buffer and the
+ * index have grown to their working size, and resent frames are slices of the ring buffer.
+ *
+ * <p>The buffer starts small and doubles up to {@code maxCapacity} bytes, after that the oldest
+ * frames are dropped to make room. A frame never wraps around the end of the buffer, the gap it
+ * leaves is reclaimed once the frames before it are trimmed.
+ *
+ * <p>Resent slices share the memory of the ring buffer. When a frame is appended while slices are
+ * still referenced, the live frames are first moved to a fresh buffer so the slices are never
+ * overwritten; the old buffer is freed once the last slice is released.
+ */
+public final class RingBufferResumeStore implements ResumeStore {
+  private static final int DEFAULT_INITIAL_CAPACITY = 64 * 1024;
+  private static final int INITIAL_INDEX_CAPACITY = 64;
+
+  private final IntFunction<ByteBuf> allocator;
+  private final int initialCapacity;
+  private final int maxCapacity;
+
+  private ByteBuf buffer;
+
+  private long[] positions = new long[INITIAL_INDEX_CAPACITY];
+  private int[] offsets = new int[INITIAL_INDEX_CAPACITY];
+  private int[] lengths = new int[INITIAL_INDEX_CAPACITY];
+  private int head;
+  private int count;
+  private int usedBytes;
+
+  /**
+   * @param allocator allocates a buffer of at least the given capacity, the store takes ownership
+   *     of it
+   * @param initialCapacity the capacity of the first buffer
+   * @param maxCapacity the maximum capacity the buffer grows to
+   */
+  public RingBufferResumeStore(
+      IntFunction<ByteBuf> allocator, int initialCapacity, int maxCapacity) {
+    if (initialCapacity <= 0) {
+      throw new IllegalArgumentException("initialCapacity must be positive");
+    }
+    if (maxCapacity < 0) {
+      throw new IllegalArgumentException("maxCapacity must not be negative");
+    }
+    this.allocator = Objects.requireNonNull(allocator, "allocator must not be null");
+    this.initialCapacity = Math.min(initialCapacity, maxCapacity);
+    this.maxCapacity = maxCapacity;
+  }
+
+  /** A store backed by direct memory, growing up to {@code maxCapacity} bytes. */
+  public static RingBufferResumeStore offHeap(int maxCapacity) {
+    return new RingBufferResumeStore(Unpooled::directBuffer, DEFAULT_INITIAL_CAPACITY, maxCapacity);
+  }
+
+  /** A store backed by a heap array, growing up to {@code maxCapacity} bytes. */
+  public static RingBufferResumeStore heap(int maxCapacity) {
+    return new RingBufferResumeStore(Unpooled::buffer, DEFAULT_INITIAL_CAPACITY, maxCapacity);
+  }
+
+  @Override
+  public void append(long position, ByteBuf frame) {
+    int length = frame.readableBytes();
+    if (length > maxCapacity) {
+      // can never be stored, neither can anything sent before it be resent
+      trim(Long.MAX_VALUE);
+      return;
+    }
+
+    if (buffer == null) {
+      buffer = allocator.apply(Math.max(initialCapacity, length));
+    } else if (buffer.refCnt() > 1) {
+      relocate(buffer.capacity());
+    }
+
+    int offset = reserve(length);
+    buffer.setBytes(offset, frame, frame.readerIndex(), length);
+
+    if (count == positions.length) {
+      growIndex();
+    }
+    int tail = (head + count) & (positions.length - 1);
+    positions[tail] = position;
+    offsets[tail] = offset;
+    lengths[tail] = length;
+    count++;
+    usedBytes += length;
+  }
+
+  @Override
+  public void trim(long position) {
+    while (count > 0 && positions[head] < position) {
+      evictFirst();
+    }
+  }
+
+  @Override
+  public List<ByteBuf> framesFrom(long position) {
+    int mask = positions.length - 1;
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (positions[(head + mid) & mask] < position) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    if (low == count) {
+      return Collections.emptyList();
+    }
+
+    List<ByteBuf> frames = new ArrayList<>(count - low);
+    for (int i = low; i < count; i++) {
+      int index = (head + i) & mask;
+      frames.add(buffer.retainedSlice(offsets[index], lengths[index]));
+    }
+    return frames;
+  }
+
+  @Override
+  public long earliestPosition() {
+    return count == 0 ? -1 : positions[head];
+  }
+
+  /** @return the number of stored bytes */
+  @Override
+  public int size() {
+    return usedBytes;
+  }
+
+  /** @return the number of stored frames */
+  public int frames() {
+    return count;
+  }
+
+  /** @return the capacity of the current buffer */
+  public int capacity() {
+    return buffer == null ? 0 : buffer.capacity();
+  }
+
+  @Override
+  public void clear() {
+    head = 0;
+    count = 0;
+    usedBytes = 0;
+    if (buffer != null) {
+      buffer.release();
+      buffer = null;
+    }
+  }
+
+  /** Finds room for {@code length} bytes, growing the buffer or dropping the oldest frames. */
+  private int reserve(int length) {
+    for (; ; ) {
+      int capacity = buffer.capacity();
+      if (count == 0) {
+        if (length <= capacity) {
+          return 0;
+        }
+      } else {
+        int mask = positions.length - 1;
+        int tail = (head + count - 1) & mask;
+        int readOffset = offsets[head];
+        int writeOffset = offsets[tail] + lengths[tail];
+        if (offsets[tail] >= readOffset) {
+          if (capacity - writeOffset >= length) {
+            return writeOffset;
+          }
+          if (readOffset >= length) {
+            return 0;
+          }
+        } else if (readOffset - writeOffset >= length) {
+          return writeOffset;
+        }
+      }
+
+      if (capacity < maxCapacity) {
+        long required = (long) usedBytes + length;
+        long grown = capacity;
+        while (grown < required) {
+          grown <<= 1;
+        }
+        relocate((int) Math.min(Math.max(grown, (long) capacity << 1), maxCapacity));
+      } else {
+        evictFirst();
+      }
+    }
+  }
+
+  /** Moves the stored frames to the start of a new buffer of at least {@code capacity} bytes. */
+  private void relocate(int capacity) {
+    ByteBuf next = allocator.apply(capacity);
+    int mask = positions.length - 1;
+    int offset = 0;
+    for (int i = 0; i < count; i++) {
+      int index = (head + i) & mask;
+      next.setBytes(offset, buffer, offsets[index], lengths[index]);
+      offsets[index] = offset;
+      offset += lengths[index];
+    }
+    buffer.release();
+    buffer = next;
+  }
+
+  private void evictFirst() {
+    usedBytes -= lengths[head];
+    head = (head + 1) & (positions.length - 1);
+    count--;
+    if (count == 0) {
+      head = 0;
+    }
+  }
+
+  private void growIndex() {
+    int capacity = positions.length;
+    long[] newPositions = new long[capacity << 1];
+    int[] newOffsets = new int[capacity << 1];
+    int[] newLengths = new int[capacity << 1];
+    for (int i = 0; i < count; i++) {
+      int index = (head + i) & (capacity - 1);
+      newPositions[i] = positions[index];
+      newOffsets[i] = offsets[index];
+      newLengths[i] = lengths[index];
+    }
+    positions = newPositions;
+    offsets = newOffsets;
+    lengths = newLengths;
+    head = 0;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.DuplexConnection;
+import io.rsocket.frame.ResumeFlyweight;
+import io.rsocket.frame.ResumeOkFlyweight;
+import java.time.Duration;
+
+/**
+ * The server end of a resumable session, resumed by {@link SessionManager} when a client sends a
+ * RESUME frame with its token on a new connection.
+ */
+public final class ServerResumableDuplexConnection extends ResumableDuplexConnection {
+  private final SessionManager sessions;
+
+  ServerResumableDuplexConnection(
+      ByteBufAllocator allocator,
+      DuplexConnection connection,
+      ResumeToken token,
+      ResumeCache cache,
+      Duration sessionDuration,
+      SessionManager sessions) {
+    super(allocator, connection, token, cache, sessionDuration);
+    this.sessions = sessions;
+  }
+
+  /**
+   * Resumes this session on {@code connection} if the positions in {@code resumeFrame} can be
+   * satisfied by both ends.
+   *
+   * @return {@code false} if the session could not be resumed and has been closed
+   */
+  boolean resume(DuplexConnection connection, ByteBuf resumeFrame) {
+    long clientReceivedPosition = ResumeFlyweight.lastReceivedServerPos(resumeFrame);
+    long clientFirstAvailablePosition = ResumeFlyweight.firstAvailableClientPos(resumeFrame);
+
+    boolean resumed = false;
+    synchronized (this) {
+      // stop receiving on the previous connection so the received position is final
+      DuplexConnection previous = detach();
+      if (previous != null) {
+        previous.dispose();
+      }
+
+      long receivedPosition = receivedPosition();
+      if (clientFirstAvailablePosition <= receivedPosition) {
+        resumed =
+            resume(
+                connection,
+                clientReceivedPosition,
+                ResumeOkFlyweight.encode(allocator, receivedPosition));
+      }
+    }
+
+    if (resumed) {
+      receiveFrom(connection);
+    } else {
+      dispose();
+    }
+    return resumed;
+  }
+
+  @Override
+  void onDetachedFrame(DuplexConnection connection, ByteBuf frame) {
+    // frames of a connection that has been replaced, they will be resent
+    frame.release();
+  }
+
+  @Override
+  void onDisconnected() {}
+
+  @Override
+  void onDisposed() {
+    sessions.remove(this);
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.rsocket.DuplexConnection;
+import io.rsocket.exceptions.RejectedResumeException;
+import io.rsocket.frame.ErrorFrameFlyweight;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.ResumeFlyweight;
+import io.rsocket.frame.SetupFrameFlyweight;
+import io.rsocket.internal.UnboundedProcessor;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/** Keeps the resumable sessions of a server and resumes them on new connections. */
+public final class SessionManager {
+  private final ConcurrentMap<ResumeToken, ServerResumableDuplexConnection> sessions =
+      new ConcurrentHashMap<>();
+  private final ByteBufAllocator allocator;
+  private final Duration sessionDuration;
+  private final Supplier<ResumeCache> cacheSupplier;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param allocator the allocator for RESUME_OK and ERROR frames
+   * @param sessionDuration how long a session waits to be resumed after losing its connection
+   * @param cacheSupplier creates the cache of each session
+   */
+  public SessionManager(
+      ByteBufAllocator allocator, Duration sessionDuration, Supplier<ResumeCache> cacheSupplier) {
+    this.allocator = Objects.requireNonNull(allocator, "allocator must not be null");
+    this.sessionDuration =
+        Objects.requireNonNull(sessionDuration, "sessionDuration must not be null");
+    this.cacheSupplier = Objects.requireNonNull(cacheSupplier, "cacheSupplier must not be null");
+  }
+
+  /**
+   * Accepts a new transport connection. A connection starting with a RESUME frame resumes the
+   * session of its token, a connection set up with resumption enabled starts a new session that is
+   * passed to {@code acceptor}. Any other connection is passed to {@code acceptor} as is.
+   */
+  public Mono<Void> accept(
+      DuplexConnection connection, Function<DuplexConnection, Mono<Void>> acceptor) {
+    PeekedConnection peeked = new PeekedConnection(connection);
+
+    return peeked.first.flatMap(
+        frame -> {
+          switch (FrameHeaderFlyweight.frameType(frame)) {
+            case RESUME:
+              return resume(peeked, frame);
+            case SETUP:
+              if (SetupFrameFlyweight.resumeEnabled(frame)) {
+                return acceptor.apply(newSession(peeked, frame));
+              }
+              // fall through
+            default:
+              return acceptor.apply(peeked);
+          }
+        });
+  }
+
+  /** Returns the number of open sessions. */
+  public int size() {
+    return sessions.size();
+  }
+
+  void remove(ServerResumableDuplexConnection session) {
+    sessions.remove(session.token(), session);
+  }
+
+  private DuplexConnection newSession(DuplexConnection connection, ByteBuf setupFrame) {
+    ResumeToken token =
+        ResumeToken.bytes(ByteBufUtil.getBytes(SetupFrameFlyweight.resumeToken(setupFrame)));
+    ServerResumableDuplexConnection session =
+        new ServerResumableDuplexConnection(
+            allocator, connection, token, cacheSupplier.get(), sessionDuration, this);
+
+    ServerResumableDuplexConnection previous = sessions.put(token, session);
+    if (previous != null) {
+      previous.dispose();
+    }
+    return session;
+  }
+
+  private Mono<Void> resume(PeekedConnection connection, ByteBuf resumeFrame) {
+    ResumeToken token = ResumeToken.bytes(ByteBufUtil.getBytes(ResumeFlyweight.token(resumeFrame)));
+    ServerResumableDuplexConnection session = sessions.get(token);
+
+    final String reason;
+    if (ResumeFlyweight.version(resumeFrame) != SetupFrameFlyweight.CURRENT_VERSION) {
+      reason = "Unsupported version";
+    } else if (session == null) {
+      reason = "Unknown resume token " + token;
+    } else if (!session.resume(connection, resumeFrame)) {
+      reason = "Session " + token + " can not be resumed at the requested position";
+    } else {
+      return Mono.empty();
+    }
+
+    connection.frames.dispose();
+    return connection
+        .sendOne(ErrorFrameFlyweight.encode(allocator, 0, new RejectedResumeException(reason)))
+        .doFinally(s -> connection.dispose());
+  }
+
+  /** Exposes the first frame received on a connection without consuming it. */
+  private static final class PeekedConnection implements DuplexConnection {
+    final DuplexConnection source;
+    final MonoProcessor<ByteBuf> first = MonoProcessor.create();
+    final UnboundedProcessor<ByteBuf> frames = new UnboundedProcessor<>();
+
+    PeekedConnection(DuplexConnection source) {
+      this.source = source;
+      source
+          .receive()
+          .subscribe(
+              frame -> {
+                if (!first.isTerminated()) {
+                  first.onNext(frame);
+                }
+                frames.onNext(frame);
+              },
+              t -> {
+                if (!first.isTerminated()) {
+                  first.onError(t);
+                }
+                frames.onError(t);
+              },
+              () -> {
+                first.onComplete();
+                frames.onComplete();
+              });
+    }
+
+    @Override
+    public Mono<Void> send(Publisher<ByteBuf> frames) {
+      return source.send(frames);
+    }
+
+    @Override
+    public Mono<Void> sendOne(ByteBuf frame) {
+      return source.sendOne(frame);
+    }
+
+    @Override
+    public Flux<ByteBuf> receive() {
+      return frames;
+    }
+
+    @Override
+    public double availability() {
+      return source.availability();
+    }
+
+    @Override
+    public Mono<Void> onClose() {
+      return source.onClose();
+    }
+
+    @Override
+    public void dispose() {
+      source.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return source.isDisposed();
+    }
+  }
+}
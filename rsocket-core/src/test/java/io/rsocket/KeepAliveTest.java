@@ -6,6 +6,10 @@
 import io.rsocket.frame.FrameHeaderFlyweight;
 import io.rsocket.frame.FrameType;
 import io.rsocket.frame.KeepAliveFrameFlyweight;
+import io.rsocket.keepalive.HashedWheelKeepAliveScheduler;
+import io.rsocket.keepalive.KeepAliveScheduler;
+import io.rsocket.outbound.OutboundQueue;
+import io.rsocket.outbound.OutboundScheduler;
 import io.rsocket.test.util.TestDuplexConnection;
 import io.rsocket.util.DefaultPayload;
 import java.time.Duration;
@@ -49,7 +53,11 @@ static Supplier<TestData> requester(int tickPeriod, int timeout, int missedAcks)
               StreamIdSupplier.clientSupplier(),
               Duration.ofMillis(tickPeriod),
               Duration.ofMillis(timeout),
-              missedAcks);
+              missedAcks,
+              KeepAliveScheduler.interval(),
+              0,
+              false,
+              new OutboundQueue(OutboundScheduler.roundRobin().newQueue()));
       return new TestData(rSocket, errors, connection);
     };
   }
@@ -67,7 +75,11 @@ static Supplier<TestData> responder(int tickPeriod, int timeout) {
               DefaultPayload::create,
               errors,
               tickPeriod,
-              timeout);
+              timeout,
+              KeepAliveScheduler.interval(),
+              0,
+              null,
+              new OutboundQueue(OutboundScheduler.roundRobin().newQueue()));
       return new TestData(rSocket, errors, connection);
     };
   }
@@ -133,6 +145,27 @@ void clientRequesterRespondsToKeepAlives() {
     StepVerifier.create(keepAliveResponse).expectComplete().verify(Duration.ofSeconds(5));
   }
 
+  @Test
+  void idleSchedulerDoesNotTimeOutNewConnections() {
+    HashedWheelKeepAliveScheduler scheduler =
+        new HashedWheelKeepAliveScheduler(Duration.ofMillis(10), 8);
+    try {
+      Mono.delay(Duration.ofMillis(300)).block();
+
+      KeepAliveHandler handler =
+          KeepAliveHandler.ofServer(new KeepAliveHandler.KeepAlive(10, 200), scheduler);
+
+      StepVerifier.create(handler.timeout())
+          .expectSubscription()
+          .expectNoEvent(Duration.ofMillis(100))
+          .thenCancel()
+          .verify();
+      handler.dispose();
+    } finally {
+      scheduler.dispose();
+    }
+  }
+
   static class TestData {
     private final RSocket rSocket;
     private final Errors errors;
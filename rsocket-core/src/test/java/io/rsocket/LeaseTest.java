@@ -0,0 +1,171 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket;
+
+import static io.rsocket.frame.FrameHeaderFlyweight.frameType;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.exceptions.Exceptions;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.frame.FrameType;
+import io.rsocket.frame.LeaseFlyweight;
+import io.rsocket.frame.RequestResponseFrameFlyweight;
+import io.rsocket.keepalive.KeepAliveScheduler;
+import io.rsocket.lease.Lease;
+import io.rsocket.lease.LeaseImpl;
+import io.rsocket.outbound.OutboundQueue;
+import io.rsocket.outbound.OutboundScheduler;
+import io.rsocket.test.util.TestDuplexConnection;
+import io.rsocket.util.DefaultPayload;
+import io.rsocket.util.EmptyPayload;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class LeaseTest {
+
+  @Test
+  void requesterRejectsRequestsWithoutLease() {
+    TestDuplexConnection connection = new TestDuplexConnection();
+    RSocketClient client = newRequester(connection);
+
+    assertThat(client.availability()).isEqualTo(0.0);
+    StepVerifier.create(client.requestResponse(DefaultPayload.create("test")))
+        .expectErrorMatches(
+            e -> e instanceof RejectedException && e.getMessage().equals("No lease received"))
+        .verify(Duration.ofSeconds(5));
+    assertThat(connection.getSent()).isEmpty();
+  }
+
+  @Test
+  void requesterSendsRequestsAllowedByLease() {
+    TestDuplexConnection connection = new TestDuplexConnection();
+    RSocketClient client = newRequester(connection);
+
+    connection.addToReceivedBuffer(
+        LeaseFlyweight.encode(ByteBufAllocator.DEFAULT, 10_000, 2, null));
+
+    assertThat(client.availability()).isEqualTo(1.0);
+    client.fireAndForget(DefaultPayload.create("test")).block();
+    assertThat(client.availability()).isEqualTo(0.5);
+    client.requestStream(DefaultPayload.create("test")).subscribe();
+    assertThat(client.availability()).isEqualTo(0.0);
+
+    StepVerifier.create(client.requestResponse(DefaultPayload.create("test")))
+        .expectErrorMatches(
+            e -> e instanceof RejectedException && e.getMessage().equals("Lease exhausted"))
+        .verify(Duration.ofSeconds(5));
+
+    assertThat(connection.getSent())
+        .extracting(frame -> frameType(frame))
+        .containsExactly(FrameType.REQUEST_FNF, FrameType.REQUEST_STREAM);
+  }
+
+  @Test
+  void requesterRejectsRequestsAfterLeaseExpired() throws InterruptedException {
+    TestDuplexConnection connection = new TestDuplexConnection();
+    RSocketClient client = newRequester(connection);
+
+    connection.addToReceivedBuffer(LeaseFlyweight.encode(ByteBufAllocator.DEFAULT, 1, 10, null));
+    Thread.sleep(10);
+
+    assertThat(client.availability()).isEqualTo(0.0);
+    StepVerifier.create(client.requestResponse(DefaultPayload.create("test")))
+        .expectErrorMatches(
+            e -> e instanceof RejectedException && e.getMessage().equals("Lease expired"))
+        .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void responderEnforcesIssuedLeases() {
+    TestDuplexConnection connection = new TestDuplexConnection();
+    DirectProcessor<Lease> leases = DirectProcessor.create();
+    AtomicInteger handled = new AtomicInteger();
+    List<Throwable> errors = new ArrayList<>();
+    new RSocketServer(
+        ByteBufAllocator.DEFAULT,
+        connection,
+        new AbstractRSocket() {
+          @Override
+          public Mono<Payload> requestResponse(Payload payload) {
+            handled.incrementAndGet();
+            payload.release();
+            return Mono.just(EmptyPayload.INSTANCE);
+          }
+        },
+        DefaultPayload::create,
+        errors::add,
+        0,
+        0,
+        KeepAliveScheduler.interval(),
+        0,
+        stats -> leases,
+        new OutboundQueue(OutboundScheduler.roundRobin().newQueue()));
+
+    connection.addToReceivedBuffer(requestResponseFrame(1));
+
+    assertThat(handled.get()).isEqualTo(0);
+    ByteBuf rejection = connection.getSent().iterator().next();
+    assertThat(frameType(rejection)).isEqualTo(FrameType.ERROR);
+    assertThat(Exceptions.from(rejection)).isInstanceOf(RejectedException.class);
+    connection.clearSendReceiveBuffers();
+
+    leases.onNext(new LeaseImpl(1, 10_000));
+
+    ByteBuf lease = connection.getSent().iterator().next();
+    assertThat(frameType(lease)).isEqualTo(FrameType.LEASE);
+    assertThat(LeaseFlyweight.numRequests(lease)).isEqualTo(1);
+    assertThat(LeaseFlyweight.ttl(lease)).isEqualTo(10_000);
+
+    connection.addToReceivedBuffer(requestResponseFrame(3));
+    connection.addToReceivedBuffer(requestResponseFrame(5));
+
+    assertThat(handled.get()).isEqualTo(1);
+    assertThat(connection.getSent())
+        .extracting(frame -> frameType(frame))
+        .containsExactly(FrameType.LEASE, FrameType.NEXT_COMPLETE, FrameType.ERROR);
+    assertThat(errors).isEmpty();
+  }
+
+  private static RSocketClient newRequester(TestDuplexConnection connection) {
+    return new RSocketClient(
+        ByteBufAllocator.DEFAULT,
+        connection,
+        DefaultPayload::create,
+        Throwable::printStackTrace,
+        StreamIdSupplier.clientSupplier(),
+        Duration.ZERO,
+        Duration.ZERO,
+        0,
+        KeepAliveScheduler.interval(),
+        0,
+        true,
+        new OutboundQueue(OutboundScheduler.roundRobin().newQueue()));
+  }
+
+  private static ByteBuf requestResponseFrame(int streamId) {
+    return RequestResponseFrameFlyweight.encode(
+        ByteBufAllocator.DEFAULT, streamId, false, null, DefaultPayload.create("test").sliceData());
+  }
+}
@@ -25,10 +25,16 @@
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.rsocket.exceptions.ApplicationErrorException;
 import io.rsocket.exceptions.RejectedSetupException;
 import io.rsocket.frame.*;
+import io.rsocket.keepalive.KeepAliveScheduler;
+import io.rsocket.outbound.OutboundQueue;
+import io.rsocket.outbound.OutboundScheduler;
+import io.rsocket.test.util.TestDuplexConnection;
 import io.rsocket.test.util.TestSubscriber;
+import io.rsocket.util.ByteBufPayload;
 import io.rsocket.util.DefaultPayload;
 import io.rsocket.util.EmptyPayload;
 import java.time.Duration;
@@ -194,6 +200,60 @@ public void testChannelRequestCancellation() {
         .blockFirst();
   }
 
+  @Test(timeout = 2_000)
+  public void testLateFrameAfterStreamIdWrapIsIgnored() {
+    rule.restartStreamIdsAt(Integer.MAX_VALUE - 2);
+
+    rule.socket.requestResponse(EmptyPayload.INSTANCE).subscribe().dispose();
+    int streamId = rule.getStreamIdForRequestType(REQUEST_RESPONSE);
+    assertThat("Unexpected stream ID.", streamId, is(Integer.MAX_VALUE));
+
+    rule.connection.clearSendReceiveBuffers();
+    rule.socket.requestResponse(EmptyPayload.INSTANCE).subscribe();
+    assertThat(
+        "Stream ID did not wrap.", rule.getStreamIdForRequestType(REQUEST_RESPONSE), is(1));
+
+    rule.connection.addToReceivedBuffer(
+        PayloadFrameFlyweight.encodeNextComplete(
+            ByteBufAllocator.DEFAULT, streamId, EmptyPayload.INSTANCE));
+    assertThat("Unexpected errors.", rule.errors, is(empty()));
+  }
+
+  @Test(timeout = 2_000)
+  public void testCancelWhileWaitingForWritableQueueReleasesPayload() {
+    TestDuplexConnection connection = new TestDuplexConnection();
+    connection.setInitialSendRequestN(0);
+    OutboundQueue outboundQueue =
+        new OutboundQueue(OutboundScheduler.fifo().newQueue(), 1, Long.MAX_VALUE);
+    RSocketClient socket =
+        new RSocketClient(
+            ByteBufAllocator.DEFAULT,
+            connection,
+            DefaultPayload::create,
+            throwable -> {},
+            StreamIdSupplier.clientSupplier(),
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            KeepAliveScheduler.interval(),
+            0,
+            false,
+            outboundQueue);
+    outboundQueue.offer(Unpooled.buffer().writeZero(1));
+
+    Payload fireAndForget = ByteBufPayload.create("fnf");
+    Payload requestResponse = ByteBufPayload.create("rr");
+    Payload requestStream = ByteBufPayload.create("rs");
+    socket.fireAndForget(fireAndForget).subscribe().dispose();
+    socket.requestResponse(requestResponse).subscribe().dispose();
+    socket.requestStream(requestStream).subscribe().dispose();
+
+    assertThat("Payload not released.", fireAndForget.refCnt(), is(0));
+    assertThat("Payload not released.", requestResponse.refCnt(), is(0));
+    assertThat("Payload not released.", requestStream.refCnt(), is(0));
+    outboundQueue.poll().release();
+  }
+
   public int sendRequestResponse(Publisher<Payload> response) {
     Subscriber<Payload> sub = TestSubscriber.create();
     response.subscribe(sub);
@@ -207,6 +267,8 @@ public int sendRequestResponse(Publisher<Payload> response) {
   }
 
   public static class ClientSocketRule extends AbstractSocketRule<RSocketClient> {
+    private StreamIdSupplier streamIdSupplier = StreamIdSupplier.clientSupplier();
+
     @Override
     protected RSocketClient newRSocket() {
       return new RSocketClient(
@@ -214,10 +276,21 @@ protected RSocketClient newRSocket() {
           connection,
           DefaultPayload::create,
           throwable -> errors.add(throwable),
-          StreamIdSupplier.clientSupplier(),
+          streamIdSupplier,
           Duration.ofMillis(100),
           Duration.ofMillis(10_000),
-          4);
+          4,
+          KeepAliveScheduler.interval(),
+          0,
+          false,
+          new OutboundQueue(OutboundScheduler.roundRobin().newQueue()));
+    }
+
+    /** Replaces the socket with one whose next stream id follows {@code streamId}. */
+    public void restartStreamIdsAt(long streamId) {
+      connection = new TestDuplexConnection();
+      streamIdSupplier = new StreamIdSupplier(streamId);
+      init();
     }
 
     public int getStreamIdForRequestType(FrameType expectedFrameType) {
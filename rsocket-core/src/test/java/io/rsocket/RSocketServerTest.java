@@ -24,6 +24,9 @@
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.rsocket.frame.*;
+import io.rsocket.keepalive.KeepAliveScheduler;
+import io.rsocket.outbound.OutboundQueue;
+import io.rsocket.outbound.OutboundScheduler;
 import io.rsocket.test.util.TestDuplexConnection;
 import io.rsocket.test.util.TestSubscriber;
 import io.rsocket.util.DefaultPayload;
@@ -137,7 +140,13 @@ protected RSocketServer newRSocket() {
           connection,
           acceptingSocket,
           DefaultPayload::create,
-          throwable -> errors.add(throwable));
+          throwable -> errors.add(throwable),
+          0,
+          0,
+          KeepAliveScheduler.interval(),
+          0,
+          null,
+          new OutboundQueue(OutboundScheduler.roundRobin().newQueue()));
     }
 
     private void sendRequest(int streamId, FrameType frameType) {
@@ -24,10 +24,14 @@
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.rsocket.exceptions.ApplicationErrorException;
+import io.rsocket.keepalive.KeepAliveScheduler;
+import io.rsocket.outbound.OutboundQueue;
+import io.rsocket.outbound.OutboundScheduler;
 import io.rsocket.test.util.LocalDuplexConnection;
 import io.rsocket.test.util.TestSubscriber;
 import io.rsocket.util.DefaultPayload;
 import io.rsocket.util.EmptyPayload;
+import java.time.Duration;
 import java.util.ArrayList;
 import org.hamcrest.MatcherAssert;
 import org.junit.Assert;
@@ -160,7 +164,13 @@ public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
               serverConnection,
               requestAcceptor,
               DefaultPayload::create,
-              throwable -> serverErrors.add(throwable));
+              throwable -> serverErrors.add(throwable),
+              0,
+              0,
+              KeepAliveScheduler.interval(),
+              0,
+              null,
+              new OutboundQueue(OutboundScheduler.roundRobin().newQueue()));
 
       crs =
           new RSocketClient(
@@ -168,7 +178,14 @@ public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
               clientConnection,
               DefaultPayload::create,
               throwable -> clientErrors.add(throwable),
-              StreamIdSupplier.clientSupplier());
+              StreamIdSupplier.clientSupplier(),
+              Duration.ZERO,
+              Duration.ZERO,
+              0,
+              KeepAliveScheduler.interval(),
+              0,
+              false,
+              new OutboundQueue(OutboundScheduler.roundRobin().newQueue()));
     }
 
     public void setRequestAcceptor(RSocket requestAcceptor) {
@@ -11,6 +11,9 @@
 import io.rsocket.frame.FrameHeaderFlyweight;
 import io.rsocket.frame.FrameType;
 import io.rsocket.frame.SetupFrameFlyweight;
+import io.rsocket.keepalive.KeepAliveScheduler;
+import io.rsocket.outbound.OutboundQueue;
+import io.rsocket.outbound.OutboundScheduler;
 import io.rsocket.test.util.TestDuplexConnection;
 import io.rsocket.transport.ServerTransport;
 import io.rsocket.util.DefaultPayload;
@@ -55,7 +58,14 @@ void requesterStreamsTerminatedOnZeroErrorFrame() {
             conn,
             DefaultPayload::create,
             errors::add,
-            StreamIdSupplier.clientSupplier());
+            StreamIdSupplier.clientSupplier(),
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            KeepAliveScheduler.interval(),
+            0,
+            false,
+            new OutboundQueue(OutboundScheduler.roundRobin().newQueue()));
 
     String errorMsg = "error";
 
@@ -85,7 +95,14 @@ void requesterNewStreamsTerminatedAfterZeroErrorFrame() {
             conn,
             DefaultPayload::create,
             err -> {},
-            StreamIdSupplier.clientSupplier());
+            StreamIdSupplier.clientSupplier(),
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            KeepAliveScheduler.interval(),
+            0,
+            false,
+            new OutboundQueue(OutboundScheduler.roundRobin().newQueue()));
 
     conn.addToReceivedBuffer(
         ErrorFrameFlyweight.encode(
@@ -20,23 +20,26 @@
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import io.rsocket.internal.ConcurrentIntObjectHashMap;
 import org.junit.Test;
 
 public class StreamIdSupplierTest {
+  private final ConcurrentIntObjectHashMap<Object> streams = new ConcurrentIntObjectHashMap<>();
+
   @Test
   public void testClientSequence() {
     StreamIdSupplier s = StreamIdSupplier.clientSupplier();
-    assertEquals(1, s.nextStreamId());
-    assertEquals(3, s.nextStreamId());
-    assertEquals(5, s.nextStreamId());
+    assertEquals(1, s.nextStreamId(streams));
+    assertEquals(3, s.nextStreamId(streams));
+    assertEquals(5, s.nextStreamId(streams));
   }
 
   @Test
   public void testServerSequence() {
     StreamIdSupplier s = StreamIdSupplier.serverSupplier();
-    assertEquals(2, s.nextStreamId());
-    assertEquals(4, s.nextStreamId());
-    assertEquals(6, s.nextStreamId());
+    assertEquals(2, s.nextStreamId(streams));
+    assertEquals(4, s.nextStreamId(streams));
+    assertEquals(6, s.nextStreamId(streams));
   }
 
   @Test
@@ -46,11 +49,11 @@ public void testClientIsValid() {
     assertFalse(s.isBeforeOrCurrent(1));
     assertFalse(s.isBeforeOrCurrent(3));
 
-    s.nextStreamId();
+    s.nextStreamId(streams);
     assertTrue(s.isBeforeOrCurrent(1));
     assertFalse(s.isBeforeOrCurrent(3));
 
-    s.nextStreamId();
+    s.nextStreamId(streams);
     assertTrue(s.isBeforeOrCurrent(3));
 
     // negative
@@ -68,11 +71,11 @@ public void testServerIsValid() {
     assertFalse(s.isBeforeOrCurrent(2));
     assertFalse(s.isBeforeOrCurrent(4));
 
-    s.nextStreamId();
+    s.nextStreamId(streams);
     assertTrue(s.isBeforeOrCurrent(2));
     assertFalse(s.isBeforeOrCurrent(4));
 
-    s.nextStreamId();
+    s.nextStreamId(streams);
     assertTrue(s.isBeforeOrCurrent(4));
 
     // negative
@@ -82,4 +85,57 @@ public void testServerIsValid() {
     // client also accepted (checked externally)
     assertTrue(s.isBeforeOrCurrent(1));
   }
+
+  @Test
+  public void testClientWrapsAround() {
+    StreamIdSupplier s = new StreamIdSupplier(Integer.MAX_VALUE - 4);
+    assertEquals(Integer.MAX_VALUE - 2, s.nextStreamId(streams));
+    assertEquals(Integer.MAX_VALUE, s.nextStreamId(streams));
+    assertEquals(1, s.nextStreamId(streams));
+    assertEquals(3, s.nextStreamId(streams));
+  }
+
+  @Test
+  public void testServerWrapsAroundSkippingZero() {
+    StreamIdSupplier s = new StreamIdSupplier(Integer.MAX_VALUE - 3);
+    assertEquals(Integer.MAX_VALUE - 1, s.nextStreamId(streams));
+    assertEquals(2, s.nextStreamId(streams));
+    assertEquals(4, s.nextStreamId(streams));
+  }
+
+  @Test
+  public void testIsBeforeOrCurrentAfterWrapAround() {
+    StreamIdSupplier s = new StreamIdSupplier(Integer.MAX_VALUE - 2);
+    assertFalse(s.isBeforeOrCurrent(Integer.MAX_VALUE));
+
+    assertEquals(Integer.MAX_VALUE, s.nextStreamId(streams));
+    assertTrue(s.isBeforeOrCurrent(Integer.MAX_VALUE));
+
+    assertEquals(1, s.nextStreamId(streams));
+    // every id was issued during the previous lap
+    assertTrue(s.isBeforeOrCurrent(Integer.MAX_VALUE));
+    assertTrue(s.isBeforeOrCurrent(1));
+    assertTrue(s.isBeforeOrCurrent(3));
+    assertFalse(s.isBeforeOrCurrent(0));
+    assertFalse(s.isBeforeOrCurrent(-1));
+  }
+
+  @Test
+  public void testSkipsActiveStreams() {
+    StreamIdSupplier s = new StreamIdSupplier(Integer.MAX_VALUE - 2);
+    streams.put(1, new Object());
+    streams.put(3, new Object());
+    streams.put(7, new Object());
+
+    assertEquals(Integer.MAX_VALUE, s.nextStreamId(streams));
+    assertEquals(5, s.nextStreamId(streams));
+    assertEquals(9, s.nextStreamId(streams));
+
+    streams.remove(1);
+    for (int i = 0; i < 10; i++) {
+      int streamId = s.nextStreamId(streams);
+      assertTrue(streamId > 0);
+      assertFalse(streams.containsKey(streamId));
+    }
+  }
 }
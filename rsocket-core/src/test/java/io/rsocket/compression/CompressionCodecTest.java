@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.compression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+final class CompressionCodecTest {
+
+  private static final byte[] DICTIONARY = json(4096).getBytes(StandardCharsets.UTF_8);
+
+  static Stream<CompressionCodec> codecs() {
+    return Stream.of(
+        Lz4Codec.create(),
+        Lz4Codec.create(DICTIONARY),
+        DeflateCodec.create(),
+        DeflateCodec.create(1, DICTIONARY));
+  }
+
+  @DisplayName("decompresses compressed data")
+  @ParameterizedTest
+  @MethodSource("codecs")
+  void roundTrip(CompressionCodec codec) {
+    for (int length : new int[] {1000, 70_000, 300_000}) {
+      ByteBuf source = Unpooled.copiedBuffer(json(length), StandardCharsets.UTF_8);
+      ByteBuf compressed = Unpooled.buffer();
+      ByteBuf decompressed = Unpooled.buffer();
+
+      assertThat(codec.compress(source, compressed)).isTrue();
+      assertThat(compressed.readableBytes()).isLessThan(length);
+      codec.decompress(compressed, decompressed, length);
+
+      assertThat(ByteBufUtil.equals(source, decompressed)).isTrue();
+    }
+  }
+
+  @DisplayName("does not compress incompressible data")
+  @ParameterizedTest
+  @MethodSource("codecs")
+  void incompressible(CompressionCodec codec) {
+    byte[] bytes = new byte[4096];
+    ThreadLocalRandom.current().nextBytes(bytes);
+
+    assertThat(codec.compress(Unpooled.wrappedBuffer(bytes), Unpooled.buffer())).isFalse();
+  }
+
+  @DisplayName("rejects malformed data")
+  @ParameterizedTest
+  @MethodSource("codecs")
+  void malformed(CompressionCodec codec) {
+    ByteBuf source = Unpooled.copiedBuffer(json(1000), StandardCharsets.UTF_8);
+    ByteBuf compressed = Unpooled.buffer();
+    codec.compress(source, compressed);
+
+    ByteBuf truncated = compressed.slice(0, compressed.readableBytes() / 2);
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> codec.decompress(truncated, Unpooled.buffer(), 1000));
+  }
+
+  @DisplayName("dictionary improves the ratio of small messages")
+  @Test
+  void dictionary() {
+    ByteBuf message = Unpooled.copiedBuffer(json(64), StandardCharsets.UTF_8);
+
+    assertThat(Lz4Codec.create().compress(message, Unpooled.buffer())).isFalse();
+
+    ByteBuf compressed = Unpooled.buffer();
+    assertThat(Lz4Codec.create(DICTIONARY).compress(message, compressed)).isTrue();
+    assertThat(compressed.readableBytes()).isLessThan(32);
+  }
+
+  @DisplayName("codec ids identify the dictionary")
+  @Test
+  void ids() {
+    assertThat(Lz4Codec.create().id()).isEqualTo("lz4");
+    assertThat(DeflateCodec.create().id()).isEqualTo("deflate");
+    assertThat(Lz4Codec.create(DICTIONARY).id())
+        .startsWith("lz4-")
+        .isEqualTo(Lz4Codec.create(DICTIONARY.clone()).id())
+        .isNotEqualTo(Lz4Codec.create(new byte[] {1, 2, 3}).id());
+  }
+
+  @DisplayName("rejects invalid deflate levels")
+  @Test
+  void invalidLevel() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> DeflateCodec.create(0))
+        .withMessage("level must be between 1 and 9");
+  }
+
+  static String json(int length) {
+    StringBuilder builder = new StringBuilder(length);
+    for (int i = 0; builder.length() < length; i++) {
+      builder
+          .append("{\"id\":")
+          .append(i)
+          .append(",\"symbol\":\"RSKT\",\"price\":")
+          .append(100 + i % 17)
+          .append(".25,\"side\":\"BUY\"},");
+    }
+    builder.setLength(length);
+    return builder.toString();
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.compression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.RequestResponseFrameFlyweight;
+import io.rsocket.frame.SetupFrameFlyweight;
+import io.rsocket.plugins.DuplexConnectionInterceptor.Type;
+import io.rsocket.test.util.TestDuplexConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+final class CompressionDuplexConnectionTest {
+
+  private static final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+  private final TestDuplexConnection clientTransport = new TestDuplexConnection();
+  private final TestDuplexConnection serverTransport = new TestDuplexConnection();
+  private final List<ByteBuf> clientReceived = new ArrayList<>();
+  private final List<ByteBuf> serverReceived = new ArrayList<>();
+  private final List<Throwable> serverErrors = new ArrayList<>();
+
+  private CompressionDuplexConnection client;
+  private CompressionDuplexConnection server;
+
+  @DisplayName("negotiates the first codec of the server that the client offered")
+  @Test
+  void negotiate() throws InterruptedException {
+    connect(
+        new CompressionDuplexConnectionInterceptor(64, Lz4Codec.create(), DeflateCodec.create()),
+        new CompressionDuplexConnectionInterceptor(64, DeflateCodec.create(), Lz4Codec.create()));
+
+    assertThat(SetupFrameFlyweight.dataMimeType(serverReceived.get(0)))
+        .isEqualTo("application/json");
+    assertThat(server.codec().id()).isEqualTo("deflate");
+    assertThat(client.codec().id()).isEqualTo("deflate");
+    assertThat(clientReceived).isEmpty();
+  }
+
+  @DisplayName("compresses data above the threshold in both directions")
+  @Test
+  void compress() throws InterruptedException {
+    connect(
+        new CompressionDuplexConnectionInterceptor(64, Lz4Codec.create()),
+        new CompressionDuplexConnectionInterceptor(64, Lz4Codec.create()));
+
+    String data = CompressionCodecTest.json(4096);
+
+    client.sendOne(request(data)).subscribe();
+    ByteBuf sent = clientTransport.awaitSend();
+    assertThat(isCompressed(sent)).isTrue();
+    assertThat(sent.readableBytes()).isLessThan(data.length());
+
+    serverTransport.addToReceivedBuffer(sent);
+    assertReceived(serverReceived.get(1), data);
+
+    server.sendOne(request(data)).subscribe();
+    sent = serverTransport.awaitSend();
+    assertThat(isCompressed(sent)).isTrue();
+
+    clientTransport.addToReceivedBuffer(sent);
+    assertReceived(clientReceived.get(0), data);
+  }
+
+  @DisplayName("does not compress data below the threshold")
+  @Test
+  void threshold() throws InterruptedException {
+    connect(
+        new CompressionDuplexConnectionInterceptor(Lz4Codec.create()),
+        new CompressionDuplexConnectionInterceptor(Lz4Codec.create()));
+
+    client.sendOne(request(CompressionCodecTest.json(256))).subscribe();
+    assertThat(isCompressed(clientTransport.awaitSend())).isFalse();
+  }
+
+  @DisplayName("stays uncompressed without a common codec")
+  @Test
+  void noCommonCodec() throws InterruptedException {
+    connect(
+        new CompressionDuplexConnectionInterceptor(64, Lz4Codec.create(new byte[] {1, 2, 3})),
+        new CompressionDuplexConnectionInterceptor(64, Lz4Codec.create()));
+
+    assertThat(SetupFrameFlyweight.dataMimeType(serverReceived.get(0)))
+        .isEqualTo("application/json");
+    assertThat(server.codec()).isNull();
+    assertThat(serverTransport.getSent()).isEmpty();
+
+    client.sendOne(request(CompressionCodecTest.json(4096))).subscribe();
+    assertThat(isCompressed(clientTransport.awaitSend())).isFalse();
+  }
+
+  @DisplayName("rejects a compressed frame declaring an invalid length")
+  @Test
+  void invalidLength() throws InterruptedException {
+    connect(
+        new CompressionDuplexConnectionInterceptor(64, Lz4Codec.create()),
+        new CompressionDuplexConnectionInterceptor(64, Lz4Codec.create()));
+
+    client.sendOne(request(CompressionCodecTest.json(4096))).subscribe();
+    ByteBuf compressed = clientTransport.awaitSend();
+    ByteBuf sent = Unpooled.copiedBuffer(compressed);
+    compressed.release();
+    int lengthIndex =
+        sent.readerIndex()
+            + sent.readableBytes()
+            - RequestResponseFrameFlyweight.data(sent).readableBytes();
+    sent.setInt(lengthIndex, Integer.MAX_VALUE);
+
+    serverTransport.addToReceivedBuffer(sent);
+
+    assertThat(serverReceived).hasSize(1);
+    assertThat(serverErrors).hasSize(1);
+    assertThat(serverErrors.get(0)).isInstanceOf(IllegalStateException.class);
+  }
+
+  @DisplayName("passes frames through before a codec was negotiated, whatever their flags")
+  @Test
+  void flagWithoutCodec() throws InterruptedException {
+    connect(
+        new CompressionDuplexConnectionInterceptor(64, Lz4Codec.create(new byte[] {1, 2, 3})),
+        new CompressionDuplexConnectionInterceptor(64, Lz4Codec.create()));
+
+    ByteBuf frame = request("data");
+    frame.setShort(
+        frame.readerIndex() + Integer.BYTES,
+        frame.getShort(frame.readerIndex() + Integer.BYTES)
+            | CompressionDuplexConnection.FLAGS_COMPRESSED);
+    serverTransport.addToReceivedBuffer(frame);
+
+    assertThat(serverErrors).isEmpty();
+    assertThat(serverReceived).hasSize(2);
+  }
+
+  private void connect(
+      CompressionDuplexConnectionInterceptor clientInterceptor,
+      CompressionDuplexConnectionInterceptor serverInterceptor)
+      throws InterruptedException {
+    client = (CompressionDuplexConnection) clientInterceptor.apply(Type.SOURCE, clientTransport);
+    server = (CompressionDuplexConnection) serverInterceptor.apply(Type.SOURCE, serverTransport);
+    client.receive().subscribe(clientReceived::add);
+    server.receive().subscribe(serverReceived::add, serverErrors::add);
+
+    client
+        .sendOne(
+            SetupFrameFlyweight.encode(
+                allocator,
+                false,
+                false,
+                1000,
+                5000,
+                "application/binary",
+                "application/json",
+                null,
+                Unpooled.EMPTY_BUFFER))
+        .subscribe();
+    serverTransport.addToReceivedBuffer(clientTransport.awaitSend());
+
+    if (server.codec() != null) {
+      clientTransport.addToReceivedBuffer(serverTransport.awaitSend());
+    }
+  }
+
+  private static ByteBuf request(String data) {
+    return RequestResponseFrameFlyweight.encode(
+        allocator,
+        1,
+        false,
+        Unpooled.copiedBuffer("metadata", StandardCharsets.UTF_8),
+        Unpooled.copiedBuffer(data, StandardCharsets.UTF_8));
+  }
+
+  private static boolean isCompressed(ByteBuf frame) {
+    return (FrameHeaderFlyweight.flags(frame) & CompressionDuplexConnection.FLAGS_COMPRESSED) != 0;
+  }
+
+  private static void assertReceived(ByteBuf frame, String data) {
+    assertThat(isCompressed(frame)).isFalse();
+    assertThat(RequestResponseFrameFlyweight.metadata(frame).toString(StandardCharsets.UTF_8))
+        .isEqualTo("metadata");
+    assertThat(RequestResponseFrameFlyweight.data(frame).toString(StandardCharsets.UTF_8))
+        .isEqualTo(data);
+  }
+}
@@ -27,18 +27,27 @@
 import io.netty.util.ReferenceCountUtil;
 import io.rsocket.DuplexConnection;
 import io.rsocket.frame.*;
+import io.rsocket.resume.ClientResumableDuplexConnection;
+import io.rsocket.resume.ResumeCache;
+import io.rsocket.resume.ResumeToken;
+import io.rsocket.resume.RingBufferResumeStore;
+import io.rsocket.test.util.TestDuplexConnection;
 import io.rsocket.util.DefaultPayload;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.Assert;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.reactivestreams.Publisher;
+import reactor.core.publisher.DirectProcessor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.util.concurrent.Queues;
 
 final class FragmentationDuplexConnectionTest {
   private static byte[] data = new byte[1024];
@@ -301,6 +310,56 @@ void reassembleNonFragmentableFrame() {
         .verifyComplete();
   }
 
+  @DisplayName("rejects remote streams with an error once a resumable session has sent SETUP")
+  @Test
+  void rejectRemoteStreamAfterResumableSetup() {
+    TestDuplexConnection transport = new TestDuplexConnection();
+    FragmentationDuplexConnection connection =
+        new FragmentationDuplexConnection(
+            transport, allocator, 64, false, 1024, Long.MAX_VALUE, false);
+    ResumeToken token = ResumeToken.generate();
+    ClientResumableDuplexConnection session =
+        new ClientResumableDuplexConnection(
+            allocator,
+            connection,
+            token,
+            new ResumeCache(RingBufferResumeStore.heap(64 * 1024)),
+            Duration.ofMinutes(1),
+            Duration.ofSeconds(1),
+            Mono.never());
+    session.receive().subscribe(ReferenceCountUtil::safeRelease);
+
+    // the session sends SETUP through send(Publisher), not sendOne
+    session
+        .sendOne(
+            SetupFrameFlyweight.encode(
+                allocator,
+                false,
+                true,
+                1000,
+                30_000,
+                Unpooled.wrappedBuffer(token.toByteArray()),
+                "application/binary",
+                "application/binary",
+                null,
+                Unpooled.EMPTY_BUFFER))
+        .block();
+    transport.clearSendReceiveBuffers();
+
+    // a channel payload over the limit on stream 2, whose requester is the server
+    transport.addToReceivedBuffer(
+        PayloadFrameFlyweight.encode(allocator, 2, true, false, true, DefaultPayload.create(data)),
+        PayloadFrameFlyweight.encode(allocator, 2, true, false, true, DefaultPayload.create(data)));
+
+    Assert.assertEquals(1, transport.getSent().size());
+    ByteBuf rejection = transport.getSent().iterator().next();
+    Assert.assertEquals(FrameType.ERROR, FrameHeaderFlyweight.frameType(rejection));
+    Assert.assertEquals(2, FrameHeaderFlyweight.streamId(rejection));
+    Assert.assertEquals(ErrorFrameFlyweight.CANCELED, ErrorFrameFlyweight.errorCode(rejection));
+    ReferenceCountUtil.safeRelease(rejection);
+    session.dispose();
+  }
+
   @DisplayName("fragments data")
   @Test
   void sendData() {
@@ -323,4 +382,158 @@ void sendData() {
             })
         .verifyComplete();
   }
+
+  @DisplayName("passes frames smaller than the mtu through unchanged")
+  @Test
+  void sendSmallFrames() {
+    ByteBuf first =
+        RequestResponseFrameFlyweight.encode(allocator, 1, false, null, Unpooled.EMPTY_BUFFER);
+    ByteBuf second =
+        RequestResponseFrameFlyweight.encode(allocator, 3, false, null, Unpooled.EMPTY_BUFFER);
+
+    when(delegate.onClose()).thenReturn(Mono.never());
+
+    new FragmentationDuplexConnection(delegate, allocator, 64, false)
+        .send(Flux.just(first, second));
+
+    verify(delegate).send(publishers.capture());
+
+    StepVerifier.create(Flux.from(publishers.getValue()))
+        .expectNextMatches(byteBuf -> byteBuf == first)
+        .expectNextMatches(byteBuf -> byteBuf == second)
+        .verifyComplete();
+    first.release();
+    second.release();
+  }
+
+  @DisplayName("sends other streams' frames between the fragments of a large frame")
+  @Test
+  void sendInterleavesStreams() {
+    ByteBuf large =
+        RequestResponseFrameFlyweight.encode(
+            allocator, 1, false, Unpooled.EMPTY_BUFFER, Unpooled.wrappedBuffer(data));
+    ByteBuf small =
+        RequestResponseFrameFlyweight.encode(allocator, 3, false, null, Unpooled.EMPTY_BUFFER);
+
+    when(delegate.onClose()).thenReturn(Mono.never());
+
+    DirectProcessor<ByteBuf> frames = DirectProcessor.create();
+    new FragmentationDuplexConnection(delegate, allocator, 64, false).send(frames);
+
+    verify(delegate).send(publishers.capture());
+
+    // both frames are waiting when the connection asks for them
+    StepVerifier.create(Flux.from(publishers.getValue()), 0)
+        .then(
+            () -> {
+              frames.onNext(large);
+              frames.onNext(small);
+              frames.onComplete();
+            })
+        .thenRequest(Long.MAX_VALUE)
+        .assertNext(
+            byteBuf -> {
+              Assert.assertEquals(1, FrameHeaderFlyweight.streamId(byteBuf));
+              Assert.assertTrue(FrameHeaderFlyweight.hasFollows(byteBuf));
+            })
+        .expectNextMatches(byteBuf -> byteBuf == small)
+        .expectNextCount(16)
+        .assertNext(
+            byteBuf -> {
+              Assert.assertEquals(1, FrameHeaderFlyweight.streamId(byteBuf));
+              Assert.assertFalse(FrameHeaderFlyweight.hasFollows(byteBuf));
+            })
+        .verifyComplete();
+  }
+
+  @DisplayName("keeps the frames of a stream behind the fragments of its large frame")
+  @Test
+  void sendKeepsStreamOrder() {
+    ByteBuf large =
+        PayloadFrameFlyweight.encode(
+            allocator, 1, false, false, true, null, Unpooled.wrappedBuffer(data));
+    ByteBuf complete = PayloadFrameFlyweight.encodeComplete(allocator, 1);
+    ByteBuf keepalive = KeepAliveFrameFlyweight.encode(allocator, false, 0, Unpooled.EMPTY_BUFFER);
+
+    when(delegate.onClose()).thenReturn(Mono.never());
+
+    DirectProcessor<ByteBuf> frames = DirectProcessor.create();
+    new FragmentationDuplexConnection(delegate, allocator, 512, false).send(frames);
+
+    verify(delegate).send(publishers.capture());
+
+    StepVerifier.create(Flux.from(publishers.getValue()), 0)
+        .then(
+            () -> {
+              frames.onNext(large);
+              frames.onNext(complete);
+              frames.onNext(keepalive);
+              frames.onComplete();
+            })
+        .thenRequest(Long.MAX_VALUE)
+        .assertNext(byteBuf -> Assert.assertTrue(FrameHeaderFlyweight.hasFollows(byteBuf)))
+        .assertNext(byteBuf -> Assert.assertTrue(FrameHeaderFlyweight.hasFollows(byteBuf)))
+        .expectNextMatches(byteBuf -> byteBuf == keepalive)
+        .assertNext(byteBuf -> Assert.assertFalse(FrameHeaderFlyweight.hasFollows(byteBuf)))
+        .expectNextMatches(byteBuf -> byteBuf == complete)
+        .verifyComplete();
+  }
+
+  @DisplayName("stops requesting frames while a stream's frames wait behind its fragments")
+  @Test
+  void sendBoundsFramesWaitingBehindFragments() {
+    AtomicLong requested = new AtomicLong();
+    Flux<ByteBuf> frames =
+        Flux.range(0, 1_000)
+            .map(
+                i ->
+                    PayloadFrameFlyweight.encode(
+                        allocator, 1, false, false, true, null, Unpooled.wrappedBuffer(data)))
+            .doOnRequest(requested::addAndGet);
+
+    when(delegate.onClose()).thenReturn(Mono.never());
+
+    new FragmentationDuplexConnection(delegate, allocator, 64, false).send(frames);
+
+    verify(delegate).send(publishers.capture());
+
+    StepVerifier.create(Flux.from(publishers.getValue()), 0)
+        .thenRequest(300)
+        .expectNextCount(300)
+        .thenCancel()
+        .verify();
+
+    Assert.assertEquals(Queues.SMALL_BUFFER_SIZE, requested.get());
+  }
+
+  @DisplayName("releases pending frames when the send is cancelled")
+  @Test
+  void sendReleasesOnCancel() {
+    ByteBuf large =
+        RequestResponseFrameFlyweight.encode(
+            allocator, 1, false, Unpooled.EMPTY_BUFFER, Unpooled.wrappedBuffer(data));
+    ByteBuf small =
+        RequestResponseFrameFlyweight.encode(allocator, 1, false, null, Unpooled.EMPTY_BUFFER);
+
+    when(delegate.onClose()).thenReturn(Mono.never());
+
+    DirectProcessor<ByteBuf> frames = DirectProcessor.create();
+    new FragmentationDuplexConnection(delegate, allocator, 64, false).send(frames);
+
+    verify(delegate).send(publishers.capture());
+
+    StepVerifier.create(Flux.from(publishers.getValue()), 0)
+        .then(
+            () -> {
+              frames.onNext(large);
+              frames.onNext(small);
+            })
+        .thenRequest(1)
+        .assertNext(ReferenceCountUtil::safeRelease)
+        .thenCancel()
+        .verify();
+
+    Assert.assertEquals(0, large.refCnt());
+    Assert.assertEquals(0, small.refCnt());
+  }
 }
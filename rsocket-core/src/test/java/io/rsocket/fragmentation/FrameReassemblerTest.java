@@ -21,8 +21,11 @@
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.util.ReferenceCountUtil;
+import io.rsocket.Payload;
 import io.rsocket.frame.*;
+import io.rsocket.frame.decoder.PayloadDecoder;
 import io.rsocket.util.DefaultPayload;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
@@ -476,4 +479,192 @@ public void dispose() {
     Assert.assertFalse(reassembler.metadata.containsKey(1));
     Assert.assertFalse(reassembler.data.containsKey(1));
   }
+
+  @DisplayName("rejects a request that exceeds the stream limit")
+  @Test
+  void rejectRequestOverStreamLimit() {
+    List<ByteBuf> byteBufs =
+        Arrays.asList(
+            RequestResponseFrameFlyweight.encode(allocator, 1, true, DefaultPayload.create(data)),
+            PayloadFrameFlyweight.encode(
+                allocator, 1, true, false, true, DefaultPayload.create(data)),
+            PayloadFrameFlyweight.encode(
+                allocator, 1, true, false, true, DefaultPayload.create(data)),
+            PayloadFrameFlyweight.encode(
+                allocator, 1, false, false, true, DefaultPayload.create(data)),
+            RequestResponseFrameFlyweight.encode(allocator, 3, false, DefaultPayload.create(data)));
+
+    List<ByteBuf> sent = new ArrayList<>();
+    FrameReassembler reassembler =
+        new FrameReassembler(allocator, 2048, Long.MAX_VALUE, false, sent::add);
+
+    StepVerifier.create(Flux.fromIterable(byteBufs).handle(reassembler::reassembleFrame))
+        .assertNext(
+            byteBuf -> {
+              Assert.assertEquals(3, FrameHeaderFlyweight.streamId(byteBuf));
+              ReferenceCountUtil.safeRelease(byteBuf);
+            })
+        .verifyComplete();
+
+    Assert.assertEquals(1, sent.size());
+    ByteBuf error = sent.get(0);
+    Assert.assertEquals(FrameType.ERROR, FrameHeaderFlyweight.frameType(error));
+    Assert.assertEquals(1, FrameHeaderFlyweight.streamId(error));
+    Assert.assertEquals(ErrorFrameFlyweight.REJECTED, ErrorFrameFlyweight.errorCode(error));
+    ReferenceCountUtil.safeRelease(error);
+
+    Assert.assertFalse(reassembler.headers.containsKey(1));
+    Assert.assertFalse(reassembler.bypassed.containsKey(1));
+    Assert.assertEquals(0, reassembler.bufferedBytes());
+  }
+
+  @DisplayName("rejects a payload that exceeds the connection limit")
+  @Test
+  void rejectPayloadOverConnectionLimit() {
+    List<ByteBuf> byteBufs =
+        Arrays.asList(
+            PayloadFrameFlyweight.encode(
+                allocator, 1, true, false, true, DefaultPayload.create(data)),
+            PayloadFrameFlyweight.encode(
+                allocator, 3, true, false, true, DefaultPayload.create(data)),
+            PayloadFrameFlyweight.encode(
+                allocator, 3, true, false, true, DefaultPayload.create(data)),
+            PayloadFrameFlyweight.encode(
+                allocator, 1, false, false, true, DefaultPayload.create(data)));
+
+    List<ByteBuf> sent = new ArrayList<>();
+    FrameReassembler reassembler =
+        new FrameReassembler(allocator, Integer.MAX_VALUE, 2560, false, sent::add);
+    reassembler.localSetup(true);
+
+    List<ByteBuf> received = new ArrayList<>();
+    Flux.fromIterable(byteBufs)
+        .<ByteBuf>handle(reassembler::reassembleFrame)
+        .subscribe(received::add);
+
+    Assert.assertEquals(2, received.size());
+    ByteBuf error = received.get(0);
+    Assert.assertEquals(FrameType.ERROR, FrameHeaderFlyweight.frameType(error));
+    Assert.assertEquals(3, FrameHeaderFlyweight.streamId(error));
+    Assert.assertEquals(ErrorFrameFlyweight.CANCELED, ErrorFrameFlyweight.errorCode(error));
+    ByteBuf next = received.get(1);
+    Assert.assertEquals(FrameType.NEXT, FrameHeaderFlyweight.frameType(next));
+    Assert.assertEquals(1, FrameHeaderFlyweight.streamId(next));
+    Assert.assertEquals(2 * data.length, PayloadFrameFlyweight.data(next).readableBytes());
+    received.forEach(ReferenceCountUtil::safeRelease);
+
+    Assert.assertEquals(1, sent.size());
+    Assert.assertEquals(FrameType.CANCEL, FrameHeaderFlyweight.frameType(sent.get(0)));
+    Assert.assertEquals(3, FrameHeaderFlyweight.streamId(sent.get(0)));
+    ReferenceCountUtil.safeRelease(sent.get(0));
+
+    Assert.assertTrue(reassembler.bypassed.containsKey(3));
+    Assert.assertEquals(0, reassembler.bufferedBytes());
+  }
+
+  @DisplayName("rejects a channel payload from the requester with an error")
+  @Test
+  void rejectRemoteStreamWithError() {
+    List<ByteBuf> sent = new ArrayList<>();
+    FrameReassembler reassembler = new FrameReassembler(allocator, 1024, 4096, false, sent::add);
+    reassembler.localSetup(false);
+
+    Flux.just(
+            PayloadFrameFlyweight.encode(
+                allocator, 1, true, false, true, DefaultPayload.create(data)),
+            PayloadFrameFlyweight.encode(
+                allocator, 1, true, false, true, DefaultPayload.create(data)))
+        .<ByteBuf>handle(reassembler::reassembleFrame)
+        .subscribe(ReferenceCountUtil::safeRelease);
+
+    Assert.assertEquals(1, sent.size());
+    Assert.assertEquals(FrameType.ERROR, FrameHeaderFlyweight.frameType(sent.get(0)));
+    Assert.assertEquals(ErrorFrameFlyweight.CANCELED, ErrorFrameFlyweight.errorCode(sent.get(0)));
+    ReferenceCountUtil.safeRelease(sent.get(0));
+  }
+
+  @DisplayName("passes on fragments of NEXT payloads in streaming mode")
+  @Test
+  void streamNextFragments() {
+    List<ByteBuf> byteBufs =
+        Arrays.asList(
+            PayloadFrameFlyweight.encode(
+                allocator, 1, true, false, true, DefaultPayload.create(data, metadata)),
+            PayloadFrameFlyweight.encode(
+                allocator, 1, true, false, true, DefaultPayload.create(data)),
+            PayloadFrameFlyweight.encode(
+                allocator, 1, false, false, true, DefaultPayload.create(data)),
+            PayloadFrameFlyweight.encode(
+                allocator, 1, true, true, true, DefaultPayload.create(data)),
+            PayloadFrameFlyweight.encode(
+                allocator, 1, false, false, true, DefaultPayload.create(data)));
+
+    FrameReassembler reassembler =
+        new FrameReassembler(allocator, 4096, Long.MAX_VALUE, true, ByteBuf::release);
+
+    List<ByteBuf> received = new ArrayList<>();
+    Flux.fromIterable(byteBufs)
+        .<ByteBuf>handle(reassembler::reassembleFrame)
+        .subscribe(received::add);
+
+    // the NEXT payload is passed on in chunks, the NEXT_COMPLETE payload is reassembled
+    Assert.assertEquals(4, received.size());
+    for (int i = 0; i < 3; i++) {
+      ByteBuf chunk = received.get(i);
+      Assert.assertEquals(FrameType.NEXT, FrameHeaderFlyweight.frameType(chunk));
+      Assert.assertEquals(i < 2, FrameHeaderFlyweight.hasFollows(chunk));
+      Assert.assertEquals(data.length, PayloadFrameFlyweight.data(chunk).readableBytes());
+    }
+    Assert.assertTrue(FrameHeaderFlyweight.hasMetadata(received.get(0)));
+    Assert.assertEquals(FrameType.NEXT_COMPLETE, FrameHeaderFlyweight.frameType(received.get(3)));
+    Assert.assertEquals(
+        2 * data.length, PayloadFrameFlyweight.data(received.get(3)).readableBytes());
+    received.forEach(ReferenceCountUtil::safeRelease);
+
+    Assert.assertTrue(reassembler.bypassed.isEmpty());
+  }
+
+  @DisplayName("decodes streamed fragments into payload chunks")
+  @Test
+  void decodeChunks() {
+    ChunkedPayloadDecoder decoder = new ChunkedPayloadDecoder(PayloadDecoder.ZERO_COPY);
+    ByteBuf first =
+        PayloadFrameFlyweight.encode(allocator, 1, true, false, true, DefaultPayload.create(data));
+    ByteBuf last =
+        PayloadFrameFlyweight.encode(allocator, 1, false, false, true, DefaultPayload.create(data));
+
+    Payload chunk = decoder.apply(first);
+    Payload payload = decoder.apply(last);
+
+    Assert.assertTrue(chunk instanceof PayloadChunk);
+    Assert.assertFalse(payload instanceof PayloadChunk);
+    Assert.assertEquals(Unpooled.wrappedBuffer(data), chunk.sliceData());
+    chunk.release();
+    payload.release();
+  }
+
+  @DisplayName("streaming mode still reassembles requests")
+  @Test
+  void streamingReassemblesRequests() {
+    List<ByteBuf> byteBufs =
+        Arrays.asList(
+            RequestStreamFrameFlyweight.encode(allocator, 1, true, 8, DefaultPayload.create(data)),
+            PayloadFrameFlyweight.encode(
+                allocator, 1, false, false, true, DefaultPayload.create(data)));
+
+    FrameReassembler reassembler =
+        new FrameReassembler(allocator, Integer.MAX_VALUE, Long.MAX_VALUE, true, ByteBuf::release);
+
+    StepVerifier.create(Flux.fromIterable(byteBufs).handle(reassembler::reassembleFrame))
+        .assertNext(
+            byteBuf -> {
+              Assert.assertEquals(
+                  FrameType.REQUEST_STREAM, FrameHeaderFlyweight.frameType(byteBuf));
+              Assert.assertEquals(8, RequestStreamFrameFlyweight.initialRequestN(byteBuf));
+              Assert.assertEquals(
+                  2 * data.length, RequestStreamFrameFlyweight.data(byteBuf).readableBytes());
+              ReferenceCountUtil.safeRelease(byteBuf);
+            })
+        .verifyComplete();
+  }
 }
@@ -5,6 +5,7 @@
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Test;
@@ -27,6 +28,83 @@ void testEncoding() {
     frame.release();
   }
 
+  @Test
+  void testEncodingIntoSingleBuffer() {
+    ByteBuf metadata = Unpooled.copiedBuffer("md", StandardCharsets.UTF_8);
+    ByteBuf data = Unpooled.copiedBuffer("d", StandardCharsets.UTF_8);
+    ByteBuf frame =
+        RequestStreamFrameFlyweight.encode(
+            ByteBufAllocator.DEFAULT, 1, false, 1, metadata, data, 1024);
+
+    assertFalse(frame instanceof CompositeByteBuf);
+    assertEquals(0, metadata.refCnt());
+    assertEquals(0, data.refCnt());
+    assertEquals(
+        "md", RequestStreamFrameFlyweight.metadata(frame).toString(StandardCharsets.UTF_8));
+    assertEquals("d", RequestStreamFrameFlyweight.data(frame).toString(StandardCharsets.UTF_8));
+
+    ByteBuf lengthPrefixed =
+        FrameLengthFlyweight.encode(ByteBufAllocator.DEFAULT, frame.readableBytes(), frame);
+
+    assertFalse(lengthPrefixed instanceof CompositeByteBuf);
+    assertEquals("000010000000011900000000010000026d6464", ByteBufUtil.hexDump(lengthPrefixed));
+    lengthPrefixed.release();
+  }
+
+  @Test
+  void testEncodingLengthOfSharedSingleBufferComposesBuffers() {
+    ByteBuf frame =
+        RequestStreamFrameFlyweight.encode(
+            ByteBufAllocator.DEFAULT,
+            1,
+            false,
+            1,
+            Unpooled.copiedBuffer("md", StandardCharsets.UTF_8),
+            Unpooled.copiedBuffer("d", StandardCharsets.UTF_8),
+            1024);
+    frame.retain();
+
+    ByteBuf lengthPrefixed =
+        FrameLengthFlyweight.encode(ByteBufAllocator.DEFAULT, frame.readableBytes(), frame);
+
+    assertTrue(lengthPrefixed instanceof CompositeByteBuf);
+    assertEquals("0000000119", ByteBufUtil.hexDump(frame, frame.readerIndex(), 5));
+    lengthPrefixed.release();
+    frame.release();
+  }
+
+  @Test
+  void testEncodingLengthDoesNotWriteBeforeOtherBuffers() {
+    ByteBuf frame = Unpooled.buffer().writeZero(3).writeInt(1).writeShort(0x1900).skipBytes(3);
+
+    ByteBuf lengthPrefixed =
+        FrameLengthFlyweight.encode(ByteBufAllocator.DEFAULT, frame.readableBytes(), frame);
+
+    assertTrue(lengthPrefixed instanceof CompositeByteBuf);
+    assertEquals("000000", ByteBufUtil.hexDump(frame, 0, 3));
+    lengthPrefixed.release();
+  }
+
+  @Test
+  void testEncodingAboveCopyThresholdComposesBuffers() {
+    ByteBuf frame =
+        RequestStreamFrameFlyweight.encode(
+            ByteBufAllocator.DEFAULT,
+            1,
+            false,
+            1,
+            Unpooled.copiedBuffer("md", StandardCharsets.UTF_8),
+            Unpooled.copiedBuffer("d", StandardCharsets.UTF_8),
+            15);
+
+    assertTrue(frame instanceof CompositeByteBuf);
+
+    frame = FrameLengthFlyweight.encode(ByteBufAllocator.DEFAULT, frame.readableBytes(), frame);
+
+    assertEquals("000010000000011900000000010000026d6464", ByteBufUtil.hexDump(frame));
+    frame.release();
+  }
+
   @Test
   void testEncodingWithEmptyMetadata() {
     ByteBuf frame =
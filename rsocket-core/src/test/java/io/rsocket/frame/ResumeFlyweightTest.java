@@ -0,0 +1,34 @@
+package io.rsocket.frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+class ResumeFlyweightTest {
+
+  @Test
+  void resume() {
+    ByteBuf token = Unpooled.wrappedBuffer(new byte[] {1, 2, 3, 4, 5});
+    ByteBuf frame = ResumeFlyweight.encode(ByteBufAllocator.DEFAULT, token, 21, 12);
+
+    assertEquals(FrameType.RESUME, FrameHeaderFlyweight.frameType(frame));
+    assertEquals(SetupFrameFlyweight.CURRENT_VERSION, ResumeFlyweight.version(frame));
+    assertEquals(token, ResumeFlyweight.token(frame));
+    assertEquals(21, ResumeFlyweight.lastReceivedServerPos(frame));
+    assertEquals(12, ResumeFlyweight.firstAvailableClientPos(frame));
+    frame.release();
+  }
+
+  @Test
+  void resumeOk() {
+    ByteBuf frame = ResumeOkFlyweight.encode(ByteBufAllocator.DEFAULT, 42);
+
+    assertEquals(FrameType.RESUME_OK, FrameHeaderFlyweight.frameType(frame));
+    assertEquals(0, FrameHeaderFlyweight.streamId(frame));
+    assertEquals(42, ResumeOkFlyweight.lastReceivedClientPos(frame));
+    frame.release();
+  }
+}
@@ -1,7 +1,7 @@
 package io.rsocket.frame;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
@@ -37,20 +37,28 @@ void validFrame() {
   }
 
   @Test
-  void resumeNotSupported() {
-    assertThrows(
-        IllegalArgumentException.class,
-        () ->
-            SetupFrameFlyweight.encode(
-                ByteBufAllocator.DEFAULT,
-                false,
-                true,
-                5,
-                500,
-                "",
-                "",
-                Unpooled.EMPTY_BUFFER,
-                Unpooled.EMPTY_BUFFER));
+  void resumeEnabled() {
+    ByteBuf token = Unpooled.wrappedBuffer(new byte[] {1, 2, 3, 4});
+    ByteBuf data = Unpooled.wrappedBuffer(new byte[] {5, 4, 3});
+    ByteBuf frame =
+        SetupFrameFlyweight.encode(
+            ByteBufAllocator.DEFAULT,
+            false,
+            true,
+            5,
+            500,
+            token.duplicate(),
+            "metadata_type",
+            "data_type",
+            null,
+            data);
+
+    assertTrue(SetupFrameFlyweight.resumeEnabled(frame));
+    assertEquals(token, SetupFrameFlyweight.resumeToken(frame));
+    assertEquals("metadata_type", SetupFrameFlyweight.metadataMimeType(frame));
+    assertEquals("data_type", SetupFrameFlyweight.dataMimeType(frame));
+    assertEquals(data, SetupFrameFlyweight.data(frame));
+    frame.release();
   }
 
   @Test
@@ -0,0 +1,50 @@
+package io.rsocket.frame.decoder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.rsocket.Payload;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import io.rsocket.frame.RequestResponseFrameFlyweight;
+import io.rsocket.util.DefaultPayload;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PooledPayloadDecoderTest {
+  private final PooledPayloadDecoder decoder =
+      new PooledPayloadDecoder(PooledByteBufAllocator.DEFAULT);
+
+  @Test
+  void copiesDataAndMetadataIntoPooledBuffers() {
+    ByteBuf frame =
+        PayloadFrameFlyweight.encodeNext(
+            ByteBufAllocator.DEFAULT, 1, DefaultPayload.create("d", "md"));
+
+    Payload payload = decoder.apply(frame);
+    frame.release();
+
+    Assertions.assertEquals("d", payload.getDataUtf8());
+    Assertions.assertEquals("md", payload.getMetadataUtf8());
+    Assertions.assertEquals(PooledByteBufAllocator.DEFAULT, payload.data().alloc());
+    Assertions.assertTrue(payload.release());
+  }
+
+  @Test
+  void decodesEmptyMetadata() {
+    ByteBuf frame =
+        RequestResponseFrameFlyweight.encode(
+            ByteBufAllocator.DEFAULT,
+            1,
+            false,
+            null,
+            ByteBufAllocator.DEFAULT.buffer().writeBytes("d".getBytes(StandardCharsets.UTF_8)));
+
+    Payload payload = decoder.apply(frame);
+    frame.release();
+
+    Assertions.assertEquals("d", payload.getDataUtf8());
+    Assertions.assertEquals(0, payload.metadata().readableBytes());
+    Assertions.assertTrue(payload.release());
+  }
+}
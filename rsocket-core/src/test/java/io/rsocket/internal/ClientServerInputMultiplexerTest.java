@@ -18,13 +18,25 @@
 
 import static org.junit.Assert.assertEquals;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.DuplexConnection;
 import io.rsocket.frame.ErrorFrameFlyweight;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.LeaseFlyweight;
+import io.rsocket.plugins.DuplexConnectionInterceptor.Type;
 import io.rsocket.plugins.PluginRegistry;
 import io.rsocket.test.util.TestDuplexConnection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
 import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public class ClientServerInputMultiplexerTest {
   private TestDuplexConnection source;
@@ -74,4 +86,118 @@ public void testSplits() {
     assertEquals(1, serverFrames.get());
     assertEquals(0, connectionFrames.get());
   }
+
+  @Test
+  public void testRoutesLeaseToLocalRequester() {
+    List<ByteBuf> clientFrames = new ArrayList<>();
+    multiplexer.asClientConnection().receive().subscribe(clientFrames::add);
+    source.addToReceivedBuffer(LeaseFlyweight.encode(allocator, 1_000, 10, null));
+    assertEquals(1, clientFrames.size());
+
+    source = new TestDuplexConnection();
+    multiplexer = new ClientServerInputMultiplexer(source, new PluginRegistry(), false);
+    List<ByteBuf> serverFrames = new ArrayList<>();
+    multiplexer.asServerConnection().receive().subscribe(serverFrames::add);
+    source.addToReceivedBuffer(LeaseFlyweight.encode(allocator, 1_000, 10, null));
+    assertEquals(1, serverFrames.size());
+  }
+
+  @Test
+  public void testQueuesFramesUntilSubscribed() {
+    source.addToReceivedBuffer(ErrorFrameFlyweight.encode(allocator, 1, new Exception()));
+    source.addToReceivedBuffer(ErrorFrameFlyweight.encode(allocator, 3, new Exception()));
+
+    List<ByteBuf> clientFrames = new ArrayList<>();
+    multiplexer.asClientConnection().receive().subscribe(clientFrames::add);
+
+    assertEquals(2, clientFrames.size());
+    assertEquals(1, FrameHeaderFlyweight.streamId(clientFrames.get(0)));
+    assertEquals(3, FrameHeaderFlyweight.streamId(clientFrames.get(1)));
+  }
+
+  @Test
+  public void testHonorsDemand() {
+    List<ByteBuf> serverFrames = new ArrayList<>();
+    BaseSubscriber<ByteBuf> subscriber =
+        new BaseSubscriber<ByteBuf>() {
+          @Override
+          protected void hookOnSubscribe(Subscription subscription) {
+            request(1);
+          }
+
+          @Override
+          protected void hookOnNext(ByteBuf frame) {
+            serverFrames.add(frame);
+          }
+        };
+    multiplexer.asServerConnection().receive().subscribe(subscriber);
+
+    source.addToReceivedBuffer(ErrorFrameFlyweight.encode(allocator, 2, new Exception()));
+    source.addToReceivedBuffer(ErrorFrameFlyweight.encode(allocator, 4, new Exception()));
+    assertEquals(1, serverFrames.size());
+
+    subscriber.request(1);
+    assertEquals(2, serverFrames.size());
+    assertEquals(4, FrameHeaderFlyweight.streamId(serverFrames.get(1)));
+  }
+
+  @Test
+  public void testReleasesFramesAfterCancel() {
+    multiplexer.asServerConnection().receive().subscribe().dispose();
+
+    ByteBuf frame = ErrorFrameFlyweight.encode(allocator, 2, new Exception());
+    source.addToReceivedBuffer(frame);
+
+    assertEquals(0, frame.refCnt());
+  }
+
+  @Test
+  public void testAppliesConnectionPlugins() {
+    AtomicInteger interceptedFrames = new AtomicInteger();
+    PluginRegistry plugins = new PluginRegistry();
+    plugins.addConnectionPlugin(
+        (type, connection) ->
+            type == Type.CLIENT
+                ? new CountingConnection(connection, interceptedFrames)
+                : connection);
+    source = new TestDuplexConnection();
+    multiplexer = new ClientServerInputMultiplexer(source, plugins);
+    multiplexer.asClientConnection().receive().subscribe();
+    multiplexer.asServerConnection().receive().subscribe();
+
+    source.addToReceivedBuffer(ErrorFrameFlyweight.encode(allocator, 1, new Exception()));
+    source.addToReceivedBuffer(ErrorFrameFlyweight.encode(allocator, 2, new Exception()));
+
+    assertEquals(1, interceptedFrames.get());
+  }
+
+  private static class CountingConnection implements DuplexConnection {
+    private final DuplexConnection delegate;
+    private final AtomicInteger frames;
+
+    CountingConnection(DuplexConnection delegate, AtomicInteger frames) {
+      this.delegate = delegate;
+      this.frames = frames;
+    }
+
+    @Override
+    public Mono<Void> send(Publisher<ByteBuf> frames) {
+      return delegate.send(frames);
+    }
+
+    @Override
+    public Flux<ByteBuf> receive() {
+      return delegate.receive().doOnNext(frame -> frames.incrementAndGet());
+    }
+
+    @Override
+    public Mono<Void> onClose() {
+      return delegate.onClose();
+    }
+
+    @Override
+    public void dispose() {
+      delegate.dispose();
+    }
+  }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentIntObjectHashMapTest {
+
+  @Test
+  void putGetRemove() {
+    ConcurrentIntObjectHashMap<String> map = new ConcurrentIntObjectHashMap<>();
+
+    assertThat(map.put(1, "a")).isNull();
+    assertThat(map.put(3, "b")).isNull();
+    assertThat(map.put(1, "c")).isEqualTo("a");
+
+    assertThat(map.get(1)).isEqualTo("c");
+    assertThat(map.get(3)).isEqualTo("b");
+    assertThat(map.get(5)).isNull();
+    assertThat(map.size()).isEqualTo(2);
+
+    assertThat(map.remove(1)).isEqualTo("c");
+    assertThat(map.remove(1)).isNull();
+    assertThat(map.containsKey(1)).isFalse();
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test
+  void putIfAbsent() {
+    ConcurrentIntObjectHashMap<String> map = new ConcurrentIntObjectHashMap<>();
+
+    assertThat(map.putIfAbsent(7, "a")).isNull();
+    assertThat(map.putIfAbsent(7, "b")).isEqualTo("a");
+    assertThat(map.get(7)).isEqualTo("a");
+
+    map.remove(7);
+    assertThat(map.putIfAbsent(7, "b")).isNull();
+    assertThat(map.get(7)).isEqualTo("b");
+  }
+
+  @Test
+  void rejectsReservedKeyAndNullValues() {
+    ConcurrentIntObjectHashMap<String> map = new ConcurrentIntObjectHashMap<>();
+
+    assertThatThrownBy(() -> map.put(0, "a")).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> map.put(1, null)).isInstanceOf(NullPointerException.class);
+    assertThat(map.get(0)).isNull();
+  }
+
+  @Test
+  void growsAndPurgesTombstones() {
+    ConcurrentIntObjectHashMap<Integer> map = new ConcurrentIntObjectHashMap<>(1, 2);
+
+    for (int i = 1; i < 100_000; i += 2) {
+      map.put(i, i);
+      if (i > 200) {
+        assertThat(map.remove(i - 200)).isEqualTo(i - 200);
+      }
+    }
+
+    assertThat(map.size()).isEqualTo(100);
+    for (int i = 99_999 - 198; i < 100_000; i += 2) {
+      assertThat(map.get(i)).isEqualTo(i);
+    }
+    assertThat(map.values()).hasSize(100);
+
+    map.clear();
+    assertThat(map.isEmpty()).isTrue();
+    assertThat(map.get(99_999)).isNull();
+  }
+
+  @Test
+  void concurrentUpdatesFromManyThreads() throws Exception {
+    ConcurrentIntObjectHashMap<Integer> map = new ConcurrentIntObjectHashMap<>(4, 4);
+    int threads = 8;
+    int perThread = 50_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      Future<?>[] futures = new Future[threads];
+      for (int t = 0; t < threads; t++) {
+        int offset = t + 1;
+        futures[t] =
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < perThread; i++) {
+                    int key = offset + i * threads;
+                    map.put(key, key);
+                    assertThat(map.get(key)).isEqualTo(key);
+                    if ((i & 1) == 0) {
+                      assertThat(map.remove(key)).isEqualTo(key);
+                    }
+                  }
+                  return null;
+                });
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(map.size()).isEqualTo(threads * perThread / 2);
+  }
+}
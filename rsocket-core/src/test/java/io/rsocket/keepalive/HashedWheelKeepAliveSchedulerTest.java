@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.keepalive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+class HashedWheelKeepAliveSchedulerTest {
+
+  private HashedWheelKeepAliveScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    scheduler = new HashedWheelKeepAliveScheduler(Duration.ofMillis(10), 8);
+  }
+
+  @AfterEach
+  void tearDown() {
+    scheduler.dispose();
+  }
+
+  @Test
+  void runsTasksPeriodically() throws InterruptedException {
+    CountDownLatch ticks = new CountDownLatch(5);
+    scheduler.schedulePeriodically(ticks::countDown, 20);
+
+    assertThat(ticks.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void runsTasksWithPeriodLongerThanWheel() throws InterruptedException {
+    CountDownLatch ticks = new CountDownLatch(2);
+    long start = System.nanoTime();
+    scheduler.schedulePeriodically(ticks::countDown, 150);
+
+    assertThat(ticks.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+        .isGreaterThanOrEqualTo(290);
+  }
+
+  @Test
+  void stopsRunningDisposedTasks() throws InterruptedException {
+    AtomicInteger disposedTicks = new AtomicInteger();
+    Disposable disposed = scheduler.schedulePeriodically(disposedTicks::incrementAndGet, 10);
+    disposed.dispose();
+
+    CountDownLatch ticks = new CountDownLatch(10);
+    scheduler.schedulePeriodically(ticks::countDown, 10);
+
+    assertThat(ticks.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(disposed.isDisposed()).isTrue();
+    assertThat(disposedTicks.get()).isZero();
+  }
+
+  @Test
+  void survivesFailingTasks() throws InterruptedException {
+    scheduler.schedulePeriodically(
+        () -> {
+          throw new IllegalStateException("boom");
+        },
+        10);
+    CountDownLatch ticks = new CountDownLatch(3);
+    scheduler.schedulePeriodically(ticks::countDown, 10);
+
+    assertThat(ticks.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void cachesCurrentTime() throws InterruptedException {
+    long before = System.currentTimeMillis();
+    CountDownLatch ticks = new CountDownLatch(3);
+    scheduler.schedulePeriodically(ticks::countDown, 10);
+
+    assertThat(ticks.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(scheduler.currentTimeMillis()).isGreaterThanOrEqualTo(before);
+  }
+
+  @Test
+  void readsSystemClockBeforeFirstTick() throws InterruptedException {
+    Thread.sleep(50);
+    long before = System.currentTimeMillis();
+
+    assertThat(scheduler.currentTimeMillis()).isGreaterThanOrEqualTo(before);
+  }
+
+  @Test
+  void disposedSchedulerRejectsTasks() {
+    scheduler.dispose();
+    Disposable task = scheduler.schedulePeriodically(() -> {}, 10);
+
+    assertThat(scheduler.isDisposed()).isTrue();
+    assertThat(task.isDisposed()).isTrue();
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.outbound;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.CancelFrameFlyweight;
+import io.rsocket.frame.FrameHeaderFlyweight;
+import io.rsocket.frame.FrameType;
+import io.rsocket.frame.KeepAliveFrameFlyweight;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import io.rsocket.frame.RequestNFrameFlyweight;
+import io.rsocket.frame.RequestStreamFrameFlyweight;
+import io.rsocket.util.DefaultPayload;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import org.junit.jupiter.api.Test;
+
+class FairFrameQueueTest {
+
+  private final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+  @Test
+  void fifoKeepsArrivalOrder() {
+    Queue<ByteBuf> queue = OutboundScheduler.fifo().newQueue();
+    queue.offer(next(1, 10));
+    queue.offer(next(1, 10));
+    queue.offer(next(3, 10));
+    queue.offer(cancel(5));
+
+    assertThat(drain(queue)).containsExactly("1 NEXT", "1 NEXT", "3 NEXT", "5 CANCEL");
+  }
+
+  @Test
+  void roundRobinInterleavesStreams() {
+    Queue<ByteBuf> queue = OutboundScheduler.roundRobin().newQueue();
+    for (int i = 0; i < 3; i++) {
+      queue.offer(next(1, 10));
+    }
+    queue.offer(next(3, 10));
+    queue.offer(next(5, 10));
+    queue.offer(next(3, 10));
+
+    assertThat(queue.size()).isEqualTo(6);
+    assertThat(drain(queue))
+        .containsExactly("1 NEXT", "3 NEXT", "5 NEXT", "1 NEXT", "3 NEXT", "1 NEXT");
+    assertThat(queue.isEmpty()).isTrue();
+  }
+
+  @Test
+  void controlFramesGoFirst() {
+    Queue<ByteBuf> queue = OutboundScheduler.roundRobin().newQueue();
+    queue.offer(next(1, 10));
+    queue.offer(next(1, 10));
+    queue.offer(requestN(3));
+    queue.offer(KeepAliveFrameFlyweight.encode(allocator, false, 0, Unpooled.EMPTY_BUFFER));
+    queue.offer(cancel(5));
+
+    assertThat(drain(queue))
+        .containsExactly("3 REQUEST_N", "0 KEEPALIVE", "5 CANCEL", "1 NEXT", "1 NEXT");
+  }
+
+  @Test
+  void controlFramesDoNotOvertakeRequestFrames() {
+    Queue<ByteBuf> queue = OutboundScheduler.roundRobin().newQueue();
+    queue.offer(next(1, 10));
+    queue.offer(next(1, 10));
+    queue.offer(
+        RequestStreamFrameFlyweight.encode(allocator, 3, false, 1L, DefaultPayload.create("")));
+    queue.offer(requestN(3));
+    queue.offer(requestN(1));
+
+    assertThat(drain(queue))
+        .containsExactly("1 REQUEST_N", "1 NEXT", "3 REQUEST_STREAM", "1 NEXT", "3 REQUEST_N");
+  }
+
+  @Test
+  void iteratesQueuedFramesWithoutChangingOrder() {
+    Queue<ByteBuf> queue = OutboundScheduler.roundRobin().newQueue();
+    queue.offer(next(1, 10));
+    queue.offer(next(1, 10));
+    queue.offer(
+        RequestStreamFrameFlyweight.encode(allocator, 3, false, 1L, DefaultPayload.create("")));
+    queue.offer(requestN(3));
+    queue.offer(requestN(1));
+
+    List<String> frames = new ArrayList<>();
+    for (ByteBuf frame : queue) {
+      FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+      frames.add(FrameHeaderFlyweight.streamId(frame) + " " + frameType);
+    }
+    assertThat(frames)
+        .containsExactlyInAnyOrder(
+            "1 NEXT", "1 NEXT", "3 REQUEST_STREAM", "3 REQUEST_N", "1 REQUEST_N");
+    assertThat(queue.size()).isEqualTo(5);
+    assertThat(drain(queue))
+        .containsExactly("1 REQUEST_N", "1 NEXT", "3 REQUEST_STREAM", "1 NEXT", "3 REQUEST_N");
+  }
+
+  @Test
+  void weightedFairSharesBytes() {
+    Queue<ByteBuf> queue = OutboundScheduler.weightedFair(1000).newQueue();
+    for (int i = 0; i < 2; i++) {
+      queue.offer(next(1, 1500));
+    }
+    for (int i = 0; i < 6; i++) {
+      queue.offer(next(3, 100));
+    }
+
+    // stream 1 needs two turns per frame while stream 3 writes all of its frames in one turn
+    assertThat(drain(queue))
+        .containsExactly(
+            "3 NEXT", "3 NEXT", "3 NEXT", "3 NEXT", "3 NEXT", "3 NEXT", "1 NEXT", "1 NEXT");
+  }
+
+  @Test
+  void iteratorDoesNotMoveFrames() {
+    Queue<ByteBuf> queue = OutboundScheduler.roundRobin().newQueue();
+    queue.offer(next(1, 10));
+    queue.offer(next(1, 10));
+    queue.offer(cancel(5));
+    queue.offer(next(3, 10));
+    queue.poll().release();
+    queue.offer(next(7, 10));
+    queue.offer(requestN(9));
+
+    List<String> snapshot = new ArrayList<>();
+    for (ByteBuf frame : queue) {
+      FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+      snapshot.add(FrameHeaderFlyweight.streamId(frame) + " " + frameType);
+    }
+
+    assertThat(snapshot).containsExactly("9 REQUEST_N", "1 NEXT", "1 NEXT", "3 NEXT", "7 NEXT");
+    assertThat(queue).hasSize(5);
+    assertThat(drain(queue))
+        .containsExactly("9 REQUEST_N", "1 NEXT", "3 NEXT", "7 NEXT", "1 NEXT");
+  }
+
+  @Test
+  void keepsStreamOrderUnderConcurrentOffers() throws InterruptedException {
+    Queue<ByteBuf> queue = OutboundScheduler.roundRobin().newQueue();
+    int streams = 4;
+    int frames = 2_000;
+    List<Thread> producers = new ArrayList<>();
+    for (int s = 0; s < streams; s++) {
+      int streamId = s * 2 + 1;
+      Thread producer =
+          new Thread(
+              () -> {
+                for (int i = 0; i < frames; i++) {
+                  queue.offer(next(streamId, i));
+                }
+              });
+      producers.add(producer);
+      producer.start();
+    }
+
+    int[] last = new int[streams * 2 + 1];
+    int received = 0;
+    while (received < streams * frames) {
+      ByteBuf frame = queue.poll();
+      if (frame == null) {
+        Thread.yield();
+        continue;
+      }
+      int streamId = FrameHeaderFlyweight.streamId(frame);
+      int size = PayloadFrameFlyweight.data(frame).readableBytes();
+      assertThat(size).isEqualTo(last[streamId]);
+      last[streamId]++;
+      frame.release();
+      received++;
+    }
+    for (Thread producer : producers) {
+      producer.join();
+    }
+    assertThat(queue.poll()).isNull();
+  }
+
+  private ByteBuf next(int streamId, int size) {
+    return PayloadFrameFlyweight.encodeNext(
+        allocator, streamId, DefaultPayload.create(new byte[size]));
+  }
+
+  private ByteBuf cancel(int streamId) {
+    return CancelFrameFlyweight.encode(allocator, streamId);
+  }
+
+  private ByteBuf requestN(int streamId) {
+    return RequestNFrameFlyweight.encode(allocator, streamId, 1);
+  }
+
+  private static List<String> drain(Queue<ByteBuf> queue) {
+    List<String> frames = new ArrayList<>();
+    ByteBuf frame;
+    while ((frame = queue.poll()) != null) {
+      FrameType frameType = FrameHeaderFlyweight.frameType(frame);
+      frames.add(FrameHeaderFlyweight.streamId(frame) + " " + frameType);
+      frame.release();
+    }
+    return frames;
+  }
+}
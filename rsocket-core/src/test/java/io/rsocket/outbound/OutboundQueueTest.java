@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.outbound;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.PayloadFrameFlyweight;
+import io.rsocket.util.DefaultPayload;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+import reactor.util.concurrent.Queues;
+
+class OutboundQueueTest {
+
+  @Test
+  void tracksDepth() {
+    OutboundQueue queue = new OutboundQueue(Queues.<ByteBuf>unboundedMultiproducer().get());
+    queue.offer(Unpooled.buffer().writeZero(10));
+    queue.offer(Unpooled.buffer().writeZero(20));
+
+    assertThat(queue.frames()).isEqualTo(2);
+    assertThat(queue.bytes()).isEqualTo(30);
+
+    queue.poll().release();
+    assertThat(queue.frames()).isEqualTo(1);
+    assertThat(queue.bytes()).isEqualTo(20);
+    assertThat(queue.isWritable()).isTrue();
+  }
+
+  @Test
+  void acceptsFramesPastHighWaterMark() {
+    OutboundQueue queue =
+        new OutboundQueue(OutboundScheduler.roundRobin().newQueue(), 2, Long.MAX_VALUE);
+    for (int i = 0; i < 4; i++) {
+      ByteBuf frame =
+          PayloadFrameFlyweight.encodeNext(
+              ByteBufAllocator.DEFAULT, 1, DefaultPayload.create("data"));
+      assertThat(queue.offer(frame)).isTrue();
+    }
+
+    assertThat(queue.isWritable()).isFalse();
+    assertThat(queue.frames()).isEqualTo(4);
+    assertThat(queue).hasSize(4);
+    Iterator<ByteBuf> iterator = queue.iterator();
+    iterator.next();
+    assertThatThrownBy(iterator::remove).isInstanceOf(UnsupportedOperationException.class);
+
+    ByteBuf frame;
+    while ((frame = queue.poll()) != null) {
+      frame.release();
+    }
+    assertThat(queue.isWritable()).isTrue();
+  }
+
+  @Test
+  void becomesWritableAtLowWaterMark() {
+    OutboundQueue queue =
+        new OutboundQueue(Queues.<ByteBuf>unboundedMultiproducer().get(), 4, 1000);
+    for (int i = 0; i < 4; i++) {
+      queue.offer(Unpooled.buffer().writeZero(1));
+    }
+    assertThat(queue.isWritable()).isFalse();
+
+    AtomicInteger runs = new AtomicInteger();
+    queue.onWritable(runs::incrementAndGet);
+    queue.onWritable(runs::incrementAndGet);
+
+    queue.poll().release();
+    assertThat(queue.isWritable()).isFalse();
+    assertThat(runs).hasValue(0);
+
+    queue.poll().release();
+    assertThat(queue.isWritable()).isTrue();
+    assertThat(runs).hasValue(2);
+
+    queue.onWritable(runs::incrementAndGet);
+    assertThat(runs).hasValue(3);
+  }
+
+  @Test
+  void becomesUnwritableAtByteHighWaterMark() {
+    OutboundQueue queue =
+        new OutboundQueue(Queues.<ByteBuf>unboundedMultiproducer().get(), 100, 64);
+    queue.offer(Unpooled.buffer().writeZero(40));
+    assertThat(queue.isWritable()).isTrue();
+
+    queue.offer(Unpooled.buffer().writeZero(40));
+    assertThat(queue.isWritable()).isFalse();
+
+    queue.poll().release();
+    assertThat(queue.isWritable()).isFalse();
+    queue.poll().release();
+    assertThat(queue.isWritable()).isTrue();
+  }
+
+  @Test
+  void writableWaitsForDrain() {
+    OutboundQueue queue =
+        new OutboundQueue(Queues.<ByteBuf>unboundedMultiproducer().get(), 1, 1000);
+    StepVerifier.create(queue.writable()).verifyComplete();
+
+    queue.offer(Unpooled.buffer().writeZero(1));
+    StepVerifier.create(queue.writable())
+        .expectSubscription()
+        .expectNoEvent(Duration.ofMillis(10))
+        .then(() -> queue.poll().release())
+        .verifyComplete();
+  }
+
+  @Test
+  void disposeRunsDeferredTasks() {
+    OutboundQueue queue =
+        new OutboundQueue(Queues.<ByteBuf>unboundedMultiproducer().get(), 1, 1000);
+    queue.offer(Unpooled.buffer().writeZero(1));
+
+    AtomicInteger runs = new AtomicInteger();
+    queue.onWritable(runs::incrementAndGet);
+    assertThat(runs).hasValue(0);
+
+    queue.dispose();
+    assertThat(runs).hasValue(1);
+    assertThat(queue.isWritable()).isTrue();
+    queue.poll().release();
+  }
+}
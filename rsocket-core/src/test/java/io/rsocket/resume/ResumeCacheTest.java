@@ -16,115 +16,144 @@
 
 package io.rsocket.resume;
 
-public class ResumeCacheTest {
-  /*private Frame CANCEL = Frame.Cancel.from(1);
-  private Frame STREAM =
-      Frame.Request.from(1, FrameType.REQUEST_STREAM, DefaultPayload.create("Test"), 100);
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.CancelFrameFlyweight;
+import io.rsocket.frame.KeepAliveFrameFlyweight;
+import io.rsocket.frame.RequestStreamFrameFlyweight;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ResumeCacheTest {
+  private final ByteBuf cancel = CancelFrameFlyweight.encode(ByteBufAllocator.DEFAULT, 1);
+  private final ByteBuf stream =
+      RequestStreamFrameFlyweight.encode(
+          ByteBufAllocator.DEFAULT, 1, false, 100, null, Unpooled.wrappedBuffer(new byte[4]));
 
   private ResumeCache cache = new ResumeCache(ResumePositionCounter.frames(), 2);
 
+  @AfterEach
+  void tearDown() {
+    cache.clear();
+    cancel.release();
+    stream.release();
+  }
+
   @Test
-  public void startsEmpty() {
-    Flux<Frame> x = cache.resend(0);
-    assertEquals(0L, (long) x.count().block());
+  void startsEmpty() {
+    assertThat(cache.resend(0).count().block()).isEqualTo(0);
     cache.updateRemotePosition(0);
   }
 
-  @Test(expected = IllegalStateException.class)
-  public void failsForFutureUpdatePosition() {
-    cache.updateRemotePosition(1);
+  @Test
+  void failsForFutureUpdatePosition() {
+    assertThatIllegalStateException().isThrownBy(() -> cache.updateRemotePosition(1));
   }
 
-  @Test(expected = IllegalStateException.class)
-  public void failsForFutureResend() {
-    cache.resend(1);
+  @Test
+  void failsForFutureResend() {
+    assertThatIllegalStateException().isThrownBy(() -> cache.resend(1));
   }
 
   @Test
-  public void updatesPositions() {
-    assertEquals(0, cache.getRemotePosition());
-    assertEquals(0, cache.getCurrentPosition());
-    assertEquals(0, cache.getEarliestResendPosition());
-    assertEquals(0, cache.size());
+  void ignoresUntrackedFrames() {
+    ByteBuf keepAlive =
+        KeepAliveFrameFlyweight.encode(ByteBufAllocator.DEFAULT, true, 0, Unpooled.EMPTY_BUFFER);
+    cache.sent(keepAlive);
+
+    assertThat(cache.getCurrentPosition()).isEqualTo(0);
+    assertThat(cache.size()).isEqualTo(0);
+    keepAlive.release();
+  }
+
+  @Test
+  void updatesPositions() {
+    int streamOffset = stream.readableBytes();
+    int cancelOffset = cancel.readableBytes();
+
+    cache.sent(stream);
+
+    assertThat(cache.getRemotePosition()).isEqualTo(0);
+    assertThat(cache.getCurrentPosition()).isEqualTo(streamOffset);
+    assertThat(cache.getEarliestResendPosition()).isEqualTo(0);
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(stream.refCnt()).isEqualTo(2);
 
-    cache.sent(STREAM);
+    cache.updateRemotePosition(streamOffset);
 
-    assertEquals(0, cache.getRemotePosition());
-    assertEquals(14, cache.getCurrentPosition());
-    assertEquals(0, cache.getEarliestResendPosition());
-    assertEquals(1, cache.size());
+    assertThat(cache.getRemotePosition()).isEqualTo(streamOffset);
+    assertThat(cache.getEarliestResendPosition()).isEqualTo(streamOffset);
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(stream.refCnt()).isEqualTo(1);
 
-    cache.updateRemotePosition(14);
+    cache.sent(cancel);
 
-    assertEquals(14, cache.getRemotePosition());
-    assertEquals(14, cache.getCurrentPosition());
-    assertEquals(14, cache.getEarliestResendPosition());
-    assertEquals(0, cache.size());
+    assertThat(cache.getCurrentPosition()).isEqualTo(streamOffset + cancelOffset);
+    assertThat(cache.getEarliestResendPosition()).isEqualTo(streamOffset);
+    assertThat(cache.size()).isEqualTo(1);
 
-    cache.sent(CANCEL);
+    assertThatIllegalStateException().isThrownBy(() -> cache.updateRemotePosition(0));
+  }
 
-    assertEquals(14, cache.getRemotePosition());
-    assertEquals(20, cache.getCurrentPosition());
-    assertEquals(14, cache.getEarliestResendPosition());
-    assertEquals(1, cache.size());
+  @Test
+  void resendsUnacknowledgedFrames() {
+    cache.sent(stream);
+    cache.sent(cancel);
 
-    cache.updateRemotePosition(20);
+    List<ByteBuf> resend = cache.resend(0).collectList().block();
 
-    assertEquals(20, cache.getRemotePosition());
-    assertEquals(20, cache.getCurrentPosition());
-    assertEquals(20, cache.getEarliestResendPosition());
-    assertEquals(0, cache.size());
+    assertThat(resend).containsExactly(stream, cancel);
+    resend.forEach(ByteBuf::release);
 
-    cache.sent(STREAM);
+    resend = cache.resend(stream.readableBytes()).collectList().block();
 
-    assertEquals(20, cache.getRemotePosition());
-    assertEquals(34, cache.getCurrentPosition());
-    assertEquals(20, cache.getEarliestResendPosition());
-    assertEquals(1, cache.size());
+    assertThat(resend).containsExactly(cancel);
+    resend.forEach(ByteBuf::release);
+    assertThat(stream.refCnt()).isEqualTo(1);
+  }
+
+  @Test
+  void dropsOldestFramesWhenFull() {
+    cache.sent(stream);
+    cache.sent(cancel);
+    cache.sent(cancel);
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getEarliestResendPosition()).isEqualTo(stream.readableBytes());
+    assertThat(stream.refCnt()).isEqualTo(1);
+    assertThatIllegalStateException().isThrownBy(() -> cache.resend(0));
   }
 
   @Test
-  public void supportsZeroBuffer() {
+  void supportsZeroBuffer() {
     cache = new ResumeCache(ResumePositionCounter.frames(), 0);
 
-    cache.sent(STREAM);
-    cache.sent(STREAM);
-    cache.sent(STREAM);
+    cache.sent(stream);
+    cache.sent(stream);
+    cache.sent(stream);
 
-    assertEquals(0, cache.getRemotePosition());
-    assertEquals(42, cache.getCurrentPosition());
-    assertEquals(42, cache.getEarliestResendPosition());
-    assertEquals(0, cache.size());
+    assertThat(cache.getRemotePosition()).isEqualTo(0);
+    assertThat(cache.getCurrentPosition()).isEqualTo(3 * stream.readableBytes());
+    assertThat(cache.getEarliestResendPosition()).isEqualTo(3 * stream.readableBytes());
+    assertThat(cache.size()).isEqualTo(0);
   }
 
   @Test
-  public void supportsFrameCountBuffers() {
+  void supportsSizeBuffers() {
     cache = new ResumeCache(ResumePositionCounter.size(), 100);
 
-    assertEquals(0, cache.getRemotePosition());
-    assertEquals(0, cache.getCurrentPosition());
-    assertEquals(0, cache.getEarliestResendPosition());
-    assertEquals(0, cache.size());
+    cache.sent(stream);
 
-    cache.sent(STREAM);
+    assertThat(cache.size()).isEqualTo(stream.readableBytes());
 
-    assertEquals(0, cache.getRemotePosition());
-    assertEquals(14, cache.getCurrentPosition());
-    assertEquals(0, cache.getEarliestResendPosition());
-    assertEquals(14, cache.size());
+    cache.updateRemotePosition(stream.readableBytes());
+    cache.sent(cancel);
 
-    cache.updateRemotePosition(14);
-
-    assertEquals(14, cache.getRemotePosition());
-    assertEquals(14, cache.getCurrentPosition());
-    assertEquals(14, cache.getEarliestResendPosition());
-    assertEquals(0, cache.size());
-
-    cache.sent(CANCEL);
-
-    assertEquals(14, cache.getRemotePosition());
-    assertEquals(20, cache.getCurrentPosition());
-    assertEquals(14, cache.getEarliestResendPosition());
-    assertEquals(6, cache.size());
-  }*/
+    assertThat(cache.size()).isEqualTo(cancel.readableBytes());
+  }
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.resume;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RingBufferResumeStoreTest {
+  private RingBufferResumeStore store = new RingBufferResumeStore(Unpooled::buffer, 8, 16);
+
+  @AfterEach
+  void tearDown() {
+    store.clear();
+  }
+
+  @Test
+  void appendsAndResendsFromPosition() {
+    append(0, "abc");
+    append(3, "de");
+    append(5, "f");
+
+    assertThat(store.earliestPosition()).isEqualTo(0);
+    assertThat(store.size()).isEqualTo(6);
+    assertThat(store.frames()).isEqualTo(3);
+    assertThat(framesFrom(0)).containsExactly("abc", "de", "f");
+    assertThat(framesFrom(3)).containsExactly("de", "f");
+    assertThat(framesFrom(4)).containsExactly("f");
+    assertThat(framesFrom(6)).isEmpty();
+  }
+
+  @Test
+  void trimsAcknowledgedFrames() {
+    append(0, "abc");
+    append(3, "de");
+
+    store.trim(3);
+
+    assertThat(store.earliestPosition()).isEqualTo(3);
+    assertThat(store.size()).isEqualTo(2);
+    assertThat(framesFrom(0)).containsExactly("de");
+
+    store.trim(5);
+
+    assertThat(store.earliestPosition()).isEqualTo(-1);
+    assertThat(store.size()).isEqualTo(0);
+  }
+
+  @Test
+  void growsUpToMaxCapacity() {
+    append(0, "abcdef");
+    assertThat(store.capacity()).isEqualTo(8);
+
+    append(6, "ghijk");
+    assertThat(store.capacity()).isEqualTo(16);
+    assertThat(framesFrom(0)).containsExactly("abcdef", "ghijk");
+  }
+
+  @Test
+  void dropsOldestFramesWhenFull() {
+    append(0, "abcdef");
+    append(6, "ghijk");
+    append(11, "lmnopq");
+
+    assertThat(store.capacity()).isEqualTo(16);
+    assertThat(store.earliestPosition()).isEqualTo(6);
+    assertThat(framesFrom(0)).containsExactly("ghijk", "lmnopq");
+  }
+
+  @Test
+  void wrapsAroundTheEndOfTheBuffer() {
+    long position = 0;
+    for (int i = 0; i < 100; i++) {
+      String frame = String.valueOf((char) ('a' + i % 26)) + i;
+      append(position, frame);
+      position += frame.length();
+      store.trim(position - 8);
+    }
+
+    assertThat(store.capacity()).isEqualTo(16);
+    assertThat(framesFrom(0)).contains("v99").allMatch(frame -> frame.length() <= 3);
+    assertThat(store.size()).isLessThanOrEqualTo(16);
+  }
+
+  @Test
+  void dropsFramesLargerThanMaxCapacity() {
+    append(0, "abc");
+    append(3, "0123456789abcdefg");
+
+    assertThat(store.earliestPosition()).isEqualTo(-1);
+    assertThat(store.size()).isEqualTo(0);
+
+    append(20, "h");
+
+    assertThat(framesFrom(0)).containsExactly("h");
+  }
+
+  @Test
+  void resentSlicesAreNotOverwritten() {
+    append(0, "abcdefgh");
+    List<ByteBuf> resent = store.framesFrom(0);
+
+    store.trim(8);
+    append(8, "ijklmnop");
+
+    assertThat(resent.get(0).toString(StandardCharsets.UTF_8)).isEqualTo("abcdefgh");
+    assertThat(framesFrom(0)).containsExactly("ijklmnop");
+
+    ByteBuf slice = resent.get(0);
+    ByteBuf pinned = slice.unwrap();
+    slice.release();
+    assertThat(pinned.refCnt()).isEqualTo(0);
+  }
+
+  @Test
+  void clearReleasesTheBuffer() {
+    store = new RingBufferResumeStore(Unpooled::directBuffer, 8, 16);
+    append(0, "abc");
+    List<ByteBuf> resent = store.framesFrom(0);
+    ByteBuf buffer = resent.get(0).unwrap();
+
+    store.clear();
+    assertThat(buffer.refCnt()).isEqualTo(1);
+
+    resent.forEach(ByteBuf::release);
+    assertThat(buffer.refCnt()).isEqualTo(0);
+    assertThat(store.capacity()).isEqualTo(0);
+  }
+
+  @Test
+  void growsIndex() {
+    store = RingBufferResumeStore.heap(1024 * 1024);
+    for (int i = 0; i < 1000; i++) {
+      append(i, "x");
+    }
+    store.trim(500);
+
+    assertThat(store.frames()).isEqualTo(500);
+    assertThat(store.earliestPosition()).isEqualTo(500);
+    assertThat(framesFrom(999)).containsExactly("x");
+  }
+
+  private void append(long position, String frame) {
+    ByteBuf buf = Unpooled.copiedBuffer(frame, StandardCharsets.UTF_8);
+    store.append(position, buf);
+    buf.release();
+  }
+
+  private List<String> framesFrom(long position) {
+    return store
+        .framesFrom(position)
+        .stream()
+        .map(
+            buf -> {
+              String s = buf.toString(StandardCharsets.UTF_8);
+              buf.release();
+              return s;
+            })
+        .collect(Collectors.toList());
+  }
+}
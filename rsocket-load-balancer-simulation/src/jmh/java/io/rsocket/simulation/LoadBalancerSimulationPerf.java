@@ -0,0 +1,36 @@
+package io.rsocket.simulation;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Runs every {@link Scenarios scenario} once and prints its report. The measured time is the
+ * duration of the scenario, the results of interest are the percentiles, request shares and
+ * aperture timeline in the output.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-XX:+UseG1GC", "-Xms2g", "-Xmx2g"}
+    )
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@State(Scope.Benchmark)
+public class LoadBalancerSimulationPerf {
+
+  @Param({"uniform", "slowServer", "tailLatency", "flakyServer", "outage", "slowdown"})
+  String scenario;
+
+  SimulationReport report;
+
+  @Benchmark
+  public SimulationReport simulate() {
+    report = Scenarios.create(scenario).run();
+    return report;
+  }
+
+  @TearDown
+  public void tearDown() {
+    report.print(System.out);
+  }
+}
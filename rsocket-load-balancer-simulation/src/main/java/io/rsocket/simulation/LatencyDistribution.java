@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.simulation;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Random;
+
+/** The distribution of the time a {@link SimulatedServer} takes to answer a request. */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+  /**
+   * Draws the latency of the next request.
+   *
+   * @param random the source of randomness, seeded by the simulation
+   * @return the latency in nanoseconds
+   */
+  long nextNanos(Random random);
+
+  /**
+   * Returns a distribution that always takes {@code latency}.
+   *
+   * @param latency the latency of every request
+   * @return a new distribution
+   */
+  static LatencyDistribution constant(Duration latency) {
+    long nanos = latency.toNanos();
+    return random -> nanos;
+  }
+
+  /**
+   * Returns a distribution uniform between {@code min} and {@code max}.
+   *
+   * @param min the minimum latency
+   * @param max the maximum latency
+   * @return a new distribution
+   * @throws IllegalArgumentException if {@code max} is less than {@code min}
+   */
+  static LatencyDistribution uniform(Duration min, Duration max) {
+    long minNanos = min.toNanos();
+    long range = max.toNanos() - minNanos;
+    if (range < 0) {
+      throw new IllegalArgumentException("max must not be less than min");
+    }
+
+    return random -> minNanos + (long) (random.nextDouble() * range);
+  }
+
+  /**
+   * Returns an exponential distribution, the latency of a server answering requests arriving at
+   * random at a constant rate.
+   *
+   * @param mean the mean latency
+   * @return a new distribution
+   */
+  static LatencyDistribution exponential(Duration mean) {
+    long meanNanos = mean.toNanos();
+    return random -> (long) (-meanNanos * Math.log(1.0 - random.nextDouble()));
+  }
+
+  /**
+   * Returns a distribution that draws from {@code outlier} for a ratio {@code outlierRatio} of the
+   * requests, and from {@code usual} otherwise.
+   *
+   * @param usual the distribution of most requests
+   * @param outlier the distribution of the outliers
+   * @param outlierRatio the ratio of outliers, between {@code 0.0} and {@code 1.0}
+   * @return a new distribution
+   */
+  static LatencyDistribution mixture(
+      LatencyDistribution usual, LatencyDistribution outlier, double outlierRatio) {
+    Objects.requireNonNull(usual, "usual must not be null");
+    Objects.requireNonNull(outlier, "outlier must not be null");
+    if (outlierRatio < 0.0 || outlierRatio > 1.0) {
+      throw new IllegalArgumentException("outlierRatio must be between 0.0 and 1.0");
+    }
+
+    return random ->
+        random.nextDouble() < outlierRatio ? outlier.nextNanos(random) : usual.nextNanos(random);
+  }
+}
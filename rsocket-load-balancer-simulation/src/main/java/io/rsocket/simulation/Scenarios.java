@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.simulation;
+
+import static io.rsocket.simulation.LatencyDistribution.exponential;
+import static io.rsocket.simulation.LatencyDistribution.mixture;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Predefined simulations of common production situations. Running this class runs the scenarios
+ * named as arguments, or all of them, and prints their reports.
+ *
+ * <pre>
+ * ./gradlew :rsocket-load-balancer-simulation:run --args='slowServer outage'
+ * </pre>
+ */
+public final class Scenarios {
+
+  static final int SERVERS = 10;
+  static final double REQUESTS_PER_SECOND = 2_000;
+
+  private static final Map<String, Supplier<Simulation>> SCENARIOS = new LinkedHashMap<>();
+
+  static {
+    SCENARIOS.put("uniform", Scenarios::uniform);
+    SCENARIOS.put("slowServer", Scenarios::slowServer);
+    SCENARIOS.put("tailLatency", Scenarios::tailLatency);
+    SCENARIOS.put("flakyServer", Scenarios::flakyServer);
+    SCENARIOS.put("outage", Scenarios::outage);
+    SCENARIOS.put("slowdown", Scenarios::slowdown);
+  }
+
+  private Scenarios() {}
+
+  /**
+   * Returns the names of the predefined scenarios.
+   *
+   * @return the names
+   */
+  public static List<String> names() {
+    return Arrays.asList(SCENARIOS.keySet().toArray(new String[0]));
+  }
+
+  /**
+   * Returns a new simulation of the scenario named {@code name}.
+   *
+   * @param name the name of the scenario
+   * @return a new simulation
+   * @throws IllegalArgumentException if there is no scenario named {@code name}
+   */
+  public static Simulation create(String name) {
+    Supplier<Simulation> scenario = SCENARIOS.get(name);
+    if (scenario == null) {
+      throw new IllegalArgumentException("unknown scenario " + name + ", expected " + names());
+    }
+    return scenario.get();
+  }
+
+  /** All servers answer in 1 ms on average. */
+  public static Simulation uniform() {
+    Simulation simulation = simulation("uniform");
+    for (int i = 0; i < SERVERS; i++) {
+      simulation.server(SimulatedServer.create(serverName("uniform", i), exponential(ofMillis(1))));
+    }
+    return simulation;
+  }
+
+  /** One server is ten times slower than the others. */
+  public static Simulation slowServer() {
+    Simulation simulation = simulation("slowServer");
+    for (int i = 0; i < SERVERS; i++) {
+      simulation.server(
+          SimulatedServer.create(
+              serverName("slowServer", i), exponential(ofMillis(i == 0 ? 10 : 1))));
+    }
+    return simulation;
+  }
+
+  /** Every server answers 1% of the requests in 50 ms on average. */
+  public static Simulation tailLatency() {
+    Simulation simulation = simulation("tailLatency");
+    for (int i = 0; i < SERVERS; i++) {
+      simulation.server(
+          SimulatedServer.create(
+              serverName("tailLatency", i),
+              mixture(exponential(ofMillis(1)), exponential(ofMillis(50)), 0.01)));
+    }
+    return simulation;
+  }
+
+  /** One server fails 20% of the requests. */
+  public static Simulation flakyServer() {
+    Simulation simulation = simulation("flakyServer");
+    for (int i = 0; i < SERVERS; i++) {
+      simulation.server(
+          SimulatedServer.create(serverName("flakyServer", i), exponential(ofMillis(1)))
+              .errorRate(i == 0 ? 0.2 : 0.0));
+    }
+    return simulation;
+  }
+
+  /** Two servers fail every request between 10 and 20 seconds. */
+  public static Simulation outage() {
+    Simulation simulation = simulation("outage");
+    for (int i = 0; i < SERVERS; i++) {
+      SimulatedServer server =
+          SimulatedServer.create(serverName("outage", i), exponential(ofMillis(1)));
+      if (i < 2) {
+        server.outage(ofSeconds(10), ofSeconds(20));
+      }
+      simulation.server(server);
+    }
+    return simulation;
+  }
+
+  /** Half of the servers become five times slower between 10 and 20 seconds. */
+  public static Simulation slowdown() {
+    Simulation simulation = simulation("slowdown");
+    for (int i = 0; i < SERVERS; i++) {
+      SimulatedServer server =
+          SimulatedServer.create(serverName("slowdown", i), exponential(ofMillis(1)));
+      if (i < SERVERS / 2) {
+        server.slowdown(ofSeconds(10), ofSeconds(20), 5.0);
+      }
+      simulation.server(server);
+    }
+    return simulation;
+  }
+
+  private static Simulation simulation(String name) {
+    return new Simulation(name).requestsPerSecond(REQUESTS_PER_SECOND).duration(ofSeconds(30));
+  }
+
+  private static String serverName(String scenario, int index) {
+    return "simulation-" + scenario + "-" + index;
+  }
+
+  public static void main(String... args) {
+    List<String> names = args.length == 0 ? names() : Arrays.asList(args);
+    for (String name : names) {
+      create(name).run().print(System.out);
+    }
+  }
+}
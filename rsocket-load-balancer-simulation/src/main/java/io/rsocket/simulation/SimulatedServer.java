@@ -0,0 +1,215 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.simulation;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.exceptions.ApplicationErrorException;
+import io.rsocket.transport.ClientTransport;
+import io.rsocket.transport.local.LocalClientTransport;
+import io.rsocket.transport.local.LocalServerTransport;
+import io.rsocket.util.EmptyPayload;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import reactor.core.publisher.Mono;
+
+/**
+ * An in-JVM server answering request-response interactions over the local transport after a
+ * latency drawn from a {@link LatencyDistribution}. Failures can be injected at random with {@link
+ * #errorRate(double)}, and during time windows with {@link #outage(Duration, Duration)} and {@link
+ * #slowdown(Duration, Duration, double)}. Windows are relative to the start of the simulation.
+ */
+public final class SimulatedServer {
+
+  private final String name;
+  private final LatencyDistribution latency;
+  private final List<Window> slowdowns = new ArrayList<>();
+  private final List<Window> outages = new ArrayList<>();
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+  private double errorRate;
+
+  private SimulatedServer(String name, LatencyDistribution latency) {
+    this.name = name;
+    this.latency = latency;
+  }
+
+  /**
+   * Creates a server.
+   *
+   * @param name the name of the server, unique in the JVM
+   * @param latency the latency of the server
+   * @return a new server
+   * @throws NullPointerException if {@code name} or {@code latency} is {@code null}
+   */
+  public static SimulatedServer create(String name, LatencyDistribution latency) {
+    Objects.requireNonNull(name, "name must not be null");
+    Objects.requireNonNull(latency, "latency must not be null");
+    return new SimulatedServer(name, latency);
+  }
+
+  /**
+   * Fails a ratio {@code errorRate} of the requests with an {@link ApplicationErrorException}.
+   * Defaults to {@code 0.0}.
+   *
+   * @param errorRate the ratio of failed requests, between {@code 0.0} and {@code 1.0}
+   * @return this server
+   */
+  public SimulatedServer errorRate(double errorRate) {
+    if (errorRate < 0.0 || errorRate > 1.0) {
+      throw new IllegalArgumentException("errorRate must be between 0.0 and 1.0");
+    }
+
+    this.errorRate = errorRate;
+    return this;
+  }
+
+  /**
+   * Multiplies the latency of the requests received between {@code from} and {@code until} by
+   * {@code factor}.
+   *
+   * @param from the start of the slowdown
+   * @param until the end of the slowdown
+   * @param factor the latency multiplier
+   * @return this server
+   */
+  public SimulatedServer slowdown(Duration from, Duration until, double factor) {
+    if (factor <= 0.0) {
+      throw new IllegalArgumentException("factor must be positive");
+    }
+
+    slowdowns.add(new Window(from, until, factor));
+    return this;
+  }
+
+  /**
+   * Fails every request received between {@code from} and {@code until} immediately.
+   *
+   * @param from the start of the outage
+   * @param until the end of the outage
+   * @return this server
+   */
+  public SimulatedServer outage(Duration from, Duration until) {
+    outages.add(new Window(from, until, 1.0));
+    return this;
+  }
+
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Number of requests received during the last simulation, including failed ones.
+   *
+   * @return the number of requests
+   */
+  public long requests() {
+    return requests.get();
+  }
+
+  /**
+   * Number of requests failed by this server during the last simulation.
+   *
+   * @return the number of injected failures
+   */
+  public long errors() {
+    return errors.get();
+  }
+
+  Mono<Closeable> start(long epochNanos, long seed) {
+    requests.set(0);
+    errors.set(0);
+    Random random = new Random(seed);
+
+    RSocket handler =
+        new AbstractRSocket() {
+          @Override
+          public Mono<Payload> requestResponse(Payload payload) {
+            payload.release();
+            requests.incrementAndGet();
+
+            long elapsed = System.nanoTime() - epochNanos;
+            if (isIn(outages, elapsed) || random.nextDouble() < errorRate) {
+              errors.incrementAndGet();
+              return Mono.error(new ApplicationErrorException("simulated failure of " + name));
+            }
+
+            long nanos = (long) (latency.nextNanos(random) * slowdownFactor(elapsed));
+            return Mono.delay(Duration.ofNanos(nanos)).thenReturn(EmptyPayload.INSTANCE);
+          }
+        };
+
+    return RSocketFactory.receive()
+        .acceptor((setup, sendingSocket) -> Mono.just(handler))
+        .transport(LocalServerTransport.create(name))
+        .start();
+  }
+
+  ClientTransport clientTransport() {
+    return LocalClientTransport.create(name);
+  }
+
+  private double slowdownFactor(long elapsed) {
+    double factor = 1.0;
+    for (Window slowdown : slowdowns) {
+      if (slowdown.contains(elapsed)) {
+        factor *= slowdown.factor;
+      }
+    }
+    return factor;
+  }
+
+  private static boolean isIn(List<Window> windows, long elapsed) {
+    for (Window window : windows) {
+      if (window.contains(elapsed)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "SimulatedServer(" + name + ")";
+  }
+
+  private static final class Window {
+    private final long from;
+    private final long until;
+    private final double factor;
+
+    Window(Duration from, Duration until, double factor) {
+      this.from = from.toNanos();
+      this.until = until.toNanos();
+      this.factor = factor;
+      if (this.until < this.from) {
+        throw new IllegalArgumentException("until must not be before from");
+      }
+    }
+
+    boolean contains(long elapsed) {
+      return from <= elapsed && elapsed < until;
+    }
+  }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.simulation;
+
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.RSocketFactory;
+import io.rsocket.client.LoadBalancedRSocketMono;
+import io.rsocket.client.filter.RSocketSupplier;
+import io.rsocket.util.DefaultPayload;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+/**
+ * Drives a {@link LoadBalancedRSocketMono} over a set of {@link SimulatedServer}s with an open-loop
+ * load generator: requests are sent at random intervals following a Poisson process of the
+ * configured rate, whether or not earlier requests have completed, and their latency is measured
+ * from the time they were scheduled so that a stalled load balancer shows up in the percentiles.
+ *
+ * <p>All random draws of the load generator and of the servers come from generators seeded with
+ * {@link #seed(long)}, so runs with the same seed send the same requests with the same latencies.
+ * Timing and the random choices of the load balancer itself still vary between runs.
+ *
+ * <pre>{@code
+ * SimulationReport report =
+ *     new Simulation("slow server")
+ *         .server(SimulatedServer.create("fast", LatencyDistribution.exponential(ofMillis(1))))
+ *         .server(SimulatedServer.create("slow", LatencyDistribution.exponential(ofMillis(10))))
+ *         .requestsPerSecond(2_000)
+ *         .duration(Duration.ofSeconds(30))
+ *         .run();
+ * report.print(System.out);
+ * }</pre>
+ */
+public final class Simulation {
+
+  private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+  private final String name;
+  private final List<SimulatedServer> servers = new ArrayList<>();
+  private Function<Publisher<List<RSocketSupplier>>, LoadBalancedRSocketMono> balancer =
+      LoadBalancedRSocketMono::create;
+  private double requestsPerSecond = 1_000;
+  private Duration duration = Duration.ofSeconds(30);
+  private Duration sampleInterval = Duration.ofSeconds(1);
+  private Duration requestTimeout = Duration.ofSeconds(5);
+  private int keys = 1024;
+  private long seed;
+
+  /**
+   * Creates a simulation without servers.
+   *
+   * @param name the name of the simulation, printed in its report
+   */
+  public Simulation(String name) {
+    this.name = Objects.requireNonNull(name, "name must not be null");
+  }
+
+  /**
+   * Adds a server.
+   *
+   * @param server the server to add
+   * @return this simulation
+   */
+  public Simulation server(SimulatedServer server) {
+    servers.add(Objects.requireNonNull(server, "server must not be null"));
+    return this;
+  }
+
+  /**
+   * Sets how the load balancer is created from the suppliers of the servers, to tune its settings
+   * or strategy. Defaults to {@link LoadBalancedRSocketMono#create(Publisher)}.
+   *
+   * @param balancer creates the load balancer
+   * @return this simulation
+   */
+  public Simulation balancer(
+      Function<Publisher<List<RSocketSupplier>>, LoadBalancedRSocketMono> balancer) {
+    this.balancer = Objects.requireNonNull(balancer, "balancer must not be null");
+    return this;
+  }
+
+  /**
+   * Sets the mean rate of the load generator. Defaults to {@code 1000}.
+   *
+   * @param requestsPerSecond the mean number of requests per second
+   * @return this simulation
+   */
+  public Simulation requestsPerSecond(double requestsPerSecond) {
+    if (requestsPerSecond <= 0.0) {
+      throw new IllegalArgumentException("requestsPerSecond must be positive");
+    }
+
+    this.requestsPerSecond = requestsPerSecond;
+    return this;
+  }
+
+  /**
+   * Sets for how long requests are sent. Defaults to 30 seconds.
+   *
+   * @param duration the duration of the load
+   * @return this simulation
+   */
+  public Simulation duration(Duration duration) {
+    this.duration = Objects.requireNonNull(duration, "duration must not be null");
+    return this;
+  }
+
+  /**
+   * Sets the interval between two samples of the timeline. Defaults to 1 second.
+   *
+   * @param sampleInterval the interval between samples
+   * @return this simulation
+   */
+  public Simulation sampleInterval(Duration sampleInterval) {
+    this.sampleInterval = Objects.requireNonNull(sampleInterval, "sampleInterval must not be null");
+    return this;
+  }
+
+  /**
+   * Sets after how long a request without response counts as an error. Defaults to 5 seconds.
+   *
+   * @param requestTimeout the request timeout
+   * @return this simulation
+   */
+  public Simulation requestTimeout(Duration requestTimeout) {
+    this.requestTimeout = Objects.requireNonNull(requestTimeout, "requestTimeout must not be null");
+    return this;
+  }
+
+  /**
+   * Sets the number of distinct keys sent in the metadata of the requests, for strategies routing
+   * by key. Defaults to {@code 1024}.
+   *
+   * @param keys the number of keys
+   * @return this simulation
+   */
+  public Simulation keys(int keys) {
+    if (keys <= 0) {
+      throw new IllegalArgumentException("keys must be positive");
+    }
+
+    this.keys = keys;
+    return this;
+  }
+
+  /**
+   * Sets the seed of the random generators. Defaults to {@code 0}.
+   *
+   * @param seed the seed
+   * @return this simulation
+   */
+  public Simulation seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /**
+   * Runs the simulation, blocking the calling thread until the load has been sent and every
+   * request has completed or timed out.
+   *
+   * @return the report of the simulation
+   * @throws IllegalStateException if no server was added
+   */
+  public SimulationReport run() {
+    if (servers.isEmpty()) {
+      throw new IllegalStateException("no server added");
+    }
+
+    Random random = new Random(seed);
+    long epoch = System.nanoTime();
+
+    List<Closeable> closeables = new ArrayList<>();
+    try {
+      List<RSocketSupplier> suppliers = new ArrayList<>();
+      for (SimulatedServer server : servers) {
+        closeables.add(server.start(epoch, random.nextLong()).block());
+        suppliers.add(
+            new RSocketSupplier(
+                () -> RSocketFactory.connect().transport(server.clientTransport()).start()));
+      }
+      LoadBalancedRSocketMono loadBalancer = balancer.apply(Mono.just(suppliers));
+      closeables.add(loadBalancer);
+
+      Payload[] payloads = new Payload[keys];
+      for (int i = 0; i < keys; i++) {
+        payloads[i] = DefaultPayload.create("", "key-" + i);
+      }
+
+      return new Run(loadBalancer, payloads, random, epoch).run();
+    } finally {
+      for (int i = closeables.size() - 1; i >= 0; i--) {
+        closeables.get(i).dispose();
+      }
+    }
+  }
+
+  /** The state of one run of the load generator. */
+  private final class Run {
+    private final LoadBalancedRSocketMono loadBalancer;
+    private final Payload[] payloads;
+    private final Random random;
+    private final long epoch;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_LATENCY, 3);
+    private final Histogram latencies = new Histogram(HIGHEST_TRACKABLE_LATENCY, 3);
+    private final List<SimulationReport.Sample> timeline = new ArrayList<>();
+    private final AtomicLong outstanding = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private Histogram interval;
+    private long requests;
+    private long sampledErrors;
+
+    Run(LoadBalancedRSocketMono loadBalancer, Payload[] payloads, Random random, long epoch) {
+      this.loadBalancer = loadBalancer;
+      this.payloads = payloads;
+      this.random = random;
+      this.epoch = epoch;
+    }
+
+    SimulationReport run() {
+      long meanInterArrival = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+      long sampleNanos = sampleInterval.toNanos();
+      long end = epoch + duration.toNanos();
+      long nextArrival = System.nanoTime();
+      long nextSample = epoch + sampleNanos;
+
+      while (nextArrival < end) {
+        long now = System.nanoTime();
+        if (now >= nextSample) {
+          sample(nextSample);
+          nextSample += sampleNanos;
+        } else if (now >= nextArrival) {
+          send(nextArrival);
+          nextArrival += (long) (-meanInterArrival * Math.log(1.0 - random.nextDouble()));
+        } else {
+          LockSupport.parkNanos(Math.min(nextArrival, nextSample) - now);
+        }
+      }
+
+      long deadline = Math.max(end, System.nanoTime()) + requestTimeout.toNanos();
+      while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+      }
+      sample(System.nanoTime());
+
+      Map<String, Long> requestsPerServer = new LinkedHashMap<>();
+      servers.forEach(server -> requestsPerServer.put(server.name(), server.requests()));
+      return new SimulationReport(
+          name, latencies, requests, errors.get(), requestsPerServer, timeline);
+    }
+
+    private void send(long scheduled) {
+      Payload payload = payloads[random.nextInt(payloads.length)];
+      requests++;
+      outstanding.incrementAndGet();
+
+      loadBalancer
+          .select(payload)
+          .flatMap(rSocket -> rSocket.requestResponse(payload))
+          .timeout(requestTimeout)
+          .subscribe(
+              response -> {
+                response.release();
+                recorder.recordValue(
+                    Math.min(System.nanoTime() - scheduled, HIGHEST_TRACKABLE_LATENCY));
+              },
+              error -> {
+                errors.incrementAndGet();
+                outstanding.decrementAndGet();
+              },
+              outstanding::decrementAndGet);
+    }
+
+    private void sample(long time) {
+      interval = recorder.getIntervalHistogram(interval);
+      latencies.add(interval);
+
+      long errors = this.errors.get();
+      timeline.add(
+          new SimulationReport.Sample(
+              time - epoch,
+              loadBalancer.aperture(),
+              loadBalancer.targetAperture(),
+              interval.getTotalCount(),
+              errors - sampledErrors,
+              interval.getValueAtPercentile(50.0),
+              interval.getValueAtPercentile(99.0)));
+      sampledErrors = errors;
+    }
+  }
+}
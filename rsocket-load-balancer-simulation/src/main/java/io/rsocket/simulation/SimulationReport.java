@@ -0,0 +1,230 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.simulation;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The outcome of a {@link Simulation}: latencies of the successful requests, measured from the time
+ * each request was scheduled, request share of every server and a timeline of the aperture of the
+ * load balancer.
+ */
+public final class SimulationReport {
+
+  private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+  private final String name;
+  private final Histogram latencies;
+  private final long requests;
+  private final long errors;
+  private final Map<String, Long> requestsPerServer;
+  private final List<Sample> timeline;
+
+  SimulationReport(
+      String name,
+      Histogram latencies,
+      long requests,
+      long errors,
+      Map<String, Long> requestsPerServer,
+      List<Sample> timeline) {
+    this.name = name;
+    this.latencies = latencies;
+    this.requests = requests;
+    this.errors = errors;
+    this.requestsPerServer = Collections.unmodifiableMap(requestsPerServer);
+    this.timeline = Collections.unmodifiableList(timeline);
+  }
+
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Latencies of the successful requests in nanoseconds.
+   *
+   * @return the latency histogram
+   */
+  public Histogram latencies() {
+    return latencies;
+  }
+
+  /**
+   * Number of requests sent by the load generator.
+   *
+   * @return the number of requests
+   */
+  public long requests() {
+    return requests;
+  }
+
+  /**
+   * Number of requests that failed or timed out.
+   *
+   * @return the number of errors
+   */
+  public long errors() {
+    return errors;
+  }
+
+  /**
+   * Number of requests received by each server, by name, in the order servers were added.
+   *
+   * @return the requests per server
+   */
+  public Map<String, Long> requestsPerServer() {
+    return requestsPerServer;
+  }
+
+  /**
+   * Samples taken at every sample interval of the simulation.
+   *
+   * @return the timeline
+   */
+  public List<Sample> timeline() {
+    return timeline;
+  }
+
+  /**
+   * Prints a human readable summary of this report.
+   *
+   * @param out the stream to print to
+   */
+  public void print(PrintStream out) {
+    out.printf("==== %s ====%n", name);
+    out.printf("requests=%d errors=%d%n", requests, errors);
+
+    out.print("latency (us):");
+    for (double percentile : PERCENTILES) {
+      out.printf(" p%s=%d", percentile, micros(latencies.getValueAtPercentile(percentile)));
+    }
+    out.printf(" max=%d%n", micros(latencies.getMaxValue()));
+
+    long total = Math.max(1, requestsPerServer.values().stream().mapToLong(Long::longValue).sum());
+    out.println("requests per server:");
+    requestsPerServer.forEach(
+        (server, count) ->
+            out.printf("  %-20s %10d %6.2f%%%n", server, count, 100.0 * count / total));
+
+    out.println("timeline:");
+    out.printf(
+        "  %8s %8s %8s %10s %8s %10s %10s%n",
+        "time(s)", "aperture", "target", "requests", "errors", "p50(us)", "p99(us)");
+    for (Sample sample : timeline) {
+      out.printf(
+          "  %8.1f %8d %8d %10d %8d %10d %10d%n",
+          sample.elapsedNanos() / 1e9,
+          sample.aperture(),
+          sample.targetAperture(),
+          sample.requests(),
+          sample.errors(),
+          micros(sample.p50Nanos()),
+          micros(sample.p99Nanos()));
+    }
+  }
+
+  private static long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+
+  /** The state of the simulation over one sample interval. */
+  public static final class Sample {
+    private final long elapsedNanos;
+    private final int aperture;
+    private final int targetAperture;
+    private final long requests;
+    private final long errors;
+    private final long p50Nanos;
+    private final long p99Nanos;
+
+    Sample(
+        long elapsedNanos,
+        int aperture,
+        int targetAperture,
+        long requests,
+        long errors,
+        long p50Nanos,
+        long p99Nanos) {
+      this.elapsedNanos = elapsedNanos;
+      this.aperture = aperture;
+      this.targetAperture = targetAperture;
+      this.requests = requests;
+      this.errors = errors;
+      this.p50Nanos = p50Nanos;
+      this.p99Nanos = p99Nanos;
+    }
+
+    /** Time since the start of the simulation at the end of the interval. */
+    public long elapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /** Size of the aperture at the end of the interval. */
+    public int aperture() {
+      return aperture;
+    }
+
+    /** Target size of the aperture at the end of the interval. */
+    public int targetAperture() {
+      return targetAperture;
+    }
+
+    /** Number of requests completed successfully during the interval. */
+    public long requests() {
+      return requests;
+    }
+
+    /** Number of requests failed during the interval. */
+    public long errors() {
+      return errors;
+    }
+
+    /** Median latency of the requests completed during the interval. */
+    public long p50Nanos() {
+      return p50Nanos;
+    }
+
+    /** 99th percentile latency of the requests completed during the interval. */
+    public long p99Nanos() {
+      return p99Nanos;
+    }
+
+    @Override
+    public String toString() {
+      return "Sample{"
+          + "elapsedNanos="
+          + elapsedNanos
+          + ", aperture="
+          + aperture
+          + ", targetAperture="
+          + targetAperture
+          + ", requests="
+          + requests
+          + ", errors="
+          + errors
+          + ", p50Nanos="
+          + p50Nanos
+          + ", p99Nanos="
+          + p99Nanos
+          + '}';
+    }
+  }
+}
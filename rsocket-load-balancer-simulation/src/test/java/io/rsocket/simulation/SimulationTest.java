@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.simulation;
+
+import static io.rsocket.simulation.LatencyDistribution.constant;
+import static io.rsocket.simulation.LatencyDistribution.exponential;
+import static io.rsocket.simulation.LatencyDistribution.mixture;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+final class SimulationTest {
+
+  @DisplayName("latency distributions are deterministic for a seed")
+  @Test
+  void latencyDistributionsAreDeterministic() {
+    LatencyDistribution distribution =
+        mixture(exponential(ofMillis(1)), constant(ofMillis(100)), 0.1);
+    Random first = new Random(42);
+    Random second = new Random(42);
+
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(distribution.nextNanos(first)).isEqualTo(distribution.nextNanos(second));
+    }
+  }
+
+  @DisplayName("reports latencies, request shares and aperture")
+  @Test
+  void reportsLatenciesAndShares() {
+    SimulationReport report =
+        new Simulation("test")
+            .server(SimulatedServer.create("simulation-test-0", constant(ofMillis(1))))
+            .server(SimulatedServer.create("simulation-test-1", constant(ofMillis(1))))
+            .server(SimulatedServer.create("simulation-test-2", constant(ofMillis(1))))
+            .requestsPerSecond(500)
+            .duration(ofSeconds(2))
+            .sampleInterval(ofMillis(500))
+            .run();
+
+    assertThat(report.requests()).isGreaterThan(0);
+    assertThat(report.errors()).isZero();
+    assertThat(report.latencies().getTotalCount()).isEqualTo(report.requests());
+    assertThat(report.latencies().getValueAtPercentile(50.0)).isGreaterThanOrEqualTo(1_000_000);
+    assertThat(report.requestsPerServer())
+        .containsOnlyKeys("simulation-test-0", "simulation-test-1", "simulation-test-2");
+    assertThat(report.requestsPerServer().values().stream().mapToLong(Long::longValue).sum())
+        .isEqualTo(report.requests());
+    assertThat(report.timeline()).hasSizeGreaterThanOrEqualTo(4);
+    assertThat(report.timeline().get(0).aperture()).isEqualTo(3);
+  }
+
+  @DisplayName("counts injected failures as errors")
+  @Test
+  void countsInjectedFailures() {
+    SimulatedServer failing =
+        SimulatedServer.create("simulation-failing", constant(ofMillis(1)))
+            .outage(ofSeconds(0), ofSeconds(10));
+    SimulationReport report =
+        new Simulation("failing")
+            .server(failing)
+            .requestsPerSecond(200)
+            .duration(ofSeconds(1))
+            .run();
+
+    assertThat(report.errors()).isEqualTo(report.requests()).isEqualTo(failing.errors());
+    assertThat(report.latencies().getTotalCount()).isZero();
+  }
+}
@@ -0,0 +1,90 @@
+package io.rsocket.client;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.client.filter.RSocketSupplier;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Selections per second of {@link LoadBalancedRSocketMono} with a growing number of threads
+ * selecting concurrently from the same balancer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-XX:+UnlockDiagnosticVMOptions", "-XX:+PrintInlining"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class LoadBalancedRSocketMonoPerf {
+
+  @Param({"3", "32"})
+  int sockets;
+
+  LoadBalancedRSocketMono balancer;
+
+  @Setup
+  public void setup() throws InterruptedException {
+    RSocket rSocket =
+        new AbstractRSocket() {
+          @Override
+          public Mono<Payload> requestResponse(Payload payload) {
+            return Mono.just(payload);
+          }
+        };
+
+    List<RSocketSupplier> suppliers = new ArrayList<>();
+    for (int i = 0; i < sockets; i++) {
+      suppliers.add(new RSocketSupplier(() -> Mono.just(rSocket)));
+    }
+
+    balancer =
+        LoadBalancedRSocketMono.create(
+            Mono.just(suppliers),
+            LoadBalancedRSocketMono.DEFAULT_EXP_FACTOR,
+            LoadBalancedRSocketMono.DEFAULT_LOWER_QUANTILE,
+            LoadBalancedRSocketMono.DEFAULT_HIGHER_QUANTILE,
+            LoadBalancedRSocketMono.DEFAULT_MIN_PENDING,
+            LoadBalancedRSocketMono.DEFAULT_MAX_PENDING,
+            sockets,
+            sockets,
+            LoadBalancedRSocketMono.DEFAULT_MAX_REFRESH_PERIOD_MS);
+
+    while (balancer.availability() < 1.0) {
+      Thread.sleep(1);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    balancer.dispose();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public RSocket select1Thread() {
+    return balancer.block();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public RSocket select8Threads() {
+    return balancer.block();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public RSocket select32Threads() {
+    return balancer.block();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public RSocket select64Threads() {
+    return balancer.block();
+  }
+}
@@ -0,0 +1,148 @@
+package io.rsocket.client;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Payload;
+import io.rsocket.client.filter.RSocketSupplier;
+import io.rsocket.client.strategy.ConsistentHashStrategy;
+import io.rsocket.client.strategy.LeastLoadedStrategy;
+import io.rsocket.client.strategy.PowerOfTwoChoicesStrategy;
+import io.rsocket.client.strategy.WeightedRoundRobinStrategy;
+import io.rsocket.util.DefaultPayload;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Simulates a pool of servers with different latency distributions and compares the latency
+ * percentiles seen by clients with each {@link LoadBalancerStrategy}. Requests carry one of {@code
+ * KEYS} keys in their metadata for the consistent hash strategy.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-XX:+UseG1GC", "-Xms2g", "-Xmx2g"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Threads(16)
+@State(Scope.Benchmark)
+public class LoadBalancerStrategyPerf {
+
+  static final int SERVERS = 8;
+  static final int KEYS = 1024;
+
+  static final long FAST_MICROS = 100;
+  static final long SLOW_MICROS = 2_000;
+
+  @Param({"p2c", "leastLoaded", "roundRobin", "consistentHash"})
+  String strategy;
+
+  /**
+   * {@code uniform}: all servers answer in {@code FAST_MICROS} on average. {@code slowServer}: one
+   * server answers in {@code SLOW_MICROS} on average. {@code bimodal}: 5% of the requests of every
+   * server take {@code SLOW_MICROS} on average.
+   */
+  @Param({"uniform", "slowServer", "bimodal"})
+  String latency;
+
+  LoadBalancedRSocketMono balancer;
+  Payload[] payloads;
+
+  @Setup
+  public void setup() throws InterruptedException {
+    List<RSocketSupplier> suppliers = new ArrayList<>();
+    for (int i = 0; i < SERVERS; i++) {
+      SimulatedRSocket rSocket = new SimulatedRSocket(latency(i));
+      suppliers.add(new RSocketSupplier(() -> Mono.just(rSocket)));
+    }
+
+    balancer =
+        LoadBalancedRSocketMono.create(
+            Mono.just(suppliers),
+            strategy(),
+            LoadBalancedRSocketMono.DEFAULT_LOWER_QUANTILE,
+            LoadBalancedRSocketMono.DEFAULT_HIGHER_QUANTILE,
+            LoadBalancedRSocketMono.DEFAULT_MIN_PENDING,
+            LoadBalancedRSocketMono.DEFAULT_MAX_PENDING,
+            SERVERS,
+            SERVERS,
+            LoadBalancedRSocketMono.DEFAULT_MAX_REFRESH_PERIOD_MS,
+            5,
+            Duration.ofMillis(500),
+            Duration.ofSeconds(5));
+
+    payloads = new Payload[KEYS];
+    for (int i = 0; i < KEYS; i++) {
+      payloads[i] = DefaultPayload.create("data", "key-" + i);
+    }
+
+    while (balancer.availability() < 1.0) {
+      Thread.sleep(1);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    balancer.dispose();
+  }
+
+  @Benchmark
+  public Payload requestResponse() {
+    Payload payload = payloads[ThreadLocalRandom.current().nextInt(KEYS)];
+    return balancer.select(payload).flatMap(rSocket -> rSocket.requestResponse(payload)).block();
+  }
+
+  private LoadBalancerStrategy strategy() {
+    switch (strategy) {
+      case "p2c":
+        return new PowerOfTwoChoicesStrategy();
+      case "leastLoaded":
+        return new LeastLoadedStrategy();
+      case "roundRobin":
+        return new WeightedRoundRobinStrategy();
+      case "consistentHash":
+        return new ConsistentHashStrategy();
+      default:
+        throw new IllegalArgumentException("unknown strategy " + strategy);
+    }
+  }
+
+  private LongSupplier latency(int server) {
+    switch (latency) {
+      case "uniform":
+        return () -> exponential(FAST_MICROS);
+      case "slowServer":
+        return server == 0 ? () -> exponential(SLOW_MICROS) : () -> exponential(FAST_MICROS);
+      case "bimodal":
+        return () ->
+            ThreadLocalRandom.current().nextInt(100) < 5
+                ? exponential(SLOW_MICROS)
+                : exponential(FAST_MICROS);
+      default:
+        throw new IllegalArgumentException("unknown latency " + latency);
+    }
+  }
+
+  static long exponential(long meanMicros) {
+    return (long) (-meanMicros * Math.log(1.0 - ThreadLocalRandom.current().nextDouble()));
+  }
+
+  /** Answers every request with the request payload after a random delay. */
+  static final class SimulatedRSocket extends AbstractRSocket {
+    private final LongSupplier latencyMicros;
+
+    SimulatedRSocket(LongSupplier latencyMicros) {
+      this.latencyMicros = latencyMicros;
+    }
+
+    @Override
+    public Mono<Payload> requestResponse(Payload payload) {
+      return Mono.delay(Duration.ofNanos(latencyMicros.getAsLong() * 1_000)).thenReturn(payload);
+    }
+  }
+}
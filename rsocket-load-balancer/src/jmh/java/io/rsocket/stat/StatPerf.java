@@ -0,0 +1,90 @@
+package io.rsocket.stat;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the throughput of concurrent insertions in the estimators shared by all the requests of
+ * a load balanced socket.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-XX:+UseG1GC", "-Xms2g", "-Xmx2g"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class StatPerf {
+
+  Ewma ewma;
+  FrugalQuantile quantile;
+  Median median;
+
+  @Setup
+  public void setup() {
+    ewma = new Ewma(5, TimeUnit.SECONDS, 0.0);
+    quantile = new FrugalQuantile(0.8);
+    median = new Median();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void ewma1Thread() {
+    ewma.insert(sample());
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void ewma8Threads() {
+    ewma.insert(sample());
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void ewma32Threads() {
+    ewma.insert(sample());
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void quantile1Thread() {
+    quantile.insert(sample());
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void quantile8Threads() {
+    quantile.insert(sample());
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void quantile32Threads() {
+    quantile.insert(sample());
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void median1Thread() {
+    median.insert(sample());
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void median8Threads() {
+    median.insert(sample());
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void median32Threads() {
+    median.insert(sample());
+  }
+
+  /** A latency in microseconds, exponentially distributed around 1ms. */
+  static double sample() {
+    return -1_000 * Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+  }
+}
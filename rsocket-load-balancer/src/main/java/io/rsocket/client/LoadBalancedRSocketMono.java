@@ -18,6 +18,7 @@
 
 import io.rsocket.*;
 import io.rsocket.client.filter.RSocketSupplier;
+import io.rsocket.client.strategy.PowerOfTwoChoicesStrategy;
 import io.rsocket.stat.Ewma;
 import io.rsocket.stat.FrugalQuantile;
 import io.rsocket.stat.Median;
@@ -25,14 +26,16 @@
 import io.rsocket.util.Clock;
 import java.nio.channels.ClosedChannelException;
 import java.time.Duration;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
@@ -42,17 +45,24 @@
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.MonoProcessor;
+import reactor.util.annotation.Nullable;
 
 /**
  * An implementation of {@link Mono} that load balances across a pool of RSockets and emits one when
  * it is subscribed to
  *
- * <p>It estimates the load of each RSocket based on statistics collected.
+ * <p>It estimates the load of each RSocket based on statistics collected, and lets a {@link
+ * LoadBalancerStrategy} select one of them, {@link PowerOfTwoChoicesStrategy} by default.
+ *
+ * <p>Selection does not lock: it reads an immutable snapshot of the active RSockets that is
+ * replaced whenever one is added or removed, and the per-RSocket statistics are kept in atomics.
+ * Only the maintenance of the aperture, run at most once per millisecond by a single thread,
+ * synchronizes on the balancer.
  */
 public abstract class LoadBalancedRSocketMono extends Mono<RSocket>
     implements Availability, Closeable {
 
-  public static final double DEFAULT_EXP_FACTOR = 4.0;
+  public static final double DEFAULT_EXP_FACTOR = PowerOfTwoChoicesStrategy.DEFAULT_EXP_FACTOR;
   public static final double DEFAULT_LOWER_QUANTILE = 0.2;
   public static final double DEFAULT_HIGHER_QUANTILE = 0.8;
   public static final double DEFAULT_MIN_PENDING = 1.0;
@@ -63,7 +73,7 @@ public abstract class LoadBalancedRSocketMono extends Mono<RSocket>
       TimeUnit.MILLISECONDS.convert(5, TimeUnit.MINUTES);
   private static final Logger logger = LoggerFactory.getLogger(LoadBalancedRSocketMono.class);
   private static final long APERTURE_REFRESH_PERIOD = Clock.unit().convert(15, TimeUnit.SECONDS);
-  private static final int EFFORT = 5;
+  private static final long MAINTENANCE_PERIOD = Clock.unit().convert(1, TimeUnit.MILLISECONDS);
   private static final long DEFAULT_INITIAL_INTER_ARRIVAL_TIME =
       Clock.unit().convert(1L, TimeUnit.SECONDS);
   private static final int DEFAULT_INTER_ARRIVAL_FACTOR = 500;
@@ -75,13 +85,13 @@ public abstract class LoadBalancedRSocketMono extends Mono<RSocket>
   private final int minAperture;
   private final int maxAperture;
   private final long maxRefreshPeriod;
-  private final double expFactor;
+  private final LoadBalancerStrategy strategy;
   private final Quantile lowerQuantile;
   private final Quantile higherQuantile;
-  private final ArrayList<WeightedSocket> activeSockets;
   private final Ewma pendings;
   private final MonoProcessor<Void> onClose = MonoProcessor.create();
   private final RSocketSupplierPool pool;
+  private final AtomicLong nextMaintenance;
   private final long weightedSocketRetries;
   private final Duration weightedSocketBackOff;
   private final Duration weightedSocketMaxBackOff;
@@ -90,11 +100,11 @@ public abstract class LoadBalancedRSocketMono extends Mono<RSocket>
   private long refreshPeriod;
   private int pendingSockets;
   private volatile long lastRefresh;
+  private volatile List<WeightedSocket> activeSockets;
 
   /**
    * @param factories the source (factories) of RSocket
-   * @param expFactor how aggressive is the algorithm toward outliers. A higher number means we send
-   *     aggressively less traffic to a server slightly slower.
+   * @param strategy selects the RSocket of the aperture serving a request
    * @param lowQuantile the lower bound of the latency band of acceptable values. Any server below
    *     that value will be aggressively favored.
    * @param highQuantile the higher bound of the latency band of acceptable values. Any server above
@@ -115,7 +125,7 @@ public abstract class LoadBalancedRSocketMono extends Mono<RSocket>
    */
   private LoadBalancedRSocketMono(
       Publisher<? extends Collection<RSocketSupplier>> factories,
-      double expFactor,
+      LoadBalancerStrategy strategy,
       double lowQuantile,
       double highQuantile,
       double minPendings,
@@ -129,11 +139,11 @@ private LoadBalancedRSocketMono(
     this.weightedSocketRetries = weightedSocketRetries;
     this.weightedSocketBackOff = weightedSocketBackOff;
     this.weightedSocketMaxBackOff = weightedSocketMaxBackOff;
-    this.expFactor = expFactor;
+    this.strategy = Objects.requireNonNull(strategy, "strategy must not be null");
     this.lowerQuantile = new FrugalQuantile(lowQuantile);
     this.higherQuantile = new FrugalQuantile(highQuantile);
 
-    this.activeSockets = new ArrayList<>();
+    this.activeSockets = Collections.emptyList();
     this.pendingSockets = 0;
 
     this.minPendings = minPendings;
@@ -148,10 +158,11 @@ private LoadBalancedRSocketMono(
     this.lastApertureRefresh = Clock.now();
     this.refreshPeriod = Clock.unit().convert(15L, TimeUnit.SECONDS);
     this.lastRefresh = Clock.now();
+    this.nextMaintenance = new AtomicLong(lastRefresh + MAINTENANCE_PERIOD);
     this.pool = new RSocketSupplierPool(factories);
     refreshSockets();
 
-    rSocketMono = Mono.fromSupplier(this::select);
+    rSocketMono = Mono.fromSupplier(() -> selectSocket(null));
 
     onClose.doFinally(signalType -> pool.dispose()).subscribe();
   }
@@ -170,6 +181,63 @@ public static LoadBalancedRSocketMono create(
         DEFAULT_MAX_REFRESH_PERIOD_MS);
   }
 
+  /**
+   * Creates a load balancer selecting RSockets with {@code strategy} and the default settings.
+   *
+   * @param factories the source (factories) of RSocket
+   * @param strategy selects the RSocket of the aperture serving a request
+   * @return a new load balancer
+   */
+  public static LoadBalancedRSocketMono create(
+      Publisher<? extends Collection<RSocketSupplier>> factories, LoadBalancerStrategy strategy) {
+    return create(
+        factories,
+        strategy,
+        DEFAULT_LOWER_QUANTILE,
+        DEFAULT_HIGHER_QUANTILE,
+        DEFAULT_MIN_PENDING,
+        DEFAULT_MAX_PENDING,
+        DEFAULT_MIN_APERTURE,
+        DEFAULT_MAX_APERTURE,
+        DEFAULT_MAX_REFRESH_PERIOD_MS,
+        5,
+        Duration.ofMillis(500),
+        Duration.ofSeconds(5));
+  }
+
+  public static LoadBalancedRSocketMono create(
+      Publisher<? extends Collection<RSocketSupplier>> factories,
+      LoadBalancerStrategy strategy,
+      double lowQuantile,
+      double highQuantile,
+      double minPendings,
+      double maxPendings,
+      int minAperture,
+      int maxAperture,
+      long maxRefreshPeriodMs,
+      long weightedSocketRetries,
+      Duration weightedSocketBackOff,
+      Duration weightedSocketMaxBackOff) {
+    return new LoadBalancedRSocketMono(
+        factories,
+        strategy,
+        lowQuantile,
+        highQuantile,
+        minPendings,
+        maxPendings,
+        minAperture,
+        maxAperture,
+        maxRefreshPeriodMs,
+        weightedSocketRetries,
+        weightedSocketBackOff,
+        weightedSocketMaxBackOff) {
+      @Override
+      public void subscribe(CoreSubscriber<? super RSocket> s) {
+        rSocketMono.subscribe(s);
+      }
+    };
+  }
+
   public static LoadBalancedRSocketMono create(
       Publisher<? extends Collection<RSocketSupplier>> factories,
       double expFactor,
@@ -185,7 +253,7 @@ public static LoadBalancedRSocketMono create(
       Duration weightedSocketMaxBackOff) {
     return new LoadBalancedRSocketMono(
         factories,
-        expFactor,
+        new PowerOfTwoChoicesStrategy(expFactor, PowerOfTwoChoicesStrategy.DEFAULT_EFFORT),
         lowQuantile,
         highQuantile,
         minPendings,
@@ -215,7 +283,7 @@ public static LoadBalancedRSocketMono create(
       long maxRefreshPeriodMs) {
     return new LoadBalancedRSocketMono(
         factories,
-        expFactor,
+        new PowerOfTwoChoicesStrategy(expFactor, PowerOfTwoChoicesStrategy.DEFAULT_EFFORT),
         lowQuantile,
         highQuantile,
         minPendings,
@@ -247,7 +315,7 @@ private synchronized void refreshSockets() {
           targetAperture,
           targetAperture - n);
       addSockets(targetAperture - n);
-    } else if (targetAperture < activeSockets.size()) {
+    } else if (targetAperture < n) {
       logger.debug("aperture {} is above target {}, quicking 1 socket", n, targetAperture);
       quickSlowestRS();
     }
@@ -279,28 +347,63 @@ private synchronized void addSockets(int numberOfNewSocket) {
       if (optional.isPresent()) {
         RSocketSupplier supplier = optional.get();
         WeightedSocket socket = new WeightedSocket(supplier, lowerQuantile, higherQuantile);
-        activeSockets.add(socket);
+        addSocket(socket);
       } else {
         break;
       }
     }
   }
 
+  /**
+   * Runs {@link #refreshSockets()} if it has not run for {@code MAINTENANCE_PERIOD}. Only the
+   * thread that claims the next period does it, other threads return without blocking.
+   */
+  private void maybeRefreshSockets() {
+    long next = nextMaintenance.get();
+    long now = Clock.now();
+    if (now >= next && nextMaintenance.compareAndSet(next, now + MAINTENANCE_PERIOD)) {
+      refreshSockets();
+    }
+  }
+
+  /** Must be called while holding the lock. */
+  private void addSocket(WeightedSocket socket) {
+    WeightedSocket[] sockets = activeSockets.toArray(new WeightedSocket[activeSockets.size() + 1]);
+    sockets[sockets.length - 1] = socket;
+    activeSockets = Collections.unmodifiableList(Arrays.asList(sockets));
+  }
+
+  private synchronized boolean removeSocket(WeightedSocket socket) {
+    List<WeightedSocket> sockets = activeSockets;
+    for (int i = 0; i < sockets.size(); i++) {
+      if (sockets.get(i) == socket) {
+        WeightedSocket[] newSockets = new WeightedSocket[sockets.size() - 1];
+        for (int j = 0; j < newSockets.length; j++) {
+          newSockets[j] = sockets.get(j < i ? j : j + 1);
+        }
+        activeSockets = Collections.unmodifiableList(Arrays.asList(newSockets));
+        return true;
+      }
+    }
+    return false;
+  }
+
   private synchronized void refreshAperture() {
-    int n = activeSockets.size();
+    List<WeightedSocket> sockets = activeSockets;
+    int n = sockets.size();
     if (n == 0) {
       return;
     }
 
     double p = 0.0;
-    for (WeightedSocket wrs : activeSockets) {
+    for (WeightedSocket wrs : sockets) {
       p += wrs.getPending();
     }
     p /= n + pendingSockets;
-    pendings.insert(p);
+    long now = Clock.now();
+    pendings.insert(p, now);
     double avgPending = pendings.value();
 
-    long now = Clock.now();
     boolean underRateLimit = now - lastApertureRefresh > APERTURE_REFRESH_PERIOD;
     if (avgPending < 1.0 && underRateLimit) {
       updateAperture(targetAperture - 1, now);
@@ -334,20 +437,21 @@ private void updateAperture(int newValue, long now) {
   }
 
   private synchronized void quickSlowestRS() {
-    if (activeSockets.size() <= 1) {
+    List<WeightedSocket> sockets = activeSockets;
+    if (sockets.size() <= 1) {
       return;
     }
 
     WeightedSocket slowest = null;
     double lowestAvailability = Double.MAX_VALUE;
-    for (WeightedSocket socket : activeSockets) {
+    for (WeightedSocket socket : sockets) {
       double load = socket.availability();
       if (load == 0.0) {
         slowest = socket;
         break;
       }
-      if (socket.getPredictedLatency() != 0) {
-        load *= 1.0 / socket.getPredictedLatency();
+      if (socket.predictedLatency() != 0) {
+        load *= 1.0 / socket.predictedLatency();
       }
       if (load < lowestAvailability) {
         lowestAvailability = load;
@@ -356,89 +460,112 @@ private synchronized void quickSlowestRS() {
     }
 
     if (slowest != null) {
-      activeSockets.remove(slowest);
+      removeSocket(slowest);
     }
   }
 
   @Override
-  public synchronized double availability() {
+  public double availability() {
+    List<WeightedSocket> sockets = activeSockets;
     double currentAvailability = 0.0;
-    if (!activeSockets.isEmpty()) {
-      for (WeightedSocket rs : activeSockets) {
+    if (!sockets.isEmpty()) {
+      for (WeightedSocket rs : sockets) {
         currentAvailability += rs.availability();
       }
-      currentAvailability /= activeSockets.size();
+      currentAvailability /= sockets.size();
     }
 
     return currentAvailability;
   }
 
-  private synchronized RSocket select() {
+  /**
+   * Returns a {@link Mono} that emits the RSocket selected for {@code payload} when subscribed to.
+   * Unlike subscribing to this load balancer directly, this gives strategies routing by key, such
+   * as {@link io.rsocket.client.strategy.ConsistentHashStrategy}, access to the request.
+   *
+   * @param payload the payload of the request that will be sent to the RSocket
+   * @return a {@link Mono} emitting the selected RSocket
+   */
+  public Mono<RSocket> select(Payload payload) {
+    Objects.requireNonNull(payload, "payload must not be null");
+    return Mono.fromSupplier(() -> selectSocket(payload));
+  }
+
+  private RSocket selectSocket(@Nullable Payload payload) {
     if (activeSockets.isEmpty()) {
       return FAILING_REACTIVE_SOCKET;
     }
-    refreshSockets();
+    maybeRefreshSockets();
 
-    int size = activeSockets.size();
-    if (size == 1) {
-      return activeSockets.get(0);
+    List<WeightedSocket> sockets = activeSockets;
+    if (sockets.isEmpty()) {
+      return FAILING_REACTIVE_SOCKET;
     }
 
-    WeightedSocket rsc1 = null;
-    WeightedSocket rsc2 = null;
-
-    Random rng = ThreadLocalRandom.current();
-    for (int i = 0; i < EFFORT; i++) {
-      int i1 = rng.nextInt(size);
-      int i2 = rng.nextInt(size - 1);
-      if (i2 >= i1) {
-        i2++;
-      }
-      rsc1 = activeSockets.get(i1);
-      rsc2 = activeSockets.get(i2);
-      if (rsc1.availability() > 0.0 && rsc2.availability() > 0.0) {
-        break;
-      }
-      if (i + 1 == EFFORT && !pool.isPoolEmpty()) {
-        addSockets(1);
-      }
+    WeightedSocket selected = strategy.select(sockets, payload);
+    if ((selected == null || selected.availability() == 0.0) && !pool.isPoolEmpty()) {
+      addSockets(1);
     }
+    return selected != null ? selected : FAILING_REACTIVE_SOCKET;
+  }
 
-    double w1 = algorithmicWeight(rsc1);
-    double w2 = algorithmicWeight(rsc2);
-    if (w1 < w2) {
-      return rsc2;
-    } else {
-      return rsc1;
-    }
+  /**
+   * Returns a {@link Mono} that emits an RSocket other than {@code excluded} for {@code payload},
+   * for sending a second copy of a request that {@code excluded} is slow to answer. When the
+   * strategy selects {@code excluded} anyway, as a consistent hash does, the least loaded of the
+   * other available RSockets is emitted instead.
+   *
+   * @param payload the payload of the request that will be sent to the RSocket
+   * @param excluded the RSocket already serving the request
+   * @return a {@link Mono} emitting the selected RSocket, or completing empty if no other RSocket
+   *     is available
+   */
+  public Mono<RSocket> selectOther(Payload payload, RSocket excluded) {
+    Objects.requireNonNull(payload, "payload must not be null");
+    Objects.requireNonNull(excluded, "excluded must not be null");
+    return Mono.fromSupplier(() -> selectOtherSocket(payload, excluded));
   }
 
-  private double algorithmicWeight(WeightedSocket socket) {
-    if (socket == null || socket.availability() == 0.0) {
-      return 0.0;
+  @Nullable
+  private RSocket selectOtherSocket(Payload payload, RSocket excluded) {
+    List<WeightedSocket> sockets = activeSockets;
+    if (sockets.isEmpty()) {
+      return null;
     }
 
-    int pendings = socket.getPending();
-    double latency = socket.getPredictedLatency();
-
-    double low = lowerQuantile.estimation();
-    double high =
-        Math.max(
-            higherQuantile.estimation(),
-            low * 1.001); // ensure higherQuantile > lowerQuantile + .1%
-    double bandWidth = Math.max(high - low, 1);
+    WeightedSocket selected = strategy.select(sockets, payload);
+    if (selected != null && selected != excluded && selected.availability() > 0.0) {
+      return selected;
+    }
 
-    if (latency < low) {
-      double alpha = (low - latency) / bandWidth;
-      double bonusFactor = Math.pow(1 + alpha, expFactor);
-      latency /= bonusFactor;
-    } else if (latency > high) {
-      double alpha = (latency - high) / bandWidth;
-      double penaltyFactor = Math.pow(1 + alpha, expFactor);
-      latency *= penaltyFactor;
+    WeightedSocket leastLoaded = null;
+    for (WeightedSocket socket : sockets) {
+      if (socket != excluded
+          && socket.availability() > 0.0
+          && (leastLoaded == null || socket.pending() < leastLoaded.pending())) {
+        leastLoaded = socket;
+      }
     }
+    return leastLoaded;
+  }
 
-    return socket.availability() * 1.0 / (1.0 + latency * (pendings + 1));
+  /**
+   * Number of RSockets currently in the aperture.
+   *
+   * @return the size of the aperture
+   */
+  public int aperture() {
+    return activeSockets.size();
+  }
+
+  /**
+   * Number of RSockets the aperture is adjusted toward, based on the average number of pending
+   * requests per RSocket.
+   *
+   * @return the target size of the aperture
+   */
+  public int targetAperture() {
+    return targetAperture;
   }
 
   @Override
@@ -451,6 +578,8 @@ public synchronized String toString() {
         + pendings.value()
         + ", targetAperture="
         + targetAperture
+        + ", strategy="
+        + strategy
         + ", band=["
         + lowerQuantile.estimation()
         + ", "
@@ -460,9 +589,12 @@ public synchronized String toString() {
 
   @Override
   public void dispose() {
-    synchronized (this) {;
-      activeSockets.forEach(WeightedSocket::dispose);
-      activeSockets.clear();
+    synchronized (this) {
+      List<WeightedSocket> sockets = activeSockets;
+      activeSockets = Collections.emptyList();
+      for (WeightedSocket socket : sockets) {
+        socket.dispose();
+      }
       onClose.onComplete();
     }
   }
@@ -531,6 +663,35 @@ public Mono<Void> onClose() {
     }
   }
 
+  /**
+   * Immutable view of the outstanding requests of a {@link WeightedSocket}, replaced atomically on
+   * every request and response so that readers always see consistent values.
+   */
+  private static final class SocketLoad {
+    final int pending; // instantaneous rate
+    final long duration; // instantaneous cumulative duration
+    final long stamp0; // last timestamp we sent a request or receive a response
+
+    SocketLoad(int pending, long duration, long stamp0) {
+      this.pending = pending;
+      this.duration = duration;
+      this.stamp0 = stamp0;
+    }
+
+    SocketLoad incr(long now) {
+      return new SocketLoad(pending + 1, duration + Math.max(0, now - stamp0) * pending, now);
+    }
+
+    SocketLoad decr(long now, long timestamp) {
+      return new SocketLoad(
+          pending - 1, duration + Math.max(0, now - stamp0) * pending - (now - timestamp), now);
+    }
+
+    long instantaneous(long now) {
+      return duration + (now - stamp0) * pending;
+    }
+  }
+
   /**
    * Wrapper of a RSocket, it computes statistics about the req/resp calls and update availability
    * accordingly.
@@ -542,10 +703,9 @@ private class WeightedSocket extends AbstractRSocket implements LoadBalancerSock
     private final Quantile higherQuantile;
     private final long inactivityFactor;
     private final MonoProcessor<RSocket> rSocketMono;
-    private volatile int pending; // instantaneous rate
-    private long stamp; // last timestamp we sent a request
-    private long stamp0; // last timestamp we sent a request or receive a response
-    private long duration; // instantaneous cumulative duration
+    private final AtomicReference<SocketLoad> load;
+    private final AtomicLong stamp; // last timestamp we sent a request
+    private final Object serverIdentity;
 
     private Median median;
     private Ewma interArrivalTime;
@@ -560,14 +720,13 @@ private class WeightedSocket extends AbstractRSocket implements LoadBalancerSock
         Quantile higherQuantile,
         int inactivityFactor) {
       this.rSocketMono = MonoProcessor.create();
+      this.serverIdentity = factory.identity();
       this.lowerQuantile = lowerQuantile;
       this.higherQuantile = higherQuantile;
       this.inactivityFactor = inactivityFactor;
       long now = Clock.now();
-      this.stamp = now;
-      this.stamp0 = now;
-      this.duration = 0L;
-      this.pending = 0;
+      this.stamp = new AtomicLong(now);
+      this.load = new AtomicReference<>(new SocketLoad(0, 0L, now));
       this.median = new Median();
       this.interArrivalTime = new Ewma(1, TimeUnit.MINUTES, DEFAULT_INITIAL_INTER_ARRIVAL_TIME);
       this.pendingStreams = new AtomicLong();
@@ -577,7 +736,7 @@ private class WeightedSocket extends AbstractRSocket implements LoadBalancerSock
           .doFinally(
               s -> {
                 pool.accept(factory);
-                activeSockets.remove(WeightedSocket.this);
+                removeSocket(WeightedSocket.this);
                 refreshSockets();
               })
           .subscribe();
@@ -701,9 +860,12 @@ public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
           });
     }
 
-    synchronized double getPredictedLatency() {
+    @Override
+    public double predictedLatency() {
+      SocketLoad load = this.load.get();
+      int pending = load.pending;
       long now = Clock.now();
-      long elapsed = Math.max(now - stamp, 1L);
+      long elapsed = Math.max(now - stamp.get(), 1L);
 
       double weight;
       double prediction = median.estimation();
@@ -722,7 +884,7 @@ synchronized double getPredictedLatency() {
         weight = median.estimation();
       } else {
         double predicted = prediction * pending;
-        double instant = instantaneous(now);
+        double instant = load.instantaneous(now);
 
         if (predicted < instant) { // NB: (0.0 < 0.0) == false
           weight = instant / pending; // NB: pending never equal 0 here
@@ -736,32 +898,23 @@ synchronized double getPredictedLatency() {
     }
 
     int getPending() {
-      return pending;
-    }
-
-    private synchronized long instantaneous(long now) {
-      return duration + (now - stamp0) * pending;
+      return load.get().pending;
     }
 
-    private synchronized long incr() {
+    private long incr() {
       long now = Clock.now();
-      interArrivalTime.insert(now - stamp);
-      duration += Math.max(0, now - stamp0) * pending;
-      pending += 1;
-      stamp = now;
-      stamp0 = now;
+      interArrivalTime.insert(now - stamp.getAndSet(now), now);
+      load.getAndUpdate(l -> l.incr(now));
       return now;
     }
 
-    private synchronized long decr(long timestamp) {
+    private long decr(long timestamp) {
       long now = Clock.now();
-      duration += Math.max(0, now - stamp0) * pending - (now - timestamp);
-      pending -= 1;
-      stamp0 = now;
+      load.getAndUpdate(l -> l.decr(now, timestamp));
       return now;
     }
 
-    private synchronized void observe(double rtt) {
+    private void observe(double rtt) {
       median.insert(rtt);
       lowerQuantile.insert(rtt);
       higherQuantile.insert(rtt);
@@ -774,6 +927,8 @@ public double availability() {
 
     @Override
     public String toString() {
+      SocketLoad load = this.load.get();
+      int pending = load.pending;
       return "WeightedSocket("
           + "median="
           + median.estimation()
@@ -784,7 +939,7 @@ public String toString() {
           + " inter-arrival="
           + interArrivalTime.value()
           + " duration/pending="
-          + (pending == 0 ? 0 : (double) duration / pending)
+          + (pending == 0 ? 0 : (double) load.duration / pending)
           + " pending="
           + pending
           + " availability= "
@@ -814,12 +969,17 @@ public double interArrivalTime() {
 
     @Override
     public int pending() {
-      return pending;
+      return load.get().pending;
+    }
+
+    @Override
+    public Object serverIdentity() {
+      return serverIdentity;
     }
 
     @Override
     public long lastTimeUsedMillis() {
-      return stamp0;
+      return load.get().stamp0;
     }
 
     /**
@@ -915,7 +1075,7 @@ public void onError(Throwable t) {
         socket.pendingStreams.decrementAndGet();
         child.onError(t);
         if (t instanceof TransportException || t instanceof ClosedChannelException) {
-          activeSockets.remove(socket);
+          removeSocket(socket);
           refreshSockets();
         }
       }
@@ -43,6 +43,27 @@ public interface LoadBalancerSocketMetrics extends Availability {
    */
   double higherQuantileLatency();
 
+  /**
+   * Latency expected for the next request, taking into account the requests currently pending.
+   *
+   * @return Predicted latency.
+   */
+  default double predictedLatency() {
+    return medianLatency();
+  }
+
+  /**
+   * Identifies the server behind this socket, the same for every socket connected to it. Strategies
+   * routing by key hash it, so that a key keeps going to the same server after a reconnection. For
+   * keys to map to the same server in every client, its {@code hashCode()} must be the same in
+   * every process, as that of a {@link String} is.
+   *
+   * @return the identity of the server, by default this socket
+   */
+  default Object serverIdentity() {
+    return this;
+  }
+
   /**
    * An exponentially weighted moving average value of the time between two requests.
    *
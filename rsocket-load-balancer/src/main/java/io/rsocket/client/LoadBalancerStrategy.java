@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.client;
+
+import io.rsocket.Payload;
+import java.util.List;
+import reactor.util.annotation.Nullable;
+
+/**
+ * A contract for choosing which socket of the aperture of a {@link LoadBalancedRSocketMono} serves
+ * a request. Implementations are called concurrently from many threads and must not block.
+ *
+ * @see io.rsocket.client.strategy
+ */
+public interface LoadBalancerStrategy {
+
+  /**
+   * Selects one of {@code sockets}.
+   *
+   * @param sockets the sockets in the aperture, never empty. The list is immutable and the same
+   *     instance is passed until a socket is added or removed.
+   * @param payload the payload of the request, or {@code null} if the socket is selected without a
+   *     request
+   * @param <T> the type of the sockets
+   * @return the selected socket, or {@code null} if none can serve the request
+   */
+  @Nullable
+  <T extends LoadBalancerSocketMetrics> T select(List<T> sockets, @Nullable Payload payload);
+}
@@ -33,6 +33,14 @@
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+/**
+ * Sends a backup of a request-response to the same RSocket when it has not answered within a
+ * quantile of the observed latencies.
+ *
+ * @deprecated use {@link HedgingRSocket}, which hedges request-streams too, sends the backup to a
+ *     different RSocket of a load balancer and caps backups with a {@link HedgeBudget}
+ */
+@Deprecated
 public class BackupRequestSocket implements RSocket {
   private final ScheduledExecutorService executor;
   private final RSocket child;
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.client.filter;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Caps the number of hedged requests to a fraction of the traffic, so that hedging does not double
+ * the load of servers that are already slow. Every request deposits {@code ratio} of a token and
+ * every hedged request withdraws a whole token; the balance never exceeds {@code maxBalance}
+ * tokens, which bounds bursts of hedged requests after a quiet period.
+ *
+ * <p>A budget may be shared by several {@link HedgingRSocket}s to cap them together.
+ */
+public final class HedgeBudget {
+  public static final double DEFAULT_RATIO = 0.05;
+  public static final int DEFAULT_MAX_BALANCE = 100;
+
+  private static final AtomicLongFieldUpdater<HedgeBudget> BALANCE =
+      AtomicLongFieldUpdater.newUpdater(HedgeBudget.class, "balance");
+
+  /** Tokens are counted in thousandths. */
+  private static final long TOKEN = 1_000;
+
+  private final double ratio;
+  private final long deposit;
+  private final long maxBalance;
+
+  private volatile long balance;
+
+  public HedgeBudget() {
+    this(DEFAULT_RATIO, DEFAULT_MAX_BALANCE);
+  }
+
+  /**
+   * @param ratio the fraction of requests that may be hedged, between {@code 0.0} and {@code 1.0}
+   * @param maxBalance the maximum number of hedged requests that may be saved up
+   */
+  public HedgeBudget(double ratio, int maxBalance) {
+    if (ratio < 0.0 || ratio > 1.0) {
+      throw new IllegalArgumentException("ratio must be between 0.0 and 1.0");
+    }
+    if (maxBalance < 0) {
+      throw new IllegalArgumentException("maxBalance must not be negative");
+    }
+
+    this.ratio = ratio;
+    this.deposit = Math.round(ratio * TOKEN);
+    this.maxBalance = maxBalance * TOKEN;
+  }
+
+  /** Records a request, earning part of a hedged request. */
+  public void deposit() {
+    for (; ; ) {
+      long balance = this.balance;
+      if (balance >= maxBalance) {
+        return;
+      }
+
+      if (BALANCE.compareAndSet(this, balance, Math.min(maxBalance, balance + deposit))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Withdraws a hedged request from the budget.
+   *
+   * @return {@code true} if the request may be hedged, {@code false} if the budget is exhausted
+   */
+  public boolean tryWithdraw() {
+    for (; ; ) {
+      long balance = this.balance;
+      if (balance < TOKEN) {
+        return false;
+      }
+
+      if (BALANCE.compareAndSet(this, balance, balance - TOKEN)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Number of hedged requests currently available.
+   *
+   * @return the balance of the budget, in requests
+   */
+  public double balance() {
+    return (double) balance / TOKEN;
+  }
+
+  @Override
+  public String toString() {
+    return "HedgeBudget(ratio=" + ratio + ", balance=" + balance() + ")";
+  }
+}
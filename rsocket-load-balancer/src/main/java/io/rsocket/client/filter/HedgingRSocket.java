@@ -0,0 +1,292 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.client.filter;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.rsocket.Availability;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.client.LoadBalancedRSocketMono;
+import io.rsocket.stat.FrugalQuantile;
+import io.rsocket.stat.Quantile;
+import io.rsocket.util.Clock;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Sends a second copy of a request, a hedged request, when the first one has not answered within
+ * a quantile of the observed latencies, and keeps the answer that arrives first. The slower of the
+ * two requests is cancelled as soon as the other emits.
+ *
+ * <p>In front of a {@link LoadBalancedRSocketMono} the hedged request goes to a different RSocket
+ * than the first one. Hedged requests are capped by a {@link HedgeBudget}, so that a partial outage
+ * does not double the load of the remaining servers. Delays are tracked by a timer wheel shared by
+ * all instances, hedged requests are sent from {@link Schedulers#parallel()} so that selecting and
+ * sending them never holds up the timer thread.
+ *
+ * <p>Only request-response and request-stream are hedged, a stream until its first element. The
+ * payload is retained for the hedged request and released once it is sent or no longer needed.
+ */
+public class HedgingRSocket implements RSocket {
+  public static final double DEFAULT_QUANTILE = 0.95;
+
+  private static final Timer SHARED_TIMER =
+      new HashedWheelTimer(
+          new DefaultThreadFactory("rsocket-hedging", true), 1, TimeUnit.MILLISECONDS);
+
+  private static final AtomicIntegerFieldUpdater<Hedge> SECOND =
+      AtomicIntegerFieldUpdater.newUpdater(Hedge.class, "second");
+
+  private final Mono<RSocket> anyRSocket;
+  private final Function<Payload, Mono<RSocket>> selector;
+  private final BiFunction<Payload, RSocket, Mono<RSocket>> otherSelector;
+  private final Availability availability;
+  private final Closeable closeable;
+  private final Quantile latency;
+  private final HedgeBudget budget;
+  private final Timer timer;
+  private final Scheduler scheduler;
+
+  public HedgingRSocket(LoadBalancedRSocketMono balancer) {
+    this(balancer, DEFAULT_QUANTILE, new HedgeBudget());
+  }
+
+  /**
+   * @param balancer the load balancer selecting the RSockets of both requests
+   * @param quantile the quantile of the latency after which a request is hedged
+   * @param budget the budget of hedged requests
+   */
+  public HedgingRSocket(LoadBalancedRSocketMono balancer, double quantile, HedgeBudget budget) {
+    this(
+        balancer,
+        balancer::select,
+        balancer::selectOther,
+        balancer,
+        balancer,
+        quantile,
+        budget,
+        SHARED_TIMER,
+        Schedulers.parallel());
+  }
+
+  /**
+   * @param child the RSocket receiving both requests
+   * @param quantile the quantile of the latency after which a request is hedged
+   * @param budget the budget of hedged requests
+   */
+  public HedgingRSocket(RSocket child, double quantile, HedgeBudget budget) {
+    this(
+        Mono.just(child),
+        payload -> Mono.just(child),
+        (payload, excluded) -> Mono.just(child),
+        child,
+        child,
+        quantile,
+        budget,
+        SHARED_TIMER,
+        Schedulers.parallel());
+  }
+
+  HedgingRSocket(
+      Mono<RSocket> anyRSocket,
+      Function<Payload, Mono<RSocket>> selector,
+      BiFunction<Payload, RSocket, Mono<RSocket>> otherSelector,
+      Availability availability,
+      Closeable closeable,
+      double quantile,
+      HedgeBudget budget,
+      Timer timer,
+      Scheduler scheduler) {
+    this.anyRSocket = anyRSocket;
+    this.selector = selector;
+    this.otherSelector = otherSelector;
+    this.availability = availability;
+    this.closeable = closeable;
+    this.latency = new FrugalQuantile(quantile);
+    this.budget = Objects.requireNonNull(budget, "budget must not be null");
+    this.timer = timer;
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  public Mono<Void> fireAndForget(Payload payload) {
+    return selector.apply(payload).flatMap(rSocket -> rSocket.fireAndForget(payload));
+  }
+
+  @Override
+  public Mono<Payload> requestResponse(Payload payload) {
+    return hedge(payload, RSocket::requestResponse).next();
+  }
+
+  @Override
+  public Flux<Payload> requestStream(Payload payload) {
+    return hedge(payload, RSocket::requestStream);
+  }
+
+  @Override
+  public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+    // the payloads of a channel cannot be replayed to a second RSocket
+    return anyRSocket.flatMapMany(rSocket -> rSocket.requestChannel(payloads));
+  }
+
+  @Override
+  public Mono<Void> metadataPush(Payload payload) {
+    return selector.apply(payload).flatMap(rSocket -> rSocket.metadataPush(payload));
+  }
+
+  @Override
+  public double availability() {
+    return availability.availability();
+  }
+
+  @Override
+  public void dispose() {
+    closeable.dispose();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return closeable.isDisposed();
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return closeable.onClose();
+  }
+
+  @Override
+  public String toString() {
+    return "HedgingRSocket(q=" + latency + ", budget=" + budget + ")";
+  }
+
+  private Flux<Payload> hedge(
+      Payload payload, BiFunction<RSocket, Payload, Publisher<Payload>> request) {
+    return Flux.defer(
+        () -> {
+          budget.deposit();
+          Hedge hedge = new Hedge(payload, request);
+          long delay = (long) latency.estimation();
+          if (delay <= 0) {
+            return hedge.first().doOnNext(hedge);
+          }
+
+          payload.retain();
+          // the delay completes on the timer thread, the hedged request is sent from the scheduler
+          Flux<Payload> second =
+              delay(delay).publishOn(scheduler).thenMany(Flux.defer(hedge::second));
+          return Flux.first(hedge.first(), second)
+              .doOnNext(hedge)
+              .doFinally(signalType -> hedge.cancelSecond());
+        });
+  }
+
+  private Mono<Void> delay(long delay) {
+    return Mono.create(
+        sink -> {
+          Timeout timeout = timer.newTimeout(t -> sink.success(), delay, Clock.unit());
+          sink.onCancel(timeout::cancel);
+        });
+  }
+
+  /** The state of a hedged request, records the latency of its first element. */
+  private final class Hedge implements Consumer<Payload> {
+    private static final int PENDING = 0;
+    private static final int SENT = 1;
+    private static final int CANCELLED = 2;
+
+    private final Payload payload;
+    private final BiFunction<RSocket, Payload, Publisher<Payload>> request;
+    private final long start;
+
+    @Nullable private volatile RSocket firstRSocket;
+    volatile int second;
+    private boolean received;
+
+    Hedge(Payload payload, BiFunction<RSocket, Payload, Publisher<Payload>> request) {
+      this.payload = payload;
+      this.request = request;
+      this.start = Clock.now();
+    }
+
+    Flux<Payload> first() {
+      return selector
+          .apply(payload)
+          .flatMapMany(
+              rSocket -> {
+                firstRSocket = rSocket;
+                return request.apply(rSocket, payload);
+              });
+    }
+
+    /**
+     * Sends the hedged request if the budget allows it. A hedged request that cannot be sent or
+     * fails before emitting never signals, so that the first request answers.
+     */
+    Flux<Payload> second() {
+      RSocket firstRSocket = this.firstRSocket;
+      if (firstRSocket == null) {
+        return Flux.never();
+      }
+
+      return otherSelector
+          .apply(payload, firstRSocket)
+          .flatMapMany(
+              rSocket -> {
+                if (second != PENDING
+                    || !budget.tryWithdraw()
+                    || !SECOND.compareAndSet(this, PENDING, SENT)) {
+                  return Flux.<Payload>never();
+                }
+                // the first request is cancelled once this one has emitted, so an error after
+                // that, which only a stream can produce, is the caller's and is not swallowed
+                return Flux.from(request.apply(rSocket, payload))
+                    .onErrorResume(
+                        t -> received ? Flux.<Payload>error(t) : Flux.<Payload>never());
+              })
+          .switchIfEmpty(Flux.never());
+    }
+
+    /** Releases the payload retained for the hedged request if it was not sent. */
+    void cancelSecond() {
+      if (SECOND.compareAndSet(this, PENDING, CANCELLED)) {
+        payload.release();
+      }
+    }
+
+    @Override
+    public void accept(Payload response) {
+      if (!received) {
+        received = true;
+        latency.insert(Clock.now() - start);
+      }
+    }
+  }
+}
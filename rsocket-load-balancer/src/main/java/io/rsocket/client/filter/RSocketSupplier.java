@@ -23,6 +23,7 @@
 import io.rsocket.stat.Ewma;
 import io.rsocket.util.Clock;
 import io.rsocket.util.RSocketProxy;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import org.reactivestreams.Publisher;
@@ -42,19 +43,52 @@ public class RSocketSupplier implements Availability, Supplier<Mono<RSocket>>, C
   private final long tau;
   private long stamp;
   private final Ewma errorPercentage;
+  private final Object identity;
+
+  /**
+   * @param rSocketSupplier connects to the server
+   * @param identity identifies the server, e.g. its address, see {@link #identity()}
+   * @param halfLife the half-life of the error rate
+   * @param unit the unit of {@code halfLife}
+   */
+  public RSocketSupplier(
+      Supplier<Mono<RSocket>> rSocketSupplier, Object identity, long halfLife, TimeUnit unit) {
+    this.rSocketSupplier = rSocketSupplier;
+    this.identity = Objects.requireNonNull(identity, "identity must not be null");
+    this.tau = Clock.unit().convert((long) (halfLife / Math.log(2)), unit);
+    this.stamp = Clock.now();
+    this.errorPercentage = new Ewma(halfLife, unit, 1.0);
+    this.onClose = MonoProcessor.create();
+  }
 
   public RSocketSupplier(Supplier<Mono<RSocket>> rSocketSupplier, long halfLife, TimeUnit unit) {
     this.rSocketSupplier = rSocketSupplier;
+    this.identity = this;
     this.tau = Clock.unit().convert((long) (halfLife / Math.log(2)), unit);
     this.stamp = Clock.now();
     this.errorPercentage = new Ewma(halfLife, unit, 1.0);
     this.onClose = MonoProcessor.create();
   }
 
+  public RSocketSupplier(Supplier<Mono<RSocket>> rSocketSupplier, Object identity) {
+    this(rSocketSupplier, identity, 5, TimeUnit.SECONDS);
+  }
+
   public RSocketSupplier(Supplier<Mono<RSocket>> rSocketSupplier) {
     this(rSocketSupplier, 5, TimeUnit.SECONDS);
   }
 
+  /**
+   * Identifies the server this supplier connects to. Routing by key, e.g. with {@link
+   * io.rsocket.client.strategy.ConsistentHashStrategy}, only maps keys to the same server in every
+   * client if the identity is given, as a {@link String} such as the address of the server.
+   *
+   * @return the identity given at construction, or this supplier
+   */
+  public Object identity() {
+    return identity;
+  }
+
   @Override
   public double availability() {
     double e = errorPercentage.value();
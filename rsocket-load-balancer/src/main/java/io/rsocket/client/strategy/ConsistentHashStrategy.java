@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.client.strategy;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.rsocket.Payload;
+import io.rsocket.client.LoadBalancerSocketMetrics;
+import io.rsocket.client.LoadBalancerStrategy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Routes requests with the same key to the same socket for as long as it stays in the aperture, so
+ * that cache-affine services see the same keys. Each socket is placed on a hash ring at several
+ * points (virtual nodes): when a socket is added or removed only the keys of its ring segments
+ * move. Keys whose socket is unavailable go to the next available socket on the ring.
+ *
+ * <p>Sockets are placed on the ring by the {@link LoadBalancerSocketMetrics#serverIdentity()
+ * identity of their server}, so that a reconnected server gets its keys back. Give each {@link
+ * io.rsocket.client.filter.RSocketSupplier} a {@link String} identity, such as the address of the
+ * server, for every client to map a key to the same server.
+ *
+ * <p>The key is extracted from the request payload, by default its metadata. Requests without a
+ * payload or with an empty key are delegated to a fallback strategy.
+ */
+public final class ConsistentHashStrategy implements LoadBalancerStrategy {
+
+  public static final int DEFAULT_VIRTUAL_NODES = 100;
+
+  private final Function<? super Payload, ? extends ByteBuf> keyExtractor;
+  private final int virtualNodes;
+  private final LoadBalancerStrategy fallback;
+
+  private volatile Ring ring = Ring.EMPTY;
+
+  /** Routes by the metadata of the payload. */
+  public ConsistentHashStrategy() {
+    this(Payload::sliceMetadata);
+  }
+
+  /**
+   * @param keyExtractor extracts the routing key from a payload. The returned buffer is only read
+   *     and not released.
+   */
+  public ConsistentHashStrategy(Function<? super Payload, ? extends ByteBuf> keyExtractor) {
+    this(keyExtractor, DEFAULT_VIRTUAL_NODES, new PowerOfTwoChoicesStrategy());
+  }
+
+  /**
+   * @param keyExtractor extracts the routing key from a payload. The returned buffer is only read
+   *     and not released.
+   * @param virtualNodes the number of points of each socket on the ring. More points spread keys
+   *     more evenly at the cost of a larger ring.
+   * @param fallback the strategy used for requests without a key
+   */
+  public ConsistentHashStrategy(
+      Function<? super Payload, ? extends ByteBuf> keyExtractor,
+      int virtualNodes,
+      LoadBalancerStrategy fallback) {
+    if (virtualNodes <= 0) {
+      throw new IllegalArgumentException("virtualNodes must be positive");
+    }
+
+    this.keyExtractor = Objects.requireNonNull(keyExtractor, "keyExtractor must not be null");
+    this.virtualNodes = virtualNodes;
+    this.fallback = Objects.requireNonNull(fallback, "fallback must not be null");
+  }
+
+  @Nullable
+  @Override
+  public <T extends LoadBalancerSocketMetrics> T select(
+      List<T> sockets, @Nullable Payload payload) {
+    if (payload == null) {
+      return fallback.select(sockets, null);
+    }
+
+    ByteBuf key = keyExtractor.apply(payload);
+    if (key == null || !key.isReadable()) {
+      return fallback.select(sockets, payload);
+    }
+
+    Ring ring = ring(sockets);
+    int[] points = ring.points;
+    int index = Arrays.binarySearch(points, mix(ByteBufUtil.hashCode(key)));
+    if (index < 0) {
+      index = -index - 1;
+    }
+
+    for (int i = 0; i < points.length; i++) {
+      T socket = sockets.get(ring.sockets[(index + i) % points.length]);
+      if (socket.availability() > 0.0) {
+        return socket;
+      }
+    }
+
+    return null;
+  }
+
+  /** Returns the ring of {@code sockets}, rebuilding it when the aperture has changed. */
+  private Ring ring(List<? extends LoadBalancerSocketMetrics> sockets) {
+    Ring ring = this.ring;
+    if (ring.source != sockets) {
+      ring = new Ring(sockets, virtualNodes);
+      this.ring = ring;
+    }
+    return ring;
+  }
+
+  /** The murmur3 finalizer, spreads hash codes evenly over the ring. */
+  static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    return "ConsistentHashStrategy(virtualNodes=" + virtualNodes + ", fallback=" + fallback + ")";
+  }
+
+  /** Sorted points of the ring and, for each point, the index of its socket in the source list. */
+  private static final class Ring {
+    static final Ring EMPTY = new Ring(null, new int[0], new int[0]);
+
+    @Nullable final List<?> source;
+    final int[] points;
+    final int[] sockets;
+
+    Ring(@Nullable List<?> source, int[] points, int[] sockets) {
+      this.source = source;
+      this.points = points;
+      this.sockets = sockets;
+    }
+
+    Ring(List<? extends LoadBalancerSocketMetrics> source, int virtualNodes) {
+      int size = source.size() * virtualNodes;
+      long[] entries = new long[size];
+      for (int i = 0; i < source.size(); i++) {
+        int identity = source.get(i).serverIdentity().hashCode();
+        for (int v = 0; v < virtualNodes; v++) {
+          long point = mix(identity + v * 0x9e3779b9);
+          entries[i * virtualNodes + v] = (point << 32) | i;
+        }
+      }
+      Arrays.sort(entries);
+
+      this.source = source;
+      this.points = new int[size];
+      this.sockets = new int[size];
+      for (int i = 0; i < size; i++) {
+        points[i] = (int) (entries[i] >> 32);
+        sockets[i] = (int) entries[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.client.strategy;
+
+import io.rsocket.Payload;
+import io.rsocket.client.LoadBalancerSocketMetrics;
+import io.rsocket.client.LoadBalancerStrategy;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Selects the available socket with the fewest pending requests, ignoring latency. Cheaper than
+ * {@link PowerOfTwoChoicesStrategy} and well suited to pools of identical servers. The scan starts
+ * at a random socket so that ties are spread evenly.
+ */
+public final class LeastLoadedStrategy implements LoadBalancerStrategy {
+
+  @Nullable
+  @Override
+  public <T extends LoadBalancerSocketMetrics> T select(
+      List<T> sockets, @Nullable Payload payload) {
+    int size = sockets.size();
+    int start = ThreadLocalRandom.current().nextInt(size);
+
+    T leastLoaded = null;
+    int leastPending = Integer.MAX_VALUE;
+    for (int i = 0; i < size; i++) {
+      T socket = sockets.get((start + i) % size);
+      if (socket.availability() == 0.0) {
+        continue;
+      }
+
+      int pending = socket.pending();
+      if (pending < leastPending) {
+        leastLoaded = socket;
+        leastPending = pending;
+        if (pending == 0) {
+          break;
+        }
+      }
+    }
+
+    return leastLoaded;
+  }
+
+  @Override
+  public String toString() {
+    return "LeastLoadedStrategy";
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.client.strategy;
+
+import io.rsocket.Payload;
+import io.rsocket.client.LoadBalancerSocketMetrics;
+import io.rsocket.client.LoadBalancerStrategy;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Picks two random sockets and selects the one with the best weight, computed from the predicted
+ * latency and the number of pending requests. Sockets whose latency falls outside of the band
+ * between the lower and higher latency quantiles are favored or penalized exponentially.
+ *
+ * <p>This is the default strategy of {@link io.rsocket.client.LoadBalancedRSocketMono}.
+ */
+public final class PowerOfTwoChoicesStrategy implements LoadBalancerStrategy {
+
+  public static final double DEFAULT_EXP_FACTOR = 4.0;
+  public static final int DEFAULT_EFFORT = 5;
+
+  private final double expFactor;
+  private final int effort;
+
+  public PowerOfTwoChoicesStrategy() {
+    this(DEFAULT_EXP_FACTOR, DEFAULT_EFFORT);
+  }
+
+  /**
+   * @param expFactor how aggressive is the algorithm toward outliers. A higher number means we send
+   *     aggressively less traffic to a server slightly slower.
+   * @param effort the number of random pairs drawn to find two available sockets
+   */
+  public PowerOfTwoChoicesStrategy(double expFactor, int effort) {
+    if (effort <= 0) {
+      throw new IllegalArgumentException("effort must be positive");
+    }
+
+    this.expFactor = expFactor;
+    this.effort = effort;
+  }
+
+  @Nullable
+  @Override
+  public <T extends LoadBalancerSocketMetrics> T select(
+      List<T> sockets, @Nullable Payload payload) {
+    int size = sockets.size();
+    if (size == 1) {
+      return sockets.get(0);
+    }
+
+    T rsc1 = null;
+    T rsc2 = null;
+
+    Random rng = ThreadLocalRandom.current();
+    for (int i = 0; i < effort; i++) {
+      int i1 = rng.nextInt(size);
+      int i2 = rng.nextInt(size - 1);
+      if (i2 >= i1) {
+        i2++;
+      }
+      rsc1 = sockets.get(i1);
+      rsc2 = sockets.get(i2);
+      if (rsc1.availability() > 0.0 && rsc2.availability() > 0.0) {
+        break;
+      }
+    }
+
+    double w1 = algorithmicWeight(rsc1);
+    double w2 = algorithmicWeight(rsc2);
+    if (w1 < w2) {
+      return rsc2;
+    } else {
+      return rsc1;
+    }
+  }
+
+  private double algorithmicWeight(@Nullable LoadBalancerSocketMetrics socket) {
+    if (socket == null || socket.availability() == 0.0) {
+      return 0.0;
+    }
+
+    int pendings = socket.pending();
+    double latency = socket.predictedLatency();
+
+    double low = socket.lowerQuantileLatency();
+    double high =
+        Math.max(
+            socket.higherQuantileLatency(),
+            low * 1.001); // ensure higherQuantile > lowerQuantile + .1%
+    double bandWidth = Math.max(high - low, 1);
+
+    if (latency < low) {
+      double alpha = (low - latency) / bandWidth;
+      double bonusFactor = Math.pow(1 + alpha, expFactor);
+      latency /= bonusFactor;
+    } else if (latency > high) {
+      double alpha = (latency - high) / bandWidth;
+      double penaltyFactor = Math.pow(1 + alpha, expFactor);
+      latency *= penaltyFactor;
+    }
+
+    return socket.availability() * 1.0 / (1.0 + latency * (pendings + 1));
+  }
+
+  @Override
+  public String toString() {
+    return "PowerOfTwoChoicesStrategy(expFactor=" + expFactor + ", effort=" + effort + ")";
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.client.strategy;
+
+import io.rsocket.Payload;
+import io.rsocket.client.LoadBalancerSocketMetrics;
+import io.rsocket.client.LoadBalancerStrategy;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Cycles through the sockets in order, skipping sockets in proportion to their weight. The weight
+ * is a value between {@code 0.0} and {@code 1.0}: a socket of weight {@code 1.0} is selected on
+ * every cycle, a socket of weight {@code 0.5} on half of them and a socket of weight {@code 0.0}
+ * never. Weights are rounded to tenths.
+ *
+ * <p>By default the weight of a socket is its availability.
+ */
+public final class WeightedRoundRobinStrategy implements LoadBalancerStrategy {
+
+  private static final int WEIGHT_LEVELS = 10;
+
+  private final ToDoubleFunction<? super LoadBalancerSocketMetrics> weight;
+  private final AtomicLong next;
+
+  public WeightedRoundRobinStrategy() {
+    this(LoadBalancerSocketMetrics::availability);
+  }
+
+  /**
+   * @param weight the weight of a socket, values outside of {@code [0.0, 1.0]} are clamped
+   */
+  public WeightedRoundRobinStrategy(ToDoubleFunction<? super LoadBalancerSocketMetrics> weight) {
+    this.weight = Objects.requireNonNull(weight, "weight must not be null");
+    this.next = new AtomicLong();
+  }
+
+  @Nullable
+  @Override
+  public <T extends LoadBalancerSocketMetrics> T select(
+      List<T> sockets, @Nullable Payload payload) {
+    int size = sockets.size();
+    long limit = (long) size * WEIGHT_LEVELS;
+    for (long i = 0; i < limit; i++) {
+      long position = next.getAndIncrement();
+      T socket = sockets.get((int) (position % size));
+      long cycle = (position / size) % WEIGHT_LEVELS;
+      if (socket.availability() > 0.0 && cycle < levels(socket)) {
+        return socket;
+      }
+    }
+
+    return null;
+  }
+
+  private long levels(LoadBalancerSocketMetrics socket) {
+    double w = Math.min(Math.max(weight.applyAsDouble(socket), 0.0), 1.0);
+    return Math.round(w * WEIGHT_LEVELS);
+  }
+
+  @Override
+  public String toString() {
+    return "WeightedRoundRobinStrategy";
+  }
+}
@@ -18,6 +18,7 @@
 
 import io.rsocket.util.Clock;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Compute the exponential weighted moving average of a series of values. The time at which you
@@ -26,38 +27,79 @@
  *
  * <p>e.g. with a half-life of 10 unit, if you insert 100 at t=0 and 200 at t=10 the ewma will be
  * equal to (200 - 100)/2 = 150 (half of the distance between the new and the old value)
+ *
+ * <p>Updates are lock-free and do not allocate: the average, as a {@code float}, and the low 32
+ * bits of the time of the last insertion are packed into a single {@code long} updated with CAS.
  */
 public class Ewma {
+  private static final AtomicLongFieldUpdater<Ewma> STATE =
+      AtomicLongFieldUpdater.newUpdater(Ewma.class, "state");
+
+  /** Stamp of an average without insertions, the next insertion replaces the value. */
+  private static final int NO_STAMP = 0;
+
+  /** Beyond this elapsed time the 32 bits stamp wraps around, it is treated as infinite. */
+  private static final long MAX_ELAPSED = Integer.MAX_VALUE;
+
   private final long tau;
-  private volatile long stamp;
-  private volatile double ewma;
+  private volatile long state;
+  private volatile long lastInsert;
 
   public Ewma(long halfLife, TimeUnit unit, double initialValue) {
     this.tau = Clock.unit().convert((long) (halfLife / Math.log(2)), unit);
-    stamp = 0L;
-    ewma = initialValue;
+    this.state = pack(initialValue, NO_STAMP);
+  }
+
+  public void insert(double x) {
+    insert(x, Clock.now());
   }
 
-  public synchronized void insert(double x) {
-    long now = Clock.now();
-    double elapsed = Math.max(0, now - stamp);
-    stamp = now;
+  /**
+   * Insert a data point {@code x} observed at time {@code now}, for callers that already read the
+   * {@link Clock}.
+   *
+   * @param x the data point to add
+   * @param now the current time as returned by {@link Clock#now()}
+   */
+  public void insert(double x, long now) {
+    for (; ; ) {
+      long state = this.state;
+      int stamp = (int) state;
 
-    double w = Math.exp(-elapsed / tau);
-    ewma = w * ewma + (1.0 - w) * x;
+      double w;
+      if (stamp == NO_STAMP || now - lastInsert > MAX_ELAPSED) {
+        w = 0.0;
+      } else {
+        double elapsed = Math.max(0, (int) now - stamp);
+        w = Math.exp(-elapsed / tau);
+      }
+
+      double ewma = w * value(state) + (1.0 - w) * x;
+      if (STATE.compareAndSet(this, state, pack(ewma, (int) now == NO_STAMP ? 1 : (int) now))) {
+        lastInsert = now;
+        return;
+      }
+    }
   }
 
-  public synchronized void reset(double value) {
-    stamp = 0L;
-    ewma = value;
+  public void reset(double value) {
+    state = pack(value, NO_STAMP);
   }
 
   public double value() {
-    return ewma;
+    return value(state);
+  }
+
+  private static long pack(double value, int stamp) {
+    return ((long) Float.floatToRawIntBits((float) value) << 32) | (stamp & 0xFFFF_FFFFL);
+  }
+
+  private static double value(long state) {
+    return Float.intBitsToFloat((int) (state >>> 32));
   }
 
   @Override
   public String toString() {
-    return "Ewma(value=" + ewma + ", age=" + (Clock.now() - stamp) + ")";
+    return "Ewma(value=" + value() + ", age=" + (Clock.now() - lastInsert) + ")";
   }
 }
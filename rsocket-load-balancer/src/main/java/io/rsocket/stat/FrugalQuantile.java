@@ -17,6 +17,8 @@
 package io.rsocket.stat;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Reference: Ma, Qiang, S. Muthukrishnan, and Mark Sandler. "Frugal Streaming for Estimating
@@ -24,41 +26,65 @@
  * 2013. 77-96.
  *
  * <p>More info: http://blog.aggregateknowledge.com/2013/09/16/sketch-of-the-day-frugal-streaming/
+ *
+ * <p>Updates are lock-free and do not allocate: the estimate, as a {@code float}, the step and the
+ * sign are packed into a single {@code long} updated with CAS.
  */
 public class FrugalQuantile implements Quantile {
+  private static final AtomicLongFieldUpdater<FrugalQuantile> STATE =
+      AtomicLongFieldUpdater.newUpdater(FrugalQuantile.class, "state");
+
+  private static final int MAX_STEP = (1 << 29) - 1;
+  private static final int MIN_STEP = -(1 << 29);
+
   private final double increment;
-  private double quantile;
-  private Random rng;
+  private final double quantile;
+  private final Random rng;
 
-  volatile double estimate;
-  int step;
-  int sign;
+  private volatile long state;
 
+  /**
+   * @param quantile the quantile to estimate, between {@code 0.0} and {@code 1.0}
+   * @param increment the growth of the step on consecutive moves in the same direction
+   * @param rng the random generator, or {@code null} to use {@link ThreadLocalRandom}
+   */
   public FrugalQuantile(double quantile, double increment, Random rng) {
     this.increment = increment;
     this.quantile = quantile;
-    this.estimate = 0.0;
-    this.step = 1;
-    this.sign = 0;
     this.rng = rng;
+    this.state = pack(0.0, 1, 0);
   }
 
   public FrugalQuantile(double quantile) {
-    this(quantile, 1.0, new Random());
+    this(quantile, 1.0, null);
   }
 
   public double estimation() {
-    return estimate;
+    return estimate(state);
   }
 
   @Override
-  public synchronized void insert(double x) {
+  public void insert(double x) {
+    for (; ; ) {
+      long state = this.state;
+      long next = next(state, x);
+      if (next == state || STATE.compareAndSet(this, state, next)) {
+        return;
+      }
+    }
+  }
+
+  /** Returns the state after inserting {@code x} in {@code state}. */
+  long next(long state, double x) {
+    double estimate = estimate(state);
+    int step = step(state);
+    int sign = sign(state);
+
     if (sign == 0) {
-      estimate = x;
-      sign = 1;
-      return;
+      return pack(x, step, 1);
     }
 
+    Random rng = this.rng != null ? this.rng : ThreadLocalRandom.current();
     if (x > estimate && rng.nextDouble() > (1 - quantile)) {
       step += sign * increment;
 
@@ -98,10 +124,31 @@ public synchronized void insert(double x) {
 
       sign = -1;
     }
+
+    return pack(estimate, step, sign);
+  }
+
+  static long pack(double estimate, int step, int sign) {
+    int clampedStep = Math.max(MIN_STEP, Math.min(MAX_STEP, step));
+    return ((long) Float.floatToRawIntBits((float) estimate) << 32)
+        | (((clampedStep << 2) | (sign & 0b11)) & 0xFFFF_FFFFL);
+  }
+
+  static double estimate(long state) {
+    return Float.intBitsToFloat((int) (state >>> 32));
+  }
+
+  static int step(long state) {
+    return ((int) state) >> 2;
+  }
+
+  static int sign(long state) {
+    int sign = (int) state & 0b11;
+    return sign == 0b11 ? -1 : sign;
   }
 
   @Override
   public String toString() {
-    return "FrugalQuantile(q=" + quantile + ", v=" + estimate + ")";
+    return "FrugalQuantile(q=" + quantile + ", v=" + estimation() + ")";
   }
 }
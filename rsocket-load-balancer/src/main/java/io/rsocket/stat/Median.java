@@ -23,11 +23,13 @@ public Median() {
   }
 
   @Override
-  public synchronized void insert(double x) {
+  long next(long state, double x) {
+    double estimate = estimate(state);
+    int step = step(state);
+    int sign = sign(state);
+
     if (sign == 0) {
-      estimate = x;
-      sign = 1;
-      return;
+      return pack(x, step, 1);
     }
 
     if (x > estimate) {
@@ -69,10 +71,12 @@ public synchronized void insert(double x) {
 
       sign = -1;
     }
+
+    return pack(estimate, step, sign);
   }
 
   @Override
   public String toString() {
-    return "Median(v=" + estimate + ")";
+    return "Median(v=" + estimation() + ")";
   }
 }
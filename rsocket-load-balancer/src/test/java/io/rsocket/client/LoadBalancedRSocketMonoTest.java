@@ -22,9 +22,13 @@
 import io.rsocket.util.EmptyPayload;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import org.junit.Assert;
 import org.junit.Test;
@@ -76,6 +80,42 @@ public double availability() {
     testBalancer(clients);
   }
 
+  @Test(timeout = 10_000L)
+  public void testConcurrentSelection() throws Exception {
+    TestingRSocket socket = new TestingRSocket(Function.identity());
+    List<RSocketSupplier> factories =
+        Arrays.asList(
+            succeedingFactory(socket), succeedingFactory(socket), succeedingFactory(socket));
+    LoadBalancedRSocketMono balancer = LoadBalancedRSocketMono.create(Mono.just(factories));
+
+    while (balancer.availability() == 0.0) {
+      Thread.sleep(1);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int j = 0; j < 1_000; j++) {
+                    RSocket rSocket = balancer.block();
+                    Assert.assertEquals(1.0, rSocket.availability(), 0.0);
+                    rSocket.requestResponse(EmptyPayload.INSTANCE).block();
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertEquals(8_000, socket.countMessageReceived());
+  }
+
   private void testBalancer(List<RSocketSupplier> factories) throws InterruptedException {
     Publisher<List<RSocketSupplier>> src =
         s -> {
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.client.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.util.HashedWheelTimer;
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Payload;
+import io.rsocket.util.DefaultPayload;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+public class HedgingRSocketTest {
+  private HashedWheelTimer timer;
+  private Scheduler scheduler;
+  private SlowRSocket primary;
+  private SlowRSocket other;
+
+  @Before
+  public void setUp() {
+    timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS);
+    scheduler = Schedulers.newSingle("hedging-test");
+    primary = new SlowRSocket("primary");
+    other = new SlowRSocket("other");
+  }
+
+  @After
+  public void tearDown() {
+    timer.stop();
+    scheduler.dispose();
+  }
+
+  @Test(timeout = 10_000)
+  public void testSlowRequestIsHedgedToOtherRSocket() {
+    HedgingRSocket rSocket = hedging(new HedgeBudget(1.0, 10));
+    warmUp(rSocket);
+
+    primary.latency = null;
+    Payload response = rSocket.requestResponse(DefaultPayload.create("data")).block();
+
+    assertEquals("other", response.getDataUtf8());
+    assertEquals(1, other.requests.get());
+    assertTrue("the slower request must be cancelled", primary.cancelled.get());
+  }
+
+  @Test(timeout = 10_000)
+  public void testHedgedRequestIsSentFromScheduler() {
+    AtomicReference<String> thread = new AtomicReference<>();
+    HedgingRSocket rSocket =
+        new HedgingRSocket(
+            Mono.just(primary),
+            payload -> Mono.just(primary),
+            (payload, excluded) ->
+                Mono.fromSupplier(
+                    () -> {
+                      thread.set(Thread.currentThread().getName());
+                      return other;
+                    }),
+            primary,
+            primary,
+            0.5,
+            new HedgeBudget(1.0, 10),
+            timer,
+            scheduler);
+    warmUp(rSocket);
+
+    primary.latency = null;
+    Payload response = rSocket.requestResponse(DefaultPayload.create("data")).block();
+
+    assertEquals("other", response.getDataUtf8());
+    assertTrue(thread.get(), thread.get().startsWith("hedging-test"));
+  }
+
+  @Test(timeout = 10_000)
+  public void testFastRequestIsNotHedged() {
+    HedgingRSocket rSocket = hedging(new HedgeBudget(1.0, 10));
+    warmUp(rSocket);
+
+    primary.latency = Duration.ZERO;
+    Payload response = rSocket.requestResponse(DefaultPayload.create("data")).block();
+
+    assertEquals("primary", response.getDataUtf8());
+    assertEquals(0, other.requests.get());
+  }
+
+  @Test(timeout = 10_000)
+  public void testExhaustedBudgetPreventsHedging() {
+    HedgingRSocket rSocket = hedging(new HedgeBudget(0.0, 10));
+    warmUp(rSocket);
+
+    primary.latency = null;
+    Payload response =
+        rSocket
+            .requestResponse(DefaultPayload.create("data"))
+            .timeout(Duration.ofMillis(100), Mono.just(DefaultPayload.create("timeout")))
+            .block();
+
+    assertEquals("timeout", response.getDataUtf8());
+    assertEquals(0, other.requests.get());
+  }
+
+  @Test
+  public void testBudgetLimitsHedgesToRatioOfRequests() {
+    HedgeBudget budget = new HedgeBudget(0.1, 5);
+    assertFalse(budget.tryWithdraw());
+
+    for (int i = 0; i < 30; i++) {
+      budget.deposit();
+    }
+    assertTrue(budget.tryWithdraw());
+    assertTrue(budget.tryWithdraw());
+    assertTrue(budget.tryWithdraw());
+    assertFalse(budget.tryWithdraw());
+
+    for (int i = 0; i < 1_000; i++) {
+      budget.deposit();
+    }
+    assertEquals(5.0, budget.balance(), 0.0);
+  }
+
+  private HedgingRSocket hedging(HedgeBudget budget) {
+    return new HedgingRSocket(
+        Mono.just(primary),
+        payload -> Mono.just(primary),
+        (payload, excluded) -> Mono.just(other),
+        primary,
+        primary,
+        0.5,
+        budget,
+        timer,
+        scheduler);
+  }
+
+  /** Feeds the latency quantile with requests answered in about 5ms. */
+  private void warmUp(HedgingRSocket rSocket) {
+    for (int i = 0; i < 20; i++) {
+      rSocket.requestResponse(DefaultPayload.create("data")).block();
+    }
+    other.requests.set(0);
+    primary.cancelled.set(false);
+  }
+
+  private static class SlowRSocket extends AbstractRSocket {
+    private final String name;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    /** The latency of responses, {@code null} to never respond. */
+    private volatile Duration latency = Duration.ofMillis(5);
+
+    private SlowRSocket(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Mono<Payload> requestResponse(Payload payload) {
+      requests.incrementAndGet();
+      Duration latency = this.latency;
+      if (latency == null) {
+        return Mono.<Payload>never().doOnCancel(() -> cancelled.set(true));
+      }
+      return Mono.delay(latency).thenReturn(DefaultPayload.create(name));
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.client.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import io.rsocket.Payload;
+import io.rsocket.client.LoadBalancerSocketMetrics;
+import io.rsocket.client.LoadBalancerStrategy;
+import io.rsocket.util.ByteBufPayload;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class ConsistentHashStrategyTest {
+
+  @Test
+  public void testSameKeySelectsSameSocket() {
+    List<TestingSocketMetrics> sockets = sockets(8);
+    ConsistentHashStrategy strategy = new ConsistentHashStrategy();
+
+    for (int i = 0; i < 100; i++) {
+      TestingSocketMetrics first = strategy.select(sockets, payload("key-" + i));
+      assertNotNull(first);
+      for (int j = 0; j < 10; j++) {
+        assertSame(first, strategy.select(sockets, payload("key-" + i)));
+      }
+    }
+  }
+
+  @Test
+  public void testKeysAreSpreadOverSockets() {
+    List<TestingSocketMetrics> sockets = sockets(4);
+    ConsistentHashStrategy strategy = new ConsistentHashStrategy();
+
+    int[] counts = new int[sockets.size()];
+    for (int i = 0; i < 4_000; i++) {
+      counts[sockets.indexOf(strategy.select(sockets, payload("key-" + i)))]++;
+    }
+
+    for (int count : counts) {
+      assertNotEquals(0, count);
+    }
+  }
+
+  @Test
+  public void testRemovingSocketOnlyMovesItsKeys() {
+    List<TestingSocketMetrics> sockets = sockets(8);
+    List<TestingSocketMetrics> remaining = new ArrayList<>(sockets);
+    TestingSocketMetrics removed = remaining.remove(3);
+    ConsistentHashStrategy strategy = new ConsistentHashStrategy();
+
+    for (int i = 0; i < 1_000; i++) {
+      TestingSocketMetrics before = strategy.select(sockets, payload("key-" + i));
+      TestingSocketMetrics after =
+          strategy.select(Collections.unmodifiableList(remaining), payload("key-" + i));
+      if (before != removed) {
+        assertSame(before, after);
+      }
+    }
+  }
+
+  @Test
+  public void testReconnectedServerGetsItsKeysBack() {
+    List<TestingSocketMetrics> sockets = serverSockets(8);
+    List<TestingSocketMetrics> reconnected = new ArrayList<>(sockets);
+    reconnected.remove(3);
+    reconnected.add(new TestingSocketMetrics("server-3"));
+    ConsistentHashStrategy strategy = new ConsistentHashStrategy();
+
+    for (int i = 0; i < 1_000; i++) {
+      TestingSocketMetrics before = strategy.select(sockets, payload("key-" + i));
+      TestingSocketMetrics after =
+          strategy.select(Collections.unmodifiableList(reconnected), payload("key-" + i));
+      assertEquals(before.serverIdentity(), after.serverIdentity());
+    }
+  }
+
+  @Test
+  public void testBalancersMapKeysToSameServer() {
+    List<TestingSocketMetrics> sockets1 = serverSockets(8);
+    List<TestingSocketMetrics> sockets2 = serverSockets(8);
+    ConsistentHashStrategy strategy1 = new ConsistentHashStrategy();
+    ConsistentHashStrategy strategy2 = new ConsistentHashStrategy();
+
+    for (int i = 0; i < 1_000; i++) {
+      TestingSocketMetrics selected1 = strategy1.select(sockets1, payload("key-" + i));
+      TestingSocketMetrics selected2 = strategy2.select(sockets2, payload("key-" + i));
+      assertNotSame(selected1, selected2);
+      assertEquals(selected1.serverIdentity(), selected2.serverIdentity());
+    }
+  }
+
+  @Test
+  public void testUnavailableSocketIsSkipped() {
+    List<TestingSocketMetrics> sockets = sockets(3);
+    ConsistentHashStrategy strategy = new ConsistentHashStrategy();
+
+    TestingSocketMetrics first = strategy.select(sockets, payload("key"));
+    first.availability = 0.0;
+    TestingSocketMetrics second = strategy.select(sockets, payload("key"));
+    assertNotNull(second);
+    assertNotSame(first, second);
+
+    for (TestingSocketMetrics socket : sockets) {
+      socket.availability = 0.0;
+    }
+    assertNull(strategy.select(sockets, payload("key")));
+  }
+
+  @Test
+  public void testNoKeyUsesFallback() {
+    List<TestingSocketMetrics> sockets = sockets(3);
+    ConsistentHashStrategy strategy =
+        new ConsistentHashStrategy(
+            Payload::sliceMetadata,
+            ConsistentHashStrategy.DEFAULT_VIRTUAL_NODES,
+            new LoadBalancerStrategyStub(sockets.get(2)));
+
+    assertSame(sockets.get(2), strategy.select(sockets, null));
+    assertSame(sockets.get(2), strategy.select(sockets, ByteBufPayload.create("data")));
+  }
+
+  private static List<TestingSocketMetrics> sockets(int count) {
+    List<TestingSocketMetrics> sockets = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      sockets.add(new TestingSocketMetrics());
+    }
+    return Collections.unmodifiableList(sockets);
+  }
+
+  private static List<TestingSocketMetrics> serverSockets(int count) {
+    List<TestingSocketMetrics> sockets = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      sockets.add(new TestingSocketMetrics("server-" + i));
+    }
+    return Collections.unmodifiableList(sockets);
+  }
+
+  private static Payload payload(String key) {
+    return ByteBufPayload.create("data", key);
+  }
+
+  private static final class LoadBalancerStrategyStub implements LoadBalancerStrategy {
+    private final TestingSocketMetrics selected;
+
+    LoadBalancerStrategyStub(TestingSocketMetrics selected) {
+      this.selected = selected;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends LoadBalancerSocketMetrics> T select(List<T> sockets, Payload payload) {
+      return (T) selected;
+    }
+  }
+}
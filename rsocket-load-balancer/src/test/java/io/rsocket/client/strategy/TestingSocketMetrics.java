@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.client.strategy;
+
+import io.rsocket.client.LoadBalancerSocketMetrics;
+
+public class TestingSocketMetrics implements LoadBalancerSocketMetrics {
+
+  private final Object serverIdentity;
+  volatile double availability = 1.0;
+  volatile int pending;
+
+  public TestingSocketMetrics() {
+    this.serverIdentity = this;
+  }
+
+  public TestingSocketMetrics(Object serverIdentity) {
+    this.serverIdentity = serverIdentity;
+  }
+
+  @Override
+  public Object serverIdentity() {
+    return serverIdentity;
+  }
+
+  @Override
+  public double medianLatency() {
+    return 0;
+  }
+
+  @Override
+  public double lowerQuantileLatency() {
+    return 0;
+  }
+
+  @Override
+  public double higherQuantileLatency() {
+    return 0;
+  }
+
+  @Override
+  public double interArrivalTime() {
+    return 0;
+  }
+
+  @Override
+  public int pending() {
+    return pending;
+  }
+
+  @Override
+  public long lastTimeUsedMillis() {
+    return 0;
+  }
+
+  @Override
+  public double availability() {
+    return availability;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.client.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class WeightedRoundRobinStrategyTest {
+
+  @Test
+  public void testCyclesThroughSockets() {
+    TestingSocketMetrics a = new TestingSocketMetrics();
+    TestingSocketMetrics b = new TestingSocketMetrics();
+    TestingSocketMetrics c = new TestingSocketMetrics();
+    List<TestingSocketMetrics> sockets = Arrays.asList(a, b, c);
+    WeightedRoundRobinStrategy strategy = new WeightedRoundRobinStrategy();
+
+    for (int i = 0; i < 10; i++) {
+      assertSame(a, strategy.select(sockets, null));
+      assertSame(b, strategy.select(sockets, null));
+      assertSame(c, strategy.select(sockets, null));
+    }
+  }
+
+  @Test
+  public void testSelectsInProportionToWeight() {
+    TestingSocketMetrics a = new TestingSocketMetrics();
+    TestingSocketMetrics b = new TestingSocketMetrics();
+    a.pending = 10;
+    b.pending = 5;
+    List<TestingSocketMetrics> sockets = Arrays.asList(a, b);
+    WeightedRoundRobinStrategy strategy =
+        new WeightedRoundRobinStrategy(socket -> socket.pending() / 10.0);
+
+    int selectedA = 0;
+    for (int i = 0; i < 1_500; i++) {
+      if (strategy.select(sockets, null) == a) {
+        selectedA++;
+      }
+    }
+
+    assertEquals(1_000, selectedA);
+  }
+
+  @Test
+  public void testSkipsUnavailableSockets() {
+    TestingSocketMetrics a = new TestingSocketMetrics();
+    TestingSocketMetrics b = new TestingSocketMetrics();
+    a.availability = 0.0;
+    List<TestingSocketMetrics> sockets = Arrays.asList(a, b);
+    WeightedRoundRobinStrategy strategy = new WeightedRoundRobinStrategy();
+
+    for (int i = 0; i < 10; i++) {
+      assertSame(b, strategy.select(sockets, null));
+    }
+
+    b.availability = 0.0;
+    assertNull(strategy.select(sockets, null));
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.stat;
+
+import io.rsocket.util.Clock;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EwmaTest {
+
+  @Test
+  public void testHalfLife() {
+    Ewma ewma = new Ewma(10, TimeUnit.MILLISECONDS, 0.0);
+    long t0 = Clock.now();
+    ewma.insert(100, t0);
+    Assert.assertEquals(100.0, ewma.value(), 0.0);
+
+    ewma.insert(200, t0 + Clock.unit().convert(10, TimeUnit.MILLISECONDS));
+    // tau is truncated to whole milliseconds
+    Assert.assertEquals(150.0, ewma.value(), 2.0);
+  }
+
+  @Test
+  public void testResetReplacesValueOnNextInsert() {
+    Ewma ewma = new Ewma(10, TimeUnit.SECONDS, 0.0);
+    long t0 = Clock.now();
+    ewma.insert(100, t0);
+    ewma.reset(5);
+    Assert.assertEquals(5.0, ewma.value(), 0.0);
+
+    ewma.insert(42, t0 + 1);
+    Assert.assertEquals(42.0, ewma.value(), 0.0);
+  }
+
+  @Test
+  public void testLongGapReplacesValue() {
+    Ewma ewma = new Ewma(10, TimeUnit.MILLISECONDS, 0.0);
+    long t0 = Clock.now();
+    ewma.insert(100, t0);
+    ewma.insert(7, t0 + 3L * Integer.MAX_VALUE);
+    Assert.assertEquals(7.0, ewma.value(), 0.0);
+  }
+
+  @Test(timeout = 10_000)
+  public void testConcurrentInserts() throws InterruptedException {
+    Ewma ewma = new Ewma(1, TimeUnit.SECONDS, 0.0);
+    int threads = 8;
+    CountDownLatch done = new CountDownLatch(threads);
+    for (int i = 0; i < threads; i++) {
+      new Thread(
+              () -> {
+                for (int j = 0; j < 100_000; j++) {
+                  ewma.insert(50.0);
+                }
+                done.countDown();
+              })
+          .start();
+    }
+    done.await();
+
+    Assert.assertEquals(50.0, ewma.value(), 0.001);
+  }
+}
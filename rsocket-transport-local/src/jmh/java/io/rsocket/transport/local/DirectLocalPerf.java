@@ -0,0 +1,113 @@
+package io.rsocket.transport.local;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.SocketAcceptor;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.util.ByteBufPayload;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compares the direct local mode, which hands payloads across without frames, with the local
+ * transport: request-response and request-stream throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class DirectLocalPerf {
+
+  static final int STREAM_SIZE = 1024;
+
+  @Param({"transport", "direct"})
+  String mode;
+
+  @Param({"16", "1024"})
+  int payloadSize;
+
+  Closeable server;
+  RSocket client;
+  Payload payload;
+
+  @Setup
+  public void setup() {
+    byte[] bytes = new byte[payloadSize];
+    Payload response = ByteBufPayload.create(bytes);
+
+    SocketAcceptor acceptor =
+        (setup, sendingSocket) ->
+            Mono.just(
+                new AbstractRSocket() {
+                  @Override
+                  public Mono<Payload> requestResponse(Payload payload) {
+                    payload.release();
+                    return Mono.just(response.retain());
+                  }
+
+                  @Override
+                  public Flux<Payload> requestStream(Payload payload) {
+                    payload.release();
+                    return Flux.range(0, STREAM_SIZE).map(i -> response.retain());
+                  }
+                });
+
+    if ("direct".equals(mode)) {
+      DirectLocalServer directServer = DirectLocalServer.startEphemeral(acceptor).block();
+      server = directServer;
+      client = directServer.client().connect().block();
+    } else {
+      LocalServerTransport transport = LocalServerTransport.createEphemeral();
+      server =
+          RSocketFactory.receive()
+              .frameDecoder(PayloadDecoder.ZERO_COPY)
+              .acceptor(acceptor)
+              .transport(transport)
+              .start()
+              .block();
+      client =
+          RSocketFactory.connect()
+              .frameDecoder(PayloadDecoder.ZERO_COPY)
+              .transport(transport.clientTransport())
+              .start()
+              .block();
+    }
+
+    payload = ByteBufPayload.create(bytes);
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.dispose();
+    server.dispose();
+    payload.release();
+  }
+
+  @Benchmark
+  public void requestResponse(Blackhole bh) {
+    Payload response = client.requestResponse(payload.retain()).block();
+    bh.consume(response.data());
+    response.release();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(STREAM_SIZE)
+  public void requestStream(Blackhole bh) {
+    client
+        .requestStream(payload.retain())
+        .doOnNext(
+            response -> {
+              bh.consume(response.data());
+              response.release();
+            })
+        .blockLast();
+  }
+}
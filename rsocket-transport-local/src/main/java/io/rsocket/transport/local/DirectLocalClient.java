@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.local;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.AbstractRSocket;
+import io.rsocket.ConnectionSetupPayload;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.exceptions.RSocketException;
+import io.rsocket.exceptions.RejectedSetupException;
+import io.rsocket.frame.SetupFrameFlyweight;
+import io.rsocket.util.EmptyPayload;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * Connects to a {@link DirectLocalServer} in the same JVM, handing {@link Payload}s to its
+ * responder without encoding frames.
+ */
+public final class DirectLocalClient {
+
+  private final String name;
+
+  private Function<RSocket, RSocket> acceptor = rSocket -> new AbstractRSocket() {};
+  private Consumer<Throwable> errorConsumer = Throwable::printStackTrace;
+  private Payload setupPayload = EmptyPayload.INSTANCE;
+  private String metadataMimeType = "application/binary";
+  private String dataMimeType = "application/binary";
+
+  private DirectLocalClient(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param name the name of the {@link DirectLocalServer} to connect to
+   * @return a new instance
+   * @throws NullPointerException if {@code name} is {@code null}
+   */
+  public static DirectLocalClient create(String name) {
+    Objects.requireNonNull(name, "name must not be null");
+
+    return new DirectLocalClient(name);
+  }
+
+  /**
+   * Sets the responder of this client for requests of the server.
+   *
+   * @param acceptor creates the responder from the requester to the server
+   * @return this DirectLocalClient
+   */
+  public DirectLocalClient acceptor(Function<RSocket, RSocket> acceptor) {
+    this.acceptor = Objects.requireNonNull(acceptor, "acceptor must not be null");
+    return this;
+  }
+
+  /**
+   * Sets the consumer of errors of fire-and-forget and metadata push requests.
+   *
+   * @param errorConsumer the consumer of errors
+   * @return this DirectLocalClient
+   */
+  public DirectLocalClient errorConsumer(Consumer<Throwable> errorConsumer) {
+    this.errorConsumer = Objects.requireNonNull(errorConsumer, "errorConsumer must not be null");
+    return this;
+  }
+
+  /**
+   * Sets the payload of the setup passed to the server acceptor. It is copied into the setup of
+   * every connection and never released, since {@link #connect()} may be subscribed to again: the
+   * caller keeps ownership of it, as with {@code RSocketFactory.ClientRSocketFactory}.
+   *
+   * @param setupPayload the setup payload
+   * @return this DirectLocalClient
+   */
+  public DirectLocalClient setupPayload(Payload setupPayload) {
+    this.setupPayload = Objects.requireNonNull(setupPayload, "setupPayload must not be null");
+    return this;
+  }
+
+  /**
+   * Sets the metadata MIME type of the setup passed to the server acceptor. Defaults to {@code
+   * application/binary}.
+   *
+   * @param metadataMimeType the metadata MIME type
+   * @return this DirectLocalClient
+   */
+  public DirectLocalClient metadataMimeType(String metadataMimeType) {
+    this.metadataMimeType =
+        Objects.requireNonNull(metadataMimeType, "metadataMimeType must not be null");
+    return this;
+  }
+
+  /**
+   * Sets the data MIME type of the setup passed to the server acceptor. Defaults to {@code
+   * application/binary}.
+   *
+   * @param dataMimeType the data MIME type
+   * @return this DirectLocalClient
+   */
+  public DirectLocalClient dataMimeType(String dataMimeType) {
+    this.dataMimeType = Objects.requireNonNull(dataMimeType, "dataMimeType must not be null");
+    return this;
+  }
+
+  /**
+   * Connects to the server. The returned {@link RSocket} and the requester passed to the server
+   * acceptor share the connection: disposing either closes both.
+   *
+   * @return the requester to the server
+   */
+  public Mono<RSocket> connect() {
+    return Mono.defer(
+        () -> {
+          DirectLocalServer server = DirectLocalServer.findServer(name);
+          if (server == null) {
+            return Mono.error(new IllegalArgumentException("Could not find server: " + name));
+          }
+
+          MonoProcessor<Void> onClose = MonoProcessor.create();
+          DirectRSocket clientRequester = new DirectRSocket(onClose, errorConsumer);
+          DirectRSocket serverRequester = new DirectRSocket(onClose, errorConsumer);
+          RSocket clientResponder = acceptor.apply(clientRequester);
+          serverRequester.connect(clientResponder);
+
+          // the setup is encoded once per connection, so the acceptor sees the same setup as over
+          // a transport; no keep-alive frames are ever sent
+          ConnectionSetupPayload setup =
+              ConnectionSetupPayload.create(
+                  SetupFrameFlyweight.encode(
+                      ByteBufAllocator.DEFAULT,
+                      false,
+                      false,
+                      0,
+                      0,
+                      metadataMimeType,
+                      dataMimeType,
+                      setupPayload.sliceMetadata(),
+                      setupPayload.sliceData()));
+
+          return server
+              .accept(setup, serverRequester)
+              .onErrorMap(
+                  t ->
+                      t instanceof RSocketException
+                          ? t
+                          : new RejectedSetupException(
+                              t.getMessage() == null
+                                  ? "rejected by server acceptor"
+                                  : t.getMessage()))
+              .doFinally(signalType -> setup.release())
+              .map(
+                  serverResponder -> {
+                    clientRequester.connect(serverResponder);
+                    onClose
+                        .doFinally(
+                            signalType -> {
+                              clientResponder.dispose();
+                              serverResponder.dispose();
+                            })
+                        .subscribe(null, errorConsumer);
+                    return (RSocket) clientRequester;
+                  })
+              .doOnError(t -> onClose.onComplete());
+        });
+  }
+}
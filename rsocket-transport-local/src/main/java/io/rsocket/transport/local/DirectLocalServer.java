@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.local;
+
+import io.rsocket.Closeable;
+import io.rsocket.ConnectionSetupPayload;
+import io.rsocket.RSocket;
+import io.rsocket.SocketAcceptor;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.util.annotation.Nullable;
+
+/**
+ * A server in the same JVM that {@link DirectLocalClient}s connect to without a {@link
+ * io.rsocket.DuplexConnection}. Requests and responses are handed between the requester of one
+ * end and the responder of the other as {@link io.rsocket.Payload}s, without encoding or decoding
+ * frames.
+ *
+ * <p>Since no frames are exchanged, connections have no keep-alive, lease, resumption or
+ * fragmentation, and plugins registered with {@link io.rsocket.RSocketFactory} are not applied.
+ * Use {@link LocalServerTransport} where those are needed.
+ */
+public final class DirectLocalServer implements Closeable {
+
+  private static final ConcurrentMap<String, DirectLocalServer> registry =
+      new ConcurrentHashMap<>();
+
+  private final String name;
+
+  private final SocketAcceptor acceptor;
+
+  private final MonoProcessor<Void> onClose = MonoProcessor.create();
+
+  private DirectLocalServer(String name, SocketAcceptor acceptor) {
+    this.name = name;
+    this.acceptor = acceptor;
+  }
+
+  /**
+   * Starts a server that accepts connections with {@code acceptor}.
+   *
+   * @param name the name of the server that clients connect to
+   * @param acceptor the acceptor of new connections
+   * @return the started server
+   * @throws NullPointerException if {@code name} or {@code acceptor} is {@code null}
+   */
+  public static Mono<DirectLocalServer> start(String name, SocketAcceptor acceptor) {
+    Objects.requireNonNull(name, "name must not be null");
+    Objects.requireNonNull(acceptor, "acceptor must not be null");
+
+    return Mono.create(
+        sink -> {
+          DirectLocalServer server = new DirectLocalServer(name, acceptor);
+
+          if (registry.putIfAbsent(name, server) != null) {
+            throw new IllegalStateException("name already registered: " + name);
+          }
+
+          sink.success(server);
+        });
+  }
+
+  /**
+   * Starts a server with a random name.
+   *
+   * @param acceptor the acceptor of new connections
+   * @return the started server
+   * @throws NullPointerException if {@code acceptor} is {@code null}
+   */
+  public static Mono<DirectLocalServer> startEphemeral(SocketAcceptor acceptor) {
+    return start(UUID.randomUUID().toString(), acceptor);
+  }
+
+  /**
+   * Retrieves a server by name. Returns {@code null} if that server is not registered.
+   *
+   * @param name the name of the server to retrieve
+   * @return the server if it has been registered, {@code null} otherwise
+   */
+  static @Nullable DirectLocalServer findServer(String name) {
+    Objects.requireNonNull(name, "name must not be null");
+
+    return registry.get(name);
+  }
+
+  /**
+   * Returns a new {@link DirectLocalClient} that connects to this server.
+   *
+   * @return a new {@link DirectLocalClient} that connects to this server
+   */
+  public DirectLocalClient client() {
+    return DirectLocalClient.create(name);
+  }
+
+  /**
+   * Returns the name of this server.
+   *
+   * @return the name of this server
+   */
+  public String getName() {
+    return name;
+  }
+
+  Mono<RSocket> accept(ConnectionSetupPayload setup, RSocket sendingSocket) {
+    return acceptor.accept(setup, sendingSocket);
+  }
+
+  @Override
+  public void dispose() {
+    registry.remove(name, this);
+    onClose.onComplete();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return onClose.isDisposed();
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return onClose;
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.local;
+
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.exceptions.ApplicationErrorException;
+import io.rsocket.exceptions.RSocketException;
+import java.nio.channels.ClosedChannelException;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.util.annotation.Nullable;
+
+/**
+ * The requester of one end of a direct local connection. Requests are handed to the responder of
+ * the other end as they are, without encoding frames: request {@link Payload}s are passed on with
+ * the reference the requester gave up, response {@link Payload}s reach the requester with the
+ * reference the responder gave up, and demand and cancellation flow through the Reactive Streams
+ * subscription.
+ *
+ * <p>As over a connection, requests are only made once subscribed, a fire-and-forget completes
+ * once it has been handed over, and errors of the responder other than {@link RSocketException}s
+ * surface as {@link ApplicationErrorException}s.
+ */
+final class DirectRSocket implements RSocket {
+
+  private final MonoProcessor<Void> onClose;
+  private final Consumer<Throwable> errorConsumer;
+
+  @Nullable private volatile RSocket responder;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param onClose the close notifier shared by both ends of the connection
+   * @param errorConsumer the consumer of errors of fire-and-forget and metadata push requests
+   */
+  DirectRSocket(MonoProcessor<Void> onClose, Consumer<Throwable> errorConsumer) {
+    this.onClose = Objects.requireNonNull(onClose, "onClose must not be null");
+    this.errorConsumer = Objects.requireNonNull(errorConsumer, "errorConsumer must not be null");
+  }
+
+  /**
+   * Connects this requester to the responder of the other end.
+   *
+   * @param responder the responder handling the requests
+   */
+  void connect(RSocket responder) {
+    this.responder = Objects.requireNonNull(responder, "responder must not be null");
+  }
+
+  @Override
+  public Mono<Void> fireAndForget(Payload payload) {
+    return Mono.defer(
+        () -> {
+          RSocket responder = responder();
+          if (responder == null) {
+            payload.release();
+            return Mono.error(new ClosedChannelException());
+          }
+          requestMono(responder::fireAndForget, payload).subscribe(null, errorConsumer);
+          return Mono.empty();
+        });
+  }
+
+  @Override
+  public Mono<Payload> requestResponse(Payload payload) {
+    return Mono.defer(
+        () -> {
+          RSocket responder = responder();
+          if (responder == null) {
+            payload.release();
+            return Mono.error(new ClosedChannelException());
+          }
+          return requestMono(responder::requestResponse, payload);
+        });
+  }
+
+  @Override
+  public Flux<Payload> requestStream(Payload payload) {
+    return Flux.defer(
+        () -> {
+          RSocket responder = responder();
+          if (responder == null) {
+            payload.release();
+            return Flux.error(new ClosedChannelException());
+          }
+          return requestFlux(responder::requestStream, payload);
+        });
+  }
+
+  @Override
+  public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+    return Flux.defer(
+        () -> {
+          RSocket responder = responder();
+          if (responder == null) {
+            return Flux.error(new ClosedChannelException());
+          }
+          return requestFlux(responder::requestChannel, payloads);
+        });
+  }
+
+  @Override
+  public Mono<Void> metadataPush(Payload payload) {
+    return Mono.defer(
+        () -> {
+          RSocket responder = responder();
+          if (responder == null) {
+            payload.release();
+            return Mono.error(new ClosedChannelException());
+          }
+          requestMono(responder::metadataPush, payload).subscribe(null, errorConsumer);
+          return Mono.empty();
+        });
+  }
+
+  @Override
+  public double availability() {
+    RSocket responder = responder();
+    return responder == null ? 0.0 : responder.availability();
+  }
+
+  @Override
+  public void dispose() {
+    onClose.onComplete();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return onClose.isDisposed();
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return onClose;
+  }
+
+  @Nullable
+  private RSocket responder() {
+    return isDisposed() ? null : responder;
+  }
+
+  private static <T> Mono<T> requestMono(Function<Payload, Mono<T>> request, Payload payload) {
+    Mono<T> response;
+    try {
+      response = request.apply(payload);
+    } catch (Throwable t) {
+      return Mono.error(toRemoteError(t));
+    }
+    return response.onErrorMap(DirectRSocket::toRemoteError);
+  }
+
+  private static <T> Flux<Payload> requestFlux(Function<T, Flux<Payload>> request, T payloads) {
+    Flux<Payload> response;
+    try {
+      response = request.apply(payloads);
+    } catch (Throwable t) {
+      return Flux.error(toRemoteError(t));
+    }
+    return response.onErrorMap(DirectRSocket::toRemoteError);
+  }
+
+  private static Throwable toRemoteError(Throwable t) {
+    if (t instanceof RSocketException) {
+      return t;
+    }
+    String message = t.getMessage();
+    return new ApplicationErrorException(message == null ? t.toString() : message);
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.exceptions.ApplicationErrorException;
+import io.rsocket.exceptions.RejectedSetupException;
+import io.rsocket.util.ByteBufPayload;
+import io.rsocket.util.DefaultPayload;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+final class DirectLocalClientTest {
+
+  private final AtomicLong requested = new AtomicLong();
+
+  private final RSocket responder =
+      new AbstractRSocket() {
+        @Override
+        public Mono<Payload> requestResponse(Payload payload) {
+          String data = payload.getDataUtf8();
+          payload.release();
+          if ("error".equals(data)) {
+            return Mono.error(new IllegalStateException("failed"));
+          }
+          return Mono.just(DefaultPayload.create("echo:" + data));
+        }
+
+        @Override
+        public Flux<Payload> requestStream(Payload payload) {
+          payload.release();
+          return Flux.range(0, 10)
+              .doOnRequest(requested::addAndGet)
+              .map(i -> DefaultPayload.create(String.valueOf(i)));
+        }
+      };
+
+  private DirectLocalServer server;
+
+  @AfterEach
+  void tearDown() {
+    if (server != null) {
+      server.dispose();
+    }
+  }
+
+  @DisplayName("hands requests and responses across")
+  @Test
+  void requestResponse() {
+    RSocket client = connect();
+
+    client
+        .requestResponse(DefaultPayload.create("hello"))
+        .map(Payload::getDataUtf8)
+        .as(StepVerifier::create)
+        .expectNext("echo:hello")
+        .verifyComplete();
+  }
+
+  @DisplayName("passes demand to the responder")
+  @Test
+  void requestStreamBackpressure() {
+    RSocket client = connect();
+
+    client
+        .requestStream(DefaultPayload.create("hello"))
+        .as(flux -> StepVerifier.create(flux, 3))
+        .expectNextCount(3)
+        .then(() -> assertThat(requested).hasValue(3))
+        .thenRequest(7)
+        .expectNextCount(7)
+        .verifyComplete();
+  }
+
+  @DisplayName("maps responder errors to application errors")
+  @Test
+  void requestResponseError() {
+    RSocket client = connect();
+
+    client
+        .requestResponse(DefaultPayload.create("error"))
+        .as(StepVerifier::create)
+        .expectErrorSatisfies(
+            t -> assertThat(t).isInstanceOf(ApplicationErrorException.class).hasMessage("failed"))
+        .verify();
+  }
+
+  @DisplayName("lets the server send requests to the client")
+  @Test
+  void serverRequest() {
+    server =
+        DirectLocalServer.startEphemeral(
+                (setup, sendingSocket) ->
+                    sendingSocket
+                        .requestResponse(DefaultPayload.create(setup.getDataUtf8()))
+                        .map(Payload::getDataUtf8)
+                        .map(data -> responder))
+            .block();
+
+    server
+        .client()
+        .setupPayload(DefaultPayload.create("setup"))
+        .acceptor(rSocket -> responder)
+        .connect()
+        .flatMap(client -> client.requestResponse(DefaultPayload.create("hello")))
+        .map(Payload::getDataUtf8)
+        .as(StepVerifier::create)
+        .expectNext("echo:hello")
+        .verifyComplete();
+  }
+
+  @DisplayName("copies the setup payload into every connection without releasing it")
+  @Test
+  void setupPayloadReused() {
+    server =
+        DirectLocalServer.startEphemeral(
+                (setup, sendingSocket) -> {
+                  assertThat(setup.getDataUtf8()).isEqualTo("setup");
+                  return Mono.just(responder);
+                })
+            .block();
+    Payload setupPayload = ByteBufPayload.create("setup");
+    DirectLocalClient client = server.client().setupPayload(setupPayload);
+
+    for (int i = 0; i < 2; i++) {
+      client
+          .connect()
+          .flatMap(rSocket -> rSocket.requestResponse(DefaultPayload.create("hello")))
+          .map(Payload::getDataUtf8)
+          .as(StepVerifier::create)
+          .expectNext("echo:hello")
+          .verifyComplete();
+    }
+
+    assertThat(setupPayload.refCnt()).isEqualTo(1);
+    setupPayload.release();
+  }
+
+  @DisplayName("rejects setup when the acceptor fails")
+  @Test
+  void rejectedSetup() {
+    server =
+        DirectLocalServer.startEphemeral(
+                (setup, sendingSocket) -> Mono.error(new IllegalArgumentException("rejected")))
+            .block();
+
+    server
+        .client()
+        .connect()
+        .as(StepVerifier::create)
+        .expectErrorSatisfies(
+            t -> assertThat(t).isInstanceOf(RejectedSetupException.class).hasMessage("rejected"))
+        .verify();
+  }
+
+  @DisplayName("closes both ends when the client is disposed")
+  @Test
+  void dispose() {
+    RSocket client = connect();
+
+    client.dispose();
+
+    assertThat(client.isDisposed()).isTrue();
+    client
+        .requestResponse(DefaultPayload.create("hello"))
+        .as(StepVerifier::create)
+        .verifyError();
+  }
+
+  @DisplayName("generates error if server not started")
+  @Test
+  void connectNoServer() {
+    DirectLocalClient.create("test-name")
+        .connect()
+        .as(StepVerifier::create)
+        .verifyErrorMessage("Could not find server: test-name");
+  }
+
+  private RSocket connect() {
+    server =
+        DirectLocalServer.startEphemeral((setup, sendingSocket) -> Mono.just(responder)).block();
+    return server.client().connect().block();
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.exceptions.UnsupportedSetupException;
+import io.rsocket.lease.LeaseStrategy;
+import io.rsocket.util.DefaultPayload;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+final class LeaseTest {
+  private static final String SERVER = "test-lease-server";
+
+  private Disposable server;
+
+  @AfterEach
+  void tearDown() {
+    if (server != null) {
+      server.dispose();
+    }
+  }
+
+  @Test
+  void serverLimitsRequestsInFlight() {
+    server =
+        RSocketFactory.receive()
+            .lease(LeaseStrategy.inFlight(Duration.ofSeconds(10), 2))
+            .acceptor(
+                (setup, sendingSocket) ->
+                    Mono.just(
+                        new AbstractRSocket() {
+                          @Override
+                          public Mono<Payload> requestResponse(Payload payload) {
+                            return Mono.just(payload).delayElement(Duration.ofMillis(100));
+                          }
+                        }))
+            .transport(LocalServerTransport.create(SERVER))
+            .start()
+            .block();
+
+    RSocket client =
+        RSocketFactory.connect()
+            .lease()
+            .transport(LocalClientTransport.create(SERVER))
+            .start()
+            .block();
+
+    Mono.fromCallable(client::availability)
+        .filter(availability -> availability > 0)
+        .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(10)))
+        .block(Duration.ofSeconds(5));
+
+    List<String> results =
+        Flux.range(0, 4)
+            .flatMap(
+                i ->
+                    client
+                        .requestResponse(DefaultPayload.create("request"))
+                        .map(Payload::getDataUtf8)
+                        .onErrorResume(RejectedException.class, e -> Mono.just("rejected")))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+    assertThat(results).containsExactly("rejected", "rejected", "request", "request");
+    assertThat(client.availability()).isEqualTo(0.0);
+    client.dispose();
+  }
+
+  @Test
+  void clientLeasesAllowServerRequests() {
+    MonoProcessor<RSocket> serverRequester = MonoProcessor.create();
+    server =
+        RSocketFactory.receive()
+            .lease(LeaseStrategy.none())
+            .acceptor(
+                (setup, sendingSocket) -> {
+                  serverRequester.onNext(sendingSocket);
+                  return Mono.just(new AbstractRSocket() {});
+                })
+            .transport(LocalServerTransport.create(SERVER))
+            .start()
+            .block();
+
+    RSocket client =
+        RSocketFactory.connect()
+            .lease(LeaseStrategy.inFlight(Duration.ofSeconds(10), 2))
+            .acceptor(
+                rSocket ->
+                    new AbstractRSocket() {
+                      @Override
+                      public Mono<Payload> requestResponse(Payload payload) {
+                        return Mono.just(DefaultPayload.create("response"));
+                      }
+                    })
+            .transport(LocalClientTransport.create(SERVER))
+            .start()
+            .block();
+
+    RSocket requester = serverRequester.block(Duration.ofSeconds(5));
+    Mono.fromCallable(requester::availability)
+        .filter(availability -> availability > 0)
+        .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(10)))
+        .block(Duration.ofSeconds(5));
+
+    StepVerifier.create(
+            requester.requestResponse(DefaultPayload.create("request")).map(Payload::getDataUtf8))
+        .expectNext("response")
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+    client.dispose();
+  }
+
+  @Test
+  void serverWithoutLeaseRejectsLeaseClient() {
+    server =
+        RSocketFactory.receive()
+            .acceptor((setup, sendingSocket) -> Mono.just(new AbstractRSocket() {}))
+            .transport(LocalServerTransport.create(SERVER))
+            .start()
+            .block();
+
+    RSocket client =
+        RSocketFactory.connect()
+            .lease()
+            .transport(LocalClientTransport.create(SERVER))
+            .start()
+            .block();
+
+    StepVerifier.create(client.requestResponse(DefaultPayload.create("request")))
+        .expectError(UnsupportedSetupException.class)
+        .verify(Duration.ofSeconds(5));
+  }
+}
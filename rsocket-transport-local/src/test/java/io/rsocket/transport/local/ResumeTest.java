@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.DuplexConnection;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.exceptions.RejectedResumeException;
+import io.rsocket.resume.ResumePositionCounter;
+import io.rsocket.resume.ResumeStore;
+import io.rsocket.resume.RingBufferResumeStore;
+import io.rsocket.transport.ClientTransport;
+import io.rsocket.util.DefaultPayload;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+final class ResumeTest {
+  private static final String SERVER = "test-resume-server";
+  private static final IntFunction<ResumeStore> DEFAULT_STORE =
+      size -> ResumeStore.retaining(ResumePositionCounter.size(), size);
+
+  private final List<DuplexConnection> connections = new CopyOnWriteArrayList<>();
+
+  private Disposable server;
+
+  @AfterEach
+  void tearDown() {
+    if (server != null) {
+      server.dispose();
+    }
+  }
+
+  @Test
+  void streamSurvivesDisconnects() {
+    streamSurvivesDisconnects(DEFAULT_STORE);
+  }
+
+  @Test
+  void streamSurvivesDisconnectsWithOffHeapStore() {
+    streamSurvivesDisconnects(RingBufferResumeStore::offHeap);
+  }
+
+  private void streamSurvivesDisconnects(IntFunction<ResumeStore> store) {
+    server = startServer(store);
+    RSocket client = connect(store);
+
+    Disposable disconnects =
+        Flux.interval(Duration.ofMillis(150)).subscribe(i -> disconnectLatest());
+
+    try {
+      List<String> received =
+          client
+              .requestStream(DefaultPayload.create("stream"))
+              .map(Payload::getDataUtf8)
+              .collectList()
+              .block(Duration.ofSeconds(30));
+
+      assertThat(received)
+          .isEqualTo(
+              IntStream.range(0, 100).mapToObj(String::valueOf).collect(Collectors.toList()));
+      assertThat(connections.size()).isGreaterThan(1);
+    } finally {
+      disconnects.dispose();
+      client.dispose();
+    }
+  }
+
+  @Test
+  void requestsAfterResumption() {
+    server = startServer(DEFAULT_STORE);
+    RSocket client = connect(DEFAULT_STORE);
+
+    StepVerifier.create(client.requestResponse(DefaultPayload.create("hello")))
+        .expectNextMatches(payload -> payload.getDataUtf8().equals("hello"))
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+
+    disconnectLatest();
+
+    StepVerifier.create(client.requestResponse(DefaultPayload.create("world")))
+        .expectNextMatches(payload -> payload.getDataUtf8().equals("world"))
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+
+    assertThat(connections).hasSize(2);
+    client.dispose();
+  }
+
+  @Test
+  void unknownSessionIsRejected() {
+    server = startServer(DEFAULT_STORE);
+    RSocket client = connect(DEFAULT_STORE);
+
+    StepVerifier.create(client.requestResponse(DefaultPayload.create("hello")))
+        .expectNextCount(1)
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+
+    // a restarted server does not know the session of the client
+    server.dispose();
+    server = startServer(DEFAULT_STORE);
+    disconnectLatest();
+
+    StepVerifier.create(client.onClose())
+        .expectError(RejectedResumeException.class)
+        .verify(Duration.ofSeconds(5));
+  }
+
+  private void disconnectLatest() {
+    connections.get(connections.size() - 1).dispose();
+  }
+
+  private static Disposable startServer(IntFunction<ResumeStore> store) {
+    return RSocketFactory.receive()
+        .resume()
+        .resumeStore(store)
+        .acceptor(
+            (setup, sendingSocket) ->
+                Mono.just(
+                    new AbstractRSocket() {
+                      @Override
+                      public Mono<Payload> requestResponse(Payload payload) {
+                        return Mono.just(payload);
+                      }
+
+                      @Override
+                      public Flux<Payload> requestStream(Payload payload) {
+                        payload.release();
+                        return Flux.interval(Duration.ofMillis(10))
+                            .take(100)
+                            .map(i -> DefaultPayload.create(String.valueOf(i)));
+                      }
+                    }))
+        .transport(LocalServerTransport.create(SERVER))
+        .start()
+        .block();
+  }
+
+  private RSocket connect(IntFunction<ResumeStore> store) {
+    ClientTransport transport =
+        mtu -> LocalClientTransport.create(SERVER).connect(mtu).doOnNext(connections::add);
+
+    return RSocketFactory.connect()
+        .resume()
+        .resumeStore(store)
+        .resumeRetryInterval(Duration.ofMillis(20))
+        .keepAliveTickPeriod(Duration.ofMillis(50))
+        .transport(transport)
+        .start()
+        .block();
+  }
+}
@@ -0,0 +1,114 @@
+package io.rsocket.transport.netty;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.transport.netty.client.TcpClientTransport;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import io.rsocket.util.ByteBufPayload;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Measures request-response ping-pong and request-stream throughput over a loopback TCP connection
+ * with and without write batching enabled on both transports.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class TcpSendPerf {
+
+  static final int STREAM_SIZE = 1024;
+
+  @Param({"false", "true"})
+  boolean batchWrites;
+
+  @Param({"16", "1024"})
+  int payloadSize;
+
+  CloseableChannel server;
+  RSocket client;
+  Payload payload;
+
+  @Setup
+  public void setup() {
+    byte[] bytes = new byte[payloadSize];
+    Payload response = ByteBufPayload.create(bytes);
+
+    TcpServerTransport serverTransport = TcpServerTransport.create("localhost", 0);
+    if (batchWrites) {
+      serverTransport = serverTransport.batchWrites();
+    }
+    server =
+        RSocketFactory.receive()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .acceptor(
+                (setup, sendingSocket) ->
+                    Mono.just(
+                        new AbstractRSocket() {
+                          @Override
+                          public Mono<Payload> requestResponse(Payload payload) {
+                            payload.release();
+                            return Mono.just(response.retain());
+                          }
+
+                          @Override
+                          public Flux<Payload> requestStream(Payload payload) {
+                            payload.release();
+                            return Flux.range(0, STREAM_SIZE).map(i -> response.retain());
+                          }
+                        }))
+            .transport(serverTransport)
+            .start()
+            .block();
+
+    TcpClientTransport clientTransport = TcpClientTransport.create(server.address());
+    if (batchWrites) {
+      clientTransport = clientTransport.batchWrites();
+    }
+    client =
+        RSocketFactory.connect()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .transport(clientTransport)
+            .start()
+            .block();
+
+    payload = ByteBufPayload.create(bytes);
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.dispose();
+    server.dispose();
+    payload.release();
+  }
+
+  @Benchmark
+  public void requestResponse(Blackhole bh) {
+    Payload response = client.requestResponse(payload.retain()).block();
+    bh.consume(response.data());
+    response.release();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(STREAM_SIZE)
+  public void requestStream(Blackhole bh) {
+    client
+        .requestStream(payload.retain())
+        .doOnNext(
+            response -> {
+              bh.consume(response.data());
+              response.release();
+            })
+        .blockLast();
+  }
+}
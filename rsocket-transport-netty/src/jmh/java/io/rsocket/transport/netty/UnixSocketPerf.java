@@ -0,0 +1,125 @@
+package io.rsocket.transport.netty;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.transport.ClientTransport;
+import io.rsocket.transport.netty.client.TcpClientTransport;
+import io.rsocket.transport.netty.client.UnixClientTransport;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import io.rsocket.transport.netty.server.UnixServerTransport;
+import io.rsocket.util.ByteBufPayload;
+import java.io.File;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compares a Unix domain socket with a loopback TCP connection: request-response ping-pong latency
+ * and request-stream throughput. Requires the native epoll transport.
+ */
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class UnixSocketPerf {
+
+  static final int STREAM_SIZE = 1024;
+
+  @Param({"tcp", "unix"})
+  String transport;
+
+  @Param({"16", "1024"})
+  int payloadSize;
+
+  Closeable server;
+  RSocket client;
+  Payload payload;
+
+  @Setup
+  public void setup() {
+    byte[] bytes = new byte[payloadSize];
+    Payload response = ByteBufPayload.create(bytes);
+
+    RSocketFactory.ServerTransportAcceptor serverFactory =
+        RSocketFactory.receive()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .acceptor(
+                (setup, sendingSocket) ->
+                    Mono.just(
+                        new AbstractRSocket() {
+                          @Override
+                          public Mono<Payload> requestResponse(Payload payload) {
+                            payload.release();
+                            return Mono.just(response.retain());
+                          }
+
+                          @Override
+                          public Flux<Payload> requestStream(Payload payload) {
+                            payload.release();
+                            return Flux.range(0, STREAM_SIZE).map(i -> response.retain());
+                          }
+                        }));
+
+    ClientTransport clientTransport;
+    if ("unix".equals(transport)) {
+      String path =
+          new File(System.getProperty("java.io.tmpdir"), "rsocket-" + UUID.randomUUID()).getPath();
+      server = serverFactory.transport(UnixServerTransport.create(path)).start().block();
+      clientTransport = UnixClientTransport.create(path);
+    } else {
+      CloseableChannel channel =
+          serverFactory.transport(TcpServerTransport.create("localhost", 0)).start().block();
+      server = channel;
+      clientTransport = TcpClientTransport.create(channel.address());
+    }
+
+    client =
+        RSocketFactory.connect()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .transport(clientTransport)
+            .start()
+            .block();
+
+    payload = ByteBufPayload.create(bytes);
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.dispose();
+    server.dispose();
+    payload.release();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void requestResponse(Blackhole bh) {
+    Payload response = client.requestResponse(payload.retain()).block();
+    bh.consume(response.data());
+    response.release();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OperationsPerInvocation(STREAM_SIZE)
+  public void requestStream(Blackhole bh) {
+    client
+        .requestStream(payload.retain())
+        .doOnNext(
+            response -> {
+              bh.consume(response.data());
+              response.release();
+            })
+        .blockLast();
+  }
+}
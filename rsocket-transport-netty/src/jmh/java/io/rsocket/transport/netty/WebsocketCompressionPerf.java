@@ -0,0 +1,142 @@
+package io.rsocket.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.transport.netty.client.WebsocketClientTransport;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.WebsocketServerTransport;
+import io.rsocket.util.ByteBufPayload;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.tcp.TcpClient;
+
+/**
+ * Compares compressed and uncompressed Websocket connections streaming JSON-like payloads. Reports
+ * throughput and, as the {@code wireBytes} secondary result, the bytes received by the client
+ * socket. Run with {@code -prof stack} or {@code -prof perfnorm} to compare CPU cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(
+    value = 1 // , jvmArgsAppend = {"-Dio.netty.leakDetection.level=advanced"}
+    )
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class WebsocketCompressionPerf {
+
+  static final int STREAM_SIZE = 1024;
+
+  @Param({"none", "deflate"})
+  String compression;
+
+  @Param({"1024", "16384"})
+  int payloadSize;
+
+  final AtomicLong receivedBytes = new AtomicLong();
+
+  CloseableChannel server;
+  RSocket client;
+  Payload payload;
+
+  @Setup
+  public void setup() {
+    Payload response = ByteBufPayload.create(json(payloadSize));
+
+    WebsocketTransportOptions options =
+        WebsocketTransportOptions.defaults().compression("deflate".equals(compression));
+
+    server =
+        RSocketFactory.receive()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .acceptor(
+                (setup, sendingSocket) ->
+                    Mono.just(
+                        new AbstractRSocket() {
+                          @Override
+                          public Flux<Payload> requestStream(Payload payload) {
+                            payload.release();
+                            return Flux.range(0, STREAM_SIZE).map(i -> response.retain());
+                          }
+                        }))
+            .transport(WebsocketServerTransport.create("localhost", 0).options(options))
+            .start()
+            .block();
+
+    TcpClient tcpClient =
+        TcpClient.create()
+            .addressSupplier(server::address)
+            .doOnConnected(c -> c.channel().pipeline().addFirst(new ByteCounter()));
+
+    client =
+        RSocketFactory.connect()
+            .frameDecoder(PayloadDecoder.ZERO_COPY)
+            .transport(
+                WebsocketClientTransport.create(HttpClient.from(tcpClient), "/").options(options))
+            .start()
+            .block();
+
+    payload = ByteBufPayload.create("request");
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.dispose();
+    server.dispose();
+    payload.release();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(STREAM_SIZE)
+  public void requestStream(Blackhole bh, WireBytes wireBytes) {
+    long before = receivedBytes.get();
+    client
+        .requestStream(payload.retain())
+        .doOnNext(
+            response -> {
+              bh.consume(response.data());
+              response.release();
+            })
+        .blockLast();
+    wireBytes.wireBytes += receivedBytes.get() - before;
+  }
+
+  static String json(int size) {
+    StringBuilder builder = new StringBuilder(size);
+    for (int i = 0; builder.length() < size; i++) {
+      builder
+          .append("{\"id\":")
+          .append(i)
+          .append(",\"symbol\":\"RSKT\",\"price\":")
+          .append(100 + i % 17)
+          .append(".25,\"side\":\"BUY\"},");
+    }
+    builder.setLength(size);
+    return builder.toString();
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class WireBytes {
+    public long wireBytes;
+  }
+
+  final class ByteCounter extends ChannelInboundHandlerAdapter {
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      if (msg instanceof ByteBuf) {
+        receivedBytes.addAndGet(((ByteBuf) msg).readableBytes());
+      }
+      ctx.fireChannelRead(msg);
+    }
+  }
+}
@@ -39,6 +39,8 @@
   private final AtomicBoolean completed = new AtomicBoolean();
   private final Function<ByteBuf, V> transformer;
   private final SizeOf<V> sizeOf;
+  private final int maxBatchFrames;
+  private final int maxBatchBytes;
 
   @SuppressWarnings("unused")
   private volatile int terminated;
@@ -53,6 +55,16 @@
 
   private long requested;
 
+  private int batchedFrames;
+
+  private long batchedBytes;
+
+  /** The last frame of the current batch, written once it is known whether more follow. */
+  private V held;
+
+  /** Frames written with the void promise since the last frame written with a promise. */
+  private int unconfirmed;
+
   private long requestedUpstream = MAX_SIZE;
 
   private boolean fuse;
@@ -66,19 +78,41 @@
     this(Queues.<ByteBuf>small().get(), source, channel, transformer, sizeOf);
   }
 
-  @SuppressWarnings("unchecked")
   SendPublisher(
       Queue<ByteBuf> queue,
       Publisher<ByteBuf> source,
       Channel channel,
       Function<ByteBuf, V> transformer,
       SizeOf<V> sizeOf) {
+    this(queue, source, channel, transformer, sizeOf, 0, 0);
+  }
+
+  /**
+   * Creates a publisher that writes frames to {@code channel}. When {@code maxBatchFrames} is
+   * positive frames are written with the channel's void promise and flushed once per drain cycle,
+   * or earlier once {@code maxBatchFrames} frames or {@code maxBatchBytes} bytes have been written
+   * since the last flush. In that mode the channel takes over the reference held on each frame
+   * returned by {@code transformer}, and only the last frame of each batch is written with a
+   * promise: the frames of a batch are requested again from upstream once it has been written to
+   * the socket, so a slow reader stops upstream demand as in the unbatched mode.
+   */
+  @SuppressWarnings("unchecked")
+  SendPublisher(
+      Queue<ByteBuf> queue,
+      Publisher<ByteBuf> source,
+      Channel channel,
+      Function<ByteBuf, V> transformer,
+      SizeOf<V> sizeOf,
+      int maxBatchFrames,
+      int maxBatchBytes) {
     this.source = source;
     this.channel = channel;
     this.queue = queue;
     this.eventLoop = channel.eventLoop();
     this.transformer = transformer;
     this.sizeOf = sizeOf;
+    this.maxBatchFrames = maxBatchFrames;
+    this.maxBatchBytes = maxBatchBytes;
 
     fuse = queue instanceof Fuseable.QueueSubscription;
   }
@@ -105,6 +139,22 @@ private ChannelPromise writeCleanupPromise(V poll) {
             });
   }
 
+  private ChannelPromise batchCleanupPromise(int frames) {
+    return channel
+        .newPromise()
+        .addListener(
+            future -> {
+              requestedUpstream -= frames;
+              pending -= frames;
+
+              InnerSubscriber is = (InnerSubscriber) INNER_SUBSCRIBER.get(SendPublisher.this);
+              if (is != null) {
+                is.tryRequestMoreUpstream();
+                tryComplete(is);
+              }
+            });
+  }
+
   private void tryComplete(InnerSubscriber is) {
     if (pending == 0
         && completed.get()
@@ -199,8 +249,23 @@ private void flush() {
       }
     }
 
+    /** Writes the held frame with a promise that refills the demand of its whole batch. */
+    private void writeHeld() {
+      if (held != null) {
+        channel.write(held, batchCleanupPromise(unconfirmed));
+        held = null;
+        unconfirmed = 0;
+      }
+    }
+
+    private void flushBatch() {
+      batchedFrames = 0;
+      batchedBytes = 0;
+      flush();
+    }
+
     private void tryDrain() {
-      if (wip == 0 && terminated == 0 && WIP.getAndIncrement(SendPublisher.this) == 0) {
+      if (terminated == 0 && WIP.getAndIncrement(SendPublisher.this) == 0) {
         try {
           if (eventLoop.inEventLoop()) {
             drain();
@@ -214,6 +279,10 @@ private void tryDrain() {
     }
 
     private void drain() {
+      if (maxBatchFrames > 0) {
+        drainBatched();
+        return;
+      }
       try {
         boolean scheduleFlush;
         int missed = 1;
@@ -259,6 +328,61 @@ private void drain() {
         onError(t);
       }
     }
+
+    private void drainBatched() {
+      try {
+        int missed = 1;
+        for (; ; ) {
+          // demand is consumed as frames are written, so re-read it rather than draining a snapshot
+          while (requested > 0) {
+            ByteBuf ByteBuf = queue.poll();
+            if (ByteBuf != null && terminated == 0) {
+              V poll = transformer.apply(ByteBuf);
+              int readableBytes = sizeOf.size(poll);
+              if (requested != Long.MAX_VALUE) {
+                requested--;
+              }
+
+              if (held != null) {
+                channel.write(held, channel.voidPromise());
+              }
+              held = poll;
+              unconfirmed++;
+              pending++;
+              batchedFrames++;
+              batchedBytes += readableBytes;
+              if (batchedFrames >= maxBatchFrames
+                  || batchedBytes >= maxBatchBytes
+                  || !channel.isWritable()) {
+                writeHeld();
+                flushBatch();
+              }
+            } else {
+              break;
+            }
+          }
+          writeHeld();
+
+          // defer the flush so that drain cycles running in the same event loop task share it
+          if (batchedFrames > 0 && !pendingFlush.get()) {
+            pendingFlush.set(true);
+            eventLoop.execute(this::flushBatch);
+          }
+
+          if (terminated == 1) {
+            break;
+          }
+
+          missed = WIP.addAndGet(SendPublisher.this, -missed);
+          if (missed == 0) {
+            break;
+          }
+        }
+        tryComplete(this);
+      } catch (Throwable t) {
+        onError(t);
+      }
+    }
   }
 
   private class InnerSubscription implements Subscription {
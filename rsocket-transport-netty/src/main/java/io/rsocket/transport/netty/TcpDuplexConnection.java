@@ -28,6 +28,7 @@
 import reactor.core.publisher.Mono;
 import reactor.netty.Connection;
 import reactor.netty.FutureMono;
+import reactor.util.concurrent.Queues;
 
 /** An implementation of {@link DuplexConnection} that connects via TCP. */
 public final class TcpDuplexConnection implements DuplexConnection {
@@ -36,6 +37,8 @@ public final class TcpDuplexConnection implements DuplexConnection {
   private final Disposable channelClosed;
   private final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
   private final boolean encodeLength;
+  private final int maxBatchFrames;
+  private final int maxBatchBytes;
 
   /**
    * Creates a new instance
@@ -53,7 +56,31 @@ public TcpDuplexConnection(Connection connection) {
    * @param connection the {@link Connection} to for managing the server
    */
   public TcpDuplexConnection(Connection connection, boolean encodeLength) {
+    this(connection, encodeLength, 0, 0);
+  }
+
+  /**
+   * Creates a new instance that batches writes. Frames are written without a per-frame promise and
+   * the channel is flushed once per drain of the outbound queue, or as soon as {@code
+   * maxBatchFrames} frames or {@code maxBatchBytes} bytes are pending.
+   *
+   * @param connection the {@link Connection} to for managing the server
+   * @param encodeLength indicates if this connection should encode the length or not.
+   * @param maxBatchFrames the maximum number of frames written between flushes, {@code 0} disables
+   *     batching
+   * @param maxBatchBytes the maximum number of bytes written between flushes
+   */
+  public TcpDuplexConnection(
+      Connection connection, boolean encodeLength, int maxBatchFrames, int maxBatchBytes) {
+    if (maxBatchFrames < 0) {
+      throw new IllegalArgumentException("maxBatchFrames must not be negative");
+    }
+    if (maxBatchBytes <= 0 && maxBatchFrames > 0) {
+      throw new IllegalArgumentException("maxBatchBytes must be positive");
+    }
     this.encodeLength = encodeLength;
+    this.maxBatchFrames = maxBatchFrames;
+    this.maxBatchBytes = maxBatchBytes;
     this.connection = Objects.requireNonNull(connection, "connection must not be null");
     this.channelClosed =
         FutureMono.from(connection.channel().closeFuture())
@@ -107,10 +134,18 @@ public Mono<Void> send(Publisher<ByteBuf> frames) {
                     frameFlux,
                     connection.channel(),
                     this::encode,
-                    ByteBuf::readableBytes);
+                    ByteBuf::readableBytes,
+                    maxBatchFrames,
+                    maxBatchBytes);
               } else {
                 return new SendPublisher<>(
-                    frameFlux, connection.channel(), this::encode, ByteBuf::readableBytes);
+                    Queues.<ByteBuf>small().get(),
+                    frameFlux,
+                    connection.channel(),
+                    this::encode,
+                    ByteBuf::readableBytes,
+                    maxBatchFrames,
+                    maxBatchBytes);
               }
             })
         .then();
@@ -118,7 +153,9 @@ public Mono<Void> send(Publisher<ByteBuf> frames) {
 
   private ByteBuf encode(ByteBuf frame) {
     if (encodeLength) {
-      return FrameLengthFlyweight.encode(allocator, frame.readableBytes(), frame).retain();
+      ByteBuf encoded = FrameLengthFlyweight.encode(allocator, frame.readableBytes(), frame);
+      // batched writes hand the only reference to the channel instead of releasing it on completion
+      return maxBatchFrames > 0 ? encoded : encoded.retain();
     } else {
       return frame;
     }
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.netty;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import java.util.Objects;
+import reactor.netty.resources.LoopResources;
+import reactor.netty.tcp.TcpClient;
+import reactor.netty.tcp.TcpResources;
+import reactor.netty.tcp.TcpServer;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Socket and event loop settings of the TCP transports. Instances are immutable, every setter
+ * returns a modified copy. Settings left unset keep the Netty and operating system defaults.
+ *
+ * <p>The native epoll transport is used automatically on Linux when it is available, unless
+ * disabled with {@link #preferNative(boolean)}. It is only available if {@code
+ * io.netty:netty-transport-native-epoll} with the classifier of the platform is on the classpath.
+ *
+ * @see io.rsocket.transport.netty.client.TcpClientTransport#options(TcpTransportOptions)
+ * @see io.rsocket.transport.netty.server.TcpServerTransport#options(TcpTransportOptions)
+ */
+public final class TcpTransportOptions {
+
+  private static final TcpTransportOptions DEFAULTS =
+      new TcpTransportOptions(true, 0, 0, true, false, 0, 0, null);
+
+  private final boolean preferNative;
+  private final int receiveBufferSize;
+  private final int sendBufferSize;
+  private final boolean tcpNoDelay;
+  private final boolean tcpQuickAck;
+  private final int writeBufferLowWaterMark;
+  private final int writeBufferHighWaterMark;
+  @Nullable private final LoopResources loopResources;
+
+  private TcpTransportOptions(
+      boolean preferNative,
+      int receiveBufferSize,
+      int sendBufferSize,
+      boolean tcpNoDelay,
+      boolean tcpQuickAck,
+      int writeBufferLowWaterMark,
+      int writeBufferHighWaterMark,
+      @Nullable LoopResources loopResources) {
+    this.preferNative = preferNative;
+    this.receiveBufferSize = receiveBufferSize;
+    this.sendBufferSize = sendBufferSize;
+    this.tcpNoDelay = tcpNoDelay;
+    this.tcpQuickAck = tcpQuickAck;
+    this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+    this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+    this.loopResources = loopResources;
+  }
+
+  /**
+   * Returns the default options: native transport when available, {@code TCP_NODELAY} enabled and
+   * the shared reactor-netty event loops.
+   *
+   * @return the default options
+   */
+  public static TcpTransportOptions defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * Whether the native epoll transport can be used on this platform.
+   *
+   * @return {@code true} if epoll is available
+   */
+  public static boolean isNativeAvailable() {
+    try {
+      return Epoll.isAvailable();
+    } catch (LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Why the native epoll transport cannot be used on this platform.
+   *
+   * @return the cause reported by {@link Epoll#unavailabilityCause()}, the error raised when the
+   *     epoll classes are missing, or {@code null} if epoll is available
+   */
+  @Nullable
+  public static Throwable nativeUnavailabilityCause() {
+    try {
+      return Epoll.unavailabilityCause();
+    } catch (LinkageError e) {
+      return e;
+    }
+  }
+
+  /**
+   * Returns a copy of these options that uses the native epoll transport when available, or NIO
+   * otherwise. Defaults to {@code true}.
+   *
+   * @param preferNative whether to use the native transport when available
+   * @return a new instance
+   */
+  public TcpTransportOptions preferNative(boolean preferNative) {
+    return new TcpTransportOptions(
+        preferNative,
+        receiveBufferSize,
+        sendBufferSize,
+        tcpNoDelay,
+        tcpQuickAck,
+        writeBufferLowWaterMark,
+        writeBufferHighWaterMark,
+        loopResources);
+  }
+
+  /**
+   * Returns a copy of these options that sets {@code SO_RCVBUF}.
+   *
+   * @param receiveBufferSize the socket receive buffer size in bytes
+   * @return a new instance
+   * @throws IllegalArgumentException if {@code receiveBufferSize} is not positive
+   */
+  public TcpTransportOptions receiveBufferSize(int receiveBufferSize) {
+    if (receiveBufferSize <= 0) {
+      throw new IllegalArgumentException("receiveBufferSize must be positive");
+    }
+
+    return new TcpTransportOptions(
+        preferNative,
+        receiveBufferSize,
+        sendBufferSize,
+        tcpNoDelay,
+        tcpQuickAck,
+        writeBufferLowWaterMark,
+        writeBufferHighWaterMark,
+        loopResources);
+  }
+
+  /**
+   * Returns a copy of these options that sets {@code SO_SNDBUF}.
+   *
+   * @param sendBufferSize the socket send buffer size in bytes
+   * @return a new instance
+   * @throws IllegalArgumentException if {@code sendBufferSize} is not positive
+   */
+  public TcpTransportOptions sendBufferSize(int sendBufferSize) {
+    if (sendBufferSize <= 0) {
+      throw new IllegalArgumentException("sendBufferSize must be positive");
+    }
+
+    return new TcpTransportOptions(
+        preferNative,
+        receiveBufferSize,
+        sendBufferSize,
+        tcpNoDelay,
+        tcpQuickAck,
+        writeBufferLowWaterMark,
+        writeBufferHighWaterMark,
+        loopResources);
+  }
+
+  /**
+   * Returns a copy of these options that sets {@code TCP_NODELAY}. Defaults to {@code true}.
+   *
+   * @param tcpNoDelay whether to disable Nagle's algorithm
+   * @return a new instance
+   */
+  public TcpTransportOptions tcpNoDelay(boolean tcpNoDelay) {
+    return new TcpTransportOptions(
+        preferNative,
+        receiveBufferSize,
+        sendBufferSize,
+        tcpNoDelay,
+        tcpQuickAck,
+        writeBufferLowWaterMark,
+        writeBufferHighWaterMark,
+        loopResources);
+  }
+
+  /**
+   * Returns a copy of these options that sets {@code TCP_QUICKACK}. Only applied when the native
+   * epoll transport is used. Defaults to {@code false}.
+   *
+   * @param tcpQuickAck whether to acknowledge received segments immediately
+   * @return a new instance
+   */
+  public TcpTransportOptions tcpQuickAck(boolean tcpQuickAck) {
+    return new TcpTransportOptions(
+        preferNative,
+        receiveBufferSize,
+        sendBufferSize,
+        tcpNoDelay,
+        tcpQuickAck,
+        writeBufferLowWaterMark,
+        writeBufferHighWaterMark,
+        loopResources);
+  }
+
+  /**
+   * Returns a copy of these options that sets the write buffer water marks of the channel. The
+   * channel becomes unwritable once {@code high} bytes are pending and writable again below {@code
+   * low}.
+   *
+   * @param low the low water mark in bytes
+   * @param high the high water mark in bytes
+   * @return a new instance
+   * @throws IllegalArgumentException if {@code low} is negative or {@code high} is not positive or
+   *     less than {@code low}
+   */
+  public TcpTransportOptions writeBufferWaterMark(int low, int high) {
+    if (low < 0) {
+      throw new IllegalArgumentException("low must not be negative");
+    }
+    if (high <= 0 || high < low) {
+      throw new IllegalArgumentException("high must be positive and not less than low");
+    }
+
+    return new TcpTransportOptions(
+        preferNative,
+        receiveBufferSize,
+        sendBufferSize,
+        tcpNoDelay,
+        tcpQuickAck,
+        low,
+        high,
+        loopResources);
+  }
+
+  /**
+   * Returns a copy of these options that runs connections on {@code loopResources} instead of the
+   * shared reactor-netty event loops, for example dedicated ones created with {@link
+   * LoopResources#create(String, int, int, boolean)}. The caller owns them and must dispose them
+   * once all transports using these options are closed.
+   *
+   * @param loopResources the event loops to run connections on
+   * @return a new instance
+   * @throws NullPointerException if {@code loopResources} is {@code null}
+   */
+  public TcpTransportOptions runOn(LoopResources loopResources) {
+    Objects.requireNonNull(loopResources, "loopResources must not be null");
+
+    return new TcpTransportOptions(
+        preferNative,
+        receiveBufferSize,
+        sendBufferSize,
+        tcpNoDelay,
+        tcpQuickAck,
+        writeBufferLowWaterMark,
+        writeBufferHighWaterMark,
+        loopResources);
+  }
+
+  /**
+   * Whether connections using these options run on the native epoll transport.
+   *
+   * @return {@code true} if the native transport is preferred and available
+   */
+  public boolean isNative() {
+    return preferNative && isNativeAvailable();
+  }
+
+  /**
+   * Applies these options to a {@link TcpClient}.
+   *
+   * @param client the client to configure
+   * @return the configured client
+   */
+  public TcpClient apply(TcpClient client) {
+    client =
+        client.runOn(loopResources(), preferNative).option(ChannelOption.TCP_NODELAY, tcpNoDelay);
+    if (receiveBufferSize > 0) {
+      client = client.option(ChannelOption.SO_RCVBUF, receiveBufferSize);
+    }
+    if (sendBufferSize > 0) {
+      client = client.option(ChannelOption.SO_SNDBUF, sendBufferSize);
+    }
+    if (writeBufferHighWaterMark > 0) {
+      client =
+          client.option(
+              ChannelOption.WRITE_BUFFER_WATER_MARK,
+              new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark));
+    }
+    if (tcpQuickAck && isNative()) {
+      client = client.option(EpollChannelOption.TCP_QUICKACK, true);
+    }
+    return client;
+  }
+
+  /**
+   * Applies these options to a {@link TcpServer}. Socket options are applied to accepted
+   * connections, the receive buffer size also to the listening socket so that it is in effect
+   * when the TCP window is negotiated.
+   *
+   * @param server the server to configure
+   * @return the configured server
+   */
+  public TcpServer apply(TcpServer server) {
+    server =
+        server.runOn(loopResources(), preferNative).option(ChannelOption.TCP_NODELAY, tcpNoDelay);
+    if (receiveBufferSize > 0) {
+      server =
+          server
+              .selectorOption(ChannelOption.SO_RCVBUF, receiveBufferSize)
+              .option(ChannelOption.SO_RCVBUF, receiveBufferSize);
+    }
+    if (sendBufferSize > 0) {
+      server = server.option(ChannelOption.SO_SNDBUF, sendBufferSize);
+    }
+    if (writeBufferHighWaterMark > 0) {
+      server =
+          server.option(
+              ChannelOption.WRITE_BUFFER_WATER_MARK,
+              new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark));
+    }
+    if (tcpQuickAck && isNative()) {
+      server = server.option(EpollChannelOption.TCP_QUICKACK, true);
+    }
+    return server;
+  }
+
+  private LoopResources loopResources() {
+    return loopResources != null ? loopResources : TcpResources.get();
+  }
+
+  @Override
+  public String toString() {
+    return "TcpTransportOptions{"
+        + "preferNative="
+        + preferNative
+        + ", receiveBufferSize="
+        + receiveBufferSize
+        + ", sendBufferSize="
+        + sendBufferSize
+        + ", tcpNoDelay="
+        + tcpNoDelay
+        + ", tcpQuickAck="
+        + tcpQuickAck
+        + ", writeBufferLowWaterMark="
+        + writeBufferLowWaterMark
+        + ", writeBufferHighWaterMark="
+        + writeBufferHighWaterMark
+        + ", loopResources="
+        + loopResources
+        + '}';
+  }
+}
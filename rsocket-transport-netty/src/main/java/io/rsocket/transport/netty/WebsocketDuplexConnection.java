@@ -17,7 +17,9 @@
 
 import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
 import io.rsocket.DuplexConnection;
+import io.rsocket.frame.FrameLengthFlyweight;
 import java.util.Objects;
 import org.reactivestreams.Publisher;
 import reactor.core.Disposable;
@@ -34,6 +36,9 @@
  * <p>rsocket-java strongly assumes that each ByteBuf is encoded with the length. This is not true
  * for message oriented transports so this must be specifically dropped from Frames sent and
  * stitched back on for frames received.
+ *
+ * <p>Messages received as a binary frame followed by continuation frames are aggregated into a
+ * single RSocket frame. Outbound frames can be split into continuation frames in the same way.
  */
 public final class WebsocketDuplexConnection implements DuplexConnection {
 
@@ -46,7 +51,31 @@ public final class WebsocketDuplexConnection implements DuplexConnection {
    * @param connection the {@link Connection} to for managing the server
    */
   public WebsocketDuplexConnection(Connection connection) {
+    this(connection, 0);
+  }
+
+  /**
+   * Creates a new instance that splits frames larger than {@code maxFragmentSize} bytes into
+   * continuation frames.
+   *
+   * @param connection the {@link Connection} to for managing the server
+   * @param maxFragmentSize the maximum payload size of a Websocket frame in bytes, or {@code 0} to
+   *     send every frame unsplit
+   * @throws IllegalArgumentException if {@code maxFragmentSize} is negative
+   */
+  public WebsocketDuplexConnection(Connection connection, int maxFragmentSize) {
     this.connection = Objects.requireNonNull(connection, "connection must not be null");
+    if (maxFragmentSize < 0) {
+      throw new IllegalArgumentException("maxFragmentSize must not be negative");
+    }
+
+    connection.addHandlerLast(
+        "rsocket-ws-aggregator",
+        new WebSocketFrameAggregator(FrameLengthFlyweight.FRAME_LENGTH_MASK));
+    if (maxFragmentSize > 0) {
+      connection.addHandlerLast("rsocket-ws-splitter", new WebsocketFrameSplitter(maxFragmentSize));
+    }
+
     this.channelClosed =
         FutureMono.from(connection.channel().closeFuture())
             .doFinally(
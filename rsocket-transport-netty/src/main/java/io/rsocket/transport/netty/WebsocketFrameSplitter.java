@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import java.util.List;
+
+/**
+ * Splits binary Websocket frames larger than a maximum size into a non-final binary frame followed
+ * by continuation frames. Frames that fit are passed through unchanged.
+ */
+final class WebsocketFrameSplitter extends MessageToMessageEncoder<BinaryWebSocketFrame> {
+
+  private final int maxFragmentSize;
+
+  WebsocketFrameSplitter(int maxFragmentSize) {
+    this.maxFragmentSize = maxFragmentSize;
+  }
+
+  @Override
+  public boolean acceptOutboundMessage(Object msg) throws Exception {
+    return super.acceptOutboundMessage(msg) && ((BinaryWebSocketFrame) msg).isFinalFragment();
+  }
+
+  @Override
+  protected void encode(ChannelHandlerContext ctx, BinaryWebSocketFrame frame, List<Object> out) {
+    ByteBuf content = frame.content();
+    if (content.readableBytes() <= maxFragmentSize) {
+      out.add(frame.retain());
+      return;
+    }
+
+    out.add(new BinaryWebSocketFrame(false, 0, content.readRetainedSlice(maxFragmentSize)));
+    while (content.readableBytes() > maxFragmentSize) {
+      out.add(new ContinuationWebSocketFrame(false, 0, content.readRetainedSlice(maxFragmentSize)));
+    }
+    ByteBuf last = content.readRetainedSlice(content.readableBytes());
+    out.add(new ContinuationWebSocketFrame(true, 0, last));
+  }
+}
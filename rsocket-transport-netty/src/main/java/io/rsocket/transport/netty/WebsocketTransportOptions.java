@@ -0,0 +1,297 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameEncoder;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateClientExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import reactor.netty.Connection;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Framing and compression settings of the Websocket transports. Instances are immutable, every
+ * setter returns a modified copy.
+ *
+ * <p>When compression is enabled the client offers the {@code permessage-deflate} extension (RFC
+ * 7692) and the server accepts it if offered, so either side can be enabled independently and
+ * connections fall back to uncompressed frames when the peer does not support it.
+ *
+ * <p>When a maximum fragment size is set, RSocket frames larger than it are sent as a binary
+ * Websocket frame followed by continuation frames. Fragmented messages are always accepted on
+ * receive.
+ *
+ * @see io.rsocket.transport.netty.client.WebsocketClientTransport#options
+ * @see io.rsocket.transport.netty.server.WebsocketServerTransport#options
+ */
+public final class WebsocketTransportOptions {
+
+  /** The default {@code zlib} compression level. */
+  public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
+  private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+  private static final int MAX_WINDOW_SIZE = 15;
+
+  private static final WebsocketTransportOptions DEFAULTS =
+      new WebsocketTransportOptions(false, DEFAULT_COMPRESSION_LEVEL, 0);
+
+  private final boolean compression;
+  private final int compressionLevel;
+  private final int maxFragmentSize;
+
+  private WebsocketTransportOptions(
+      boolean compression, int compressionLevel, int maxFragmentSize) {
+    this.compression = compression;
+    this.compressionLevel = compressionLevel;
+    this.maxFragmentSize = maxFragmentSize;
+  }
+
+  /**
+   * Returns the default options: no compression and one Websocket frame per RSocket frame.
+   *
+   * @return the default options
+   */
+  public static WebsocketTransportOptions defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * Returns a copy of these options that negotiates {@code permessage-deflate} compression.
+   * Defaults to {@code false}.
+   *
+   * @param compression whether to negotiate compression
+   * @return a new instance
+   */
+  public WebsocketTransportOptions compression(boolean compression) {
+    return new WebsocketTransportOptions(compression, compressionLevel, maxFragmentSize);
+  }
+
+  /**
+   * Returns a copy of these options that compresses with {@code compressionLevel}, from {@code 0}
+   * (no compression) to {@code 9} (best compression). Defaults to {@value
+   * #DEFAULT_COMPRESSION_LEVEL}. Only used when compression is negotiated.
+   *
+   * @param compressionLevel the {@code zlib} compression level
+   * @return a new instance
+   * @throws IllegalArgumentException if {@code compressionLevel} is not between {@code 0} and
+   *     {@code 9}
+   */
+  public WebsocketTransportOptions compressionLevel(int compressionLevel) {
+    if (compressionLevel < 0 || compressionLevel > 9) {
+      throw new IllegalArgumentException("compressionLevel must be between 0 and 9");
+    }
+
+    return new WebsocketTransportOptions(compression, compressionLevel, maxFragmentSize);
+  }
+
+  /**
+   * Returns a copy of these options that splits RSocket frames larger than {@code
+   * maxFragmentSize} bytes into Websocket continuation frames. Peers reject Websocket frames
+   * larger than their maximum frame payload length, 64 KiB by default in reactor-netty, so this
+   * allows sending larger RSocket frames without RSocket level fragmentation.
+   *
+   * @param maxFragmentSize the maximum payload size of a Websocket frame in bytes
+   * @return a new instance
+   * @throws IllegalArgumentException if {@code maxFragmentSize} is not positive
+   */
+  public WebsocketTransportOptions maxFragmentSize(int maxFragmentSize) {
+    if (maxFragmentSize <= 0) {
+      throw new IllegalArgumentException("maxFragmentSize must be positive");
+    }
+
+    return new WebsocketTransportOptions(compression, compressionLevel, maxFragmentSize);
+  }
+
+  /**
+   * Adds the compression offer of these options to the headers of a client handshake request.
+   *
+   * @param requestHeaders the headers of the handshake request
+   * @throws NullPointerException if {@code requestHeaders} is {@code null}
+   */
+  public void offerExtensions(HttpHeaders requestHeaders) {
+    Objects.requireNonNull(requestHeaders, "requestHeaders must not be null");
+
+    if (compression) {
+      requestHeaders.add(
+          HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS,
+          encodeExtension(clientHandshaker().newRequestData()));
+    }
+  }
+
+  /**
+   * Negotiates compression with the extensions offered in a client handshake request. If an offer
+   * is accepted, the accepted parameters are added to the headers of the handshake response.
+   *
+   * @param requestHeaders the headers of the handshake request
+   * @param responseHeaders the headers of the handshake response
+   * @return the accepted extension, or {@code null} if compression is disabled or not offered
+   * @throws NullPointerException if {@code requestHeaders} or {@code responseHeaders} is {@code
+   *     null}
+   */
+  @Nullable
+  public WebSocketExtension acceptExtensions(
+      HttpHeaders requestHeaders, HttpHeaders responseHeaders) {
+    Objects.requireNonNull(requestHeaders, "requestHeaders must not be null");
+    Objects.requireNonNull(responseHeaders, "responseHeaders must not be null");
+
+    String offered = requestHeaders.get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS);
+    if (!compression || offered == null) {
+      return null;
+    }
+
+    PerMessageDeflateServerExtensionHandshaker handshaker =
+        new PerMessageDeflateServerExtensionHandshaker(
+            compressionLevel, false, MAX_WINDOW_SIZE, false, false);
+    for (WebSocketExtensionData offer : decodeExtensions(offered)) {
+      WebSocketServerExtension extension = handshaker.handshakeExtension(offer);
+      if (extension != null) {
+        responseHeaders.add(
+            HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS, encodeExtension(extension.newReponseData()));
+        return extension;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the extension accepted by the server in a handshake response to a request that
+   * carried the offer of {@link #offerExtensions(HttpHeaders)}.
+   *
+   * @param responseHeaders the headers of the handshake response
+   * @return the accepted extension, or {@code null} if compression is disabled or not accepted
+   * @throws NullPointerException if {@code responseHeaders} is {@code null}
+   * @throws IllegalStateException if the server accepted parameters that were not offered
+   */
+  @Nullable
+  public WebSocketExtension acceptedExtensions(HttpHeaders responseHeaders) {
+    Objects.requireNonNull(responseHeaders, "responseHeaders must not be null");
+
+    String accepted = responseHeaders.get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS);
+    if (!compression || accepted == null) {
+      return null;
+    }
+
+    for (WebSocketExtensionData data : decodeExtensions(accepted)) {
+      if (PERMESSAGE_DEFLATE.equals(data.name())) {
+        WebSocketClientExtension extension = clientHandshaker().handshakeExtension(data);
+        if (extension == null) {
+          throw new IllegalStateException("invalid extension accepted by server: " + accepted);
+        }
+        return extension;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Creates a {@link WebsocketDuplexConnection} using these options over an upgraded connection.
+   *
+   * @param connection the upgraded Websocket connection
+   * @param extension the negotiated extension, or {@code null}
+   * @return a new connection
+   * @throws NullPointerException if {@code connection} is {@code null}
+   */
+  public WebsocketDuplexConnection newConnection(
+      Connection connection, @Nullable WebSocketExtension extension) {
+    Objects.requireNonNull(connection, "connection must not be null");
+
+    if (extension != null) {
+      ChannelPipeline pipeline = connection.channel().pipeline();
+      ChannelHandlerContext decoder = pipeline.context(WebSocketFrameDecoder.class);
+      ChannelHandlerContext encoder = pipeline.context(WebSocketFrameEncoder.class);
+      pipeline.addAfter(
+          decoder.name(), "rsocket-ws-extension-decoder", extension.newExtensionDecoder());
+      pipeline.addAfter(
+          encoder.name(), "rsocket-ws-extension-encoder", extension.newExtensionEncoder());
+    }
+
+    return new WebsocketDuplexConnection(connection, maxFragmentSize);
+  }
+
+  private PerMessageDeflateClientExtensionHandshaker clientHandshaker() {
+    return new PerMessageDeflateClientExtensionHandshaker(
+        compressionLevel, false, MAX_WINDOW_SIZE, false, false);
+  }
+
+  static List<WebSocketExtensionData> decodeExtensions(String header) {
+    List<WebSocketExtensionData> extensions = new ArrayList<>();
+    for (String extension : header.split(",")) {
+      String[] parts = extension.split(";");
+      String name = parts[0].trim();
+      if (name.isEmpty()) {
+        continue;
+      }
+
+      Map<String, String> parameters = new LinkedHashMap<>();
+      for (int i = 1; i < parts.length; i++) {
+        String parameter = parts[i];
+        int equals = parameter.indexOf('=');
+        if (equals < 0) {
+          parameters.put(parameter.trim(), null);
+        } else {
+          String value = parameter.substring(equals + 1).trim();
+          if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+          }
+          parameters.put(parameter.substring(0, equals).trim(), value);
+        }
+      }
+      extensions.add(new WebSocketExtensionData(name, parameters));
+    }
+    return extensions;
+  }
+
+  static String encodeExtension(WebSocketExtensionData extension) {
+    StringBuilder builder = new StringBuilder(extension.name());
+    extension
+        .parameters()
+        .forEach(
+            (name, value) -> {
+              builder.append("; ").append(name);
+              if (value != null) {
+                builder.append('=').append(value);
+              }
+            });
+    return builder.toString();
+  }
+
+  @Override
+  public String toString() {
+    return "WebsocketTransportOptions{"
+        + "compression="
+        + compression
+        + ", compressionLevel="
+        + compressionLevel
+        + ", maxFragmentSize="
+        + maxFragmentSize
+        + '}';
+  }
+}
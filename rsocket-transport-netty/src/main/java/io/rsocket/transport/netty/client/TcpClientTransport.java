@@ -23,6 +23,7 @@
 import io.rsocket.transport.ServerTransport;
 import io.rsocket.transport.netty.RSocketLengthCodec;
 import io.rsocket.transport.netty.TcpDuplexConnection;
+import io.rsocket.transport.netty.TcpTransportOptions;
 import java.net.InetSocketAddress;
 import java.util.Objects;
 import reactor.core.publisher.Mono;
@@ -33,10 +34,21 @@
  */
 public final class TcpClientTransport implements ClientTransport {
 
+  static final int DEFAULT_MAX_BATCH_FRAMES = 64;
+  static final int DEFAULT_MAX_BATCH_BYTES = 64 * 1024;
+
   private final TcpClient client;
+  private final int maxBatchFrames;
+  private final int maxBatchBytes;
 
   private TcpClientTransport(TcpClient client) {
+    this(client, 0, 0);
+  }
+
+  private TcpClientTransport(TcpClient client, int maxBatchFrames, int maxBatchBytes) {
     this.client = client;
+    this.maxBatchFrames = maxBatchFrames;
+    this.maxBatchBytes = maxBatchBytes;
   }
 
   /**
@@ -92,6 +104,55 @@ public static TcpClientTransport create(TcpClient client) {
     return new TcpClientTransport(client);
   }
 
+  /**
+   * Returns a copy of this transport that batches writes with a budget of {@value
+   * #DEFAULT_MAX_BATCH_FRAMES} frames or {@value #DEFAULT_MAX_BATCH_BYTES} bytes per flush.
+   *
+   * @return a new instance
+   * @see #batchWrites(int, int)
+   */
+  public TcpClientTransport batchWrites() {
+    return batchWrites(DEFAULT_MAX_BATCH_FRAMES, DEFAULT_MAX_BATCH_BYTES);
+  }
+
+  /**
+   * Returns a copy of this transport that batches writes. Outbound frames are written without a
+   * per-frame promise and flushed once all queued frames have been written, or earlier once {@code
+   * maxBatchFrames} frames or {@code maxBatchBytes} bytes have been written since the last flush.
+   * This trades a little latency under light load for fewer flushes and allocations when many small
+   * frames are sent.
+   *
+   * @param maxBatchFrames the maximum number of frames written between flushes
+   * @param maxBatchBytes the maximum number of bytes written between flushes
+   * @return a new instance
+   * @throws IllegalArgumentException if {@code maxBatchFrames} or {@code maxBatchBytes} is not
+   *     positive
+   */
+  public TcpClientTransport batchWrites(int maxBatchFrames, int maxBatchBytes) {
+    if (maxBatchFrames <= 0) {
+      throw new IllegalArgumentException("maxBatchFrames must be positive");
+    }
+    if (maxBatchBytes <= 0) {
+      throw new IllegalArgumentException("maxBatchBytes must be positive");
+    }
+
+    return new TcpClientTransport(client, maxBatchFrames, maxBatchBytes);
+  }
+
+  /**
+   * Returns a copy of this transport with the socket and event loop settings of {@code options}
+   * applied to its {@link TcpClient}.
+   *
+   * @param options the options to apply
+   * @return a new instance
+   * @throws NullPointerException if {@code options} is {@code null}
+   */
+  public TcpClientTransport options(TcpTransportOptions options) {
+    Objects.requireNonNull(options, "options must not be null");
+
+    return new TcpClientTransport(options.apply(client), maxBatchFrames, maxBatchBytes);
+  }
+
   @Override
   public Mono<DuplexConnection> connect(int mtu) {
     return client
@@ -101,9 +162,12 @@ public Mono<DuplexConnection> connect(int mtu) {
             c -> {
               if (mtu > 0) {
                 return new FragmentationDuplexConnection(
-                    new TcpDuplexConnection(c, false), ByteBufAllocator.DEFAULT, mtu, true);
+                    new TcpDuplexConnection(c, false, maxBatchFrames, maxBatchBytes),
+                    ByteBufAllocator.DEFAULT,
+                    mtu,
+                    true);
               } else {
-                return new TcpDuplexConnection(c);
+                return new TcpDuplexConnection(c, true, maxBatchFrames, maxBatchBytes);
               }
             });
   }
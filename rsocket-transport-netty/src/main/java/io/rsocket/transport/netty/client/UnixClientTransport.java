@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.netty.client;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.rsocket.DuplexConnection;
+import io.rsocket.fragmentation.FragmentationDuplexConnection;
+import io.rsocket.transport.ClientTransport;
+import io.rsocket.transport.ServerTransport;
+import io.rsocket.transport.netty.RSocketLengthCodec;
+import io.rsocket.transport.netty.TcpDuplexConnection;
+import io.rsocket.transport.netty.TcpTransportOptions;
+import java.util.Objects;
+import reactor.core.publisher.Mono;
+import reactor.netty.tcp.TcpClient;
+import reactor.netty.tcp.TcpResources;
+
+/**
+ * An implementation of {@link ClientTransport} that connects to a {@link ServerTransport} via a
+ * Unix domain socket. Frames are length prefixed as with {@link TcpClientTransport}.
+ *
+ * <p>Requires the native epoll transport, connecting fails with the cause reported by {@link
+ * TcpTransportOptions#nativeUnavailabilityCause()} where it is not available.
+ */
+public final class UnixClientTransport implements ClientTransport {
+
+  private final String path;
+
+  private UnixClientTransport(String path) {
+    this.path = path;
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param path the path of the socket to connect to
+   * @return a new instance
+   * @throws NullPointerException if {@code path} is {@code null}
+   */
+  public static UnixClientTransport create(String path) {
+    Objects.requireNonNull(path, "path must not be null");
+
+    return new UnixClientTransport(path);
+  }
+
+  @Override
+  public Mono<DuplexConnection> connect(int mtu) {
+    if (!TcpTransportOptions.isNativeAvailable()) {
+      return Mono.error(TcpTransportOptions.nativeUnavailabilityCause());
+    }
+
+    return Native.client(path)
+        .doOnConnected(c -> c.addHandlerLast(new RSocketLengthCodec()))
+        .connect()
+        .map(
+            c -> {
+              if (mtu > 0) {
+                return new FragmentationDuplexConnection(
+                    new TcpDuplexConnection(c, false), ByteBufAllocator.DEFAULT, mtu, true);
+              } else {
+                return new TcpDuplexConnection(c);
+              }
+            });
+  }
+
+  /** Refers to the epoll classes, loaded only once the native transport is known to be present. */
+  private static final class Native {
+
+    static TcpClient client(String path) {
+      DomainSocketAddress address = new DomainSocketAddress(path);
+      return TcpClient.newConnection()
+          .runOn(TcpResources.get(), true)
+          .bootstrap(
+              b ->
+                  b.channel(EpollDomainSocketChannel.class)
+                      .option(ChannelOption.TCP_NODELAY, null))
+          .addressSupplier(() -> address);
+    }
+  }
+}
@@ -20,12 +20,13 @@
 import static io.rsocket.transport.netty.UriUtils.isSecure;
 
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
 import io.rsocket.DuplexConnection;
 import io.rsocket.fragmentation.FragmentationDuplexConnection;
 import io.rsocket.transport.ClientTransport;
 import io.rsocket.transport.ServerTransport;
 import io.rsocket.transport.TransportHeaderAware;
-import io.rsocket.transport.netty.WebsocketDuplexConnection;
+import io.rsocket.transport.netty.WebsocketTransportOptions;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.Collections;
@@ -34,6 +35,7 @@
 import java.util.function.Supplier;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
 import reactor.netty.tcp.TcpClient;
 
 /**
@@ -46,13 +48,17 @@ public final class WebsocketClientTransport implements ClientTransport, Transpor
 
   private final HttpClient client;
 
+  private final WebsocketTransportOptions options;
+
   private String path;
 
   private Supplier<Map<String, String>> transportHeaders = Collections::emptyMap;
 
-  private WebsocketClientTransport(HttpClient client, String path) {
+  private WebsocketClientTransport(
+      HttpClient client, String path, WebsocketTransportOptions options) {
     this.client = client;
     this.path = path;
+    this.options = options;
   }
 
   /**
@@ -136,7 +142,22 @@ public static WebsocketClientTransport create(HttpClient client, String path) {
 
     path = path.startsWith(DEFAULT_PATH) ? path : (DEFAULT_PATH + path);
 
-    return new WebsocketClientTransport(client, path);
+    return new WebsocketClientTransport(client, path, WebsocketTransportOptions.defaults());
+  }
+
+  /**
+   * Returns a copy of this transport with the framing and compression settings of {@code options}.
+   *
+   * @param options the options to apply
+   * @return a new instance
+   * @throws NullPointerException if {@code options} is {@code null}
+   */
+  public WebsocketClientTransport options(WebsocketTransportOptions options) {
+    Objects.requireNonNull(options, "options must not be null");
+
+    WebsocketClientTransport transport = new WebsocketClientTransport(client, path, options);
+    transport.transportHeaders = transportHeaders;
+    return transport;
   }
 
   private static TcpClient createClient(URI uri) {
@@ -150,13 +171,21 @@ private static TcpClient createClient(URI uri) {
   @Override
   public Mono<DuplexConnection> connect(int mtu) {
     return client
-        .headers(headers -> transportHeaders.get().forEach(headers::set))
+        .headers(
+            headers -> {
+              transportHeaders.get().forEach(headers::set);
+              options.offerExtensions(headers);
+            })
         .websocket()
         .uri(path)
         .connect()
         .map(
             c -> {
-              DuplexConnection connection = new WebsocketDuplexConnection(c);
+              WebSocketExtension extension =
+                  c instanceof HttpClientResponse
+                      ? options.acceptedExtensions(((HttpClientResponse) c).responseHeaders())
+                      : null;
+              DuplexConnection connection = options.newConnection(c, extension);
               if (mtu > 0) {
                 connection =
                     new FragmentationDuplexConnection(
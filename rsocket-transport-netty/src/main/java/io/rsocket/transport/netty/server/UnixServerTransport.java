@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.netty.server;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.rsocket.DuplexConnection;
+import io.rsocket.fragmentation.FragmentationDuplexConnection;
+import io.rsocket.transport.ClientTransport;
+import io.rsocket.transport.ServerTransport;
+import io.rsocket.transport.netty.RSocketLengthCodec;
+import io.rsocket.transport.netty.TcpDuplexConnection;
+import io.rsocket.transport.netty.TcpTransportOptions;
+import java.util.Objects;
+import reactor.core.publisher.Mono;
+import reactor.netty.tcp.TcpResources;
+import reactor.netty.tcp.TcpServer;
+
+/**
+ * An implementation of {@link ServerTransport} that accepts {@link ClientTransport} connections on
+ * a Unix domain socket. Frames are length prefixed as with {@link TcpServerTransport}.
+ *
+ * <p>Requires the native epoll transport, starting fails with the cause reported by {@link
+ * TcpTransportOptions#nativeUnavailabilityCause()} where it is not available. The socket file must
+ * not exist and is removed when the server is disposed. {@link CloseableChannel#address()} is not
+ * supported for servers started by this transport.
+ */
+public final class UnixServerTransport implements ServerTransport<CloseableChannel> {
+
+  private final String path;
+
+  private UnixServerTransport(String path) {
+    this.path = path;
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param path the path of the socket to bind to
+   * @return a new instance
+   * @throws NullPointerException if {@code path} is {@code null}
+   */
+  public static UnixServerTransport create(String path) {
+    Objects.requireNonNull(path, "path must not be null");
+
+    return new UnixServerTransport(path);
+  }
+
+  @Override
+  public Mono<CloseableChannel> start(ConnectionAcceptor acceptor, int mtu) {
+    Objects.requireNonNull(acceptor, "acceptor must not be null");
+
+    if (!TcpTransportOptions.isNativeAvailable()) {
+      return Mono.error(TcpTransportOptions.nativeUnavailabilityCause());
+    }
+
+    return Native.server(path)
+        .doOnConnection(
+            c -> {
+              c.addHandlerLast(new RSocketLengthCodec());
+              DuplexConnection connection;
+              if (mtu > 0) {
+                connection =
+                    new FragmentationDuplexConnection(
+                        new TcpDuplexConnection(c, false), ByteBufAllocator.DEFAULT, mtu, true);
+              } else {
+                connection = new TcpDuplexConnection(c);
+              }
+              acceptor.apply(connection).then(Mono.<Void>never()).subscribe(c.disposeSubscriber());
+            })
+        .bind()
+        .map(CloseableChannel::new);
+  }
+
+  /** Refers to the epoll classes, loaded only once the native transport is known to be present. */
+  private static final class Native {
+
+    static TcpServer server(String path) {
+      DomainSocketAddress address = new DomainSocketAddress(path);
+      return TcpServer.create()
+          .runOn(TcpResources.get(), true)
+          .bootstrap(
+              b ->
+                  b.channel(EpollServerDomainSocketChannel.class)
+                      .childOption(ChannelOption.TCP_NODELAY, null)
+                      .localAddress(address));
+    }
+  }
+}
@@ -17,12 +17,13 @@
 package io.rsocket.transport.netty.server;
 
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
 import io.rsocket.DuplexConnection;
 import io.rsocket.fragmentation.FragmentationDuplexConnection;
 import io.rsocket.transport.ClientTransport;
 import io.rsocket.transport.ServerTransport;
 import io.rsocket.transport.TransportHeaderAware;
-import io.rsocket.transport.netty.WebsocketDuplexConnection;
+import io.rsocket.transport.netty.WebsocketTransportOptions;
 import java.net.InetSocketAddress;
 import java.util.Collections;
 import java.util.Map;
@@ -41,10 +42,13 @@
 
   private final HttpServer server;
 
+  private final WebsocketTransportOptions options;
+
   private Supplier<Map<String, String>> transportHeaders = Collections::emptyMap;
 
-  private WebsocketServerTransport(HttpServer server) {
+  private WebsocketServerTransport(HttpServer server, WebsocketTransportOptions options) {
     this.server = server;
+    this.options = options;
   }
 
   /**
@@ -96,7 +100,22 @@ public static WebsocketServerTransport create(InetSocketAddress address) {
   public static WebsocketServerTransport create(HttpServer server) {
     Objects.requireNonNull(server, "server must not be null");
 
-    return new WebsocketServerTransport(server);
+    return new WebsocketServerTransport(server, WebsocketTransportOptions.defaults());
+  }
+
+  /**
+   * Returns a copy of this transport with the framing and compression settings of {@code options}.
+   *
+   * @param options the options to apply
+   * @return a new instance
+   * @throws NullPointerException if {@code options} is {@code null}
+   */
+  public WebsocketServerTransport options(WebsocketTransportOptions options) {
+    Objects.requireNonNull(options, "options must not be null");
+
+    WebsocketServerTransport transport = new WebsocketServerTransport(server, options);
+    transport.transportHeaders = transportHeaders;
+    return transport;
   }
 
   @Override
@@ -113,9 +132,11 @@ public Mono<CloseableChannel> start(ConnectionAcceptor acceptor, int mtu) {
         .handle(
             (request, response) -> {
               transportHeaders.get().forEach(response::addHeader);
+              WebSocketExtension extension =
+                  options.acceptExtensions(request.requestHeaders(), response.responseHeaders());
               return response.sendWebsocket(
                   (in, out) -> {
-                    DuplexConnection connection = new WebsocketDuplexConnection((Connection) in);
+                    DuplexConnection connection = options.newConnection((Connection) in, extension);
                     if (mtu > 0) {
                       connection =
                           new FragmentationDuplexConnection(
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.netty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.util.concurrent.Queues;
+
+final class SendPublisherTest {
+
+  @DisplayName("stops requesting frames in batched mode while the peer does not read")
+  @Test
+  void batchedWritesKeepBackpressure() {
+    List<ChannelPromise> writes = new ArrayList<>();
+    EmbeddedChannel channel =
+        new EmbeddedChannel(
+            new ChannelOutboundHandlerAdapter() {
+              @Override
+              public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                // a slow reader: no write completes until the test says so
+                ReferenceCountUtil.release(msg);
+                writes.add(promise);
+              }
+
+              @Override
+              public void flush(ChannelHandlerContext ctx) {}
+            });
+    AtomicLong requested = new AtomicLong();
+    Flux<ByteBuf> frames =
+        Flux.range(0, 10_000)
+            .map(i -> Unpooled.buffer(Integer.BYTES).writeInt(i))
+            .doOnRequest(requested::addAndGet);
+
+    new SendPublisher<ByteBuf>(
+            Queues.<ByteBuf>small().get(),
+            frames,
+            channel,
+            frame -> frame,
+            ByteBuf::readableBytes,
+            8,
+            1024)
+        .subscribe();
+    channel.runPendingTasks();
+
+    assertThat(requested.get()).isEqualTo(Queues.SMALL_BUFFER_SIZE);
+    assertThat(writes).hasSize(Queues.SMALL_BUFFER_SIZE);
+
+    List<ChannelPromise> completed = new ArrayList<>(writes);
+    writes.clear();
+    completed.forEach(ChannelPromise::trySuccess);
+    channel.runPendingTasks();
+
+    assertThat(requested.get()).isGreaterThan(Queues.SMALL_BUFFER_SIZE);
+    channel.finishAndReleaseAll();
+  }
+}
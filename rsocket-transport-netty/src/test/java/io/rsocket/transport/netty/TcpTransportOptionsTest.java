@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.netty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+import io.rsocket.transport.netty.client.TcpClientTransport;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import java.net.InetSocketAddress;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.LoopResources;
+import reactor.test.StepVerifier;
+
+final class TcpTransportOptionsTest {
+
+  @DisplayName("connects with tuned options")
+  @Test
+  void connect() {
+    LoopResources loopResources = LoopResources.create("rsocket-tcp-test", 1, 2, true);
+    TcpTransportOptions options =
+        TcpTransportOptions.defaults()
+            .receiveBufferSize(256 * 1024)
+            .sendBufferSize(256 * 1024)
+            .tcpQuickAck(true)
+            .writeBufferWaterMark(32 * 1024, 128 * 1024)
+            .runOn(loopResources);
+
+    try {
+      TcpServerTransport.create(InetSocketAddress.createUnresolved("localhost", 0))
+          .options(options)
+          .start(duplexConnection -> Mono.empty(), 0)
+          .flatMap(
+              context -> TcpClientTransport.create(context.address()).options(options).connect(0))
+          .as(StepVerifier::create)
+          .expectNextCount(1)
+          .verifyComplete();
+    } finally {
+      loopResources.dispose();
+    }
+  }
+
+  @DisplayName("connects over NIO when native transport is not preferred")
+  @Test
+  void connectNio() {
+    TcpTransportOptions options = TcpTransportOptions.defaults().preferNative(false);
+    assertThat(options.isNative()).isFalse();
+
+    TcpServerTransport.create(InetSocketAddress.createUnresolved("localhost", 0))
+        .options(options)
+        .start(duplexConnection -> Mono.empty(), 0)
+        .flatMap(
+            context -> TcpClientTransport.create(context.address()).options(options).connect(0))
+        .as(StepVerifier::create)
+        .expectNextCount(1)
+        .verifyComplete();
+  }
+
+  @DisplayName("prefers native transport by default")
+  @Test
+  void nativeByDefault() {
+    assertThat(TcpTransportOptions.defaults().isNative())
+        .isEqualTo(TcpTransportOptions.isNativeAvailable());
+  }
+
+  @DisplayName("rejects invalid settings")
+  @Test
+  void invalidSettings() {
+    TcpTransportOptions options = TcpTransportOptions.defaults();
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> options.receiveBufferSize(0))
+        .withMessage("receiveBufferSize must be positive");
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> options.sendBufferSize(-1))
+        .withMessage("sendBufferSize must be positive");
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> options.writeBufferWaterMark(-1, 1024))
+        .withMessage("low must not be negative");
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> options.writeBufferWaterMark(1024, 512))
+        .withMessage("high must be positive and not less than low");
+
+    assertThatNullPointerException()
+        .isThrownBy(() -> options.runOn(null))
+        .withMessage("loopResources must not be null");
+  }
+}
@@ -19,8 +19,10 @@
 import static org.assertj.core.api.Assertions.assertThat;
 
 import io.rsocket.transport.netty.client.TcpClientTransport;
+import io.rsocket.transport.netty.client.UnixClientTransport;
 import io.rsocket.transport.netty.client.WebsocketClientTransport;
 import io.rsocket.transport.netty.server.TcpServerTransport;
+import io.rsocket.transport.netty.server.UnixServerTransport;
 import io.rsocket.transport.netty.server.WebsocketServerTransport;
 import io.rsocket.uri.UriTransportRegistry;
 import org.junit.jupiter.api.DisplayName;
@@ -57,4 +59,18 @@ void serverForUriTcp() {
     assertThat(UriTransportRegistry.serverForUri("tcp://test:9898"))
         .isInstanceOf(TcpServerTransport.class);
   }
+
+  @DisplayName("unix URI returns UnixClientTransport")
+  @Test
+  void clientForUriUnix() {
+    assertThat(UriTransportRegistry.clientForUri("unix:///tmp/rsocket.sock"))
+        .isInstanceOf(UnixClientTransport.class);
+  }
+
+  @DisplayName("unix URI returns UnixServerTransport")
+  @Test
+  void serverForUriUnix() {
+    assertThat(UriTransportRegistry.serverForUri("unix:///tmp/rsocket.sock"))
+        .isInstanceOf(UnixServerTransport.class);
+  }
 }
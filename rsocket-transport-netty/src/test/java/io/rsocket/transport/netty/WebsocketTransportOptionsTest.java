@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.netty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+final class WebsocketTransportOptionsTest {
+
+  @DisplayName("negotiates compression when both sides enable it")
+  @Test
+  void negotiateCompression() {
+    WebsocketTransportOptions options = WebsocketTransportOptions.defaults().compression(true);
+
+    HttpHeaders request = new DefaultHttpHeaders();
+    options.offerExtensions(request);
+    assertThat(request.get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS))
+        .startsWith("permessage-deflate");
+
+    HttpHeaders response = new DefaultHttpHeaders();
+    assertThat(options.acceptExtensions(request, response)).isNotNull();
+    assertThat(response.get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS))
+        .startsWith("permessage-deflate");
+
+    assertThat(options.acceptedExtensions(response)).isNotNull();
+  }
+
+  @DisplayName("does not compress unless both sides enable it")
+  @Test
+  void noCompression() {
+    WebsocketTransportOptions compressed = WebsocketTransportOptions.defaults().compression(true);
+    WebsocketTransportOptions uncompressed = WebsocketTransportOptions.defaults();
+
+    HttpHeaders request = new DefaultHttpHeaders();
+    uncompressed.offerExtensions(request);
+    assertThat(request.contains(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS)).isFalse();
+
+    HttpHeaders response = new DefaultHttpHeaders();
+    assertThat(compressed.acceptExtensions(request, response)).isNull();
+    assertThat(response.contains(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS)).isFalse();
+
+    compressed.offerExtensions(request);
+    assertThat(uncompressed.acceptExtensions(request, response)).isNull();
+    assertThat(response.contains(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS)).isFalse();
+  }
+
+  @DisplayName("accepts the first supported offer")
+  @Test
+  void acceptFirstSupportedOffer() {
+    HttpHeaders request = new DefaultHttpHeaders();
+    request.add(
+        HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS,
+        "x-webkit-deflate-frame, permessage-deflate; client_max_window_bits");
+
+    HttpHeaders response = new DefaultHttpHeaders();
+    assertThat(
+            WebsocketTransportOptions.defaults()
+                .compression(true)
+                .acceptExtensions(request, response))
+        .isNotNull();
+    assertThat(response.get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS))
+        .startsWith("permessage-deflate");
+  }
+
+  @DisplayName("decodes and encodes extension headers")
+  @Test
+  void extensionHeaders() {
+    List<WebSocketExtensionData> extensions =
+        WebsocketTransportOptions.decodeExtensions(
+            "permessage-deflate; client_max_window_bits; server_max_window_bits=\"10\", foo");
+
+    assertThat(extensions).hasSize(2);
+    assertThat(extensions.get(0).name()).isEqualTo("permessage-deflate");
+    assertThat(extensions.get(0).parameters())
+        .containsEntry("client_max_window_bits", null)
+        .containsEntry("server_max_window_bits", "10");
+    assertThat(extensions.get(1).name()).isEqualTo("foo");
+    assertThat(extensions.get(1).parameters()).isEmpty();
+
+    assertThat(WebsocketTransportOptions.encodeExtension(extensions.get(0)))
+        .isEqualTo("permessage-deflate; client_max_window_bits; server_max_window_bits=10");
+  }
+
+  @DisplayName("rejects invalid settings")
+  @Test
+  void invalidSettings() {
+    WebsocketTransportOptions options = WebsocketTransportOptions.defaults();
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> options.compressionLevel(10))
+        .withMessage("compressionLevel must be between 0 and 9");
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> options.maxFragmentSize(0))
+        .withMessage("maxFragmentSize must be positive");
+  }
+}
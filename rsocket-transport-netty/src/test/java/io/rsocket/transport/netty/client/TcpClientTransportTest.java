@@ -17,6 +17,7 @@
 package io.rsocket.transport.netty.client;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatNullPointerException;
 
 import io.rsocket.transport.netty.server.TcpServerTransport;
@@ -100,4 +101,18 @@ void createPort() {
   void createTcpClient() {
     assertThat(TcpClientTransport.create(TcpClient.create())).isNotNull();
   }
+
+  @DisplayName("batchWrites rejects non-positive budgets")
+  @Test
+  void batchWritesInvalidBudget() {
+    TcpClientTransport transport = TcpClientTransport.create(8000);
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> transport.batchWrites(0, 1024))
+        .withMessage("maxBatchFrames must be positive");
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> transport.batchWrites(16, 0))
+        .withMessage("maxBatchBytes must be positive");
+  }
 }
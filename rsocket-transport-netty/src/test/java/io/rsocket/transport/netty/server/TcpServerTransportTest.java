@@ -17,6 +17,7 @@
 package io.rsocket.transport.netty.server;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatNullPointerException;
 
 import java.net.InetSocketAddress;
@@ -100,4 +101,18 @@ void startNullAcceptor() {
         .isThrownBy(() -> TcpServerTransport.create(8000).start(null, 0))
         .withMessage("acceptor must not be null");
   }
+
+  @DisplayName("batchWrites rejects non-positive budgets")
+  @Test
+  void batchWritesInvalidBudget() {
+    TcpServerTransport transport = TcpServerTransport.create(8000);
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> transport.batchWrites(0, 1024))
+        .withMessage("maxBatchFrames must be positive");
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> transport.batchWrites(16, 0))
+        .withMessage("maxBatchBytes must be positive");
+  }
 }
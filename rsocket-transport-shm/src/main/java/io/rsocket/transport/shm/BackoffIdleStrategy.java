@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.shm;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Waits for work that another process publishes into shared memory, which cannot signal a thread
+ * of this process. Spins first, then yields, then parks for exponentially longer periods up to
+ * {@code maxParkNanos}, which bounds the wakeup latency once idle.
+ */
+final class BackoffIdleStrategy {
+
+  static final long DEFAULT_MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private static final int MAX_SPINS = 100;
+  private static final int MAX_YIELDS = 10;
+  private static final long MIN_PARK_NANOS = 1_000;
+
+  private final long maxParkNanos;
+
+  private int spins;
+  private int yields;
+  private long parkNanos = MIN_PARK_NANOS;
+
+  BackoffIdleStrategy(long maxParkNanos) {
+    if (maxParkNanos < MIN_PARK_NANOS) {
+      throw new IllegalArgumentException("maxParkNanos must be at least " + MIN_PARK_NANOS);
+    }
+    this.maxParkNanos = maxParkNanos;
+  }
+
+  /**
+   * Called after a pass that found work, or none when {@code workCount} is {@code 0}.
+   *
+   * @param workCount the amount of work done by the last pass
+   */
+  void idle(int workCount) {
+    if (workCount > 0) {
+      spins = 0;
+      yields = 0;
+      parkNanos = MIN_PARK_NANOS;
+    } else if (spins < MAX_SPINS) {
+      spins++;
+    } else if (yields < MAX_YIELDS) {
+      yields++;
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(parkNanos);
+      parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.shm;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Single-producer single-consumer ring of length-prefixed records in a region of a mapped file, so
+ * that the producer and the consumer can live in different processes.
+ *
+ * <p>The region starts with a header holding the producer position, a closed flag set by the
+ * producer and, on its own cache line, the consumer position. Positions only grow, the index into
+ * the data is the position modulo the capacity. A record is a 4-byte length followed by the bytes,
+ * aligned to 8 bytes. A record never wraps: when it does not fit before the end of the data, the
+ * producer writes a padding record up to the end and continues at the start.
+ *
+ * <p>The producer publishes a record with an ordered write of its position after writing the
+ * record, the consumer releases it with an ordered write of its own position after reading it.
+ */
+final class MappedRingBuffer {
+
+  static final int HEADER_LENGTH = 128;
+
+  private static final int TAIL_OFFSET = 0;
+  private static final int CLOSED_OFFSET = 8;
+  private static final int HEAD_OFFSET = 64;
+
+  private static final int RECORD_HEADER_LENGTH = 4;
+  private static final int ALIGNMENT = 8;
+  private static final int PADDING = -1;
+
+  private final ByteBuffer data;
+  private final long tailAddress;
+  private final long closedAddress;
+  private final long headAddress;
+  private final int capacity;
+  private final int mask;
+
+  // producer state
+  private long tail;
+  private long headCache;
+
+  // consumer state
+  private long head;
+  private long tailCache;
+  private int pending;
+
+  /**
+   * Creates a ring over {@code buffer}, starting at {@code offset}.
+   *
+   * @param buffer the mapped buffer
+   * @param offset the offset of the header of the ring
+   * @param capacity the capacity of the data in bytes, a power of two
+   */
+  MappedRingBuffer(ByteBuffer buffer, int offset, int capacity) {
+    if (Integer.bitCount(capacity) != 1 || capacity < ALIGNMENT) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    if (buffer.capacity() < offset + length(capacity)) {
+      throw new IllegalArgumentException("buffer too small for ring");
+    }
+
+    long address = UnsafeAccess.address(buffer) + offset;
+    this.tailAddress = address + TAIL_OFFSET;
+    this.closedAddress = address + CLOSED_OFFSET;
+    this.headAddress = address + HEAD_OFFSET;
+
+    ByteBuffer data = buffer.duplicate();
+    data.position(offset + HEADER_LENGTH).limit(offset + HEADER_LENGTH + capacity);
+    this.data = data.slice().order(ByteOrder.nativeOrder());
+    this.capacity = capacity;
+    this.mask = capacity - 1;
+
+    this.tail = UnsafeAccess.getLongVolatile(tailAddress);
+    this.headCache = UnsafeAccess.getLongVolatile(headAddress);
+    this.head = headCache;
+    this.tailCache = tail;
+  }
+
+  /**
+   * Number of bytes of a ring with the given data capacity, including its header.
+   *
+   * @param capacity the capacity of the data in bytes
+   * @return the length of the ring in bytes
+   */
+  static int length(int capacity) {
+    return HEADER_LENGTH + capacity;
+  }
+
+  /**
+   * The largest record this ring accepts.
+   *
+   * @return the maximum record length in bytes
+   */
+  int maxRecordLength() {
+    return capacity - RECORD_HEADER_LENGTH;
+  }
+
+  /**
+   * Copies the remaining bytes of {@code src} into the ring, if there is room. Producer only.
+   *
+   * @param src the bytes to write
+   * @return {@code true} if the record was written, {@code false} if the ring is full
+   * @throws IllegalArgumentException if the record is larger than {@link #maxRecordLength()}
+   */
+  boolean offer(ByteBuffer src) {
+    int length = src.remaining();
+    if (length > maxRecordLength()) {
+      throw new IllegalArgumentException(
+          "record of " + length + " bytes exceeds " + maxRecordLength());
+    }
+
+    int recordLength = align(length + RECORD_HEADER_LENGTH);
+    int index = (int) tail & mask;
+    int toEnd = capacity - index;
+
+    if (recordLength > toEnd) {
+      // padding is published on its own, a padding and a record together may exceed the capacity
+      if (!hasRoom(toEnd)) {
+        return false;
+      }
+      data.putInt(index, PADDING);
+      tail += toEnd;
+      UnsafeAccess.putLongOrdered(tailAddress, tail);
+      index = 0;
+    }
+
+    if (!hasRoom(recordLength)) {
+      return false;
+    }
+
+    ByteBuffer dst = data.duplicate();
+    dst.position(index + RECORD_HEADER_LENGTH);
+    dst.put(src);
+    data.putInt(index, length);
+
+    tail += recordLength;
+    UnsafeAccess.putLongOrdered(tailAddress, tail);
+    return true;
+  }
+
+  private boolean hasRoom(int length) {
+    if (tail + length - headCache > capacity) {
+      headCache = UnsafeAccess.getLongVolatile(headAddress);
+      return tail + length - headCache <= capacity;
+    }
+    return true;
+  }
+
+  /**
+   * Returns a view of the next record, or {@code null} if the ring is empty. The record stays in
+   * the ring until {@link #release()} is called. Consumer only.
+   *
+   * @return the next record or {@code null}
+   */
+  @Nullable
+  ByteBuffer peek() {
+    for (; ; ) {
+      if (tailCache - head <= 0) {
+        tailCache = UnsafeAccess.getLongVolatile(tailAddress);
+        if (tailCache - head <= 0) {
+          return null;
+        }
+      }
+
+      int index = (int) head & mask;
+      int length = data.getInt(index);
+      if (length == PADDING) {
+        head += capacity - index;
+        UnsafeAccess.putLongOrdered(headAddress, head);
+        continue;
+      }
+
+      ByteBuffer record = data.duplicate();
+      record.limit(index + RECORD_HEADER_LENGTH + length).position(index + RECORD_HEADER_LENGTH);
+      pending = align(length + RECORD_HEADER_LENGTH);
+      return record;
+    }
+  }
+
+  /** Releases the record returned by the last {@link #peek()}. Consumer only. */
+  void release() {
+    head += pending;
+    pending = 0;
+    UnsafeAccess.putLongOrdered(headAddress, head);
+  }
+
+  /** Marks the ring as closed after the records already written. Producer only. */
+  void close() {
+    UnsafeAccess.putIntVolatile(closedAddress, 1);
+  }
+
+  /**
+   * Whether the producer has closed the ring. Records written before closing may still be pending.
+   *
+   * @return {@code true} if the ring is closed
+   */
+  boolean isClosed() {
+    return UnsafeAccess.getIntVolatile(closedAddress) != 0;
+  }
+
+  private static int align(int length) {
+    return (length + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+}
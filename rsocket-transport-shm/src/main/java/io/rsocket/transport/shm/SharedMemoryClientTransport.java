@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.shm;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.DuplexConnection;
+import io.rsocket.fragmentation.FragmentationDuplexConnection;
+import io.rsocket.transport.ClientTransport;
+import io.rsocket.transport.ServerTransport;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import reactor.core.publisher.Mono;
+
+/**
+ * An implementation of {@link ClientTransport} that connects to a {@link
+ * SharedMemoryServerTransport} of another process on the same host through a memory-mapped file.
+ */
+public final class SharedMemoryClientTransport implements ClientTransport {
+
+  static final int DEFAULT_RING_CAPACITY = 1024 * 1024;
+
+  private static final long ACCEPT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final Path directory;
+  private final int ringCapacity;
+
+  private SharedMemoryClientTransport(Path directory, int ringCapacity) {
+    this.directory = directory;
+    this.ringCapacity = ringCapacity;
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param directory the directory of the {@link ServerTransport} to connect to
+   * @return a new instance
+   * @throws NullPointerException if {@code directory} is {@code null}
+   */
+  public static SharedMemoryClientTransport create(String directory) {
+    Objects.requireNonNull(directory, "directory must not be null");
+
+    return create(Paths.get(directory));
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param directory the directory of the {@link ServerTransport} to connect to
+   * @return a new instance
+   * @throws NullPointerException if {@code directory} is {@code null}
+   */
+  public static SharedMemoryClientTransport create(Path directory) {
+    Objects.requireNonNull(directory, "directory must not be null");
+
+    return new SharedMemoryClientTransport(directory, DEFAULT_RING_CAPACITY);
+  }
+
+  /**
+   * Returns a copy of this transport whose connections use rings of {@code ringCapacity} bytes in
+   * each direction, {@value #DEFAULT_RING_CAPACITY} by default. Frames larger than the ring must
+   * be fragmented with an mtu.
+   *
+   * @param ringCapacity the capacity of each ring in bytes
+   * @return a new instance
+   * @throws IllegalArgumentException if {@code ringCapacity} is not a power of two of at least 4096
+   */
+  public SharedMemoryClientTransport ringCapacity(int ringCapacity) {
+    if (ringCapacity < 4096 || Integer.bitCount(ringCapacity) != 1) {
+      throw new IllegalArgumentException("ringCapacity must be a power of two of at least 4096");
+    }
+
+    return new SharedMemoryClientTransport(directory, ringCapacity);
+  }
+
+  private Mono<DuplexConnection> connect() {
+    return Mono.fromCallable(
+        () -> {
+          if (!Files.exists(SharedMemoryServerTransport.serverFile(directory))) {
+            throw new IllegalArgumentException("Could not find server: " + directory);
+          }
+
+          SharedMemoryDuplexConnection connection =
+              new SharedMemoryDuplexConnection(
+                  SharedMemoryFile.create(directory, ringCapacity),
+                  true,
+                  ByteBufAllocator.DEFAULT,
+                  BackoffIdleStrategy.DEFAULT_MAX_PARK_NANOS,
+                  ACCEPT_TIMEOUT_NANOS);
+          connection.start();
+          return connection;
+        });
+  }
+
+  @Override
+  public Mono<DuplexConnection> connect(int mtu) {
+    Mono<DuplexConnection> connect = connect();
+    if (mtu > 0) {
+      return connect.map(
+          duplexConnection ->
+              new FragmentationDuplexConnection(
+                  duplexConnection, ByteBufAllocator.DEFAULT, mtu, false));
+    } else {
+      return connect;
+    }
+  }
+}
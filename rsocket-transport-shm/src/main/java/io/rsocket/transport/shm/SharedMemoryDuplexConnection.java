@@ -0,0 +1,295 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.shm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.DuplexConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.UnicastProcessor;
+import reactor.util.concurrent.Queues;
+
+/**
+ * An implementation of {@link DuplexConnection} that exchanges frames with another process through
+ * a {@link SharedMemoryFile}.
+ *
+ * <p>A dedicated thread copies queued outbound frames into the outbound ring and inbound records
+ * into buffers emitted by {@link #receive()}. It never blocks on a full ring, so frames sent from
+ * within {@link #receive()} cannot deadlock two peers that both have a full ring. When neither ring
+ * has work it backs off with a {@link BackoffIdleStrategy}.
+ *
+ * <p>Each {@link #send(Publisher)} queues at most {@link Queues#SMALL_BUFFER_SIZE} frames and
+ * requests more as they are written to the ring, so a peer that stops reading stops the senders.
+ */
+final class SharedMemoryDuplexConnection implements DuplexConnection, Runnable {
+
+  private static final int MAX_FRAMES_PER_PASS = 64;
+  private static final int PREFETCH = Queues.SMALL_BUFFER_SIZE;
+
+  private final SharedMemoryFile file;
+  private final MappedRingBuffer in;
+  private final MappedRingBuffer out;
+  private final ByteBufAllocator allocator;
+  private final BackoffIdleStrategy idleStrategy;
+  private final CopyOnWriteArrayList<Sender> senders = new CopyOnWriteArrayList<>();
+  private final UnicastProcessor<ByteBuf> inbound = UnicastProcessor.create();
+  private final MonoProcessor<Void> onClose = MonoProcessor.create();
+  private final Thread thread;
+
+  private long acceptDeadline;
+
+  private volatile boolean disposed;
+
+  /** Set once the thread stopped polling the senders, which then release late frames themselves. */
+  private volatile boolean terminated;
+
+  /**
+   * Creates a new instance. The connection starts exchanging frames once {@link #start()} is
+   * called.
+   *
+   * @param file the mapped file shared with the peer
+   * @param client whether this is the client end of the connection
+   * @param allocator the allocator of inbound frames
+   * @param maxParkNanos the longest time to park while idle
+   * @param acceptTimeoutNanos the time the server has to accept the connection, {@code 0} for the
+   *     server end
+   */
+  SharedMemoryDuplexConnection(
+      SharedMemoryFile file,
+      boolean client,
+      ByteBufAllocator allocator,
+      long maxParkNanos,
+      long acceptTimeoutNanos) {
+    this.file = Objects.requireNonNull(file, "file must not be null");
+    this.in = client ? file.serverToClient() : file.clientToServer();
+    this.out = client ? file.clientToServer() : file.serverToClient();
+    this.allocator = Objects.requireNonNull(allocator, "allocator must not be null");
+    this.idleStrategy = new BackoffIdleStrategy(maxParkNanos);
+    this.acceptDeadline = acceptTimeoutNanos > 0 ? System.nanoTime() + acceptTimeoutNanos : 0;
+    this.thread = new Thread(this, "rsocket-shm-" + file.path().getFileName());
+    this.thread.setDaemon(true);
+  }
+
+  /** Starts the thread driving this connection. */
+  void start() {
+    thread.start();
+  }
+
+  @Override
+  public Mono<Void> send(Publisher<ByteBuf> frames) {
+    Objects.requireNonNull(frames, "frames must not be null");
+
+    return Mono.create(
+        sink -> {
+          Sender sender = new Sender(sink);
+          senders.add(sender);
+          sink.onCancel(sender);
+          Flux.from(frames).subscribe(sender);
+        });
+  }
+
+  @Override
+  public Flux<ByteBuf> receive() {
+    return inbound;
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+    LockSupport.unpark(thread);
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed;
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return onClose;
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (!disposed) {
+        int workCount = receiveFrames() + sendFrames();
+        if (workCount == 0 && isClosedByPeer()) {
+          break;
+        }
+        idleStrategy.idle(workCount);
+      }
+    } catch (Throwable t) {
+      inbound.onError(t);
+    } finally {
+      disposed = true;
+      terminated = true;
+      out.close();
+      releaseOutbound();
+      file.unmap();
+      // a close by either peer completes the inbound frames, no-op if they failed above
+      inbound.onComplete();
+      onClose.onComplete();
+    }
+  }
+
+  private int receiveFrames() {
+    int count = 0;
+    ByteBuffer record;
+    while (count < MAX_FRAMES_PER_PASS && (record = in.peek()) != null) {
+      ByteBuf frame = allocator.buffer(record.remaining());
+      frame.writeBytes(record);
+      in.release();
+      inbound.onNext(frame);
+      count++;
+    }
+    return count;
+  }
+
+  private int sendFrames() {
+    int count = 0;
+    for (Sender sender : senders) {
+      count += sender.drain(MAX_FRAMES_PER_PASS - count);
+      // stop once the pass is over or the ring is full
+      if (count == MAX_FRAMES_PER_PASS || !sender.queue.isEmpty()) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  private boolean isClosedByPeer() throws TimeoutException {
+    if (acceptDeadline != 0) {
+      if (file.isAccepted()) {
+        acceptDeadline = 0;
+      } else if (System.nanoTime() - acceptDeadline > 0) {
+        throw new TimeoutException("connection not accepted by server: " + file.path());
+      }
+    }
+
+    // records written before the ring was closed are visible once the closed flag is
+    return in.isClosed() && in.peek() == null;
+  }
+
+  /**
+   * Releases the frames still queued once the connection is closed. Called by the thread and by
+   * senders that queued a frame after it, one at a time.
+   */
+  private synchronized void releaseOutbound() {
+    for (Sender sender : senders) {
+      ByteBuf frame;
+      while ((frame = sender.queue.poll()) != null) {
+        frame.release();
+      }
+    }
+  }
+
+  /** Subscriber of the frames of one {@link #send(Publisher)}. */
+  private final class Sender extends BaseSubscriber<ByteBuf> {
+    final Queue<ByteBuf> queue = Queues.<ByteBuf>get(PREFETCH).get();
+    final MonoSink<Void> sink;
+    volatile boolean done;
+
+    Sender(MonoSink<Void> sink) {
+      this.sink = sink;
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+      subscription.request(PREFETCH);
+    }
+
+    @Override
+    protected void hookOnNext(ByteBuf frame) {
+      if (isDisposed()) {
+        // this sender was cancelled, the frame raced with the cancellation
+        frame.release();
+      } else if (disposed) {
+        frame.release();
+        cancel();
+        sink.error(new ClosedChannelException());
+      } else if (frame.readableBytes() > out.maxRecordLength()) {
+        int length = frame.readableBytes();
+        frame.release();
+        cancel();
+        sink.error(
+            new IllegalArgumentException(
+                "frame of "
+                    + length
+                    + " bytes exceeds the ring capacity, configure an mtu to fragment it"));
+      } else {
+        queue.offer(frame);
+        // the thread may have released the queued frames before this one was offered
+        if (terminated) {
+          releaseOutbound();
+        }
+      }
+    }
+
+    @Override
+    protected void hookOnComplete() {
+      sink.success();
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable) {
+      sink.error(throwable);
+    }
+
+    @Override
+    protected void hookFinally(SignalType type) {
+      done = true;
+    }
+
+    /**
+     * Writes up to {@code limit} queued frames to the ring and requests as many from upstream.
+     * Only called by the thread driving the connection.
+     */
+    int drain(int limit) {
+      int count = 0;
+      ByteBuf frame;
+      while (count < limit && (frame = queue.peek()) != null && out.offer(frame.nioBuffer())) {
+        queue.poll();
+        frame.release();
+        count++;
+      }
+
+      if (done) {
+        if (queue.isEmpty()) {
+          senders.remove(this);
+        }
+      } else if (count > 0) {
+        request(count);
+      }
+      return count;
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.shm;
+
+import io.netty.util.internal.PlatformDependent;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * A memory-mapped file shared by the two ends of a connection. It holds a header and one {@link
+ * MappedRingBuffer} per direction.
+ *
+ * <p>The client creates the file under a temporary name, initializes it and renames it to a name
+ * ending in {@value #SUFFIX}, so a server watching the directory only ever sees complete files. The
+ * server marks the file as accepted once it has mapped it.
+ */
+final class SharedMemoryFile {
+
+  static final String SUFFIX = ".rsocket";
+
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private static final int MAGIC = 0x52534D31;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int CAPACITY_OFFSET = 4;
+  private static final int ACCEPTED_OFFSET = 64;
+  private static final int HEADER_LENGTH = 128;
+
+  private final Path path;
+  private final MappedByteBuffer buffer;
+  private final long acceptedAddress;
+  private final MappedRingBuffer clientToServer;
+  private final MappedRingBuffer serverToClient;
+
+  private SharedMemoryFile(Path path, MappedByteBuffer buffer, int ringCapacity) {
+    this.path = path;
+    this.buffer = buffer;
+    this.acceptedAddress = UnsafeAccess.address(buffer) + ACCEPTED_OFFSET;
+    this.clientToServer = new MappedRingBuffer(buffer, HEADER_LENGTH, ringCapacity);
+    this.serverToClient =
+        new MappedRingBuffer(
+            buffer, HEADER_LENGTH + MappedRingBuffer.length(ringCapacity), ringCapacity);
+  }
+
+  /**
+   * Creates and maps a new file in {@code directory}. Client side.
+   *
+   * @param directory the directory the server watches
+   * @param ringCapacity the capacity of each ring in bytes, a power of two
+   * @return the mapped file
+   * @throws IOException if the file cannot be created or mapped
+   */
+  static SharedMemoryFile create(Path directory, int ringCapacity) throws IOException {
+    String name = UUID.randomUUID().toString();
+    Path temp = directory.resolve(name + TEMP_SUFFIX);
+    Path path = directory.resolve(name + SUFFIX);
+
+    MappedByteBuffer buffer;
+    try (FileChannel channel =
+        FileChannel.open(
+            temp,
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length(ringCapacity));
+    }
+
+    try {
+      buffer.putInt(CAPACITY_OFFSET, ringCapacity);
+      buffer.putInt(MAGIC_OFFSET, MAGIC);
+      SharedMemoryFile file = new SharedMemoryFile(path, buffer, ringCapacity);
+      Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+      return file;
+    } catch (IOException | RuntimeException e) {
+      PlatformDependent.freeDirectBuffer(buffer);
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+  }
+
+  /**
+   * Maps a file created by {@link #create(Path, int)}. Server side.
+   *
+   * @param path the file to map
+   * @return the mapped file
+   * @throws IOException if the file cannot be mapped or is not a shared memory file
+   */
+  static SharedMemoryFile open(Path path) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+
+    try {
+      if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+        throw new IOException("not a shared memory connection file: " + path);
+      }
+      int ringCapacity = buffer.getInt(CAPACITY_OFFSET);
+      if (ringCapacity <= 0 || buffer.capacity() != length(ringCapacity)) {
+        throw new IOException("invalid ring capacity " + ringCapacity + " in " + path);
+      }
+      return new SharedMemoryFile(path, buffer, ringCapacity);
+    } catch (IOException | RuntimeException e) {
+      PlatformDependent.freeDirectBuffer(buffer);
+      throw e;
+    }
+  }
+
+  private static int length(int ringCapacity) {
+    return HEADER_LENGTH + 2 * MappedRingBuffer.length(ringCapacity);
+  }
+
+  Path path() {
+    return path;
+  }
+
+  MappedRingBuffer clientToServer() {
+    return clientToServer;
+  }
+
+  MappedRingBuffer serverToClient() {
+    return serverToClient;
+  }
+
+  /** Marks the connection as accepted by the server. */
+  void accept() {
+    UnsafeAccess.putIntVolatile(acceptedAddress, 1);
+  }
+
+  /**
+   * Whether the server has accepted the connection.
+   *
+   * @return {@code true} if the connection was accepted
+   */
+  boolean isAccepted() {
+    return UnsafeAccess.getIntVolatile(acceptedAddress) != 0;
+  }
+
+  /** Deletes the file, if it still exists. The mapping stays valid on platforms that allow it. */
+  void delete() {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ignored) {
+      // still mapped on platforms that do not allow deleting mapped files, retried on unmap
+    }
+  }
+
+  /**
+   * Unmaps the file. The rings must not be accessed afterwards, so this is only called by the
+   * thread driving the connection once it stops.
+   */
+  void unmap() {
+    PlatformDependent.freeDirectBuffer(buffer);
+    delete();
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.shm;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.Closeable;
+import io.rsocket.DuplexConnection;
+import io.rsocket.fragmentation.FragmentationDuplexConnection;
+import io.rsocket.transport.ClientTransport;
+import io.rsocket.transport.ServerTransport;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * An implementation of {@link ServerTransport} that accepts {@link SharedMemoryClientTransport}
+ * connections of other processes on the same host through memory-mapped files.
+ *
+ * <p>The server watches a directory, ideally on a memory-backed file system such as {@code
+ * /dev/shm}, for the files clients create for their connections. The directory is created if
+ * needed and holds a marker file while the server is running.
+ */
+public final class SharedMemoryServerTransport implements ServerTransport<Closeable> {
+
+  private static final Logger logger = LoggerFactory.getLogger(SharedMemoryServerTransport.class);
+
+  private static final String SERVER_FILE = "server";
+
+  private final Path directory;
+
+  private SharedMemoryServerTransport(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param directory the directory clients connect through
+   * @return a new instance
+   * @throws NullPointerException if {@code directory} is {@code null}
+   */
+  public static SharedMemoryServerTransport create(String directory) {
+    Objects.requireNonNull(directory, "directory must not be null");
+
+    return create(Paths.get(directory));
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param directory the directory clients connect through
+   * @return a new instance
+   * @throws NullPointerException if {@code directory} is {@code null}
+   */
+  public static SharedMemoryServerTransport create(Path directory) {
+    Objects.requireNonNull(directory, "directory must not be null");
+
+    return new SharedMemoryServerTransport(directory);
+  }
+
+  static Path serverFile(Path directory) {
+    return directory.resolve(SERVER_FILE);
+  }
+
+  /**
+   * Returns a new {@link SharedMemoryClientTransport} that connects to this {@code
+   * SharedMemoryServerTransport}.
+   *
+   * @return a new {@link SharedMemoryClientTransport} that connects to this {@code
+   *     SharedMemoryServerTransport}
+   */
+  public SharedMemoryClientTransport clientTransport() {
+    return SharedMemoryClientTransport.create(directory);
+  }
+
+  @Override
+  public Mono<Closeable> start(ConnectionAcceptor acceptor, int mtu) {
+    Objects.requireNonNull(acceptor, "acceptor must not be null");
+
+    return Mono.fromCallable(
+        () -> {
+          Files.createDirectories(directory);
+          WatchService watchService = directory.getFileSystem().newWatchService();
+          try {
+            // watch before announcing the server, so no connection file is missed
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+            Files.write(serverFile(directory), new byte[0]);
+          } catch (IOException | RuntimeException e) {
+            watchService.close();
+            throw e;
+          }
+
+          ConnectionWatcher watcher =
+              new ConnectionWatcher(directory, watchService, acceptor, mtu);
+          watcher.start();
+          return watcher;
+        });
+  }
+
+  /** Accepts the connection files created in the directory of a server. */
+  static final class ConnectionWatcher implements Runnable, Closeable {
+
+    private final Path directory;
+    private final WatchService watchService;
+    private final ConnectionAcceptor acceptor;
+    private final int mtu;
+    private final Set<Path> accepted = ConcurrentHashMap.newKeySet();
+    private final MonoProcessor<Void> onClose = MonoProcessor.create();
+    private final Thread thread;
+
+    ConnectionWatcher(
+        Path directory, WatchService watchService, ConnectionAcceptor acceptor, int mtu) {
+      this.directory = directory;
+      this.watchService = watchService;
+      this.acceptor = acceptor;
+      this.mtu = mtu;
+      this.thread = new Thread(this, "rsocket-shm-server-" + directory.getFileName());
+      this.thread.setDaemon(true);
+    }
+
+    void start() {
+      thread.start();
+    }
+
+    @Override
+    public void run() {
+      try {
+        for (; ; ) {
+          WatchKey key = watchService.take();
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+              scan();
+            } else {
+              accept(directory.resolve((Path) event.context()));
+            }
+          }
+          key.reset();
+        }
+      } catch (ClosedWatchServiceException | InterruptedException e) {
+        // disposed
+      }
+    }
+
+    private void scan() {
+      try (DirectoryStream<Path> files =
+          Files.newDirectoryStream(directory, "*" + SharedMemoryFile.SUFFIX)) {
+        for (Path file : files) {
+          accept(file);
+        }
+      } catch (IOException e) {
+        logger.warn("Failed to list connections in {}", directory, e);
+      }
+    }
+
+    private void accept(Path path) {
+      if (!path.getFileName().toString().endsWith(SharedMemoryFile.SUFFIX)
+          || !accepted.add(path)) {
+        return;
+      }
+
+      SharedMemoryFile file;
+      try {
+        file = SharedMemoryFile.open(path);
+      } catch (IOException e) {
+        logger.warn("Failed to accept connection {}", path, e);
+        return;
+      }
+
+      SharedMemoryDuplexConnection connection =
+          new SharedMemoryDuplexConnection(
+              file, false, ByteBufAllocator.DEFAULT, BackoffIdleStrategy.DEFAULT_MAX_PARK_NANOS, 0);
+      connection.onClose().doFinally(signalType -> accepted.remove(path)).subscribe();
+      file.accept();
+      connection.start();
+      // the mapping stays valid, so the name can be freed right away where the platform allows it
+      file.delete();
+
+      DuplexConnection duplexConnection =
+          mtu > 0
+              ? new FragmentationDuplexConnection(connection, ByteBufAllocator.DEFAULT, mtu, false)
+              : connection;
+      acceptor
+          .apply(duplexConnection)
+          .then(Mono.<Void>never())
+          .subscribe(null, e -> duplexConnection.dispose());
+    }
+
+    @Override
+    public void dispose() {
+      try {
+        watchService.close();
+        Files.deleteIfExists(serverFile(directory));
+      } catch (IOException e) {
+        logger.warn("Failed to close server in {}", directory, e);
+      }
+      onClose.onComplete();
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return onClose.isDisposed();
+    }
+
+    @Override
+    public Mono<Void> onClose() {
+      return onClose;
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.shm;
+
+import io.netty.util.internal.PlatformDependent;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * Ordered and volatile access to memory shared with another process. {@link ByteBuffer} offers
+ * neither and Java 8 has no public API for them, so the positions of the rings are accessed through
+ * {@code sun.misc.Unsafe} at the address of the mapped buffer, which Netty provides.
+ *
+ * <p>{@code sun.misc.Unsafe} is looked up at runtime and its methods are bound to constant {@link
+ * MethodHandle}s, which the JIT compiles to the same intrinsics as direct calls. This keeps the
+ * build free of proprietary API warnings.
+ */
+final class UnsafeAccess {
+
+  private static final MethodHandle GET_LONG_VOLATILE;
+  private static final MethodHandle PUT_LONG_ORDERED;
+  private static final MethodHandle GET_INT_VOLATILE;
+  private static final MethodHandle PUT_INT_VOLATILE;
+
+  static {
+    if (!PlatformDependent.hasUnsafe()) {
+      throw new ExceptionInInitializerError("shared memory transport requires sun.misc.Unsafe");
+    }
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      Object unsafe = field.get(null);
+
+      GET_LONG_VOLATILE =
+          bind(
+              unsafe,
+              "getLongVolatile",
+              MethodType.methodType(long.class, Object.class, long.class));
+      PUT_LONG_ORDERED =
+          bind(
+              unsafe,
+              "putOrderedLong",
+              MethodType.methodType(void.class, Object.class, long.class, long.class));
+      GET_INT_VOLATILE =
+          bind(
+              unsafe, "getIntVolatile", MethodType.methodType(int.class, Object.class, long.class));
+      PUT_INT_VOLATILE =
+          bind(
+              unsafe,
+              "putIntVolatile",
+              MethodType.methodType(void.class, Object.class, long.class, int.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private UnsafeAccess() {}
+
+  /** Binds {@code unsafe} and a {@code null} base object, leaving the address arguments. */
+  private static MethodHandle bind(Object unsafe, String name, MethodType type)
+      throws ReflectiveOperationException {
+    MethodHandle handle = MethodHandles.lookup().findVirtual(unsafe.getClass(), name, type);
+    return MethodHandles.insertArguments(handle, 0, unsafe, null);
+  }
+
+  static long address(ByteBuffer buffer) {
+    if (!buffer.isDirect()) {
+      throw new IllegalArgumentException("buffer must be direct");
+    }
+    return PlatformDependent.directBufferAddress(buffer);
+  }
+
+  static long getLongVolatile(long address) {
+    try {
+      return (long) GET_LONG_VOLATILE.invokeExact(address);
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  static void putLongOrdered(long address, long value) {
+    try {
+      PUT_LONG_ORDERED.invokeExact(address, value);
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  static int getIntVolatile(long address) {
+    try {
+      return (int) GET_INT_VOLATILE.invokeExact(address);
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  static void putIntVolatile(long address, int value) {
+    try {
+      PUT_INT_VOLATILE.invokeExact(address, value);
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.shm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class MappedRingBufferTest {
+
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(MappedRingBuffer.length(64));
+  private final MappedRingBuffer producer = new MappedRingBuffer(buffer, 0, 64);
+  private final MappedRingBuffer consumer = new MappedRingBuffer(buffer, 0, 64);
+
+  @Test
+  void passesRecordsInOrder() {
+    assertThat(producer.offer(bytes("hello"))).isTrue();
+    assertThat(producer.offer(bytes("world"))).isTrue();
+
+    assertThat(string(consumer.peek())).isEqualTo("hello");
+    consumer.release();
+    assertThat(string(consumer.peek())).isEqualTo("world");
+    consumer.release();
+    assertThat(consumer.peek()).isNull();
+  }
+
+  @Test
+  void rejectsRecordsWhenFull() {
+    // records of 19 bytes take 24 bytes of the ring
+    assertThat(producer.offer(bytes("0123456789012345678"))).isTrue();
+    assertThat(producer.offer(bytes("0123456789012345678"))).isTrue();
+    assertThat(producer.offer(bytes("0123456789012345678"))).isFalse();
+
+    consumer.peek();
+    consumer.release();
+    assertThat(producer.offer(bytes("0123456789012345678"))).isTrue();
+  }
+
+  @Test
+  void wrapsRecordsWithPadding() {
+    for (int i = 0; i < 10; i++) {
+      String record = "record-" + i + "-0123456789";
+      assertThat(producer.offer(bytes(record))).isTrue();
+      assertThat(string(consumer.peek())).isEqualTo(record);
+      consumer.release();
+    }
+  }
+
+  @Test
+  void acceptsRecordsUpToCapacity() {
+    assertThat(producer.offer(bytes("x"))).isTrue();
+    consumer.peek();
+    consumer.release();
+
+    // the padding up to the end is published, the record waits for the consumer to skip it
+    ByteBuffer large = ByteBuffer.allocate(producer.maxRecordLength());
+    assertThat(producer.offer(large.duplicate())).isFalse();
+    assertThat(consumer.peek()).isNull();
+    assertThat(producer.offer(large.duplicate())).isTrue();
+    assertThat(consumer.peek().remaining()).isEqualTo(producer.maxRecordLength());
+    consumer.release();
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> producer.offer(ByteBuffer.allocate(producer.maxRecordLength() + 1)));
+  }
+
+  @Test
+  void closesAfterPendingRecords() {
+    producer.offer(bytes("last"));
+    producer.close();
+
+    assertThat(consumer.isClosed()).isTrue();
+    assertThat(string(consumer.peek())).isEqualTo("last");
+    consumer.release();
+    assertThat(consumer.peek()).isNull();
+  }
+
+  private static ByteBuffer bytes(String s) {
+    return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String string(ByteBuffer record) {
+    byte[] bytes = new byte[record.remaining()];
+    record.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
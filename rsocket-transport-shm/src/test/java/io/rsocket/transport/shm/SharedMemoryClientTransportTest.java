@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.shm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+import io.rsocket.DuplexConnection;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+final class SharedMemoryClientTransportTest {
+
+  private final Path directory =
+      Paths.get(System.getProperty("java.io.tmpdir"), "rsocket-" + UUID.randomUUID());
+
+  @DisplayName("connects to server")
+  @Test
+  void connect() {
+    SharedMemoryServerTransport serverTransport = SharedMemoryServerTransport.create(directory);
+
+    serverTransport
+        .start(duplexConnection -> Mono.empty(), 0)
+        .flatMap(closeable -> serverTransport.clientTransport().connect(0))
+        .as(StepVerifier::create)
+        .assertNext(connection -> assertThat(connection.isDisposed()).isFalse())
+        .verifyComplete();
+  }
+
+  @DisplayName("completes inbound frames when the server closes the connection")
+  @Test
+  void receiveCompletesOnServerClose() {
+    SharedMemoryServerTransport serverTransport = SharedMemoryServerTransport.create(directory);
+
+    serverTransport
+        .start(
+            duplexConnection -> {
+              duplexConnection.dispose();
+              return Mono.empty();
+            },
+            0)
+        .flatMap(closeable -> serverTransport.clientTransport().connect(0))
+        .flatMapMany(DuplexConnection::receive)
+        .as(StepVerifier::create)
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+  }
+
+  @DisplayName("closes the connection when the acceptor rejects it")
+  @Test
+  void acceptorError() {
+    SharedMemoryServerTransport serverTransport = SharedMemoryServerTransport.create(directory);
+
+    serverTransport
+        .start(duplexConnection -> Mono.error(new IllegalStateException("rejected")), 0)
+        .flatMap(closeable -> serverTransport.clientTransport().connect(0))
+        .flatMapMany(DuplexConnection::receive)
+        .as(StepVerifier::create)
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+  }
+
+    @DisplayName("generates error if server not started")
+  @Test
+  void connectNoServer() {
+    SharedMemoryClientTransport.create(directory)
+        .connect(0)
+        .as(StepVerifier::create)
+        .verifyErrorMessage("Could not find server: " + directory);
+  }
+
+  @DisplayName("create throws NullPointerException with null directory")
+  @Test
+  void createNullDirectory() {
+    assertThatNullPointerException()
+        .isThrownBy(() -> SharedMemoryClientTransport.create((Path) null))
+        .withMessage("directory must not be null");
+  }
+
+  @DisplayName("ringCapacity rejects capacities that are not a power of two")
+  @Test
+  void ringCapacityInvalid() {
+    SharedMemoryClientTransport transport = SharedMemoryClientTransport.create(directory);
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> transport.ringCapacity(5000))
+        .withMessage("ringCapacity must be a power of two of at least 4096");
+  }
+}
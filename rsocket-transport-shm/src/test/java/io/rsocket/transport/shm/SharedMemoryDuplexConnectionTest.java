@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.shm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.util.concurrent.Queues;
+
+final class SharedMemoryDuplexConnectionTest {
+
+  @DisplayName("stops requesting frames when the peer does not read them")
+  @Test
+  void sendKeepsBackpressure() throws IOException, InterruptedException {
+    Path directory = Files.createTempDirectory("rsocket-");
+    SharedMemoryDuplexConnection connection =
+        new SharedMemoryDuplexConnection(
+            SharedMemoryFile.create(directory, 4096),
+            true,
+            ByteBufAllocator.DEFAULT,
+            BackoffIdleStrategy.DEFAULT_MAX_PARK_NANOS,
+            0);
+    connection.start();
+
+    AtomicLong requested = new AtomicLong();
+    connection
+        .send(
+            Flux.range(0, 100_000)
+                .map(i -> Unpooled.buffer(64).writeZero(64))
+                .doOnRequest(requested::addAndGet))
+        .subscribe();
+    Thread.sleep(200);
+
+    // the ring holds fewer frames than the queue of the sender
+    assertThat(requested.get()).isLessThanOrEqualTo(2 * Queues.SMALL_BUFFER_SIZE);
+
+    connection.dispose();
+    connection.onClose().block(Duration.ofSeconds(5));
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.transport.shm;
+
+import io.rsocket.test.UriHandlerTest;
+import io.rsocket.uri.UriHandler;
+
+final class SharedMemoryUriHandlerTest implements UriHandlerTest {
+
+  @Override
+  public String getInvalidUri() {
+    return "amqp://test";
+  }
+
+  @Override
+  public UriHandler getUriHandler() {
+    return new SharedMemoryUriHandler();
+  }
+
+  @Override
+  public String getValidUri() {
+    return "shm:///dev/shm/rsocket";
+  }
+}